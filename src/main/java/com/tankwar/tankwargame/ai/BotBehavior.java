@@ -0,0 +1,171 @@
+package com.tankwar.tankwargame.ai;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import javafx.scene.input.KeyCode;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Bot behavior for the player role.
+ * Plays through the same Perception as the enemy AI and produces the same
+ * input bitmask a human would, so it can drive a local tank or a remote
+ * client connected to a server.
+ *
+ * Hunts the nearest target: approaches around obstacles, strafes to line up
+ * once in range, and fires when aligned with a clear line of sight.
+ *
+ * @author Iyed Acheche
+ */
+public class BotBehavior implements TankBehavior {
+    private static final double ATTACK_RANGE = 140.0;
+    private static final double STRAFE_TOLERANCE = 15.0;
+    private static final int STUCK_THRESHOLD = 15;
+    
+    private final double speed;
+    private List<? extends GameObject> targets = Collections.emptyList();
+    private double lastX = Double.NaN, lastY = Double.NaN;
+    private int stuckTicks = 0;
+    private boolean preferClockwise;
+    
+    public BotBehavior() {
+        this(0);
+    }
+    
+    /**
+     * @param botId varies the detour preference between bots
+     */
+    public BotBehavior(int botId) {
+        this.speed = GameConstants.TANK_SPEED;
+        this.preferClockwise = (botId % 2 == 0);
+    }
+    
+    /**
+     * Sets the tanks this bot hunts, typically the enemy tanks.
+     */
+    public void setTargets(List<? extends GameObject> targets) {
+        this.targets = targets;
+    }
+    
+    @Override
+    public void update(Tank tank, Set<KeyCode> pressedKeys, List<GameObject> obstacles, List<Missile> missiles) {
+        int input = decide(tank, tank.getDirection(), targets, obstacles, Perception::blocksSight);
+        PlayerBehavior.applyInput(tank, input, obstacles, missiles);
+    }
+    
+    /**
+     * Chooses this tick's input.
+     * @param self the controlled tank, or a replica of it
+     * @param facing the direction the tank currently faces
+     * @param blocksSight which obstacles block shots
+     * @return a PlayerInput bitmask
+     */
+    public int decide(GameObject self, Direction facing, List<? extends GameObject> targets,
+                      List<? extends GameObject> obstacles, Predicate<GameObject> blocksSight) {
+        if (!self.isActive()) return PlayerInput.NONE;
+        
+        double movement = Math.abs(self.getX() - lastX) + Math.abs(self.getY() - lastY);
+        stuckTicks = (movement < 1) ? stuckTicks + 1 : 0;
+        lastX = self.getX();
+        lastY = self.getY();
+        if (stuckTicks > STUCK_THRESHOLD) {
+            preferClockwise = !preferClockwise;
+            stuckTicks = 0;
+        }
+        
+        GameObject target = nearest(self, targets);
+        if (target == null) return PlayerInput.NONE;
+        
+        Direction toTarget = Perception.directionTo(self, target);
+        int input;
+        if (Perception.distance(self, target) > ATTACK_RANGE) {
+            input = approach(self, target, toTarget, obstacles);
+        } else {
+            input = lineUp(self, target, toTarget, facing, obstacles);
+        }
+        
+        // Moving turns the tank, so judge the shot from the direction it will face
+        Direction nextFacing = facingAfter(input, facing);
+        if (Perception.isAligned(self, nextFacing, target)
+                && Perception.hasLineOfSight(self, target, obstacles, blocksSight)) {
+            input |= PlayerInput.FIRE;
+        }
+        return input;
+    }
+    
+    /**
+     * Moves toward the target, detouring around obstacles.
+     */
+    private int approach(GameObject self, GameObject target, Direction toTarget, List<? extends GameObject> obstacles) {
+        Direction secondary = Perception.secondaryDirectionTo(self, target);
+        Direction first = preferClockwise ? toTarget.getClockwise() : toTarget.getCounterClockwise();
+        Direction second = preferClockwise ? toTarget.getCounterClockwise() : toTarget.getClockwise();
+        Direction[] priorities = {toTarget, secondary, first, second, toTarget.getOpposite()};
+        
+        for (Direction dir : priorities) {
+            if (Perception.canMove(self, dir, speed, obstacles)) {
+                return inputFor(dir);
+            }
+        }
+        return PlayerInput.NONE;
+    }
+    
+    /**
+     * In range: strafe across the line of fire until aligned, then face the target.
+     */
+    private int lineUp(GameObject self, GameObject target, Direction toTarget, Direction facing,
+                       List<? extends GameObject> obstacles) {
+        double dx = target.getX() - self.getX();
+        double dy = target.getY() - self.getY();
+        
+        Direction strafe = null;
+        if (toTarget == Direction.UP || toTarget == Direction.DOWN) {
+            if (Math.abs(dx) > STRAFE_TOLERANCE) strafe = dx > 0 ? Direction.RIGHT : Direction.LEFT;
+        } else {
+            if (Math.abs(dy) > STRAFE_TOLERANCE) strafe = dy > 0 ? Direction.DOWN : Direction.UP;
+        }
+        
+        if (strafe != null && Perception.canMove(self, strafe, speed, obstacles)) {
+            return inputFor(strafe);
+        }
+        if (facing != toTarget) {
+            // A single step toward the target turns the turret onto it
+            return inputFor(toTarget);
+        }
+        return PlayerInput.NONE;
+    }
+    
+    private static GameObject nearest(GameObject self, List<? extends GameObject> targets) {
+        GameObject best = null;
+        double bestDist = Double.MAX_VALUE;
+        for (GameObject target : targets) {
+            if (!target.isActive() || target == self) continue;
+            double dist = Perception.distance(self, target);
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = target;
+            }
+        }
+        return best;
+    }
+    
+    private static int inputFor(Direction dir) {
+        switch (dir) {
+            case UP:    return PlayerInput.UP;
+            case DOWN:  return PlayerInput.DOWN;
+            case LEFT:  return PlayerInput.LEFT;
+            default:    return PlayerInput.RIGHT;
+        }
+    }
+    
+    private static Direction facingAfter(int input, Direction facing) {
+        if (PlayerInput.has(input, PlayerInput.UP)) return Direction.UP;
+        if (PlayerInput.has(input, PlayerInput.DOWN)) return Direction.DOWN;
+        if (PlayerInput.has(input, PlayerInput.LEFT)) return Direction.LEFT;
+        if (PlayerInput.has(input, PlayerInput.RIGHT)) return Direction.RIGHT;
+        return facing;
+    }
+}
@@ -1,11 +1,14 @@
 package com.tankwar.tankwargame.ai;
 
+import com.tankwar.tankwargame.core.MatchContext;
 import com.tankwar.tankwargame.entities.base.GameObject;
-import com.tankwar.tankwargame.entities.environment.DestructibleWall;
-import com.tankwar.tankwargame.entities.environment.Wall;
 import com.tankwar.tankwargame.entities.tanks.Tank;
 import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.EntityHandle;
 import com.tankwar.tankwargame.util.GameConstants;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -49,13 +52,12 @@ public class EnemyAI {
     private int directionTicks = 0;  // How long we've been moving in current direction
     private boolean followWallClockwise;  // Alternates navigation preference when stuck
     
-    // Unique ID for coordination
-    private static int nextId = 0;
-    private final int tankId;
+    // Handle of the controlled tank, used to coordinate with the other AIs
+    private int tankHandle;
+    private final MatchContext context;
     
     // Timing
     private boolean shouldShoot = false;
-    private long lastUpdateTime = 0;
     
     // Constants - Chase radius ~1/3 of map
     private static final double ENGAGEMENT_RANGE = 280.0;  // Start chasing within this range
@@ -64,14 +66,12 @@ public class EnemyAI {
     private static final int STUCK_THRESHOLD = 15;
     private static final int MAX_CHASERS = 3;  // Maximum tanks that can chase at once
     
-    // Shared state for coordination (which tanks are currently chasing)
-    private static final Set<Integer> activeChasers = new HashSet<>();
-    
-    public EnemyAI() {
-        this.tankId = nextId++;
-        this.currentDirection = Direction.values()[(int)(Math.random() * 4)];
+    public EnemyAI(int tankHandle) {
+        this.context = MatchContext.current();
+        this.tankHandle = tankHandle;
+        this.currentDirection = Direction.values()[(int)(context.getRandom().nextDouble() * 4)];
         // Alternate wall-following direction for variety
-        this.followWallClockwise = (tankId % 2 == 0);
+        this.followWallClockwise = (EntityHandle.index(tankHandle) % 2 == 0);
     }
     
     /**
@@ -84,13 +84,10 @@ public class EnemyAI {
     public void updateAI(Tank self, Tank player, List<GameObject> obstacles, List<Tank> allEnemies) {
         if (!self.isActive() || player == null || !player.isActive()) return;
         
-        // Frame rate limiting
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastUpdateTime < 16) return;
-        lastUpdateTime = currentTime;
-        
         shouldShoot = false;
-        double distToPlayer = distance(self, player);
+        // One scan of the obstacles per turn; every move check below uses these contacts
+        self.gatherContacts(obstacles);
+        double distToPlayer = Perception.distance(self, player);
         
         // Track movement for stuck detection
         double movement = Math.abs(self.getX() - lastX) + Math.abs(self.getY() - lastY);
@@ -130,16 +127,16 @@ public class EnemyAI {
         // === EXECUTE BEHAVIOR ===
         switch (currentState) {
             case PATROLLING:
-                patrol(self, player, obstacles);
+                patrol(self, player);
                 break;
             case APPROACHING:
-                approach(self, player, obstacles);
+                approach(self, player);
                 break;
             case FLANKING:
-                flank(self, player, obstacles);
+                flank(self, player);
                 break;
             case ATTACKING:
-                attack(self, player, obstacles);
+                attack(self, player);
                 break;
         }
         
@@ -158,29 +155,26 @@ public class EnemyAI {
      * Check if this tank can become a new chaser (under the limit).
      */
     private boolean canBecomeChaser() {
-        synchronized (activeChasers) {
-            return activeChasers.size() < MAX_CHASERS;
-        }
+        return context.getActiveChasers().size() < MAX_CHASERS;
     }
     
     /**
      * Update the shared chaser registry when state changes.
      */
     private void updateChaserStatus(boolean wasChasing, boolean nowChasing) {
-        synchronized (activeChasers) {
-            if (!wasChasing && nowChasing) {
-                // Became a chaser
-                activeChasers.add(tankId);
-            } else if (wasChasing && !nowChasing) {
-                // Stopped chasing
-                activeChasers.remove(tankId);
-            }
+        Set<Integer> activeChasers = context.getActiveChasers();
+        if (!wasChasing && nowChasing) {
+            // Became a chaser
+            activeChasers.add(tankHandle);
+        } else if (wasChasing && !nowChasing) {
+            // Stopped chasing
+            activeChasers.remove(tankHandle);
         }
     }
     
     /**
      * Coordinate attack roles among nearby tanks.
-     * Tanks split into DIRECT, FLANK_LEFT, and FLANK_RIGHT based on their ID.
+     * Tanks split into DIRECT, FLANK_LEFT, and FLANK_RIGHT based on their handle.
      */
     private void assignCombatRole(Tank self, Tank player, List<Tank> allEnemies) {
         if (allEnemies == null || allEnemies.isEmpty()) {
@@ -191,12 +185,12 @@ public class EnemyAI {
         // Count how many tanks are near the player
         int nearbyCount = 0;
         for (Tank enemy : allEnemies) {
-            if (enemy.isActive() && distance(enemy, player) < COORDINATION_RANGE) {
+            if (enemy.isActive() && Perception.distance(enemy, player) < COORDINATION_RANGE) {
                 nearbyCount++;
             }
         }
         
-        boolean selfNearPlayer = distance(self, player) < COORDINATION_RANGE;
+        boolean selfNearPlayer = Perception.distance(self, player) < COORDINATION_RANGE;
         
         // If alone or far from player, just attack directly
         if (!selfNearPlayer || nearbyCount <= 1) {
@@ -204,9 +198,9 @@ public class EnemyAI {
             return;
         }
         
-        // Assign roles based on tank ID for consistency
+        // Assign roles based on the tank's slot for consistency
         // This ensures tanks always get the same role, creating stable pincer movements
-        switch (tankId % 3) {
+        switch (EntityHandle.index(tankHandle) % 3) {
             case 0:
                 combatRole = CombatRole.DIRECT;
                 break;
@@ -223,39 +217,39 @@ public class EnemyAI {
      * Patrol: Wander around the map, occasionally drifting toward player.
      * Creates natural movement while waiting for chase slot.
      */
-    private void patrol(Tank self, Tank player, List<GameObject> obstacles) {
+    private void patrol(Tank self, Tank player) {
         directionTicks++;
         
         // Occasionally (every ~2 seconds) consider turning toward player
-        if (directionTicks > 60 && Math.random() < 0.1) {
-            Direction toPlayer = directionTo(self, player);
-            if (canMove(self, toPlayer, obstacles)) {
+        if (directionTicks > 60 && context.getRandom().nextDouble() < 0.1) {
+            Direction toPlayer = Perception.directionTo(self, player);
+            if (canMove(self, toPlayer)) {
                 currentDirection = toPlayer;
                 directionTicks = 0;
             }
         }
         
         // Change direction randomly sometimes for natural wandering
-        if (directionTicks > 40 && Math.random() < 0.05) {
+        if (directionTicks > 40 && context.getRandom().nextDouble() < 0.05) {
             Direction[] dirs = Direction.values();
-            Direction newDir = dirs[(int)(Math.random() * dirs.length)];
-            if (canMove(self, newDir, obstacles)) {
+            Direction newDir = dirs[(int)(context.getRandom().nextDouble() * dirs.length)];
+            if (canMove(self, newDir)) {
                 currentDirection = newDir;
                 directionTicks = 0;
             }
         }
         
         // If blocked or stuck, pick a new direction
-        if (stuckTicks > STUCK_THRESHOLD / 2 || !canMove(self, currentDirection, obstacles)) {
+        if (stuckTicks > STUCK_THRESHOLD / 2 || !canMove(self, currentDirection)) {
             // Try perpendiculars first
             Direction perp1 = currentDirection.getClockwise();
             Direction perp2 = currentDirection.getCounterClockwise();
             
-            if (canMove(self, perp1, obstacles)) {
+            if (canMove(self, perp1)) {
                 currentDirection = perp1;
-            } else if (canMove(self, perp2, obstacles)) {
+            } else if (canMove(self, perp2)) {
                 currentDirection = perp2;
-            } else if (canMove(self, currentDirection.getOpposite(), obstacles)) {
+            } else if (canMove(self, currentDirection.getOpposite())) {
                 currentDirection = currentDirection.getOpposite();
             }
             stuckTicks = 0;
@@ -263,8 +257,8 @@ public class EnemyAI {
         }
         
         // Move in current direction
-        if (canMove(self, currentDirection, obstacles)) {
-            moveInDirection(self, currentDirection, obstacles);
+        if (canMove(self, currentDirection)) {
+            moveInDirection(self, currentDirection);
         }
     }
     
@@ -273,9 +267,9 @@ public class EnemyAI {
      * Uses simple but effective strategy: always try to make progress toward player,
      * cycling through directions when blocked.
      */
-    private void approach(Tank self, Tank player, List<GameObject> obstacles) {
-        Direction toPlayer = directionTo(self, player);
-        Direction secondaryDir = getSecondaryDirection(self, player);
+    private void approach(Tank self, Tank player) {
+        Direction toPlayer = Perception.directionTo(self, player);
+        Direction secondaryDir = Perception.secondaryDirectionTo(self, player);
         
         // Build priority list: direct path, secondary axis, perpendiculars, then backwards
         Direction[] priorities;
@@ -306,8 +300,8 @@ public class EnemyAI {
         // Try each direction in priority order
         boolean moved = false;
         for (Direction dir : priorities) {
-            if (dir != null && canMove(self, dir, obstacles)) {
-                moveInDirection(self, dir, obstacles);
+            if (dir != null && canMove(self, dir)) {
+                moveInDirection(self, dir);
                 currentDirection = dir;
                 moved = true;
                 break;
@@ -317,8 +311,8 @@ public class EnemyAI {
         // If completely stuck, try any direction
         if (!moved) {
             for (Direction dir : Direction.values()) {
-                if (canMove(self, dir, obstacles)) {
-                    moveInDirection(self, dir, obstacles);
+                if (canMove(self, dir)) {
+                    moveInDirection(self, dir);
                     currentDirection = dir;
                     break;
                 }
@@ -329,28 +323,12 @@ public class EnemyAI {
         self.setDirection(toPlayer);
     }
     
-    /**
-     * Get the secondary direction toward the player (the lesser axis).
-     * If player is mostly to the right and slightly up, returns UP.
-     */
-    private Direction getSecondaryDirection(GameObject from, GameObject to) {
-        double dx = to.getX() - from.getX();
-        double dy = to.getY() - from.getY();
-        
-        // Return the direction along the SMALLER axis
-        if (Math.abs(dx) <= Math.abs(dy)) {
-            return dx > 0 ? Direction.RIGHT : Direction.LEFT;
-        } else {
-            return dy > 0 ? Direction.DOWN : Direction.UP;
-        }
-    }
-    
     /**
      * Flank: Circle around to attack from the side.
      * Creates pincer movements when coordinated with other tanks.
      */
-    private void flank(Tank self, Tank player, List<GameObject> obstacles) {
-        Direction toPlayer = directionTo(self, player);
+    private void flank(Tank self, Tank player) {
+        Direction toPlayer = Perception.directionTo(self, player);
         Direction flankDir = (combatRole == CombatRole.FLANK_LEFT) ? 
             toPlayer.getCounterClockwise() : toPlayer.getClockwise();
         Direction altFlank = (combatRole == CombatRole.FLANK_LEFT) ? 
@@ -372,8 +350,8 @@ public class EnemyAI {
         
         boolean moved = false;
         for (Direction dir : priorities) {
-            if (canMove(self, dir, obstacles)) {
-                moveInDirection(self, dir, obstacles);
+            if (canMove(self, dir)) {
+                moveInDirection(self, dir);
                 currentDirection = dir;
                 moved = true;
                 break;
@@ -383,8 +361,8 @@ public class EnemyAI {
         // If completely stuck, try any direction
         if (!moved) {
             for (Direction dir : Direction.values()) {
-                if (canMove(self, dir, obstacles)) {
-                    moveInDirection(self, dir, obstacles);
+                if (canMove(self, dir)) {
+                    moveInDirection(self, dir);
                     currentDirection = dir;
                     break;
                 }
@@ -399,8 +377,8 @@ public class EnemyAI {
      * Attack: Stay relatively still, focus on aiming and shooting.
      * Makes small adjustments to line up shots.
      */
-    private void attack(Tank self, Tank player, List<GameObject> obstacles) {
-        Direction toPlayer = directionTo(self, player);
+    private void attack(Tank self, Tank player) {
+        Direction toPlayer = Perception.directionTo(self, player);
         self.setDirection(toPlayer);
         
         // Calculate offset from player
@@ -412,16 +390,16 @@ public class EnemyAI {
             // Vertical alignment - strafe horizontally to line up
             if (Math.abs(dx) > 15) {
                 Direction strafeDir = dx > 0 ? Direction.RIGHT : Direction.LEFT;
-                if (canMove(self, strafeDir, obstacles)) {
-                    moveInDirection(self, strafeDir, obstacles);
+                if (canMove(self, strafeDir)) {
+                    moveInDirection(self, strafeDir);
                 }
             }
         } else {
             // Horizontal alignment - strafe vertically to line up
             if (Math.abs(dy) > 15) {
                 Direction strafeDir = dy > 0 ? Direction.DOWN : Direction.UP;
-                if (canMove(self, strafeDir, obstacles)) {
-                    moveInDirection(self, strafeDir, obstacles);
+                if (canMove(self, strafeDir)) {
+                    moveInDirection(self, strafeDir);
                 }
             }
         }
@@ -432,119 +410,59 @@ public class EnemyAI {
      * Shoots when aligned and has line of sight.
      */
     private void checkShoot(Tank self, Tank player, List<GameObject> obstacles) {
-        Direction facing = self.getDirection();
-        double dx = player.getX() - self.getX();
-        double dy = player.getY() - self.getY();
-        
-        boolean aligned = false;
-        double tolerance = 35;  // Alignment tolerance in pixels
-        
-        switch (facing) {
-            case UP:    aligned = dy < 0 && Math.abs(dx) < tolerance; break;
-            case DOWN:  aligned = dy > 0 && Math.abs(dx) < tolerance; break;
-            case LEFT:  aligned = dx < 0 && Math.abs(dy) < tolerance; break;
-            case RIGHT: aligned = dx > 0 && Math.abs(dy) < tolerance; break;
-        }
+        boolean aligned = Perception.isAligned(self, self.getDirection(), player);
         
-        if (aligned && hasLineOfSight(self, player, obstacles)) {
+        if (aligned && Perception.hasLineOfSight(self, player, obstacles)) {
             shouldShoot = true;
         }
     }
     
     // === UTILITY METHODS ===
     
-    /**
-     * Get the cardinal direction from one object to another.
-     */
-    private Direction directionTo(GameObject from, GameObject to) {
-        double dx = to.getX() - from.getX();
-        double dy = to.getY() - from.getY();
-        
-        if (Math.abs(dx) > Math.abs(dy)) {
-            return dx > 0 ? Direction.RIGHT : Direction.LEFT;
-        } else {
-            return dy > 0 ? Direction.DOWN : Direction.UP;
-        }
-    }
-    
     /**
      * Move the tank in the specified direction.
      */
-    private void moveInDirection(Tank self, Direction dir, List<GameObject> obstacles) {
-        self.move(dir, obstacles);
+    private void moveInDirection(Tank self, Direction dir) {
+        self.steer(dir, dir.getDx(), dir.getDy());
     }
     
     /**
-     * Check if the tank can move in the specified direction without colliding.
+     * Check if the tank can move in the specified direction without colliding,
+     * against the contacts gathered at the start of the turn.
      */
-    private boolean canMove(Tank tank, Direction dir, List<GameObject> obstacles) {
-        double speed = GameConstants.ENEMY_TANK_SPEED;
-        double newX = tank.getX() + dir.getDx() * speed;
-        double newY = tank.getY() + dir.getDy() * speed;
-        
-        // Boundary check
-        if (newX < 0 || newY < 0 || 
-            newX + tank.getWidth() > GameConstants.GAME_WIDTH || 
-            newY + tank.getHeight() > GameConstants.GAME_HEIGHT) {
-            return false;
-        }
-        
-        // Obstacle collision check with small buffer for smoother navigation
-        final int BUFFER = 2;
-        for (GameObject obs : obstacles) {
-            if (obs == tank || !obs.isActive()) continue;
-            
-            if (newX + BUFFER < obs.getX() + obs.getWidth() - BUFFER && 
-                newX + tank.getWidth() - BUFFER > obs.getX() + BUFFER &&
-                newY + BUFFER < obs.getY() + obs.getHeight() - BUFFER && 
-                newY + tank.getHeight() - BUFFER > obs.getY() + BUFFER) {
-                return false;
-            }
-        }
-        return true;
+    private boolean canMove(Tank tank, Direction dir) {
+        return tank.getMovement().canMove(dir, GameConstants.ENEMY_TANK_SPEED);
     }
     
+    // === STATE TRANSFER ===
+    
     /**
-     * Check if there's a clear line of sight between two tanks.
-     * Used for shooting decisions.
+     * Writes the decision state so a migrated match continues exactly.
      */
-    private boolean hasLineOfSight(Tank from, Tank to, List<GameObject> obstacles) {
-        double fx = from.getX() + from.getWidth() / 2;
-        double fy = from.getY() + from.getHeight() / 2;
-        double tx = to.getX() + to.getWidth() / 2;
-        double ty = to.getY() + to.getHeight() / 2;
-        
-        double dx = tx - fx, dy = ty - fy;
-        double dist = Math.sqrt(dx * dx + dy * dy);
-        if (dist < 1) return true;
-        
-        dx /= dist; 
-        dy /= dist;
-        
-        // Ray march along the line checking for wall collisions
-        for (double t = 15; t < dist - 15; t += 15) {
-            double cx = fx + dx * t;
-            double cy = fy + dy * t;
-            
-            for (GameObject obs : obstacles) {
-                if ((obs instanceof Wall || obs instanceof DestructibleWall) && obs.isActive()) {
-                    if (cx >= obs.getX() && cx <= obs.getX() + obs.getWidth() &&
-                        cy >= obs.getY() && cy <= obs.getY() + obs.getHeight()) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(tankHandle);
+        out.writeByte(currentState.ordinal());
+        out.writeByte(combatRole.ordinal());
+        out.writeByte(currentDirection.ordinal());
+        out.writeDouble(lastX);
+        out.writeDouble(lastY);
+        out.writeInt(stuckTicks);
+        out.writeInt(directionTicks);
+        out.writeBoolean(followWallClockwise);
+        out.writeBoolean(shouldShoot);
     }
     
-    /**
-     * Calculate distance between two game objects.
-     */
-    private double distance(GameObject a, GameObject b) {
-        double dx = a.getX() - b.getX();
-        double dy = a.getY() - b.getY();
-        return Math.sqrt(dx * dx + dy * dy);
+    public void readState(DataInput in) throws IOException {
+        tankHandle = in.readInt();
+        currentState = AIState.values()[in.readByte()];
+        combatRole = CombatRole.values()[in.readByte()];
+        currentDirection = Direction.values()[in.readByte()];
+        lastX = in.readDouble();
+        lastY = in.readDouble();
+        stuckTicks = in.readInt();
+        directionTicks = in.readInt();
+        followWallClockwise = in.readBoolean();
+        shouldShoot = in.readBoolean();
     }
     
     // === PUBLIC GETTERS ===
@@ -554,12 +472,9 @@ public class EnemyAI {
     public boolean wantsToShoot() { return shouldShoot; }
     
     /**
-     * Reset the AI ID counter and chaser registry. Call when starting a new game.
+     * Reset the chaser registry of the current match.
      */
-    public static void resetIdCounter() { 
-        nextId = 0; 
-        synchronized (activeChasers) {
-            activeChasers.clear();
-        }
+    public static void resetCoordination() {
+        MatchContext.current().resetAI();
     }
 }
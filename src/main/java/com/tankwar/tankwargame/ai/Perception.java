@@ -0,0 +1,157 @@
+package com.tankwar.tankwargame.ai;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.util.CollisionLayers;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * What a tank controller can sense about the world: directions, distances,
+ * free movement and line of sight.
+ * Shared by the enemy AI and the player bot so both play from the same view.
+ * @author Iyed Acheche
+ */
+public final class Perception {
+    // Alignment tolerance in pixels for a shot to count as lined up
+    public static final double SHOT_TOLERANCE = 35;
+    
+    private static final int MOVE_BUFFER = 2;
+    private static final double SIGHT_STEP = 15;
+    
+    private Perception() {}
+    
+    /**
+     * Get the cardinal direction from one object to another.
+     */
+    public static Direction directionTo(GameObject from, GameObject to) {
+        double dx = to.getX() - from.getX();
+        double dy = to.getY() - from.getY();
+        
+        if (Math.abs(dx) > Math.abs(dy)) {
+            return dx > 0 ? Direction.RIGHT : Direction.LEFT;
+        } else {
+            return dy > 0 ? Direction.DOWN : Direction.UP;
+        }
+    }
+    
+    /**
+     * Get the direction along the lesser axis toward a target.
+     * If the target is mostly to the right and slightly up, returns UP.
+     */
+    public static Direction secondaryDirectionTo(GameObject from, GameObject to) {
+        double dx = to.getX() - from.getX();
+        double dy = to.getY() - from.getY();
+        
+        if (Math.abs(dx) <= Math.abs(dy)) {
+            return dx > 0 ? Direction.RIGHT : Direction.LEFT;
+        } else {
+            return dy > 0 ? Direction.DOWN : Direction.UP;
+        }
+    }
+    
+    /**
+     * Calculate distance between two game objects.
+     */
+    public static double distance(GameObject a, GameObject b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+    
+    /**
+     * Check if an object can take one step in a direction without colliding.
+     * Uses a small buffer for smoother navigation around corners.
+     */
+    public static boolean canMove(GameObject mover, Direction dir, double speed, List<? extends GameObject> obstacles) {
+        double newX = mover.getX() + dir.getDx() * speed;
+        double newY = mover.getY() + dir.getDy() * speed;
+        
+        // Boundary check
+        if (newX < 0 || newY < 0 ||
+            newX + mover.getWidth() > GameConstants.GAME_WIDTH ||
+            newY + mover.getHeight() > GameConstants.GAME_HEIGHT) {
+            return false;
+        }
+        
+        for (GameObject obs : obstacles) {
+            if (obs == mover || !obs.isActive() || (mover.getCollisionMask() & obs.getLayer()) == 0) continue;
+            
+            if (newX + MOVE_BUFFER < obs.getX() + obs.getWidth() - MOVE_BUFFER &&
+                newX + mover.getWidth() - MOVE_BUFFER > obs.getX() + MOVE_BUFFER &&
+                newY + MOVE_BUFFER < obs.getY() + obs.getHeight() - MOVE_BUFFER &&
+                newY + mover.getHeight() - MOVE_BUFFER > obs.getY() + MOVE_BUFFER) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Check if a shot fired in the given direction would travel toward the target.
+     */
+    public static boolean isAligned(GameObject self, Direction facing, GameObject target) {
+        double dx = target.getX() - self.getX();
+        double dy = target.getY() - self.getY();
+        
+        switch (facing) {
+            case UP:    return dy < 0 && Math.abs(dx) < SHOT_TOLERANCE;
+            case DOWN:  return dy > 0 && Math.abs(dx) < SHOT_TOLERANCE;
+            case LEFT:  return dx < 0 && Math.abs(dy) < SHOT_TOLERANCE;
+            case RIGHT: return dx > 0 && Math.abs(dy) < SHOT_TOLERANCE;
+            default:    return false;
+        }
+    }
+    
+    /**
+     * Check if there's a clear line of sight between two objects' centers,
+     * treating walls and destructible walls as blocking.
+     */
+    public static boolean hasLineOfSight(GameObject from, GameObject to, List<? extends GameObject> obstacles) {
+        return hasLineOfSight(from, to, obstacles, Perception::blocksSight);
+    }
+    
+    /**
+     * Check if there's a clear line of sight, with a caller-defined notion of
+     * what blocks it. Replicated worlds on clients use this with their own
+     * entity types.
+     */
+    public static boolean hasLineOfSight(GameObject from, GameObject to, List<? extends GameObject> obstacles,
+                                         Predicate<GameObject> blocksSight) {
+        double fx = from.getX() + from.getWidth() / 2;
+        double fy = from.getY() + from.getHeight() / 2;
+        double tx = to.getX() + to.getWidth() / 2;
+        double ty = to.getY() + to.getHeight() / 2;
+        
+        double dx = tx - fx, dy = ty - fy;
+        double dist = Math.sqrt(dx * dx + dy * dy);
+        if (dist < 1) return true;
+        
+        dx /= dist;
+        dy /= dist;
+        
+        // Ray march along the line checking for wall collisions
+        for (double t = SIGHT_STEP; t < dist - SIGHT_STEP; t += SIGHT_STEP) {
+            double cx = fx + dx * t;
+            double cy = fy + dy * t;
+            
+            for (GameObject obs : obstacles) {
+                if (obs.isActive() && blocksSight.test(obs)) {
+                    if (cx >= obs.getX() && cx <= obs.getX() + obs.getWidth() &&
+                        cy >= obs.getY() && cy <= obs.getY() + obs.getHeight()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Walls and destructible walls block sight, by layer.
+     */
+    public static boolean blocksSight(GameObject obj) {
+        return (obj.getLayer() & CollisionLayers.SIGHT_BLOCKERS) != 0;
+    }
+}
@@ -15,28 +15,54 @@ import java.util.*;
 public class PlayerBehavior implements TankBehavior {
     @Override
     public void update(Tank tank, Set<KeyCode> pressedKeys, List<GameObject> obstacles, List<Missile> missiles) {
+        applyInput(tank, PlayerInput.fromKeys(pressedKeys), obstacles, missiles);
+    }
+    
+    /**
+     * Applies one tick of encoded input: movement first, then firing.
+     */
+    public static void applyInput(Tank tank, int input, List<GameObject> obstacles, List<Missile> missiles) {
         if (!tank.isActive()) return;
         
-        if (pressedKeys.contains(KeyCode.UP)) {
-            tank.move(Direction.UP, obstacles);
-        }
-        if (pressedKeys.contains(KeyCode.DOWN)) {
-            tank.move(Direction.DOWN, obstacles);
-        }
-        if (pressedKeys.contains(KeyCode.LEFT)) {
-            tank.move(Direction.LEFT, obstacles);
-        }
-        if (pressedKeys.contains(KeyCode.RIGHT)) {
-            tank.move(Direction.RIGHT, obstacles);
-        }
+        applyMovement(tank, input, obstacles);
         
-        if (pressedKeys.contains(KeyCode.SPACE)) {
+        if (PlayerInput.has(input, PlayerInput.FIRE)) {
             Missile missile = tank.fire();
             if (missile != null) {
                 missiles.add(missile);
             }
         }
     }
+    
+    /**
+     * Applies only the movement part of an input. Allocation-free, so it can
+     * be used to replay unacknowledged inputs during reconciliation.
+     * The held keys are combined into one step and resolved in a single
+     * pass over the tank's contacts; the tank faces the last key in
+     * up, down, left, right order.
+     */
+    public static void applyMovement(Tank tank, int input, List<GameObject> obstacles) {
+        int stepX = 0, stepY = 0;
+        Direction facing = null;
+        if (PlayerInput.has(input, PlayerInput.UP)) {
+            stepY--;
+            facing = Direction.UP;
+        }
+        if (PlayerInput.has(input, PlayerInput.DOWN)) {
+            stepY++;
+            facing = Direction.DOWN;
+        }
+        if (PlayerInput.has(input, PlayerInput.LEFT)) {
+            stepX--;
+            facing = Direction.LEFT;
+        }
+        if (PlayerInput.has(input, PlayerInput.RIGHT)) {
+            stepX++;
+            facing = Direction.RIGHT;
+        }
+        if (facing == null) return;
+        
+        tank.gatherContacts(obstacles);
+        tank.steer(facing, stepX, stepY);
+    }
 }
-
-
@@ -0,0 +1,55 @@
+package com.tankwar.tankwargame.ai;
+
+import javafx.scene.input.KeyCode;
+import java.util.Set;
+
+/**
+ * Compact bitmask encoding of one tick of player input.
+ * Used wherever input has to be stored or sent instead of a key set.
+ * @author Iyed Acheche
+ */
+public final class PlayerInput {
+    public static final int NONE = 0;
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int FIRE = 1 << 4;
+    
+    public static final int MOVEMENT_MASK = UP | DOWN | LEFT | RIGHT;
+    
+    private PlayerInput() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+    
+    /**
+     * Encodes the currently held keys into an input bitmask.
+     */
+    public static int fromKeys(Set<KeyCode> pressedKeys) {
+        int input = NONE;
+        if (pressedKeys.contains(KeyCode.UP)) input |= UP;
+        if (pressedKeys.contains(KeyCode.DOWN)) input |= DOWN;
+        if (pressedKeys.contains(KeyCode.LEFT)) input |= LEFT;
+        if (pressedKeys.contains(KeyCode.RIGHT)) input |= RIGHT;
+        if (pressedKeys.contains(KeyCode.SPACE)) input |= FIRE;
+        return input;
+    }
+    
+    /**
+     * The input flag a key stands for, or NONE for keys the game ignores.
+     */
+    public static int flagOf(KeyCode key) {
+        switch (key) {
+            case UP: return UP;
+            case DOWN: return DOWN;
+            case LEFT: return LEFT;
+            case RIGHT: return RIGHT;
+            case SPACE: return FIRE;
+            default: return NONE;
+        }
+    }
+    
+    public static boolean has(int input, int flag) {
+        return (input & flag) != 0;
+    }
+}
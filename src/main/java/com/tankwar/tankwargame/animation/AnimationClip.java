@@ -0,0 +1,64 @@
+package com.tankwar.tankwargame.animation;
+
+/**
+ * A sequence of atlas frames, each shown for a number of ticks.
+ * The frame for every tick of the clip is worked out once when the clip is
+ * defined, so finding the frame of a running animation is one array lookup.
+ *
+ * @author Iyed Acheche
+ */
+public final class AnimationClip {
+    private final int id;
+    private final String[] frameFiles;
+    private final int[] frameTicks;
+    private final boolean looping;
+    private final int totalTicks;
+    private final byte[] frameAtTick;
+    
+    AnimationClip(int id, String[] frameFiles, int[] frameTicks, boolean looping) {
+        if (frameFiles.length == 0 || frameFiles.length != frameTicks.length || frameFiles.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("A clip needs 1 to 127 frames, each with a duration");
+        }
+        this.id = id;
+        this.frameFiles = frameFiles.clone();
+        this.frameTicks = frameTicks.clone();
+        this.looping = looping;
+        int total = 0;
+        for (int ticks : frameTicks) {
+            if (ticks <= 0) throw new IllegalArgumentException("Frame durations must be positive");
+            total += ticks;
+        }
+        this.totalTicks = total;
+        this.frameAtTick = new byte[total];
+        int tick = 0;
+        for (int frame = 0; frame < frameTicks.length; frame++) {
+            for (int i = 0; i < frameTicks[frame]; i++) {
+                frameAtTick[tick++] = (byte) frame;
+            }
+        }
+    }
+    
+    /**
+     * The clip frame showing the given number of ticks after the start.
+     * A clip that does not loop holds its last frame once it is over.
+     */
+    public int frameAt(long elapsedTicks) {
+        if (elapsedTicks < 0) return 0;
+        if (elapsedTicks >= totalTicks) {
+            if (!looping) return frameAtTick[totalTicks - 1];
+            elapsedTicks %= totalTicks;
+        }
+        return frameAtTick[(int) elapsedTicks];
+    }
+    
+    public boolean isFinished(long elapsedTicks) {
+        return !looping && elapsedTicks >= totalTicks;
+    }
+    
+    public int getId() { return id; }
+    public int getFrameCount() { return frameFiles.length; }
+    public String getFrameFile(int frame) { return frameFiles[frame]; }
+    public int getFrameTicks(int frame) { return frameTicks[frame]; }
+    public boolean isLooping() { return looping; }
+    public int getTotalTicks() { return totalTicks; }
+}
@@ -0,0 +1,71 @@
+package com.tankwar.tankwargame.animation;
+
+import com.tankwar.tankwargame.assets.AtlasRegion;
+import com.tankwar.tankwargame.assets.TextureAtlas;
+import java.util.*;
+
+/**
+ * Registry of animation clips.
+ * Entities define their clips once, as constants, and a running animation
+ * is only a clip id plus the tick it started at: drawing it looks up the
+ * frame for the elapsed ticks and the atlas region for that frame, which
+ * is drawn from the shared atlas image. Nothing is decoded while playing.
+ *
+ * Frames are resolved to atlas regions by {@link #preload()} at startup or
+ * on the first lookup.
+ *
+ * @author Iyed Acheche
+ */
+public final class Animations {
+    private static final List<AnimationClip> CLIPS = new ArrayList<>();
+    private static volatile AnimationClip[] clips = new AnimationClip[0];
+    private static volatile AtlasRegion[][] clipRegions = new AtlasRegion[0][];
+    
+    private Animations() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+    
+    /**
+     * Defines a clip from files in the images folder and returns its id.
+     */
+    public static synchronized int define(String[] frameFiles, int[] frameTicks, boolean looping) {
+        AnimationClip clip = new AnimationClip(CLIPS.size(), frameFiles, frameTicks, looping);
+        CLIPS.add(clip);
+        clips = CLIPS.toArray(new AnimationClip[0]);
+        return clip.getId();
+    }
+    
+    public static AnimationClip clip(int id) {
+        return clips[id];
+    }
+    
+    /**
+     * Finds the atlas region of every frame of every defined clip.
+     */
+    public static synchronized void preload() {
+        if (clipRegions.length == CLIPS.size()) return;
+        TextureAtlas atlas = TextureAtlas.get();
+        AtlasRegion[][] regions = new AtlasRegion[CLIPS.size()][];
+        for (AnimationClip clip : CLIPS) {
+            AtlasRegion[] frames = new AtlasRegion[clip.getFrameCount()];
+            for (int frame = 0; frame < frames.length; frame++) {
+                frames[frame] = atlas.region(clip.getFrameFile(frame));
+            }
+            regions[clip.getId()] = frames;
+        }
+        clipRegions = regions;
+    }
+    
+    /**
+     * The atlas region of the frame a clip shows the given number of ticks
+     * after it started, or null if that frame is not in the atlas.
+     */
+    public static AtlasRegion frame(int clipId, long elapsedTicks) {
+        AtlasRegion[][] regions = clipRegions;
+        if (clipId >= regions.length) {
+            preload();
+            regions = clipRegions;
+        }
+        return regions[clipId][clips[clipId].frameAt(elapsedTicks)];
+    }
+}
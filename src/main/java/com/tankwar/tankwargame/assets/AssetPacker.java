@@ -0,0 +1,187 @@
+package com.tankwar.tankwargame.assets;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Build-time tool that packs every image of the images folder into the
+ * texture atlas bundle.
+ * Images are decoded once here, sorted tallest first and placed with a
+ * bottom-left skyline, then written as premultiplied pixels with a region
+ * index. Images wider or taller than MAX_SIDE, such as the menu logo, are
+ * scaled down while decoding so the atlas stays small.
+ *
+ * Run with the pack-assets Maven profile, or directly:
+ *   AssetPacker [imagesDir] [bundleFile]
+ *
+ * @author Iyed Acheche
+ */
+public final class AssetPacker {
+    private static final String DEFAULT_IMAGES = "src/assets/images";
+    private static final String DEFAULT_BUNDLE = "src/main/resources" + AtlasBundle.RESOURCE;
+    private static final int ATLAS_WIDTH = 1024;
+    private static final int MAX_SIDE = 512;
+    private static final int PADDING = 1;  // Keeps scaled regions from sampling their neighbours
+    
+    private AssetPacker() {}
+    
+    public static void main(String[] args) throws IOException {
+        Path imagesDir = Path.of(args.length > 0 ? args[0] : DEFAULT_IMAGES);
+        Path bundleFile = Path.of(args.length > 1 ? args[1] : DEFAULT_BUNDLE);
+        
+        List<Path> files = new ArrayList<>();
+        try (var listing = Files.list(imagesDir)) {
+            listing.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+        AtlasBundle bundle = pack(files);
+        
+        Files.createDirectories(bundleFile.toAbsolutePath().getParent());
+        try (OutputStream out = Files.newOutputStream(bundleFile)) {
+            bundle.write(out);
+        }
+        System.out.printf("Packed %d images into %dx%d atlas: %s (%d KB)%n", bundle.getRegionCount(),
+                bundle.getWidth(), bundle.getHeight(), bundleFile, Files.size(bundleFile) / 1024);
+    }
+    
+    /**
+     * Decodes and packs the given image files. Files that cannot be decoded
+     * are left out.
+     */
+    public static AtlasBundle pack(List<Path> files) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Image> images = new ArrayList<>();
+        for (Path file : files) {
+            Image image = decode(file);
+            if (image == null) {
+                System.err.println("Skipping image that could not be decoded: " + file.getFileName());
+                continue;
+            }
+            names.add(file.getFileName().toString());
+            images.add(image);
+        }
+        
+        // Tallest first, then widest, then by name so the layout is reproducible
+        Integer[] order = new Integer[images.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> -images.get(i).getHeight())
+                .thenComparingDouble(i -> -images.get(i).getWidth())
+                .thenComparing(names::get));
+        
+        int[] bounds = new int[images.size() * 4];
+        Skyline skyline = new Skyline(ATLAS_WIDTH);
+        for (int i : order) {
+            int w = (int) images.get(i).getWidth(), h = (int) images.get(i).getHeight();
+            long position = skyline.place(w + PADDING, h + PADDING);
+            bounds[i * 4] = (int) (position >>> 32);
+            bounds[i * 4 + 1] = (int) position;
+            bounds[i * 4 + 2] = w;
+            bounds[i * 4 + 3] = h;
+        }
+        
+        int height = Math.max(1, skyline.height());
+        ByteBuffer pixels = ByteBuffer.allocate(ATLAS_WIDTH * height * 4);
+        byte[] row = new byte[MAX_SIDE * 4];
+        for (int i = 0; i < images.size(); i++) {
+            PixelReader reader = images.get(i).getPixelReader();
+            int x = bounds[i * 4], y = bounds[i * 4 + 1], w = bounds[i * 4 + 2], h = bounds[i * 4 + 3];
+            for (int r = 0; r < h; r++) {
+                reader.getPixels(0, r, w, 1, PixelFormat.getByteBgraPreInstance(), row, 0, w * 4);
+                pixels.put(((y + r) * ATLAS_WIDTH + x) * 4, row, 0, w * 4);
+            }
+        }
+        return new AtlasBundle(ATLAS_WIDTH, height, names.toArray(new String[0]), bounds, pixels);
+    }
+    
+    private static Image decode(Path file) throws IOException {
+        Image image;
+        try (InputStream in = Files.newInputStream(file)) {
+            image = new Image(in);
+        }
+        if (image.isError() || image.getPixelReader() == null) return null;
+        if (image.getWidth() > MAX_SIDE || image.getHeight() > MAX_SIDE) {
+            try (InputStream in = Files.newInputStream(file)) {
+                image = new Image(in, MAX_SIDE, MAX_SIDE, true, true);
+            }
+        }
+        return image;
+    }
+    
+    /**
+     * Bottom-left skyline packer. The skyline is the top edge of what has
+     * been placed so far, as segments from left to right; each rectangle
+     * goes where its top ends lowest, leftmost on ties.
+     */
+    private static final class Skyline {
+        private final int width;
+        private final List<int[]> segments = new ArrayList<>();  // x, y, width
+        
+        Skyline(int width) {
+            this.width = width;
+            segments.add(new int[] {0, 0, width});
+        }
+        
+        /**
+         * Places a rectangle and returns its position as x in the high and
+         * y in the low 32 bits.
+         */
+        long place(int w, int h) {
+            if (w > width) throw new IllegalArgumentException("Image wider than the atlas");
+            int best = -1, bestY = Integer.MAX_VALUE;
+            for (int i = 0; i < segments.size(); i++) {
+                int x = segments.get(i)[0];
+                if (x + w > width) break;
+                int y = 0;
+                for (int j = i; j < segments.size() && segments.get(j)[0] < x + w; j++) {
+                    y = Math.max(y, segments.get(j)[1]);
+                }
+                if (y < bestY) {
+                    best = i;
+                    bestY = y;
+                }
+            }
+            int x = segments.get(best)[0];
+            raise(x, bestY + h, w);
+            return ((long) x << 32) | bestY;
+        }
+        
+        /**
+         * Puts a segment at the given height over [x, x + w), cutting back
+         * the segments it covers and merging neighbours of equal height.
+         */
+        private void raise(int x, int y, int w) {
+            List<int[]> next = new ArrayList<>();
+            for (int[] s : segments) {
+                int start = s[0], end = s[0] + s[2];
+                if (end <= x || start >= x + w) {
+                    next.add(s);
+                    continue;
+                }
+                if (start < x) next.add(new int[] {start, s[1], x - start});
+                if (end > x + w) next.add(new int[] {x + w, s[1], end - x - w});
+            }
+            next.add(new int[] {x, y, w});
+            next.sort(Comparator.comparingInt(s -> s[0]));
+            segments.clear();
+            for (int[] s : next) {
+                int[] last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (last != null && last[1] == s[1]) {
+                    last[2] += s[2];
+                } else {
+                    segments.add(s);
+                }
+            }
+        }
+        
+        int height() {
+            int top = 0;
+            for (int[] s : segments) top = Math.max(top, s[1]);
+            return top;
+        }
+    }
+}
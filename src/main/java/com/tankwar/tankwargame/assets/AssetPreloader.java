@@ -0,0 +1,75 @@
+package com.tankwar.tankwargame.assets;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Runs named loading tasks in parallel and reports progress.
+ * Each task runs on the given executor; the progress listener is called
+ * from the worker that finished a task, with the fraction done so far.
+ * A failed task is reported and counted as done so startup still goes on,
+ * the same way a missing image used to be skipped.
+ *
+ * @author Iyed Acheche
+ */
+public final class AssetPreloader {
+    private final List<String> names = new ArrayList<>();
+    private final List<Runnable> tasks = new ArrayList<>();
+    private long[] taskNanos = new long[0];
+    private final AtomicInteger done = new AtomicInteger();
+    private long startNanos, endNanos;
+    
+    public AssetPreloader() {}
+    
+    public AssetPreloader add(String name, Runnable task) {
+        names.add(name);
+        tasks.add(task);
+        return this;
+    }
+    
+    /**
+     * Starts every task and returns a future completed once all have run.
+     */
+    public CompletableFuture<Void> start(Executor executor, DoubleConsumer progress) {
+        int count = tasks.size();
+        taskNanos = new long[count];
+        startNanos = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            final int task = i;
+            futures[i] = CompletableFuture.runAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    tasks.get(task).run();
+                } catch (RuntimeException e) {
+                    System.err.println("Could not preload " + names.get(task) + ": " + e.getMessage());
+                }
+                taskNanos[task] = System.nanoTime() - start;
+                progress.accept(done.incrementAndGet() / (double) count);
+            }, executor);
+        }
+        return CompletableFuture.allOf(futures).thenRun(() -> endNanos = System.nanoTime());
+    }
+    
+    /**
+     * Wall time of the whole preload, in milliseconds.
+     */
+    public double getElapsedMillis() {
+        return (endNanos - startNanos) / 1e6;
+    }
+    
+    /**
+     * Time taken by each task, for the startup report.
+     */
+    public String describeTimings() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format("%s %.1f ms", names.get(i), taskNanos[i] / 1e6));
+        }
+        return sb.toString();
+    }
+}
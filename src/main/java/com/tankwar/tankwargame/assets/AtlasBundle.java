@@ -0,0 +1,101 @@
+package com.tankwar.tankwargame.assets;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * File format of a packed texture atlas.
+ * A header gives the atlas size and the name and bounds of every region,
+ * followed by the raw pixels as premultiplied BGRA bytes, row by row. The
+ * pixels are in the layout the image upload takes, so a mapped bundle is
+ * handed over as it is, without decoding or copying.
+ *
+ * @author Iyed Acheche
+ */
+public final class AtlasBundle {
+    public static final String RESOURCE = "/com/tankwar/tankwargame/atlas/sprites.atlas";
+    private static final int MAGIC = 0x54574154;  // "TWAT"
+    private static final int VERSION = 1;
+    
+    private final int width, height;
+    private final String[] names;
+    private final int[] bounds;       // x, y, width, height per region
+    private final ByteBuffer pixels;  // width * height * 4 bytes, BGRA premultiplied
+    
+    public AtlasBundle(int width, int height, String[] names, int[] bounds, ByteBuffer pixels) {
+        if (bounds.length != names.length * 4 || pixels.remaining() != width * height * 4) {
+            throw new IllegalArgumentException("Region bounds or pixel data do not match the atlas");
+        }
+        this.width = width;
+        this.height = height;
+        this.names = names;
+        this.bounds = bounds;
+        this.pixels = pixels;
+    }
+    
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            byte[] name = names[i].getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            for (int j = 0; j < 4; j++) {
+                out.writeInt(bounds[i * 4 + j]);
+            }
+        }
+        ByteBuffer data = pixels.duplicate();
+        byte[] chunk = new byte[64 * 1024];
+        while (data.hasRemaining()) {
+            int n = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, n);
+            out.write(chunk, 0, n);
+        }
+        out.flush();
+    }
+    
+    /**
+     * Reads a bundle from a buffer, usually a mapped file. The pixels stay a
+     * view of the buffer.
+     */
+    public static AtlasBundle read(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate();
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a texture atlas bundle");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported atlas bundle version: " + version);
+        }
+        int width = in.getInt();
+        int height = in.getInt();
+        int count = in.getInt();
+        String[] names = new String[count];
+        int[] bounds = new int[count * 4];
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[in.getShort() & 0xFFFF];
+            in.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            for (int j = 0; j < 4; j++) {
+                bounds[i * 4 + j] = in.getInt();
+            }
+        }
+        int size = width * height * 4;
+        if (in.remaining() < size) {
+            throw new IOException("Truncated atlas bundle");
+        }
+        return new AtlasBundle(width, height, names, bounds, in.slice(in.position(), size));
+    }
+    
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getRegionCount() { return names.length; }
+    public String getName(int region) { return names[region]; }
+    public int getBound(int region, int field) { return bounds[region * 4 + field]; }
+    public ByteBuffer getPixels() { return pixels.duplicate(); }
+}
@@ -0,0 +1,41 @@
+package com.tankwar.tankwargame.assets;
+
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * One packed image inside the texture atlas.
+ * Regions are shared by every object showing the same image (Flyweight).
+ *
+ * @author Iyed Acheche
+ */
+public final class AtlasRegion {
+    private final TextureAtlas atlas;
+    private final String name;
+    private final int id;
+    private final int x, y, width, height;
+    
+    AtlasRegion(TextureAtlas atlas, String name, int id, int x, int y, int width, int height) {
+        this.atlas = atlas;
+        this.name = name;
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+    
+    /**
+     * Draws the region scaled into the given box.
+     */
+    public void draw(GraphicsContext gc, double dx, double dy, double dw, double dh) {
+        gc.drawImage(atlas.getImage(), x, y, width, height, dx, dy, dw, dh);
+    }
+    
+    public TextureAtlas getAtlas() { return atlas; }
+    public String getName() { return name; }
+    public int getId() { return id; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+}
@@ -0,0 +1,142 @@
+package com.tankwar.tankwargame.assets;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Every game image, packed ahead of time by AssetPacker into one bundle.
+ * The bundle is memory-mapped when it is a plain file and read into one
+ * direct buffer when it sits in a jar. Its pixels are already in the
+ * upload format, so the atlas image is filled by a single PixelWriter call
+ * the first time something is drawn; looking up regions, as headless
+ * servers do, never touches the pixels. The software renderer reads the
+ * same pixels as ints instead. No image is decoded at runtime.
+ *
+ * Design Patterns: Singleton, Flyweight (regions)
+ *
+ * @author Iyed Acheche
+ */
+public final class TextureAtlas {
+    private static TextureAtlas instance;
+    
+    private final AtlasBundle bundle;
+    private final Map<String, AtlasRegion> regions = new HashMap<>();
+    private volatile WritableImage image;
+    private volatile int[] argbPixels;
+    
+    private TextureAtlas(AtlasBundle bundle) {
+        this.bundle = bundle;
+        if (bundle != null) {
+            for (int i = 0; i < bundle.getRegionCount(); i++) {
+                regions.put(bundle.getName(i), new AtlasRegion(this, bundle.getName(i), i,
+                        bundle.getBound(i, 0), bundle.getBound(i, 1), bundle.getBound(i, 2), bundle.getBound(i, 3)));
+            }
+        }
+    }
+    
+    /**
+     * Returns the game's atlas, loading its bundle on first use. If the
+     * bundle cannot be loaded the atlas is empty and nothing is drawn.
+     */
+    public static synchronized TextureAtlas get() {
+        if (instance == null) {
+            AtlasBundle bundle = null;
+            try {
+                bundle = AtlasBundle.read(map(AtlasBundle.RESOURCE));
+            } catch (Exception e) {
+                System.err.println("Could not load texture atlas: " + e.getMessage());
+            }
+            instance = new TextureAtlas(bundle);
+        }
+        return instance;
+    }
+    
+    private static ByteBuffer map(String resource) throws Exception {
+        URL url = TextureAtlas.class.getResource(resource);
+        if (url == null) {
+            throw new IOException("missing " + resource);
+        }
+        if ("file".equals(url.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(Path.of(url.toURI()), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            byte[] bytes = in.readAllBytes();
+            return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        }
+    }
+    
+    /**
+     * The region packed from the given file of the images folder, or null.
+     */
+    public AtlasRegion region(String fileName) {
+        return regions.get(fileName);
+    }
+    
+    /**
+     * The atlas image, uploaded from the bundle on first use.
+     */
+    public WritableImage getImage() {
+        WritableImage current = image;
+        if (current == null) {
+            synchronized (this) {
+                current = image;
+                if (current == null) {
+                    current = upload();
+                    image = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    private WritableImage upload() {
+        if (bundle == null) {
+            return new WritableImage(1, 1);
+        }
+        int width = bundle.getWidth(), height = bundle.getHeight();
+        WritableImage atlasImage = new WritableImage(width, height);
+        atlasImage.getPixelWriter().setPixels(0, 0, width, height,
+                PixelFormat.getByteBgraPreInstance(), bundle.getPixels(), width * 4);
+        return atlasImage;
+    }
+    
+    /**
+     * The atlas pixels as premultiplied ARGB ints, row by row, for drawing
+     * without JavaFX. Read from the bundle on first use: BGRA bytes read as
+     * little-endian ints are already ARGB.
+     */
+    public int[] getArgbPixels() {
+        int[] current = argbPixels;
+        if (current == null) {
+            synchronized (this) {
+                current = argbPixels;
+                if (current == null) {
+                    current = new int[getWidth() * getHeight()];
+                    if (bundle != null) {
+                        bundle.getPixels().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(current);
+                    }
+                    argbPixels = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    public int getWidth() { return bundle != null ? bundle.getWidth() : 1; }
+    public int getHeight() { return bundle != null ? bundle.getHeight() : 1; }
+    
+    public Collection<AtlasRegion> getRegions() {
+        return Collections.unmodifiableCollection(regions.values());
+    }
+}
@@ -0,0 +1,62 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.util.GameConstants;
+import java.io.*;
+
+/**
+ * Captures a running GameEngine as bytes and resumes it elsewhere.
+ * A snapshot holds the seed, the player count and the dynamic state; the
+ * receiving side rebuilds the static map from the seed and then overwrites
+ * everything that changed. A restored engine continues tick for tick as the
+ * original would have.
+ *
+ * Design Patterns: Memento
+ *
+ * @author Iyed Acheche
+ */
+public final class EngineSnapshot {
+    private static final int MAGIC = 0x54574753;  // "TWGS"
+    private static final int VERSION = 5;
+    
+    private EngineSnapshot() {}
+    
+    /**
+     * Serializes the engine. Must not run concurrently with an update.
+     */
+    public static byte[] capture(GameEngine engine) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(engine.getSeed());
+            out.writeInt(engine.getPlayerCount());
+            engine.writeState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not capture engine state", e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Builds an engine from a snapshot taken by {@link #capture(GameEngine)}.
+     */
+    public static GameEngine restore(byte[] snapshot) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not an engine snapshot");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+            }
+            long seed = in.readLong();
+            int playerCount = in.readInt();
+            GameEngine engine = new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT,
+                    GameConstants.TILE_SIZE, seed, playerCount);
+            engine.readState(in);
+            return engine;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not restore engine state", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.util.EntityHandle;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Per-match table from entity handles to live entities.
+ * Lookup is an array index plus a generation compare, so it is O(1) with
+ * no hashing. Freed slots are reused first-in first-out, which spreads
+ * reuse over all free slots and keeps each slot's generation from
+ * wrapping around quickly.
+ *
+ * @author Iyed Acheche
+ */
+public class EntityRegistry {
+    private GameObject[] objects;
+    private int[] generations;
+    private int[] freeSlots;      // Ring buffer of free slot indices
+    private int freeHead = 0;
+    private int freeCount = 0;
+    private int used = 0;         // Slots ever handed out
+    private int live = 0;
+    
+    public EntityRegistry() {
+        this(64);
+    }
+    
+    public EntityRegistry(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.objects = new GameObject[capacity];
+        this.generations = new int[capacity];
+        this.freeSlots = new int[capacity];
+    }
+    
+    /**
+     * Gives an entity a handle.
+     */
+    public int register(GameObject object) {
+        int index;
+        if (freeCount > 0) {
+            index = freeSlots[freeHead];
+            freeHead = (freeHead + 1) % freeSlots.length;
+            freeCount--;
+        } else {
+            if (used == objects.length) grow();
+            if (used > EntityHandle.MAX_INDEX) {
+                throw new IllegalStateException("Entity registry is full");
+            }
+            index = used++;
+            generations[index] = 1;
+        }
+        objects[index] = object;
+        live++;
+        return EntityHandle.of(index, generations[index]);
+    }
+    
+    private void grow() {
+        int capacity = objects.length * 2;
+        objects = Arrays.copyOf(objects, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        // Unwrap the free ring into the larger array
+        int[] free = new int[capacity];
+        for (int i = 0; i < freeCount; i++) {
+            free[i] = freeSlots[(freeHead + i) % freeSlots.length];
+        }
+        freeSlots = free;
+        freeHead = 0;
+    }
+    
+    /**
+     * Frees a handle's slot. Every handle to it becomes stale.
+     * @return false if the handle was already stale
+     */
+    public boolean release(int handle) {
+        if (!isValid(handle)) return false;
+        int index = EntityHandle.index(handle);
+        objects[index] = null;
+        generations[index] = EntityHandle.nextGeneration(generations[index]);
+        freeSlots[(freeHead + freeCount) % freeSlots.length] = index;
+        freeCount++;
+        live--;
+        return true;
+    }
+    
+    public boolean isValid(int handle) {
+        int index = EntityHandle.index(handle);
+        return handle != EntityHandle.NONE && index < used
+                && generations[index] == EntityHandle.generation(handle) && objects[index] != null;
+    }
+    
+    /**
+     * Returns the entity, or null if the handle is stale or NONE.
+     */
+    public GameObject get(int handle) {
+        return isValid(handle) ? objects[EntityHandle.index(handle)] : null;
+    }
+    
+    /**
+     * Returns the entity if it is live and of the given type, otherwise null.
+     */
+    public <T extends GameObject> T get(int handle, Class<T> type) {
+        GameObject object = get(handle);
+        return type.isInstance(object) ? type.cast(object) : null;
+    }
+    
+    /**
+     * Writes slot generations and the free list. Entities write their own
+     * handles and are re-attached after reading.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(used);
+        for (int i = 0; i < used; i++) {
+            out.writeInt(generations[i]);
+        }
+        out.writeInt(freeCount);
+        for (int i = 0; i < freeCount; i++) {
+            out.writeInt(freeSlots[(freeHead + i) % freeSlots.length]);
+        }
+    }
+    
+    /**
+     * Restores the table layout. Slots are left empty until entities are
+     * re-attached with {@link #attach(GameObject)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        int count = in.readInt();
+        int capacity = Math.max(objects.length, Integer.highestOneBit(Math.max(1, count)) << 1);
+        objects = new GameObject[capacity];
+        generations = new int[capacity];
+        freeSlots = new int[capacity];
+        used = count;
+        for (int i = 0; i < count; i++) {
+            generations[i] = in.readInt();
+        }
+        freeHead = 0;
+        freeCount = in.readInt();
+        for (int i = 0; i < freeCount; i++) {
+            freeSlots[i] = in.readInt();
+        }
+        live = 0;
+    }
+    
+    /**
+     * Puts a restored entity back under the handle it carries.
+     */
+    public void attach(GameObject object) {
+        int handle = object.getHandle();
+        int index = EntityHandle.index(handle);
+        if (handle == EntityHandle.NONE || index >= used || generations[index] != EntityHandle.generation(handle)) {
+            throw new IllegalStateException("Handle does not match the registry: " + EntityHandle.toString(handle));
+        }
+        if (objects[index] == null) live++;
+        objects[index] = object;
+    }
+    
+    public int size() { return live; }
+    public int capacity() { return objects.length; }
+}
@@ -0,0 +1,80 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.factory.GameObjectFactory;
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+
+/**
+ * Compares tick cost with missiles in an EntityStore against the list of
+ * objects, at a base missile count and ten times that. Missiles are topped
+ * up every tick from random open points, so the live count stays near the
+ * target.
+ *
+ * Usage: EntityStoreBenchmark [baseMissiles] [ticks]
+ *
+ * @author Iyed Acheche
+ */
+public class EntityStoreBenchmark {
+    private static final int WARMUP_TICKS = 300;
+    
+    private EntityStoreBenchmark() {}
+    
+    public static void main(String[] args) {
+        int base = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        
+        System.out.println("=== Entity store benchmark ===");
+        System.out.printf("%-8s %9s %14s %12s %10s%n", "storage", "missiles", "missile us", "tick us", "vs base");
+        for (boolean store : new boolean[] {false, true}) {
+            double[] baseCost = run(store, base, ticks);
+            double[] scaledCost = run(store, base * 10, ticks);
+            String name = store ? "store" : "objects";
+            System.out.printf("%-8s %9d %14.1f %12.1f %10s%n", name, base, baseCost[0], baseCost[1], "1.0x");
+            System.out.printf("%-8s %9d %14.1f %12.1f %9.1fx%n", name, base * 10, scaledCost[0], scaledCost[1],
+                    scaledCost[0] / baseCost[0]);
+        }
+    }
+    
+    /**
+     * @return average microseconds per tick after warmup spent in the
+     *         missile phase, and in the whole tick
+     */
+    private static double[] run(boolean store, int missileCount, int ticks) {
+        GameEngine engine = new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT,
+                GameConstants.TILE_SIZE, 42L, GameConstants.MAX_PLAYERS, store);
+        DeterministicRandom random = new DeterministicRandom(7);
+        // Enemy-owned missiles cannot hurt enemies, so the match keeps running
+        Tank owner = engine.getEnemyTanks().get(0);
+        int[] inputs = new int[GameConstants.MAX_PLAYERS];
+        Direction[] directions = Direction.values();
+        GameObjectFactory factory = GameObjectFactory.getInstance();
+        
+        long missileNanos = 0, tickNanos = 0;
+        for (int t = 0; t < WARMUP_TICKS + ticks; t++) {
+            MatchContext previous = MatchContext.bind(engine.getContext());
+            try {
+                for (int i = engine.getMissiles().size(); i < missileCount; i++) {
+                    double x, y;
+                    do {
+                        x = random.nextDouble() * GameConstants.GAME_WIDTH;
+                        y = random.nextDouble() * GameConstants.GAME_HEIGHT;
+                    } while (engine.isPositionOccupied((int) x, (int) y));
+                    engine.addMissile(factory.createMissile(x, y, directions[random.nextInt(directions.length)], owner));
+                }
+            } finally {
+                MatchContext.bind(previous);
+            }
+            
+            long start = System.nanoTime();
+            engine.update(inputs);
+            if (t >= WARMUP_TICKS) {
+                tickNanos += System.nanoTime() - start;
+                missileNanos += engine.getMissilePhaseNanos();
+            }
+        }
+        return new double[] {missileNanos / 1e3 / ticks, tickNanos / 1e3 / ticks};
+    }
+}
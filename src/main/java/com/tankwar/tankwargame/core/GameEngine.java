@@ -1,6 +1,8 @@
 package com.tankwar.tankwargame.core;
 
 import com.tankwar.tankwargame.ai.EnemyAI;
+import com.tankwar.tankwargame.ai.PlayerInput;
+import com.tankwar.tankwargame.entities.base.EntityStore;
 import com.tankwar.tankwargame.entities.base.GameObject;
 import com.tankwar.tankwargame.entities.effects.Explosion;
 import com.tankwar.tankwargame.entities.environment.*;
@@ -10,10 +12,21 @@ import com.tankwar.tankwargame.entities.tanks.*;
 import com.tankwar.tankwargame.events.*;
 import com.tankwar.tankwargame.factory.GameObjectFactory;
 import com.tankwar.tankwargame.map.MapGenerator;
+import com.tankwar.tankwargame.render.RenderCommands;
+import com.tankwar.tankwargame.render.RenderSnapshot;
+import com.tankwar.tankwargame.triggers.TriggerListener;
+import com.tankwar.tankwargame.triggers.TriggerSystem;
+import com.tankwar.tankwargame.triggers.TriggerZone;
+import com.tankwar.tankwargame.util.CollisionLayers;
 import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.EntityHandle;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.canvas.GraphicsContext;
+import com.tankwar.tankwargame.util.SweptAabb;
+import com.tankwar.tankwargame.util.Teams;
 import javafx.scene.input.KeyCode;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -30,7 +43,14 @@ public class GameEngine {
     private final MapGenerator mapGenerator;
     private final GameObjectFactory factory;
     private final GameEventSubject eventSubject;
+    private final MatchContext context;
+    private final long seed;
+    private final int playerCount;
+    private final int[] localInputs = new int[1];
+    private final boolean publishesGlobalScore;
+    private final boolean usesEntityStore;
     private PlayerTank playerTank;
+    private List<PlayerTank> playerTanks;
     private List<EnemyTank> enemyTanks;
     private List<GameObject> walls;
     private List<DestructibleWall> destructibleWalls;
@@ -40,42 +60,97 @@ public class GameEngine {
     private List<GameObject> allObjects;
     private List<GoldenTile> goldenTiles;
     private GoldenApple goldenApple;
-    private Random random;
+    private TriggerSystem triggers;
+    private final List<Tank> triggerEntities = new ArrayList<>();
+    
+    // Missiles live in an owning store; walls and tanks are mirrored into stores for the collision pass
+    private EntityStore<Missile> missileStore;
+    private EntityStore<GameObject> wallStore;
+    private EntityStore<DestructibleWall> destructibleWallStore;
+    private EntityStore<Tank> tankStore;
+    private boolean[] nearTank = new boolean[0];
+    private final double[] impactTime = new double[1];
+    private final MissileInterception interception = new MissileInterception();
+    private final ParallelMissilePhase parallelPhase = new ParallelMissilePhase(Runtime.getRuntime().availableProcessors());
+    private long missilePhaseNanos;
     private boolean gameOverNotified = false;
     private boolean playerCollectedApple = false;
     
     public GameEngine(int gameWidth, int gameHeight, int tileSize) {
+        this(gameWidth, gameHeight, tileSize, System.nanoTime(), 1, true, GameConstants.ENTITY_STORE_ENABLED);
+    }
+    
+    /**
+     * Creates a deterministic engine. Engines built with the same seed and
+     * player count and fed the same inputs produce identical simulations.
+     */
+    public GameEngine(int gameWidth, int gameHeight, int tileSize, long seed, int playerCount) {
+        this(gameWidth, gameHeight, tileSize, seed, playerCount, GameConstants.ENTITY_STORE_ENABLED);
+    }
+    
+    /**
+     * Creates a deterministic engine, choosing whether missiles are kept in
+     * a structure-of-arrays EntityStore or in a plain list of objects.
+     * Both apply the same rules, but the store reorders missiles when it
+     * compacts, so two missiles reaching one target on the same tick can
+     * resolve the other way round. Peers in one match must agree on it.
+     */
+    public GameEngine(int gameWidth, int gameHeight, int tileSize, long seed, int playerCount, boolean usesEntityStore) {
+        this(gameWidth, gameHeight, tileSize, seed, playerCount, false, usesEntityStore);
+    }
+    
+    /**
+     * @param publishesGlobalScore whether score also goes to the GameState
+     *        singleton the UI reads; hosted and lockstep matches keep their
+     *        score in the match context only
+     */
+    private GameEngine(int gameWidth, int gameHeight, int tileSize, long seed, int playerCount,
+                       boolean publishesGlobalScore, boolean usesEntityStore) {
+        if (playerCount < 1 || playerCount > GameConstants.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Player count must be 1.." + GameConstants.MAX_PLAYERS + ": " + playerCount);
+        }
         this.gameWidth = gameWidth;
         this.gameHeight = gameHeight;
         this.tileSize = tileSize;
-        this.random = new Random();
+        this.playerCount = playerCount;
+        this.seed = seed;
+        this.publishesGlobalScore = publishesGlobalScore;
+        this.usesEntityStore = usesEntityStore;
+        this.context = new MatchContext(seed);
         this.mapGenerator = new MapGenerator(gameWidth, gameHeight, tileSize);
         this.factory = GameObjectFactory.getInstance();
         this.eventSubject = new GameEventSubject();
         
-        initializeGame();
+        MatchContext previous = MatchContext.bind(context);
+        try {
+            initializeGame();
+        } finally {
+            MatchContext.bind(previous);
+        }
     }
     
     private void initializeGame() {
         walls = new ArrayList<>();
         destructibleWalls = new ArrayList<>();
-        missiles = new ArrayList<>();
         medPacks = new ArrayList<>();
         explosions = new ArrayList<>();
         enemyTanks = new ArrayList<>();
+        playerTanks = new ArrayList<>();
         allObjects = new ArrayList<>();
         goldenTiles = new ArrayList<>();
         
-        // Reset AI ID counter for proper coordination
-        EnemyAI.resetIdCounter();
+        // Reset the chaser registry for proper coordination
+        EnemyAI.resetCoordination();
         
         eventSubject.addObserver(new GameEventHandler(explosions));
         mapGenerator.generateMap(walls, destructibleWalls, goldenTiles);
         
         createGoldenApple();
-        createPlayerTank();
+        createPlayerTanks();
         createEnemyTanks();
         createMedPacks();
+        createEntityStores();
+        createTriggers();
         
         updateAllObjects();
     }
@@ -85,17 +160,28 @@ public class GameEngine {
         int centerY = gameHeight / 2;
         int appleX = (centerX / tileSize) * tileSize;
         int appleY = (centerY / tileSize) * tileSize;
-        goldenApple = new GoldenApple(appleX, appleY);
+        goldenApple = factory.createGoldenApple(appleX, appleY);
     }
     
-    private void createPlayerTank() {
-        // Fixed spawn position: bottom center of the map
-        // X: center of 800px map = 400, minus half tank (20) = 380, snapped to tile = 360
-        // Y: near bottom = 520 (600 - 80, snapped to tile)
-        int spawnX = 360;  // Center-bottom, aligned to tile grid
-        int spawnY = 520;  // Near bottom of map
+    private void createPlayerTanks() {
+        // Fixed spawn positions on the golden spawn area at the bottom center of the map
+        // First player: X = 400 - half tank (20) = 380, snapped to tile = 360; Y = 600 - 80 = 520
+        // Additional players take the neighbouring golden tiles
+        int[][] playerSpawnPositions = {
+            {360, 520},
+            {440, 520},
+            {360, 480},
+            {440, 480}
+        };
         
-        playerTank = (PlayerTank) factory.createTank(spawnX, spawnY, Direction.UP, GameObjectFactory.TankType.PLAYER);
+        for (int i = 0; i < playerCount; i++) {
+            int x = playerSpawnPositions[i][0];
+            int y = playerSpawnPositions[i][1];
+            PlayerTank player = (PlayerTank) factory.createTank(x, y, Direction.UP, GameObjectFactory.TankType.PLAYER);
+            player.setTeam(Teams.player(i));
+            playerTanks.add(player);
+        }
+        playerTank = playerTanks.get(0);
     }
     
     private void createEnemyTanks() {
@@ -117,6 +203,51 @@ public class GameEngine {
         }
     }
     
+    private void createEntityStores() {
+        if (!usesEntityStore) {
+            missiles = new ArrayList<>();
+            return;
+        }
+        int capacity = GameConstants.ENTITY_STORE_CAPACITY;
+        missileStore = new EntityStore<>(capacity, true, Missile::getOwnerHandle);
+        missiles = missileStore.asList();
+        destructibleWallStore = new EntityStore<>(destructibleWalls.size(), false);
+        tankStore = new EntityStore<>(playerTanks.size() + enemyTanks.size(), false);
+        
+        // Static walls never move or change, so they are mirrored once
+        wallStore = new EntityStore<>(walls.size(), false);
+        for (GameObject wall : walls) {
+            wallStore.add(wall, -1);
+        }
+        wallStore.buildCellIndex(tileSize, gameWidth, gameHeight);
+    }
+    
+    /**
+     * Registers a zone per medpack and the apple's threat zone. Called
+     * again after a restore, since the zones belong to the restored objects.
+     */
+    private void createTriggers() {
+        if (triggers == null) {
+            triggers = new TriggerSystem(gameWidth, gameHeight, GameConstants.TRIGGER_CELL_SIZE);
+        }
+        triggers.clear();
+        for (MedPack medPack : medPacks) {
+            if (medPack.isActive()) {
+                triggers.add(TriggerZone.around(medPack, CollisionLayers.TANK, Teams.NEUTRAL,
+                        (event, zone, entity) -> onMedPackTrigger(event, zone, medPack, (Tank) entity)));
+            }
+        }
+        if (goldenApple != null) {
+            GoldenApple apple = goldenApple;
+            triggers.add(TriggerZone.circle(apple.getCenterX(), apple.getCenterY(), GameConstants.APPLE_DANGER_RADIUS,
+                    CollisionLayers.TANK, Teams.ENEMIES, (event, zone, entity) -> {
+                        if (event != TriggerListener.Event.EXIT && apple.isActive()) {
+                            apple.setUnderThreat(true);
+                        }
+                    }));
+        }
+    }
+    
     private boolean isSpawnPositionValid(int x, int y) {
         if (x < GameConstants.TANK_SIZE || y < GameConstants.TANK_SIZE || 
             x > gameWidth - GameConstants.TANK_SIZE * 2 || y > gameHeight - GameConstants.TANK_SIZE * 2) {
@@ -149,8 +280,8 @@ public class GameEngine {
             double x, y;
             int attempts = 0;
             do {
-                x = (random.nextInt((gameWidth / tileSize) - 4) + 2) * tileSize;
-                y = (random.nextInt((gameHeight / tileSize) - 4) + 2) * tileSize;
+                x = (context.getRandom().nextInt((gameWidth / tileSize) - 4) + 2) * tileSize;
+                y = (context.getRandom().nextInt((gameHeight / tileSize) - 4) + 2) * tileSize;
                 attempts++;
             } while (isPositionOccupied((int)x, (int)y) && attempts < 50);
             
@@ -160,7 +291,7 @@ public class GameEngine {
         }
     }
     
-    private boolean isPositionOccupied(int x, int y) {
+    final boolean isPositionOccupied(int x, int y) {
         for (GameObject wall : walls) {
             if (Math.abs(wall.getX() - x) < tileSize && Math.abs(wall.getY() - y) < tileSize) return true;
         }
@@ -169,7 +300,9 @@ public class GameEngine {
             if (Math.abs(dWall.getX() - x) < tileSize && Math.abs(dWall.getY() - y) < tileSize) return true;
         }
         
-        if (playerTank != null && Math.abs(playerTank.getX() - x) < tileSize && Math.abs(playerTank.getY() - y) < tileSize) return true;
+        for (PlayerTank player : playerTanks) {
+            if (Math.abs(player.getX() - x) < tileSize && Math.abs(player.getY() - y) < tileSize) return true;
+        }
         
         for (EnemyTank enemy : enemyTanks) {
             if (Math.abs(enemy.getX() - x) < tileSize && Math.abs(enemy.getY() - y) < tileSize) return true;
@@ -181,21 +314,65 @@ public class GameEngine {
     }
     
     public void update(Set<KeyCode> pressedKeys) {
-        updateMissiles();
-        checkCollisions();
-        updateDestructibleWalls();
-        updateExplosions();
-        updateAllObjects();
-        handlePlayerInput(pressedKeys);
-        updateEnemyTanks();
-        updateGoldenApple();
-        checkMedPackCollections();
-        checkVictoryConditions();
+        localInputs[0] = PlayerInput.fromKeys(pressedKeys);
+        update(localInputs);
+    }
+    
+    /**
+     * Advances the simulation by one tick.
+     * @param playerInputs one input bitmask per player, indexed like the player tanks
+     */
+    public void update(int[] playerInputs) {
+        MatchContext previous = MatchContext.bind(context);
+        try {
+            context.advanceTick();
+            long phaseStart = System.nanoTime();
+            updateMissiles();
+            if (GameConstants.MISSILE_INTERCEPTION_ENABLED) {
+                interception.resolve(missiles, this::onMissilesIntercepted);
+            }
+            checkCollisions();
+            retireEscapedMissiles();
+            missilePhaseNanos = System.nanoTime() - phaseStart;
+            updateDestructibleWalls();
+            updateExplosions();
+            updateAllObjects();
+            handlePlayerInput(playerInputs);
+            updateEnemyTanks();
+            updateGoldenApple();
+            updateTriggers();
+            checkVictoryConditions();
+        } finally {
+            MatchContext.bind(previous);
+        }
+    }
+    
+    private void handlePlayerInput(int[] playerInputs) {
+        for (int i = 0; i < playerTanks.size() && i < playerInputs.length; i++) {
+            PlayerTank player = playerTanks.get(i);
+            if (player.isActive()) {
+                player.applyInput(playerInputs[i], allObjects, missiles);
+            }
+        }
     }
     
-    private void handlePlayerInput(Set<KeyCode> pressedKeys) {
-        if (!playerTank.isActive()) return;
-        playerTank.updateWithBehavior(pressedKeys, allObjects, missiles);
+    /**
+     * Returns the closest active player, the target an enemy should engage.
+     */
+    private PlayerTank nearestPlayer(Tank from) {
+        PlayerTank nearest = playerTank;
+        double best = Double.MAX_VALUE;
+        for (PlayerTank player : playerTanks) {
+            if (!player.isActive()) continue;
+            double dx = player.getX() - from.getX();
+            double dy = player.getY() - from.getY();
+            double dist = dx * dx + dy * dy;
+            if (dist < best) {
+                best = dist;
+                nearest = player;
+            }
+        }
+        return nearest;
     }
     
     private void updateEnemyTanks() {
@@ -211,7 +388,7 @@ public class GameEngine {
             if (!enemy.isActive()) continue;
             
             // Pass all enemies for coordinated attacks
-            enemy.updateWithIntelligentAI(playerTank, allObjects, allEnemyTanks);
+            enemy.updateWithIntelligentAI(nearestPlayer(enemy), allObjects, allEnemyTanks);
             
             if (enemy.wantsToShoot()) {
                 Missile missile = enemy.fire();
@@ -224,19 +401,26 @@ public class GameEngine {
     
     private void updateDestructibleWalls() {
         destructibleWalls.forEach(GameObject::update);
-        destructibleWalls.removeIf(wall -> !wall.isActive());
+        destructibleWalls.removeIf(this::releaseIfInactive);
+    }
+    
+    /**
+     * Frees the handle of an entity that is leaving the match.
+     * @return true if the entity was inactive and should be removed
+     */
+    private boolean releaseIfInactive(GameObject object) {
+        if (object.isActive()) return false;
+        context.getEntities().release(object.getHandle());
+        return true;
+    }
+    
+    private void releaseHandle(GameObject object) {
+        context.getEntities().release(object.getHandle());
     }
     
     private void updateGoldenApple() {
         if (goldenApple != null && goldenApple.isActive()) {
             goldenApple.update();
-            
-            for (EnemyTank enemy : enemyTanks) {
-                if (enemy.isActive() && goldenApple.isInDangerZone(enemy)) {
-                    goldenApple.setUnderThreat(true);
-                    break;
-                }
-            }
         }
     }
     
@@ -244,12 +428,14 @@ public class GameEngine {
         if (gameOverNotified) return;
         
         // Apple is just a score booster - player collects it for +100 points
-        if (goldenApple != null && goldenApple.isActive() && playerTank.isActive()) {
-            if (goldenApple.intersects(playerTank)) {
-                playerCollectedApple = true;
-                goldenApple.setActive(false);
-                GameState.getInstance().addScore(100);
-                // Don't end game - apple is just a bonus
+        for (PlayerTank player : playerTanks) {
+            if (goldenApple != null && goldenApple.isActive() && player.isActive()) {
+                if (goldenApple.intersects(player)) {
+                    playerCollectedApple = true;
+                    goldenApple.setActive(false);
+                    addScore(100);
+                    // Don't end game - apple is just a bonus
+                }
             }
         }
         
@@ -260,110 +446,303 @@ public class GameEngine {
         }
     }
     
+    private void addScore(int points) {
+        context.addScore(points);
+        if (publishesGlobalScore) {
+            GameState.getInstance().addScore(points);
+        }
+    }
+    
     private void updateMissiles() {
+        if (missileStore != null) {
+            // Missiles further out than one move cannot reach the field, so the store may drop them now
+            double reach = GameConstants.MISSILE_SPEED;
+            missileStore.integrate(-reach, -reach, GameConstants.GAME_WIDTH + reach, GameConstants.GAME_HEIGHT + reach);
+            missileStore.compact(this::releaseHandle);
+            return;
+        }
         missiles.forEach(GameObject::update);
-        missiles.removeIf(missile -> !missile.isActive());
+        missiles.removeIf(this::releaseIfInactive);
+    }
+    
+    /**
+     * Deactivates the missiles that left the field without hitting
+     * anything. Like spent ones, they are removed on the next tick.
+     */
+    private void retireEscapedMissiles() {
+        for (Missile missile : missiles) {
+            if (missile.isActive() && missile.isOutsideField()) {
+                missile.setActive(false);
+            }
+        }
     }
     
     private void updateExplosions() {
-        explosions.forEach(GameObject::update);
+        // Frames advance on timers; only finished explosions need work here
         explosions.removeIf(explosion -> !explosion.isActive());
     }
     
     private void checkCollisions() {
+        if (missileStore != null) {
+            checkStoredCollisions();
+            return;
+        }
+        
         for (Missile missile : new ArrayList<>(missiles)) {
             if (!missile.isActive()) continue;
             
-            for (GameObject wall : walls) {
-                if (missile.hitWall(wall)) {
-                    double impactX = missile.getX() + GameConstants.MISSILE_SIZE / 2.0;
-                    double impactY = missile.getY() + GameConstants.MISSILE_SIZE / 2.0;
-                    explosions.add(factory.createSmallExplosion(impactX, impactY));
-                    break;
+            // Earliest contact along the last move. Layers are swept in bit order, so ties go to
+            // the lower layer, then to the earlier tank in slot order. Walls stop a missile even
+            // if destroyed earlier this tick; tanks must still be hittable.
+            int mask = missile.getCollisionMask();
+            GameObject target = null;
+            double first = SweptAabb.NO_IMPACT;
+            
+            if ((mask & CollisionLayers.WALL) != 0) {
+                for (GameObject wall : walls) {
+                    double time = missile.timeOfImpact(wall);
+                    if (time < first) {
+                        first = time;
+                        target = wall;
+                    }
                 }
             }
             
-            if (!missile.isActive()) continue;
+            if ((mask & CollisionLayers.DESTRUCTIBLE_WALL) != 0) {
+                for (DestructibleWall dWall : destructibleWalls) {
+                    double time = missile.timeOfImpact(dWall);
+                    if (time < first) {
+                        first = time;
+                        target = dWall;
+                    }
+                }
+            }
             
-            for (DestructibleWall dWall : new ArrayList<>(destructibleWalls)) {
-                boolean wasActive = dWall.isActive();
-                if (missile.hitWall(dWall)) {
-                    eventSubject.notifyMissileHit(missile, dWall);
-                    
-                    double impactX = dWall.getX() + dWall.getWidth() / 2.0;
-                    double impactY = dWall.getY() + dWall.getHeight() / 2.0;
-                    
-                    if (!dWall.isActive() && wasActive) {
-                        explosions.add(factory.createMediumExplosion(impactX, impactY));
-                        if (missile.getOwner() != null && missile.getOwner().isPlayer()) {
-                            GameState.getInstance().addScore(10);
-                        }
-                    } else {
-                        explosions.add(factory.createSmallExplosion(impactX, impactY));
+            if ((mask & CollisionLayers.TANK) != 0) {
+                for (PlayerTank player : playerTanks) {
+                    if (!missile.canHit(player)) continue;
+                    double time = missile.timeOfImpact(player);
+                    if (time < first) {
+                        first = time;
+                        target = player;
+                    }
+                }
+                for (EnemyTank enemy : enemyTanks) {
+                    if (!missile.canHit(enemy)) continue;
+                    double time = missile.timeOfImpact(enemy);
+                    if (time < first) {
+                        first = time;
+                        target = enemy;
                     }
-                    break;
                 }
             }
             
-            if (!missile.isActive()) continue;
+            if (target != null) {
+                applyImpact(missile, target, first);
+            }
+        }
+    }
+    
+    /**
+     * Same checks and order as the object loop, but the missile, wall and
+     * tank bounds are scanned as primitive arrays. Objects are only touched
+     * when they are in the missile's path.
+     */
+    private void checkStoredCollisions() {
+        destructibleWallStore.clear();
+        for (DestructibleWall dWall : destructibleWalls) {
+            destructibleWallStore.add(dWall, -1);
+        }
+        destructibleWallStore.buildCellIndex(tileSize, gameWidth, gameHeight);
+        tankStore.clear();
+        for (PlayerTank player : playerTanks) {
+            tankStore.add(player, -1);
+        }
+        for (EnemyTank enemy : enemyTanks) {
+            tankStore.add(enemy, -1);
+        }
+        
+        EntityStore<Missile> store = missileStore;
+        int count = store.size();
+        // Broadphase: one bulk pass per tank marks the missiles that came near any tank
+        if (nearTank.length < store.capacity()) {
+            nearTank = new boolean[store.capacity()];
+        } else {
+            Arrays.fill(nearTank, 0, count, false);
+        }
+        int reach = (int) Math.ceil(GameConstants.MISSILE_SPEED);
+        for (int t = 0; t < tankStore.size(); t++) {
+            store.markOverlaps(tankStore.getX(t) - reach, tankStore.getY(t) - reach,
+                    tankStore.getWidth(t) + 2 * reach, tankStore.getHeight(t) + 2 * reach, nearTank);
+        }
+        
+        if (parallelPhase.shouldRun(count)) {
+            parallelPhase.scan(store, wallStore, destructibleWallStore, tankStore, nearTank);
+            applyParallelHits();
+            return;
+        }
+        
+        double[] time = impactTime;
+        for (int i = 0; i < count; i++) {
+            if (!store.isActive(i)) continue;
+            double dx = store.getVelocityX(i), dy = store.getVelocityY(i);
+            double sx = store.getX(i) - dx, sy = store.getY(i) - dy;
+            int mw = store.getWidth(i), mh = store.getHeight(i);
+            int mask = store.getMask(i), team = store.getTeam(i);
+            GameObject target = null;
+            double first = SweptAabb.NO_IMPACT;
             
-            boolean playerWasActive = playerTank.isActive();
-            if (missile.hitTarget(playerTank) && playerWasActive) {
-                eventSubject.notifyMissileHit(missile, playerTank);
-                
-                double impactX = playerTank.getX() + playerTank.getWidth() / 2.0;
-                double impactY = playerTank.getY() + playerTank.getHeight() / 2.0;
-                
-                if (!playerTank.isActive()) {
-                    explosions.add(factory.createLargeExplosion(impactX, impactY));
-                    eventSubject.notifyTankDestroyed(playerTank);
-                } else {
-                    explosions.add(factory.createSmallExplosion(impactX, impactY));
-                }
+            int hit = (mask & CollisionLayers.WALL) != 0 ? wallStore.firstImpact(sx, sy, mw, mh, dx, dy, time) : -1;
+            if (hit >= 0) {
+                first = time[0];
+                target = wallStore.getView(hit);
             }
             
-            if (!missile.isActive()) continue;
+            hit = (mask & CollisionLayers.DESTRUCTIBLE_WALL) != 0
+                    ? destructibleWallStore.firstImpact(sx, sy, mw, mh, dx, dy, time) : -1;
+            if (hit >= 0 && time[0] < first) {
+                first = time[0];
+                target = destructibleWallStore.getView(hit);
+            }
             
-            for (EnemyTank enemy : enemyTanks) {
-                boolean enemyWasActive = enemy.isActive();
-                if (missile.hitTarget(enemy) && enemyWasActive) {
-                    eventSubject.notifyMissileHit(missile, enemy);
-                    
-                    double impactX = enemy.getX() + enemy.getWidth() / 2.0;
-                    double impactY = enemy.getY() + enemy.getHeight() / 2.0;
-                    
-                    if (!enemy.isActive()) {
-                        explosions.add(factory.createLargeExplosion(impactX, impactY));
-                        eventSubject.notifyTankDestroyed(enemy);
-                        if (missile.getOwner() != null && missile.getOwner().isPlayer()) {
-                            GameState.getInstance().addScore(25);
-                        }
-                    } else {
-                        explosions.add(factory.createSmallExplosion(impactX, impactY));
+            if (nearTank[i]) {
+                Missile missile = store.getView(i);
+                for (int t = 0; t < tankStore.size(); t++) {
+                    // Allies are rejected from the mirrored layer and team before any geometry
+                    if (!CollisionLayers.accepts(mask, team, tankStore.getLayer(t), tankStore.getTeam(t))) continue;
+                    double tankTime = tankStore.timeOfImpact(t, sx, sy, mw, mh, dx, dy);
+                    if (tankTime < first && missile.canHit(tankStore.getView(t))) {
+                        first = tankTime;
+                        target = tankStore.getView(t);
                     }
-                    break;
                 }
             }
+            
+            if (target != null) {
+                applyImpact(store.getView(i), target, first);
+            }
         }
     }
     
-    private void checkMedPackCollections() {
-        for (MedPack medPack : medPacks) {
-            if (medPack.isActive()) {
-                if (medPack.collectBy(playerTank)) {
-                    eventSubject.notifyMedPackCollected(medPack, playerTank);
-                }
+    /**
+     * Applies the contacts found by the workers in missile order. A
+     * missile's wall contact comes first; each tank contact replaces it if
+     * it is earlier and the tank can still be hit, exactly as in the serial
+     * loop.
+     */
+    private void applyParallelHits() {
+        for (int b = 0; b < parallelPhase.getBufferCount(); b++) {
+            ParallelMissilePhase.HitBuffer buffer = parallelPhase.getBuffer(b);
+            int k = 0;
+            while (k < buffer.size()) {
+                int slot = buffer.getMissile(k);
+                Missile missile = missileStore.getView(slot);
+                GameObject target = null;
+                double first = SweptAabb.NO_IMPACT;
                 
-                for (Tank enemy : enemyTanks) {
-                    if (medPack.isActive()) {
-                        if (medPack.collectBy(enemy)) {
-                            eventSubject.notifyMedPackCollected(medPack, enemy);
-                        }
+                for (; k < buffer.size() && buffer.getMissile(k) == slot; k++) {
+                    int index = buffer.getTarget(k);
+                    switch (buffer.getKind(k)) {
+                        case ParallelMissilePhase.WALL:
+                            first = buffer.getTime(k);
+                            target = wallStore.getView(index);
+                            break;
+                        case ParallelMissilePhase.DESTRUCTIBLE_WALL:
+                            first = buffer.getTime(k);
+                            target = destructibleWallStore.getView(index);
+                            break;
+                        case ParallelMissilePhase.TANK:
+                            if (buffer.getTime(k) < first && missile.canHit(tankStore.getView(index))) {
+                                first = buffer.getTime(k);
+                                target = tankStore.getView(index);
+                            }
+                            break;
                     }
                 }
+                
+                if (target != null) {
+                    applyImpact(missile, target, first);
+                }
             }
         }
-        medPacks.removeIf(medPack -> !medPack.isActive());
+    }
+    
+    private void applyImpact(Missile missile, GameObject target, double time) {
+        boolean wasActive = target.isActive();
+        missile.impact(target, time);
+        switch (target.getLayer()) {
+            case CollisionLayers.TANK:
+                onTankHit(missile, (Tank) target);
+                break;
+            case CollisionLayers.DESTRUCTIBLE_WALL:
+                onDestructibleWallHit(missile, (DestructibleWall) target, wasActive);
+                break;
+            default:
+                addImpactExplosion(missile);
+                break;
+        }
+    }
+    
+    private void onMissilesIntercepted(Missile first, Missile second, double x, double y) {
+        eventSubject.notifyMissileHit(first, second);
+        explosions.add(factory.createSmallExplosion(x, y));
+    }
+    
+    /**
+     * Adds a small explosion where the missile touched its target.
+     */
+    private void addImpactExplosion(Missile missile) {
+        double impactX = missile.getX() + GameConstants.MISSILE_SIZE / 2.0;
+        double impactY = missile.getY() + GameConstants.MISSILE_SIZE / 2.0;
+        explosions.add(factory.createSmallExplosion(impactX, impactY));
+    }
+    
+    private void onDestructibleWallHit(Missile missile, DestructibleWall dWall, boolean wasActive) {
+        eventSubject.notifyMissileHit(missile, dWall);
+        
+        if (!dWall.isActive() && wasActive) {
+            explosions.add(factory.createMediumExplosion(dWall.getX() + dWall.getWidth() / 2.0,
+                    dWall.getY() + dWall.getHeight() / 2.0));
+            if (missile.isOwnerPlayer()) {
+                addScore(10);
+            }
+        } else {
+            addImpactExplosion(missile);
+        }
+    }
+    
+    private void onTankHit(Missile missile, Tank tank) {
+        eventSubject.notifyMissileHit(missile, tank);
+        
+        if (!tank.isActive()) {
+            explosions.add(factory.createLargeExplosion(tank.getX() + tank.getWidth() / 2.0,
+                    tank.getY() + tank.getHeight() / 2.0));
+            eventSubject.notifyTankDestroyed(tank);
+            if (!tank.isPlayer() && missile.isOwnerPlayer()) {
+                addScore(25);
+            }
+        } else {
+            addImpactExplosion(missile);
+        }
+    }
+    
+    /**
+     * Runs the trigger zones over the tanks, players first. Enemies near
+     * the apple raise its threat and the first tank onto a medpack takes it.
+     */
+    private void updateTriggers() {
+        triggerEntities.clear();
+        triggerEntities.addAll(playerTanks);
+        triggerEntities.addAll(enemyTanks);
+        triggers.update(triggerEntities);
+        medPacks.removeIf(this::releaseIfInactive);
+    }
+    
+    private void onMedPackTrigger(TriggerListener.Event event, TriggerZone zone, MedPack medPack, Tank tank) {
+        if (event == TriggerListener.Event.ENTER && medPack.collectBy(tank)) {
+            eventSubject.notifyMedPackCollected(medPack, tank);
+            triggers.remove(zone);
+        }
     }
     
     private void updateAllObjects() {
@@ -372,7 +751,7 @@ public class GameEngine {
         allObjects.addAll(destructibleWalls.stream()
                 .filter(GameObject::isActive)
                 .collect(Collectors.toList()));
-        allObjects.add(playerTank);
+        allObjects.addAll(playerTanks);
         allObjects.addAll(enemyTanks.stream()
                 .filter(GameObject::isActive)
                 .collect(Collectors.toList()));
@@ -381,30 +760,294 @@ public class GameEngine {
         }
     }
     
-    public void render(GraphicsContext gc) {
-        goldenTiles.forEach(tile -> tile.render(gc));
+    /**
+     * Records the draw commands for the current tick, together with the HUD
+     * values, for a renderer running on another thread.
+     */
+    public void capture(RenderSnapshot snapshot) {
+        // Animations read the match clock
+        MatchContext previous = MatchContext.bind(context);
+        try {
+            captureObjects(snapshot.getCommands());
+        } finally {
+            MatchContext.bind(previous);
+        }
+        snapshot.setStatus(getPlayerHealth(), getPlayerMaxHealth(), getEnemyCount(), getScore(),
+                isGameOver(), playerWon(), playerCollectedApple(), appleDestroyed());
+    }
+    
+    private void captureObjects(RenderCommands commands) {
+        goldenTiles.forEach(tile -> tile.capture(commands));
         
-        walls.forEach(wall -> wall.render(gc));
+        walls.forEach(wall -> wall.capture(commands));
         destructibleWalls.stream()
                 .filter(GameObject::isActive)
-                .forEach(wall -> wall.render(gc));
+                .forEach(wall -> wall.capture(commands));
         
         if (goldenApple != null && goldenApple.isActive()) {
-            goldenApple.render(gc);
+            goldenApple.capture(commands);
         }
         
-        medPacks.forEach(medPack -> medPack.render(gc));
+        medPacks.forEach(medPack -> medPack.capture(commands));
         
-        if (playerTank.isActive()) {
-            playerTank.render(gc);
-        }
+        playerTanks.stream()
+                .filter(GameObject::isActive)
+                .forEach(tank -> tank.capture(commands));
         
         enemyTanks.stream()
                 .filter(GameObject::isActive)
-                .forEach(tank -> tank.render(gc));
+                .forEach(tank -> tank.capture(commands));
+        
+        missiles.forEach(missile -> missile.capture(commands));
+        explosions.forEach(explosion -> explosion.capture(commands));
+    }
+    
+    /**
+     * Writes everything that changes during play. The map and spawn layout
+     * are rebuilt from the seed, so only dynamic entities are written.
+     * Entities carry their handles, so references between them such as
+     * missile owners survive the round trip.
+     */
+    void writeState(DataOutput out) throws IOException {
+        for (PlayerTank player : playerTanks) {
+            player.writeState(out);
+        }
+        
+        out.writeInt(enemyTanks.size());
+        for (EnemyTank enemy : enemyTanks) {
+            enemy.writeState(out);
+        }
+        
+        out.writeInt(destructibleWalls.size());
+        for (DestructibleWall dWall : destructibleWalls) {
+            out.writeInt(dWall.getMaxHealth());
+            dWall.writeState(out);
+        }
+        
+        out.writeInt(missiles.size());
+        for (Missile missile : missiles) {
+            out.writeByte(missile.getDirection().ordinal());
+            missile.writeState(out);
+        }
+        
+        out.writeInt(explosions.size());
+        for (Explosion explosion : explosions) {
+            out.writeByte(explosion.getSize().ordinal());
+            explosion.writeState(out);
+        }
+        
+        out.writeInt(medPacks.size());
+        for (MedPack medPack : medPacks) {
+            medPack.writeState(out);
+        }
+        
+        out.writeBoolean(goldenApple != null);
+        if (goldenApple != null) {
+            goldenApple.writeState(out);
+        }
         
-        missiles.forEach(missile -> missile.render(gc));
-        explosions.forEach(explosion -> explosion.render(gc));
+        out.writeBoolean(gameOverNotified);
+        out.writeBoolean(playerCollectedApple);
+        context.writeState(out);
+    }
+    
+    /**
+     * Replaces the dynamic state of a freshly built engine with state written
+     * by {@link #writeState(DataOutput)}. The engine must have been built with
+     * the same seed and player count.
+     */
+    void readState(DataInput in) throws IOException {
+        MatchContext previous = MatchContext.bind(context);
+        try {
+            for (PlayerTank player : playerTanks) {
+                player.readState(in);
+            }
+            
+            enemyTanks.clear();
+            int enemies = in.readInt();
+            for (int i = 0; i < enemies; i++) {
+                EnemyTank enemy = (EnemyTank) factory.createTank(0, 0, Direction.DOWN, GameObjectFactory.TankType.ENEMY);
+                enemy.readState(in);
+                enemyTanks.add(enemy);
+            }
+            
+            destructibleWalls.clear();
+            int dWalls = in.readInt();
+            for (int i = 0; i < dWalls; i++) {
+                DestructibleWall dWall = factory.createDestructibleWall(0, 0, in.readInt());
+                dWall.readState(in);
+                destructibleWalls.add(dWall);
+            }
+            
+            missiles.clear();
+            int missileCount = in.readInt();
+            for (int i = 0; i < missileCount; i++) {
+                Direction direction = Direction.values()[in.readByte()];
+                Missile missile = factory.register(new Missile(0, 0, direction, EntityHandle.NONE, false, Teams.NEUTRAL));
+                missile.readState(in);
+                missiles.add(missile);
+            }
+            
+            explosions.clear();
+            int explosionCount = in.readInt();
+            for (int i = 0; i < explosionCount; i++) {
+                Explosion explosion = new Explosion(0, 0, Explosion.Size.values()[in.readByte()]);
+                explosion.readState(in);
+                explosions.add(explosion);
+            }
+            
+            medPacks.clear();
+            int medPackCount = in.readInt();
+            for (int i = 0; i < medPackCount; i++) {
+                MedPack medPack = factory.createMedPack(0, 0);
+                medPack.readState(in);
+                medPacks.add(medPack);
+            }
+            
+            if (in.readBoolean()) {
+                goldenApple.readState(in);
+            } else {
+                goldenApple = null;
+            }
+            
+            gameOverNotified = in.readBoolean();
+            playerCollectedApple = in.readBoolean();
+            // Read last: rebuilding the entities above consumed handles and random numbers
+            context.readState(in);
+            attachEntities();
+            resumeTimers();
+            createTriggers();
+            updateAllObjects();
+        } finally {
+            MatchContext.bind(previous);
+        }
+    }
+    
+    /**
+     * Arms the timers of the restored entities on the restored clock.
+     */
+    private void resumeTimers() {
+        playerTanks.forEach(GameObject::resumeTimers);
+        enemyTanks.forEach(GameObject::resumeTimers);
+        explosions.forEach(GameObject::resumeTimers);
+        if (goldenApple != null) {
+            goldenApple.resumeTimers();
+        }
+    }
+    
+    /**
+     * Puts every restored entity back into the registry under its own handle.
+     */
+    private void attachEntities() {
+        EntityRegistry registry = context.getEntities();
+        playerTanks.forEach(registry::attach);
+        enemyTanks.forEach(registry::attach);
+        destructibleWalls.forEach(registry::attach);
+        missiles.forEach(registry::attach);
+        medPacks.forEach(registry::attach);
+        if (goldenApple != null) {
+            registry.attach(goldenApple);
+        }
+    }
+    
+    /**
+     * Collects the entities that change during play and must be replicated
+     * to clients. Static walls are part of the map and are not included.
+     */
+    public void collectReplicatedObjects(List<GameObject> out) {
+        for (PlayerTank player : playerTanks) {
+            if (player.isActive()) out.add(player);
+        }
+        for (EnemyTank enemy : enemyTanks) {
+            if (enemy.isActive()) out.add(enemy);
+        }
+        out.addAll(missiles);
+        out.addAll(explosions);
+        out.addAll(medPacks);
+        for (DestructibleWall dWall : destructibleWalls) {
+            if (dWall.isActive()) out.add(dWall);
+        }
+        if (goldenApple != null && goldenApple.isActive()) {
+            out.add(goldenApple);
+        }
+    }
+    
+    public PlayerTank getPlayerTank() {
+        return playerTank;
+    }
+    
+    public List<PlayerTank> getPlayerTanks() {
+        return Collections.unmodifiableList(playerTanks);
+    }
+    
+    public List<EnemyTank> getEnemyTanks() {
+        return Collections.unmodifiableList(enemyTanks);
+    }
+    
+    /**
+     * Adds a missile as if a tank had fired it this tick.
+     */
+    void addMissile(Missile missile) {
+        missiles.add(missile);
+    }
+    
+    public List<Missile> getMissiles() {
+        return Collections.unmodifiableList(missiles);
+    }
+    
+    public List<Explosion> getExplosions() {
+        return Collections.unmodifiableList(explosions);
+    }
+    
+    public List<DestructibleWall> getDestructibleWalls() {
+        return Collections.unmodifiableList(destructibleWalls);
+    }
+    
+    public List<MedPack> getMedPacks() {
+        return Collections.unmodifiableList(medPacks);
+    }
+    
+    public GoldenApple getGoldenApple() {
+        return goldenApple;
+    }
+    
+    /**
+     * Time the last tick spent moving missiles and resolving their hits.
+     */
+    public long getMissilePhaseNanos() {
+        return missilePhaseNanos;
+    }
+    
+    public boolean usesEntityStore() {
+        return usesEntityStore;
+    }
+    
+    /**
+     * Sets how many workers search for missile hits once a tick has enough
+     * missiles; 1 keeps the phase serial. Either way the outcome is the same.
+     */
+    public void setMissileWorkers(int workers) {
+        parallelPhase.setWorkers(Math.max(1, workers));
+    }
+    
+    public int getMissileWorkers() {
+        return parallelPhase.getWorkers();
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public MatchContext getContext() {
+        return context;
+    }
+    
+    public int getScore() {
+        return context.getScore();
+    }
+    
+    public int getPlayerCount() {
+        return playerCount;
     }
     
     public int getPlayerHealth() {
@@ -420,13 +1063,21 @@ public class GameEngine {
     }
     
     public boolean isGameOver() {
-        // Game ends when player dies OR all enemies are defeated
-        return !playerTank.isActive() || getEnemyCount() == 0;
+        // Game ends when every player is dead OR all enemies are defeated
+        return getActivePlayerCount() == 0 || getEnemyCount() == 0;
     }
     
     public boolean playerWon() {
-        // Player wins by defeating all enemies while staying alive
-        return playerTank.isActive() && getEnemyCount() == 0;
+        // Players win by defeating all enemies while at least one stays alive
+        return getActivePlayerCount() > 0 && getEnemyCount() == 0;
+    }
+    
+    private int getActivePlayerCount() {
+        int count = 0;
+        for (PlayerTank player : playerTanks) {
+            if (player.isActive()) count++;
+        }
+        return count;
     }
     
     public boolean appleDestroyed() {
@@ -0,0 +1,139 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.factory.GameObjectFactory;
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import com.tankwar.tankwargame.util.SweptAabb;
+import com.tankwar.tankwargame.util.Teams;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times missile interception at thousands of missiles and checks it
+ * against testing every pair. The arena grows with the missile count so
+ * the density stays that of a crowded match; missiles that are stopped or
+ * leave are replaced, so the count stays fixed.
+ *
+ * Usage: InterceptionBenchmark [ticks]
+ *
+ * @author Iyed Acheche
+ */
+public class InterceptionBenchmark {
+    private static final int[] COUNTS = {1_000, 2_000, 4_000, 8_000, 16_000};
+    private static final int MISSILES_PER_SCREEN = 1_000;
+    private static final int WARMUP_TICKS = 100;
+    private static final int WARMUP_PASSES = 3;
+    private static final int BRUTE_FORCE_SAMPLES = 5;
+    
+    private InterceptionBenchmark() {}
+    
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        
+        System.out.println("=== Missile interception benchmark ===");
+        System.out.printf("%-8s %12s %12s %10s %14s %10s%n", "missiles", "sweep us", "ns/missile", "stopped",
+                "all pairs us", "contacts");
+        // Unreported passes so the first rows are not measured while still compiling
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            run(COUNTS[0], ticks, false);
+        }
+        for (int count : COUNTS) {
+            run(count, ticks, true);
+        }
+    }
+    
+    private static void run(int count, int ticks, boolean report) {
+        double scale = Math.sqrt((double) count / MISSILES_PER_SCREEN);
+        double width = GameConstants.GAME_WIDTH * scale, height = GameConstants.GAME_HEIGHT * scale;
+        MatchContext context = new MatchContext(count);
+        MatchContext previous = MatchContext.bind(context);
+        try {
+            DeterministicRandom random = new DeterministicRandom(count);
+            List<Missile> missiles = new ArrayList<>();
+            MissileInterception interception = new MissileInterception();
+            long sweepNanos = 0, bruteNanos = 0;
+            int stopped = 0, samples = 0;
+            boolean contactsMatch = true;
+            
+            for (int t = 0; t < WARMUP_TICKS + ticks; t++) {
+                replaceSpent(missiles, count, width, height, random, context);
+                missiles.forEach(Missile::update);
+                
+                boolean sample = t >= WARMUP_TICKS && (t - WARMUP_TICKS) % (ticks / BRUTE_FORCE_SAMPLES) == 0;
+                int expected = 0;
+                long bruteStart = System.nanoTime();
+                if (sample) {
+                    expected = countContacts(missiles);
+                }
+                long start = System.nanoTime();
+                int intercepted = interception.resolve(missiles, (a, b, x, y) -> { });
+                long end = System.nanoTime();
+                
+                if (sample) {
+                    samples++;
+                    bruteNanos += start - bruteStart;
+                    contactsMatch &= expected == interception.getContactCount();
+                }
+                if (t >= WARMUP_TICKS) {
+                    sweepNanos += end - start;
+                    stopped += intercepted * 2;
+                }
+            }
+            
+            if (!report) return;
+            System.out.printf("%-8d %12.1f %12.1f %10d %14.1f %10s%n", count, sweepNanos / 1e3 / ticks,
+                    (double) sweepNanos / ticks / count, stopped, bruteNanos / 1e3 / Math.max(1, samples),
+                    contactsMatch ? "match" : "DIFFER");
+        } finally {
+            MatchContext.bind(previous);
+        }
+    }
+    
+    /**
+     * Removes missiles that were stopped or left the arena and fires new
+     * ones from random points, half for each team.
+     */
+    private static void replaceSpent(List<Missile> missiles, int count, double width, double height,
+                                     DeterministicRandom random, MatchContext context) {
+        missiles.removeIf(missile -> {
+            boolean spent = !missile.isActive() || missile.getX() < 0 || missile.getY() < 0
+                    || missile.getX() > width || missile.getY() > height;
+            if (spent) {
+                missile.setActive(false);
+                context.getEntities().release(missile.getHandle());
+            }
+            return spent;
+        });
+        GameObjectFactory factory = GameObjectFactory.getInstance();
+        Direction[] directions = Direction.values();
+        while (missiles.size() < count) {
+            missiles.add(factory.register(new Missile(random.nextDouble() * width, random.nextDouble() * height,
+                    directions[random.nextInt(directions.length)], 0, false,
+                    missiles.size() % 2 == 0 ? Teams.player(0) : Teams.ENEMIES)));
+        }
+    }
+    
+    /**
+     * Reference result: every opposing pair whose moves crossed.
+     */
+    private static int countContacts(List<Missile> missiles) {
+        int contacts = 0;
+        for (int i = 0; i < missiles.size(); i++) {
+            Missile a = missiles.get(i);
+            for (int j = i + 1; j < missiles.size(); j++) {
+                Missile b = missiles.get(j);
+                if (!a.collidesWith(b)) continue;
+                double avx = a.getVelocityX(), avy = a.getVelocityY();
+                double bvx = b.getVelocityX(), bvy = b.getVelocityY();
+                if (SweptAabb.timeOfImpact(a.getX() - avx, a.getY() - avy, a.getWidth(), a.getHeight(),
+                        avx - bvx, avy - bvy, b.getX() - bvx, b.getY() - bvy, b.getWidth(), b.getHeight())
+                        != SweptAabb.NO_IMPACT) {
+                    contacts++;
+                }
+            }
+        }
+        return contacts;
+    }
+}
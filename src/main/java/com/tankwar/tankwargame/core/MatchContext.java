@@ -0,0 +1,131 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Per-match simulation state that used to be global.
+ * Holds the tick counter, the simulation clock derived from it, the timer
+ * wheel driven by it, the seeded random generator, the match score, the
+ * entity registry and the enemy AI coordination registry. Everything that
+ * influences the simulation reads time and randomness from here, so two
+ * engines built with the same seed and fed the same inputs stay identical.
+ *
+ * The engine binds its context to the running thread while it initializes and
+ * updates, so entities reach it through {@link #current()}.
+ *
+ * @author Iyed Acheche
+ */
+public class MatchContext {
+    private static final ThreadLocal<MatchContext> CURRENT = new ThreadLocal<>();
+    private static final MatchContext DEFAULT = new MatchContext(0);
+    
+    private final DeterministicRandom random;
+    private long tick = 0;
+    private int score = 0;
+    private final EntityRegistry entities = new EntityRegistry();
+    private final TimerWheel timers = new TimerWheel(0);
+    
+    // Enemy AI coordination, keyed by tank handle
+    private final Set<Integer> activeChasers = new HashSet<>();
+    
+    public MatchContext(long seed) {
+        this.random = new DeterministicRandom(seed);
+    }
+    
+    /**
+     * Returns the context of the match running on this thread.
+     */
+    public static MatchContext current() {
+        MatchContext context = CURRENT.get();
+        return context != null ? context : DEFAULT;
+    }
+    
+    /**
+     * Returns the context bound to this thread, or null outside a match.
+     */
+    public static MatchContext bound() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Binds a context to this thread and returns the previous one so callers
+     * can restore it.
+     */
+    public static MatchContext bind(MatchContext context) {
+        MatchContext previous = CURRENT.get();
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+        return previous;
+    }
+    
+    /**
+     * Starts the next tick and fires the timers due in it.
+     */
+    public void advanceTick() {
+        tick++;
+        timers.advanceTo(tick);
+    }
+    
+    /**
+     * Simulation time in milliseconds. Advances by a fixed step per tick
+     * instead of following the wall clock.
+     */
+    public long currentTimeMillis() {
+        return tick * GameConstants.TICK_MILLIS;
+    }
+    
+    public void addScore(int points) {
+        score += points;
+    }
+    
+    public void resetAI() {
+        activeChasers.clear();
+    }
+    
+    /**
+     * Writes the clock, score, random state, entity registry and AI registry.
+     * Pending timers are not written; restored entities arm them again.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(tick);
+        out.writeInt(score);
+        out.writeLong(random.getState());
+        entities.writeState(out);
+        List<Integer> chasers = new ArrayList<>(activeChasers);
+        Collections.sort(chasers);
+        out.writeInt(chasers.size());
+        for (int id : chasers) {
+            out.writeInt(id);
+        }
+    }
+    
+    public void readState(DataInput in) throws IOException {
+        tick = in.readLong();
+        timers.reset(tick);
+        score = in.readInt();
+        random.setState(in.readLong());
+        entities.readState(in);
+        activeChasers.clear();
+        int chasers = in.readInt();
+        for (int i = 0; i < chasers; i++) {
+            activeChasers.add(in.readInt());
+        }
+    }
+    
+    public long getTick() { return tick; }
+    public void setTick(long tick) { this.tick = tick; }
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+    public DeterministicRandom getRandom() { return random; }
+    public EntityRegistry getEntities() { return entities; }
+    public TimerWheel getTimers() { return timers; }
+    public Set<Integer> getActiveChasers() { return activeChasers; }
+}
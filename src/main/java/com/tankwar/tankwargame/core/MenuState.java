@@ -5,6 +5,7 @@ package com.tankwar.tankwargame.core;
  * @author Iyed Acheche
  */
 public enum MenuState {
+    LOADING,
     MENU,
     PLAYING,
     PAUSED,
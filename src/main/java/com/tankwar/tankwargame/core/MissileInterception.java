@@ -0,0 +1,299 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.util.CollisionLayers;
+import com.tankwar.tankwargame.util.EntityHandle;
+import com.tankwar.tankwargame.util.SweptAabb;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lets missiles of opposing teams shoot each other down.
+ * Testing every pair would cost O(m²) per tick. Instead the missiles are
+ * kept sorted by where their last move starts along the axis on which they
+ * are most spread out (sort and sweep), and only neighbours whose spans
+ * overlap on that axis are tested. Missiles barely move between ticks, so
+ * last tick's order is almost sorted already and an insertion sort fixes
+ * it in close to linear time. Missiles fired since then are sorted apart
+ * and merged in.
+ *
+ * Contacts are resolved earliest first, ties by handle, so the outcome
+ * does not depend on list order; a missile is only stopped once.
+ *
+ * @author Iyed Acheche
+ */
+final class MissileInterception {
+    private static final int X = 0, Y = 1;
+    private static final int RUN = 32;  // Run length sorted by insertion before merging
+    
+    /**
+     * Receives each pair of missiles that met, with the point where they met.
+     */
+    interface Listener {
+        void onIntercept(Missile first, Missile second, double x, double y);
+    }
+    
+    // Sorted missiles with the span of their last move on the sweep axis
+    private Missile[] order = new Missile[64];
+    private double[] low = new double[64];
+    private double[] high = new double[64];
+    private double[] crossLow = new double[0];
+    private double[] crossHigh = new double[0];
+    private int[] mask = new int[0];
+    private int[] team = new int[0];
+    private Missile[] mergeOrder = new Missile[0];
+    private double[] mergeLow = new double[0];
+    private double[] mergeHigh = new double[0];
+    private int size = 0;
+    private int axis = X;
+    // Handle last added to the order, per registry slot, to find new missiles
+    private int[] tracked = new int[64];
+    
+    // Contacts found this tick
+    private Missile[] contactFirst = new Missile[16];
+    private Missile[] contactSecond = new Missile[16];
+    private double[] contactTime = new double[16];
+    private int[] contactOrder = new int[16];
+    private int[] contactMerge = new int[0];
+    private int contacts = 0;
+    
+    /**
+     * Finds the opposing missiles whose moves this tick cross, and stops
+     * each pair at the point of contact.
+     * @return the number of pairs intercepted
+     */
+    int resolve(List<Missile> missiles, Listener listener) {
+        update(missiles);
+        sweep();
+        return apply(listener);
+    }
+    
+    /**
+     * Drops missiles that are gone, appends new ones, then re-sorts.
+     */
+    private void update(List<Missile> missiles) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (order[i].isActive()) {
+                order[kept++] = order[i];
+            }
+        }
+        Arrays.fill(order, kept, size, null);
+        size = kept;
+        int survivors = kept;
+        
+        for (Missile missile : missiles) {
+            if (!missile.isActive()) continue;
+            int handle = missile.getHandle();
+            int index = EntityHandle.index(handle);
+            if (index >= tracked.length) {
+                tracked = Arrays.copyOf(tracked, Math.max(index + 1, tracked.length * 2));
+            }
+            if (tracked[index] != handle) {
+                tracked[index] = handle;
+                if (size == order.length) grow();
+                order[size++] = missile;
+            }
+        }
+        
+        chooseAxis();
+        for (int i = 0; i < size; i++) {
+            Missile missile = order[i];
+            double end = axis == X ? missile.getX() : missile.getY();
+            double start = end - (axis == X ? missile.getVelocityX() : missile.getVelocityY());
+            low[i] = Math.min(start, end);
+            high[i] = Math.max(start, end) + (axis == X ? missile.getWidth() : missile.getHeight());
+        }
+        // Survivors are nearly sorted already; new missiles are sorted on their own and merged in
+        insertionSort(0, survivors);
+        if (mergeOrder.length < order.length) {
+            mergeOrder = new Missile[order.length];
+            mergeLow = new double[order.length];
+            mergeHigh = new double[order.length];
+        }
+        for (int from = survivors; from < size; from += RUN) {
+            insertionSort(from, Math.min(size, from + RUN));
+        }
+        for (int width = RUN; width < size - survivors; width *= 2) {
+            for (int from = survivors; from + width < size; from += 2 * width) {
+                merge(from, from + width, Math.min(size, from + 2 * width));
+            }
+        }
+        merge(0, survivors, size);
+        
+        // Spans on the other axis and collision filters, in sorted order, so most pairs are rejected without touching the missiles
+        if (crossLow.length < order.length) {
+            crossLow = new double[order.length];
+            crossHigh = new double[order.length];
+            mask = new int[order.length];
+            team = new int[order.length];
+        }
+        for (int i = 0; i < size; i++) {
+            Missile missile = order[i];
+            double end = axis == X ? missile.getY() : missile.getX();
+            double start = end - (axis == X ? missile.getVelocityY() : missile.getVelocityX());
+            crossLow[i] = Math.min(start, end);
+            crossHigh[i] = Math.max(start, end) + (axis == X ? missile.getHeight() : missile.getWidth());
+            mask[i] = missile.getCollisionMask();
+            team[i] = missile.getTeam();
+        }
+    }
+    
+    /**
+     * Sweeps along the axis where the missiles are most spread out, so
+     * fewer of them share a span.
+     */
+    private void chooseAxis() {
+        if (size == 0) return;
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, order[i].getX());
+            maxX = Math.max(maxX, order[i].getX());
+            minY = Math.min(minY, order[i].getY());
+            maxY = Math.max(maxY, order[i].getY());
+        }
+        axis = maxX - minX >= maxY - minY ? X : Y;
+    }
+    
+    private void insertionSort(int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            double key = low[i];
+            if (low[i - 1] <= key) continue;
+            Missile missile = order[i];
+            double span = high[i];
+            int j = i - 1;
+            while (j >= from && low[j] > key) {
+                order[j + 1] = order[j];
+                low[j + 1] = low[j];
+                high[j + 1] = high[j];
+                j--;
+            }
+            order[j + 1] = missile;
+            low[j + 1] = key;
+            high[j + 1] = span;
+        }
+    }
+    
+    /**
+     * Merges the sorted runs [from, mid) and [mid, to).
+     */
+    private void merge(int from, int mid, int to) {
+        if (mid <= from || mid >= to || low[mid - 1] <= low[mid]) return;
+        int a = from, b = mid, k = 0;
+        while (a < mid || b < to) {
+            int next = b >= to || (a < mid && low[a] <= low[b]) ? a++ : b++;
+            mergeOrder[k] = order[next];
+            mergeLow[k] = low[next];
+            mergeHigh[k] = high[next];
+            k++;
+        }
+        System.arraycopy(mergeOrder, 0, order, from, k);
+        System.arraycopy(mergeLow, 0, low, from, k);
+        System.arraycopy(mergeHigh, 0, high, from, k);
+        Arrays.fill(mergeOrder, 0, k, null);
+    }
+    
+    private void sweep() {
+        contacts = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size && low[j] < high[i]; j++) {
+                if (!CollisionLayers.accepts(mask[i], team[i], CollisionLayers.MISSILE, team[j])
+                        || crossLow[j] >= crossHigh[i] || crossLow[i] >= crossHigh[j]) continue;
+                Missile a = order[i], b = order[j];
+                
+                // Move a relative to b, so b can be treated as standing still
+                double avx = a.getVelocityX(), avy = a.getVelocityY();
+                double bvx = b.getVelocityX(), bvy = b.getVelocityY();
+                double time = SweptAabb.timeOfImpact(a.getX() - avx, a.getY() - avy, a.getWidth(), a.getHeight(),
+                        avx - bvx, avy - bvy, b.getX() - bvx, b.getY() - bvy, b.getWidth(), b.getHeight());
+                if (time != SweptAabb.NO_IMPACT) {
+                    addContact(a, b, time);
+                }
+            }
+        }
+    }
+    
+    private void addContact(Missile a, Missile b, double time) {
+        if (contacts == contactTime.length) {
+            int capacity = contacts * 2;
+            contactFirst = Arrays.copyOf(contactFirst, capacity);
+            contactSecond = Arrays.copyOf(contactSecond, capacity);
+            contactTime = Arrays.copyOf(contactTime, capacity);
+            contactOrder = Arrays.copyOf(contactOrder, capacity);
+        }
+        boolean aFirst = a.getHandle() < b.getHandle();
+        contactFirst[contacts] = aFirst ? a : b;
+        contactSecond[contacts] = aFirst ? b : a;
+        contactTime[contacts] = time;
+        contacts++;
+    }
+    
+    private int apply(Listener listener) {
+        sortContacts();
+        
+        int intercepted = 0;
+        for (int i = 0; i < contacts; i++) {
+            int c = contactOrder[i];
+            Missile first = contactFirst[c], second = contactSecond[c];
+            if (!first.isActive() || !second.isActive()) continue;
+            first.intercept(second, contactTime[c]);
+            double x = (first.getX() + second.getX() + first.getWidth() / 2.0 + second.getWidth() / 2.0) / 2;
+            double y = (first.getY() + second.getY() + first.getHeight() / 2.0 + second.getHeight() / 2.0) / 2;
+            listener.onIntercept(first, second, x, y);
+            intercepted++;
+        }
+        Arrays.fill(contactFirst, 0, contacts, null);
+        Arrays.fill(contactSecond, 0, contacts, null);
+        return intercepted;
+    }
+    
+    /**
+     * Orders the contacts by time, then by handles; insertion sort on short
+     * runs, then merges.
+     */
+    private void sortContacts() {
+        for (int i = 0; i < contacts; i++) {
+            int k = i;
+            while (k % RUN != 0 && comesBefore(i, contactOrder[k - 1])) {
+                contactOrder[k] = contactOrder[k - 1];
+                k--;
+            }
+            contactOrder[k] = i;
+        }
+        if (contactMerge.length < contactOrder.length) {
+            contactMerge = new int[contactOrder.length];
+        }
+        for (int width = RUN; width < contacts; width *= 2) {
+            for (int from = 0; from + width < contacts; from += 2 * width) {
+                int mid = from + width, to = Math.min(contacts, from + 2 * width);
+                int a = from, b = mid, k = 0;
+                while (a < mid || b < to) {
+                    contactMerge[k++] = b >= to || (a < mid && !comesBefore(contactOrder[b], contactOrder[a]))
+                            ? contactOrder[a++] : contactOrder[b++];
+                }
+                System.arraycopy(contactMerge, 0, contactOrder, from, k);
+            }
+        }
+    }
+    
+    private boolean comesBefore(int a, int b) {
+        if (contactTime[a] != contactTime[b]) return contactTime[a] < contactTime[b];
+        int firstA = contactFirst[a].getHandle(), firstB = contactFirst[b].getHandle();
+        if (firstA != firstB) return firstA < firstB;
+        return contactSecond[a].getHandle() < contactSecond[b].getHandle();
+    }
+    
+    private void grow() {
+        int capacity = order.length * 2;
+        order = Arrays.copyOf(order, capacity);
+        low = Arrays.copyOf(low, capacity);
+        high = Arrays.copyOf(high, capacity);
+    }
+    
+    /**
+     * Pairs whose moves crossed on the last call, before any were stopped.
+     */
+    int getContactCount() { return contacts; }
+    int getTrackedCount() { return size; }
+    boolean isSweepingX() { return axis == X; }
+}
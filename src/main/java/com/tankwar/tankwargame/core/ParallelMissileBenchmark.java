@@ -0,0 +1,98 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.factory.GameObjectFactory;
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.Arrays;
+
+/**
+ * Runs a serial and a parallel engine side by side in a bullet-hell
+ * match, feeding both the same missiles, and checks after every tick that
+ * their snapshots are byte for byte identical. Reports the average missile
+ * phase time of each.
+ *
+ * Usage: ParallelMissileBenchmark [missiles] [ticks] [workers]
+ *
+ * @author Iyed Acheche
+ */
+public class ParallelMissileBenchmark {
+    private static final int WARMUP_TICKS = 200;
+    
+    private ParallelMissileBenchmark() {}
+    
+    public static void main(String[] args) {
+        int missileCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        
+        GameEngine serial = createEngine(1);
+        GameEngine parallel = createEngine(Math.max(2, workers));
+        DeterministicRandom random = new DeterministicRandom(7);
+        int[] inputs = new int[GameConstants.MAX_PLAYERS];
+        long serialNanos = 0, parallelNanos = 0;
+        int hits = 0;
+        
+        for (int t = 0; t < WARMUP_TICKS + ticks; t++) {
+            long spawnSeed = random.nextLong();
+            topUp(serial, missileCount, new DeterministicRandom(spawnSeed));
+            topUp(parallel, missileCount, new DeterministicRandom(spawnSeed));
+            int before = serial.getMissiles().size();
+            
+            serial.update(inputs);
+            parallel.update(inputs);
+            if (t >= WARMUP_TICKS) {
+                serialNanos += serial.getMissilePhaseNanos();
+                parallelNanos += parallel.getMissilePhaseNanos();
+            }
+            hits += before - serial.getMissiles().size();
+            
+            if (!Arrays.equals(EngineSnapshot.capture(serial), EngineSnapshot.capture(parallel))) {
+                System.out.println("Result: engines diverged at tick " + t);
+                System.exit(1);
+            }
+        }
+        
+        System.out.println("=== Parallel missile phase benchmark ===");
+        System.out.printf("missiles=%d ticks=%d workers=%d cores=%d removed=%d%n", missileCount, ticks,
+                parallel.getMissileWorkers(), Runtime.getRuntime().availableProcessors(), hits);
+        System.out.printf("serial   %10.1f us/tick%n", serialNanos / 1e3 / ticks);
+        System.out.printf("parallel %10.1f us/tick  %.2fx%n", parallelNanos / 1e3 / ticks,
+                (double) serialNanos / parallelNanos);
+        System.out.println("Result: snapshots identical on every tick");
+    }
+    
+    private static GameEngine createEngine(int workers) {
+        GameEngine engine = new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT,
+                GameConstants.TILE_SIZE, 42L, GameConstants.MAX_PLAYERS, true);
+        engine.setMissileWorkers(workers);
+        return engine;
+    }
+    
+    /**
+     * Tops the engine up to the target count from random open points,
+     * alternating player and enemy owners so hits land on both sides.
+     */
+    private static void topUp(GameEngine engine, int missileCount, DeterministicRandom random) {
+        Tank player = engine.getPlayerTanks().get(0);
+        Tank enemy = engine.getEnemyTanks().isEmpty() ? player : engine.getEnemyTanks().get(0);
+        Direction[] directions = Direction.values();
+        GameObjectFactory factory = GameObjectFactory.getInstance();
+        MatchContext previous = MatchContext.bind(engine.getContext());
+        try {
+            for (int i = engine.getMissiles().size(); i < missileCount; i++) {
+                double x, y;
+                do {
+                    x = random.nextDouble() * GameConstants.GAME_WIDTH;
+                    y = random.nextDouble() * GameConstants.GAME_HEIGHT;
+                } while (engine.isPositionOccupied((int) x, (int) y));
+                Tank owner = i % 2 == 0 ? player : enemy;
+                engine.addMissile(factory.createMissile(x, y, directions[random.nextInt(directions.length)], owner));
+            }
+        } finally {
+            MatchContext.bind(previous);
+        }
+    }
+}
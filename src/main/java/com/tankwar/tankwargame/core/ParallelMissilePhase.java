@@ -0,0 +1,176 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.entities.base.EntityStore;
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.entities.environment.DestructibleWall;
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.util.CollisionLayers;
+import com.tankwar.tankwargame.util.GameConstants;
+import com.tankwar.tankwargame.util.SweptAabb;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds missile hits on several threads.
+ * Missiles are split into contiguous slot ranges, one per worker. Workers
+ * only read: the static wall grid, this tick's destructible wall and tank
+ * mirrors, and the missile arrays. Each records what its missiles touch in
+ * its own buffer, so no worker writes shared state.
+ *
+ * The buffers are then read back in range order, which is missile slot
+ * order, and the engine applies damage, scoring and explosions one hit at
+ * a time exactly as the serial loop does. Geometry cannot change during the
+ * phase, so the recorded contacts are the ones the serial loop would find;
+ * only the checks that depend on earlier hits this tick, such as whether a
+ * tank is still alive, are left to the merge.
+ *
+ * @author Iyed Acheche
+ */
+final class ParallelMissilePhase {
+    static final int WALL = 0;
+    static final int DESTRUCTIBLE_WALL = 1;
+    static final int TANK = 2;
+    
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+    // Shared by every engine in the process, so rooms do not each start threads
+    private static final ForkJoinPool WORKERS = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("missile-worker-" + THREAD_IDS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+    
+    private int workers;
+    private HitBuffer[] buffers = new HitBuffer[0];
+    private int usedBuffers;
+    
+    ParallelMissilePhase(int workers) {
+        this.workers = workers;
+    }
+    
+    /**
+     * Whether a tick with this many missiles is worth splitting.
+     */
+    boolean shouldRun(int missileCount) {
+        return workers > 1 && missileCount >= GameConstants.PARALLEL_MISSILE_THRESHOLD;
+    }
+    
+    /**
+     * Records the contacts of every active missile along its last move. A
+     * missile gets at most one wall entry, for the earliest static or
+     * destructible wall it touches, followed by a TANK entry for each tank
+     * other than its owner and its allies that it touches before that, in
+     * tank slot order.
+     */
+    void scan(EntityStore<Missile> missiles, EntityStore<GameObject> walls,
+              EntityStore<DestructibleWall> destructibleWalls, EntityStore<Tank> tanks, boolean[] nearTank) {
+        int count = missiles.size();
+        int chunks = Math.max(1, Math.min(workers, count / GameConstants.PARALLEL_MISSILE_CHUNK));
+        if (buffers.length < chunks) {
+            buffers = Arrays.copyOf(buffers, chunks);
+            for (int c = 0; c < chunks; c++) {
+                if (buffers[c] == null) buffers[c] = new HitBuffer();
+            }
+        }
+        usedBuffers = chunks;
+        
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) count * c / chunks);
+            int to = (int) ((long) count * (c + 1) / chunks);
+            HitBuffer buffer = buffers[c];
+            tasks[c] = WORKERS.submit(() -> scanRange(missiles, walls, destructibleWalls, tanks, nearTank, from, to, buffer));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+    
+    private static void scanRange(EntityStore<Missile> missiles, EntityStore<GameObject> walls,
+                                  EntityStore<DestructibleWall> destructibleWalls, EntityStore<Tank> tanks,
+                                  boolean[] nearTank, int from, int to, HitBuffer buffer) {
+        buffer.clear();
+        double[] time = new double[1];
+        for (int i = from; i < to; i++) {
+            if (!missiles.isActive(i)) continue;
+            double dx = missiles.getVelocityX(i), dy = missiles.getVelocityY(i);
+            double sx = missiles.getX(i) - dx, sy = missiles.getY(i) - dy;
+            int mw = missiles.getWidth(i), mh = missiles.getHeight(i);
+            int mask = missiles.getMask(i), team = missiles.getTeam(i);
+            double first = SweptAabb.NO_IMPACT;
+            int kind = -1, target = -1;
+            
+            int hit = (mask & CollisionLayers.WALL) != 0 ? walls.firstImpact(sx, sy, mw, mh, dx, dy, time) : -1;
+            if (hit >= 0) {
+                first = time[0];
+                kind = WALL;
+                target = hit;
+            }
+            
+            hit = (mask & CollisionLayers.DESTRUCTIBLE_WALL) != 0
+                    ? destructibleWalls.firstImpact(sx, sy, mw, mh, dx, dy, time) : -1;
+            if (hit >= 0 && time[0] < first) {
+                first = time[0];
+                kind = DESTRUCTIBLE_WALL;
+                target = hit;
+            }
+            if (kind >= 0) {
+                buffer.add(i, kind, target, first);
+            }
+            
+            if (!nearTank[i]) continue;
+            int owner = missiles.getOwner(i);
+            for (int t = 0; t < tanks.size(); t++) {
+                if (!CollisionLayers.accepts(mask, team, tanks.getLayer(t), tanks.getTeam(t))) continue;
+                double tankTime = tanks.timeOfImpact(t, sx, sy, mw, mh, dx, dy);
+                if (tankTime < first && tanks.getView(t).getHandle() != owner) {
+                    buffer.add(i, TANK, t, tankTime);
+                }
+            }
+        }
+    }
+    
+    int getBufferCount() { return usedBuffers; }
+    HitBuffer getBuffer(int index) { return buffers[index]; }
+    int getWorkers() { return workers; }
+    void setWorkers(int workers) { this.workers = workers; }
+    
+    /**
+     * Contacts found by one worker, as parallel arrays in missile slot order.
+     */
+    static final class HitBuffer {
+        private int[] missile = new int[64];
+        private int[] kind = new int[64];
+        private int[] target = new int[64];
+        private double[] time = new double[64];
+        private int size;
+        
+        void add(int missileSlot, int hitKind, int targetSlot, double impactTime) {
+            if (size == missile.length) {
+                missile = Arrays.copyOf(missile, size * 2);
+                kind = Arrays.copyOf(kind, size * 2);
+                target = Arrays.copyOf(target, size * 2);
+                time = Arrays.copyOf(time, size * 2);
+            }
+            missile[size] = missileSlot;
+            kind[size] = hitKind;
+            target[size] = targetSlot;
+            time[size] = impactTime;
+            size++;
+        }
+        
+        void clear() {
+            size = 0;
+        }
+        
+        int size() { return size; }
+        int getMissile(int index) { return missile[index]; }
+        int getKind(int index) { return kind[index]; }
+        int getTarget(int index) { return target[index]; }
+        double getTime(int index) { return time[index]; }
+    }
+}
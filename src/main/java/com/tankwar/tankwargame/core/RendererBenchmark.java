@@ -0,0 +1,149 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.assets.AtlasRegion;
+import com.tankwar.tankwargame.assets.TextureAtlas;
+import com.tankwar.tankwargame.render.CanvasTarget;
+import com.tankwar.tankwargame.render.RenderCommands;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.render.SoftwareRenderer;
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Times drawing 1k, 5k and 20k tank and missile sprites through the
+ * canvas and through the software renderer. Each canvas frame is read
+ * back with a snapshot, which makes JavaFX rasterise the queued commands
+ * before the clock stops; the software frame is presented and drawn onto
+ * the same canvas first, so both columns include the same read back.
+ * Run with the game's pipeline: {@code -Dprism.order=sw}.
+ *
+ * If JavaFX cannot start, as on a machine without a display, only the
+ * software rasteriser is timed, without presenting.
+ *
+ * Usage: RendererBenchmark [frames]
+ *
+ * @author Iyed Acheche
+ */
+public class RendererBenchmark {
+    private static final int[] COUNTS = {1_000, 5_000, 20_000};
+    private static final int WARMUP_FRAMES = 20;
+    
+    private RendererBenchmark() {}
+    
+    public static void main(String[] args) throws InterruptedException {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        
+        System.out.println("=== Renderer benchmark (" + GameConstants.GAME_WIDTH + "x" + GameConstants.GAME_HEIGHT
+                + ", prism.order=" + System.getProperty("prism.order", "default") + ") ===");
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            Platform.startup(() -> {
+                try {
+                    compare(frames);
+                } finally {
+                    done.countDown();
+                }
+            });
+            done.await();
+            Platform.exit();
+        } catch (RuntimeException e) {
+            System.out.println("JavaFX unavailable (" + e.getMessage() + "); timing the software rasteriser only");
+            rasteriseOnly(frames);
+        }
+    }
+    
+    private static void compare(int frames) {
+        Canvas canvas = new Canvas(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        CanvasTarget canvasTarget = new CanvasTarget(gc);
+        SoftwareRenderer software = new SoftwareRenderer(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+        WritableImage readBack = new WritableImage(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+        
+        System.out.printf("%-8s %14s %14s %14s %9s%n", "sprites", "canvas ms", "software ms", "raster ms", "speedup");
+        for (int count : COUNTS) {
+            RenderCommands commands = sprites(count);
+            Runnable canvasFrame = () -> {
+                gc.setFill(Color.BLACK);
+                gc.fillRect(0, 0, GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+                commands.submit(canvasTarget, 1);
+                canvas.snapshot(null, readBack);
+            };
+            Runnable softwareFrame = () -> {
+                software.clear(0xFF000000);
+                commands.submit(software, 1);
+                gc.drawImage(software.present(), 0, 0);
+                canvas.snapshot(null, readBack);
+            };
+            double canvasMillis = time(canvasFrame, frames);
+            double softwareMillis = time(softwareFrame, frames);
+            double rasterMillis = time(() -> {
+                software.clear(0xFF000000);
+                commands.submit(software, 1);
+            }, frames);
+            System.out.printf("%-8d %14.2f %14.2f %14.2f %8.2fx%n", count, canvasMillis, softwareMillis,
+                    rasterMillis, canvasMillis / softwareMillis);
+        }
+    }
+    
+    private static void rasteriseOnly(int frames) {
+        SoftwareRenderer software = new SoftwareRenderer(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+        System.out.printf("%-8s %14s %14s%n", "sprites", "raster ms", "ns/sprite");
+        for (int count : COUNTS) {
+            RenderCommands commands = sprites(count);
+            double rasterMillis = time(() -> {
+                software.clear(0xFF000000);
+                commands.submit(software, 1);
+            }, frames);
+            System.out.printf("%-8d %14.2f %14.1f%n", count, rasterMillis, rasterMillis * 1e6 / count);
+        }
+    }
+    
+    /**
+     * @return average milliseconds per frame
+     */
+    private static double time(Runnable frame, int frames) {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            frame.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / frames;
+    }
+    
+    /**
+     * Tanks and missiles in every direction, scattered over the play field.
+     */
+    private static RenderCommands sprites(int count) {
+        TextureAtlas atlas = TextureAtlas.get();
+        List<AtlasRegion> tanks = new ArrayList<>(), missiles = new ArrayList<>();
+        for (Direction direction : Direction.values()) {
+            tanks.add(atlas.region(direction.getTankImage()));
+            missiles.add(atlas.region(direction.getMissileImage()));
+        }
+        DeterministicRandom random = new DeterministicRandom(count);
+        RenderCommands commands = new RenderCommands();
+        commands.clear(null);
+        for (int i = 0; i < count; i++) {
+            boolean tank = i % 4 == 0;
+            AtlasRegion region = (tank ? tanks : missiles).get(random.nextInt(4));
+            int size = tank ? GameConstants.TANK_SIZE : GameConstants.MISSILE_SIZE;
+            double x = random.nextDouble() * (GameConstants.GAME_WIDTH - size);
+            double y = random.nextDouble() * (GameConstants.GAME_HEIGHT - size);
+            commands.image(tank ? RenderLayers.TANKS : RenderLayers.MISSILES, RenderCommands.NO_ANCHOR,
+                    region, x, y, size, size);
+        }
+        commands.finish();
+        return commands;
+    }
+}
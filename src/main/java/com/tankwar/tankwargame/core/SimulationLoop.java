@@ -0,0 +1,170 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.render.RenderSnapshot;
+import com.tankwar.tankwargame.util.GameConstants;
+import com.tankwar.tankwargame.util.SpscIntQueue;
+import com.tankwar.tankwargame.util.TripleBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the local match on its own thread at a fixed tick rate, apart from
+ * the JavaFX thread, so a slow tick no longer holds up a frame and a slow
+ * frame no longer holds up a tick.
+ *
+ * The FX thread talks to it only through lock-free hand-offs: key events
+ * go in through an SpscIntQueue, a new match through an atomic reference,
+ * and after every tick a RenderSnapshot comes out through a TripleBuffer.
+ * The engine itself is only ever touched by the simulation thread.
+ *
+ * @author Iyed Acheche
+ */
+public final class SimulationLoop implements Runnable {
+    private static final long TICK_NANOS = GameConstants.TICK_MILLIS * 1_000_000L;
+    private static final int MAX_CATCH_UP_TICKS = 5;  // After a longer stall the clock skips ahead instead
+    private static final int KEY_PRESSED = 1;
+    
+    private static final class Start {
+        final GameEngine engine;
+        final int match;
+        
+        Start(GameEngine engine, int match) {
+            this.engine = engine;
+            this.match = match;
+        }
+    }
+    
+    private final SpscIntQueue keyEvents = new SpscIntQueue(256);
+    private final TripleBuffer<RenderSnapshot> snapshots = new TripleBuffer<>(RenderSnapshot::new);
+    private final AtomicReference<Start> pendingStart = new AtomicReference<>();
+    private volatile boolean paused = true;
+    private volatile boolean running = false;
+    private Thread thread;
+    private int lastMatch = 0;  // FX thread only
+    
+    // Simulation thread only
+    private GameEngine engine;
+    private int match = 0;
+    private boolean finished = false;
+    private int heldKeys = 0;
+    private final int[] inputs = new int[1];
+    private RenderSnapshot published;
+    
+    public SimulationLoop() {}
+    
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    /**
+     * Hands a new match to the simulation thread, which switches to it
+     * before its next tick and starts ticking it. Called from the FX thread.
+     * @return the match number later snapshots carry
+     */
+    public int startMatch(GameEngine engine) {
+        int next = ++lastMatch;
+        pendingStart.set(new Start(engine, next));
+        paused = false;
+        return next;
+    }
+    
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+    
+    /**
+     * Queues a change of a held key, as an input flag. Called from the FX
+     * thread; if the queue is ever full the event is dropped.
+     */
+    public void postKey(int flag, boolean pressed) {
+        keyEvents.offer(flag << 1 | (pressed ? KEY_PRESSED : 0));
+    }
+    
+    /**
+     * The newest published snapshot. Called from the FX thread.
+     */
+    public RenderSnapshot latestSnapshot() {
+        return snapshots.front();
+    }
+    
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime();
+        while (running) {
+            Start start = pendingStart.getAndSet(null);
+            if (start != null) {
+                begin(start);
+            }
+            keyEvents.drain(this::applyKeyEvent);
+            
+            long now = System.nanoTime();
+            if (now < nextTick) {
+                LockSupport.parkNanos(nextTick - now);
+                continue;
+            }
+            for (int i = 0; i < MAX_CATCH_UP_TICKS && now >= nextTick; i++) {
+                tick();
+                nextTick += TICK_NANOS;
+            }
+            if (now >= nextTick) {
+                nextTick = now + TICK_NANOS;
+            }
+        }
+    }
+    
+    private void begin(Start start) {
+        engine = start.engine;
+        match = start.match;
+        finished = false;
+        heldKeys = 0;
+        GameState.getInstance().reset();
+        publish();
+    }
+    
+    private void applyKeyEvent(int event) {
+        int flag = event >>> 1;
+        if ((event & KEY_PRESSED) != 0) {
+            heldKeys |= flag;
+        } else {
+            heldKeys &= ~flag;
+        }
+    }
+    
+    private void tick() {
+        if (engine == null || paused || finished) return;
+        inputs[0] = heldKeys;
+        engine.update(inputs);
+        // Like the old frame loop, a finished match stays frozen on its last tick
+        finished = engine.isGameOver();
+        publish();
+    }
+    
+    private void publish() {
+        RenderSnapshot snapshot = snapshots.back();
+        snapshot.begin(match, published);
+        engine.capture(snapshot);
+        snapshot.finish(System.nanoTime());
+        snapshots.publish();
+        published = snapshot;
+    }
+    
+    /**
+     * How far the renderer should be between the previous snapshot and the
+     * given one, from 0 to 1, at the given time.
+     */
+    public static double interpolationAlpha(RenderSnapshot snapshot, long nowNanos) {
+        double alpha = (nowNanos - snapshot.getPublishNanos()) / (double) TICK_NANOS;
+        return Math.max(0, Math.min(1, alpha));
+    }
+}
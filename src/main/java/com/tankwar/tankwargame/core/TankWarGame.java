@@ -1,16 +1,29 @@
 package com.tankwar.tankwargame.core;
 
+import com.tankwar.tankwargame.ai.PlayerInput;
+import com.tankwar.tankwargame.assets.AssetPreloader;
+import com.tankwar.tankwargame.assets.AtlasRegion;
+import com.tankwar.tankwargame.assets.TextureAtlas;
+import com.tankwar.tankwargame.entities.effects.Explosion;
+import com.tankwar.tankwargame.render.CanvasTarget;
+import com.tankwar.tankwargame.render.DrawTarget;
+import com.tankwar.tankwargame.render.RenderCommands;
+import com.tankwar.tankwargame.render.RenderSnapshot;
+import com.tankwar.tankwargame.render.SoftwareRenderer;
+import com.tankwar.tankwargame.render.TopBarHud;
 import com.tankwar.tankwargame.util.GameConstants;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.effect.GaussianBlur;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.StackPane;
@@ -19,11 +32,20 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
-import java.util.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main application class for the Tank War Game.
- * Handles JavaFX GUI setup and game loop.
+ * Handles JavaFX GUI setup and drawing. The match itself runs on the
+ * SimulationLoop thread; this class only posts key events to it and draws
+ * the snapshots it publishes, between the last two ticks.
+ * 
+ * The play area is drawn through the canvas by default. Starting with
+ * {@code -Dtankwar.renderer=software} draws it into an int[] framebuffer
+ * instead, presented as one image per frame. The top bar is a cached
+ * image that is only repainted where a shown value changed.
  * 
  * OOP Concepts: Encapsulation, Composition, Separation of Concerns
  * Design Patterns: MVC Pattern, Template Method
@@ -31,14 +53,20 @@ import java.util.*;
  * @author Iyed Acheche
  */
 public class TankWarGame extends Application {
+    public static final String RENDERER_PROPERTY = "tankwar.renderer";
+    private static final int BACKGROUND = RenderCommands.argb(Color.BLACK);
     
     private Canvas canvas;
     private GraphicsContext gc;
-    private GameEngine gameEngine;
+    private DrawTarget playArea;
+    private SoftwareRenderer softwareRenderer;
+    private TopBarHud topBar;
+    private final SimulationLoop simulation = new SimulationLoop();
+    private int currentMatch = 0;
+    private RenderSnapshot frame;
     private AnimationTimer gameLoop;
-    private Set<KeyCode> pressedKeys = new HashSet<>();
     
-    private MenuState currentState = MenuState.MENU;
+    private MenuState currentState = MenuState.LOADING;
     private StackPane mainContainer;
     private VBox menuPane;
     private VBox pausePane;
@@ -47,17 +75,29 @@ public class TankWarGame extends Application {
     private Scene scene;
     private boolean gameOverScreenShown = false;
     
+    // Startup and match preparation run here, off the FX thread
+    private final ExecutorService loader = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), task -> {
+                Thread thread = new Thread(task, "asset-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private volatile GameEngine preparedEngine;
+    private long launchNanos;
+    
     @Override
     public void start(Stage primaryStage) {
+        launchNanos = System.nanoTime();
         primaryStage.setTitle("Tank War Game");
         
         canvas = new Canvas(GameConstants.WINDOW_WIDTH, GameConstants.WINDOW_HEIGHT);
         gc = canvas.getGraphicsContext2D();
+        createPlayAreaTarget();
+        topBar = new TopBarHud(GameConstants.WINDOW_WIDTH, GameConstants.TOP_BAR_HEIGHT);
         
         mainContainer = new StackPane();
-        
-        createMenu();
-        createPauseOverlay();
+        ProgressBar progressBar = new ProgressBar(0);
+        mainContainer.getChildren().add(createSplash(progressBar));
         
         scene = new Scene(mainContainer, GameConstants.WINDOW_WIDTH, GameConstants.WINDOW_HEIGHT);
         setupKeyHandlers(scene);
@@ -66,8 +106,95 @@ public class TankWarGame extends Application {
         primaryStage.setResizable(false);
         primaryStage.show();
         
-        showMenu();
+        simulation.start();
         startGameLoop();
+        preloadAssets(progressBar);
+    }
+    
+    private VBox createSplash(ProgressBar progressBar) {
+        VBox splash = new VBox(20);
+        splash.setAlignment(Pos.CENTER);
+        splash.setStyle("-fx-background-color: #2b2b2b;");
+        
+        Label title = new Label("TANK WAR");
+        title.setFont(Font.font("Arial", FontWeight.BOLD, 36));
+        title.setTextFill(Color.YELLOW);
+        progressBar.setPrefWidth(300);
+        
+        splash.getChildren().addAll(title, progressBar);
+        return splash;
+    }
+    
+    /**
+     * Loads the atlas, animations and fonts and builds the first match in
+     * parallel while the splash is shown, then builds the menu. Once the
+     * menu is up nothing is decoded or generated on the FX thread.
+     */
+    private void preloadAssets(ProgressBar progressBar) {
+        AssetPreloader preloader = new AssetPreloader()
+                .add("atlas", () -> TextureAtlas.get().getImage())
+                .add("animations", Explosion::preloadAnimations)
+                .add("fonts", TankWarGame::preloadFonts)
+                .add("map", () -> preparedEngine = newEngine());
+        preloader.start(loader, progress -> Platform.runLater(() -> progressBar.setProgress(progress)))
+                .thenRun(() -> Platform.runLater(() -> onAssetsLoaded(preloader)));
+    }
+    
+    private void onAssetsLoaded(AssetPreloader preloader) {
+        createMenu();
+        createPauseOverlay();
+        showMenu();
+        
+        // The first pulse after the menu is added is the first frame the player can use
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                double sinceStart = (System.nanoTime() - launchNanos) / 1e6;
+                long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                System.out.printf("Time to first interactive frame: %.0f ms (%d ms since JVM start); assets %.0f ms: %s%n",
+                        sinceStart, sinceJvmStart, preloader.getElapsedMillis(), preloader.describeTimings());
+            }
+        }.start();
+    }
+    
+    /**
+     * Looks up every font the menus and HUD use so the first screen
+     * showing each does not wait for the font files.
+     */
+    private static void preloadFonts() {
+        for (FontWeight weight : new FontWeight[] {FontWeight.NORMAL, FontWeight.BOLD}) {
+            for (int size : new int[] {10, 11, 16, 18, 20, 24, 36, 48, 64}) {
+                Font.font("Arial", weight, size);
+            }
+        }
+    }
+    
+    private void createPlayAreaTarget() {
+        if ("software".equals(System.getProperty(RENDERER_PROPERTY))) {
+            softwareRenderer = new SoftwareRenderer(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+            playArea = softwareRenderer;
+        } else {
+            playArea = new CanvasTarget(gc);
+        }
+    }
+    
+    private static GameEngine newEngine() {
+        return new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT, GameConstants.TILE_SIZE);
+    }
+    
+    /**
+     * Returns the match built in the background and starts building the
+     * next one. Builds one here only if the player was faster than that.
+     */
+    private GameEngine takePreparedEngine() {
+        GameEngine engine = preparedEngine;
+        preparedEngine = null;
+        if (engine == null) {
+            engine = newEngine();
+        }
+        loader.execute(() -> preparedEngine = newEngine());
+        return engine;
     }
     
     private void createMenu() {
@@ -75,14 +202,15 @@ public class TankWarGame extends Application {
         menuPane.setAlignment(Pos.CENTER);
         menuPane.setStyle("-fx-background-color: #2b2b2b;");
         
-        try {
-            Image logoImage = new Image(getClass().getResourceAsStream("/com/tankwar/tankwargame/images/game_logo.png"));
-            ImageView logoView = new ImageView(logoImage);
+        AtlasRegion logo = TextureAtlas.get().region("game_logo.png");
+        if (logo != null) {
+            ImageView logoView = new ImageView(logo.getAtlas().getImage());
+            logoView.setViewport(new Rectangle2D(logo.getX(), logo.getY(), logo.getWidth(), logo.getHeight()));
             logoView.setFitWidth(300);
             logoView.setPreserveRatio(true);
             logoView.setSmooth(true);
             menuPane.getChildren().add(logoView);
-        } catch (Exception e) {
+        } else {
             Label welcomeLabel = new Label("Welcome to Tank City");
             welcomeLabel.setFont(Font.font("Arial", FontWeight.BOLD, 48));
             welcomeLabel.setTextFill(Color.YELLOW);
@@ -142,7 +270,7 @@ public class TankWarGame extends Application {
         victoryMessage.setFont(Font.font("Arial", FontWeight.NORMAL, 24));
         victoryMessage.setTextFill(Color.WHITE);
         
-        Label scoreLabel = new Label("Final Score: " + GameState.getInstance().getScore());
+        Label scoreLabel = new Label("Final Score: " + frame.getScore());
         scoreLabel.setFont(Font.font("Arial", FontWeight.BOLD, 20));
         scoreLabel.setTextFill(Color.YELLOW);
         
@@ -175,7 +303,7 @@ public class TankWarGame extends Application {
         lossMessage_label.setFont(Font.font("Arial", FontWeight.NORMAL, 24));
         lossMessage_label.setTextFill(Color.rgb(255, 200, 100));
         
-        Label scoreLabel = new Label("Final Score: " + GameState.getInstance().getScore());
+        Label scoreLabel = new Label("Final Score: " + frame.getScore());
         scoreLabel.setFont(Font.font("Arial", FontWeight.BOLD, 20));
         scoreLabel.setTextFill(Color.WHITE);
         
@@ -198,9 +326,9 @@ public class TankWarGame extends Application {
         currentState = MenuState.GAME_OVER;
         
         String lossMessage;
-        if (gameEngine.appleDestroyed()) {
+        if (frame.appleDestroyed()) {
             lossMessage = "The Golden Apple was reached!";
-        } else if (gameEngine.getPlayerHealth() <= 0) {
+        } else if (frame.getPlayerHealth() <= 0) {
             lossMessage = "Your tank was destroyed!";
         } else {
             lossMessage = "You were defeated!";
@@ -224,12 +352,8 @@ public class TankWarGame extends Application {
     private void startGame() {
         currentState = MenuState.PLAYING;
         
-        if (gameEngine == null) {
-            gameEngine = new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT, GameConstants.TILE_SIZE);
-        } else {
-            gameEngine = new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT, GameConstants.TILE_SIZE);
-            GameState.getInstance().reset();
-        }
+        // The simulation thread resets the score when it switches over
+        currentMatch = simulation.startMatch(takePreparedEngine());
         
         mainContainer.getChildren().clear();
         mainContainer.getChildren().add(canvas);
@@ -238,6 +362,7 @@ public class TankWarGame extends Application {
     
     private void returnToMenu() {
         currentState = MenuState.MENU;
+        simulation.setPaused(true);
         gameOverScreenShown = false;
         mainContainer.getChildren().clear();
         mainContainer.getChildren().add(menuPane);
@@ -245,8 +370,7 @@ public class TankWarGame extends Application {
     }
     
     private void restartGame() {
-        gameEngine = new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT, GameConstants.TILE_SIZE);
-        GameState.getInstance().reset();
+        currentMatch = simulation.startMatch(takePreparedEngine());
         
         currentState = MenuState.PLAYING;
         gameOverScreenShown = false;
@@ -261,7 +385,7 @@ public class TankWarGame extends Application {
         currentState = MenuState.GAME_OVER;
         
         String winMessage;
-        if (gameEngine.playerCollectedApple()) {
+        if (frame.playerCollectedApple()) {
             winMessage = "Golden Apple Collected! +100 points";
         } else {
             winMessage = "All enemies defeated!";
@@ -276,8 +400,9 @@ public class TankWarGame extends Application {
     }
     
     private void pauseGame() {
-        if (currentState == MenuState.PLAYING && gameEngine != null && !gameEngine.isGameOver()) {
+        if (currentState == MenuState.PLAYING && isMatchShown() && !frame.isGameOver()) {
             currentState = MenuState.PAUSED;
+            simulation.setPaused(true);
             
             GaussianBlur blur = new GaussianBlur(10);
             canvas.setEffect(blur);
@@ -289,6 +414,7 @@ public class TankWarGame extends Application {
     private void resumeGame() {
         if (currentState == MenuState.PAUSED) {
             currentState = MenuState.PLAYING;
+            simulation.setPaused(false);
             canvas.setEffect(null);
             mainContainer.getChildren().remove(pausePane);
             canvas.requestFocus();
@@ -313,18 +439,21 @@ public class TankWarGame extends Application {
                 }
             }
             
-            if (currentState == MenuState.PLAYING) {
-                pressedKeys.add(e.getCode());
+            int flag = PlayerInput.flagOf(e.getCode());
+            if (currentState == MenuState.PLAYING && flag != PlayerInput.NONE) {
+                simulation.postKey(flag, true);
             }
             
-            if (e.getCode() == KeyCode.R && gameEngine != null && gameEngine.isGameOver()) {
+            if (e.getCode() == KeyCode.R && isMatchShown() && frame.isGameOver()) {
                 restartGame();
             }
         });
         
+        // Releases always go through so no key stays held across a pause
         scene.setOnKeyReleased(e -> {
-            if (currentState == MenuState.PLAYING) {
-                pressedKeys.remove(e.getCode());
+            int flag = PlayerInput.flagOf(e.getCode());
+            if (flag != PlayerInput.NONE) {
+                simulation.postKey(flag, false);
             }
         });
     }
@@ -333,153 +462,62 @@ public class TankWarGame extends Application {
         gameLoop = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                update();
+                frame = simulation.latestSnapshot();
                 render();
             }
         };
         gameLoop.start();
     }
     
-    private void update() {
-        if (currentState == MenuState.PLAYING && gameEngine != null) {
-            gameEngine.update(pressedKeys);
-        }
+    /**
+     * Whether the latest snapshot is of the match the player started;
+     * right after a start the simulation thread may not have switched yet.
+     */
+    private boolean isMatchShown() {
+        return frame != null && currentMatch != 0 && frame.getMatch() == currentMatch;
     }
     
     private void render() {
-        if ((currentState == MenuState.PLAYING || currentState == MenuState.PAUSED || currentState == MenuState.GAME_OVER) && gameEngine != null) {
+        if ((currentState == MenuState.PLAYING || currentState == MenuState.PAUSED || currentState == MenuState.GAME_OVER) && isMatchShown()) {
             gc.clearRect(0, 0, GameConstants.WINDOW_WIDTH, GameConstants.WINDOW_HEIGHT);
             
-            if (currentState == MenuState.PLAYING || (currentState == MenuState.GAME_OVER && !gameEngine.playerWon())) {
+            if (currentState == MenuState.PLAYING || (currentState == MenuState.GAME_OVER && !frame.playerWon())) {
                 renderTopBar();
             }
             
             gc.save();
             gc.translate(0, GameConstants.TOP_BAR_HEIGHT);
             
-            gc.setFill(Color.BLACK);
-            gc.fillRect(0, 0, GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
-            
-            gameEngine.render(gc);
+            double alpha = SimulationLoop.interpolationAlpha(frame, System.nanoTime());
+            if (softwareRenderer != null) {
+                softwareRenderer.clear(BACKGROUND);
+                frame.draw(softwareRenderer, alpha);
+                gc.drawImage(softwareRenderer.present(), 0, 0);
+            } else {
+                gc.setFill(Color.BLACK);
+                gc.fillRect(0, 0, GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+                frame.draw(playArea, alpha);
+            }
             
             gc.restore();
             
-            if (currentState == MenuState.PLAYING || (currentState == MenuState.GAME_OVER && !gameEngine.playerWon())) {
+            if (currentState == MenuState.PLAYING || (currentState == MenuState.GAME_OVER && !frame.playerWon())) {
                 renderGameOverIfNeeded();
             }
         }
     }
     
     private void renderTopBar() {
-        GameState state = GameState.getInstance();
-        
-        int barHeight = GameConstants.TOP_BAR_HEIGHT;
-        
-        gc.setFill(Color.rgb(20, 20, 30));
-        gc.fillRect(0, 0, GameConstants.WINDOW_WIDTH, barHeight);
-        
-        gc.setStroke(Color.rgb(60, 60, 80));
-        gc.setLineWidth(2);
-        gc.strokeLine(0, barHeight, GameConstants.WINDOW_WIDTH, barHeight);
-        
-        gc.setStroke(Color.rgb(255, 200, 50, 0.6));
-        gc.setLineWidth(1);
-        gc.strokeLine(0, barHeight - 1, GameConstants.WINDOW_WIDTH, barHeight - 1);
-        
-        int healthSectionX = 15;
-        int centerY = barHeight / 2;
-        
-        gc.setFill(Color.rgb(220, 50, 50));
-        gc.fillOval(healthSectionX, centerY - 8, 16, 16);
-        
-        gc.setFill(Color.rgb(180, 180, 190));
-        gc.setFont(Font.font("Arial", FontWeight.NORMAL, 11));
-        gc.fillText("HEALTH", healthSectionX + 22, centerY - 5);
-        
-        int healthBarX = healthSectionX + 22;
-        int healthBarY = centerY + 2;
-        int healthBarWidth = 120;
-        int healthBarHeight = 14;
-        
-        int currentHealth = gameEngine.getPlayerHealth();
-        int maxHealth = gameEngine.getPlayerMaxHealth();
-        double healthPercent = (double) currentHealth / maxHealth;
-        
-        gc.setFill(Color.rgb(40, 40, 50));
-        gc.fillRoundRect(healthBarX, healthBarY, healthBarWidth, healthBarHeight, 6, 6);
-        
-        if (healthPercent > 0.6) {
-            gc.setFill(Color.rgb(80, 200, 80));
-        } else if (healthPercent > 0.3) {
-            gc.setFill(Color.rgb(220, 160, 40));
-        } else {
-            gc.setFill(Color.rgb(200, 60, 60));
-        }
-        if (healthPercent > 0) {
-            gc.fillRoundRect(healthBarX + 2, healthBarY + 2, (healthBarWidth - 4) * healthPercent, healthBarHeight - 4, 4, 4);
-        }
-        
-        gc.setStroke(Color.rgb(80, 80, 100));
-        gc.setLineWidth(1);
-        gc.strokeRoundRect(healthBarX, healthBarY, healthBarWidth, healthBarHeight, 6, 6);
-        
-        gc.setFill(Color.WHITE);
-        gc.setFont(Font.font("Arial", FontWeight.BOLD, 11));
-        gc.fillText(currentHealth + "/" + maxHealth, healthBarX + healthBarWidth + 8, healthBarY + 11);
-        
-        int enemiesSectionX = 280;
-        
-        gc.setFill(Color.rgb(180, 50, 50));
-        gc.fillOval(enemiesSectionX, centerY - 7, 14, 14);
-        gc.setFill(Color.rgb(20, 20, 30));
-        gc.fillOval(enemiesSectionX + 2, centerY - 3, 4, 4);
-        gc.fillOval(enemiesSectionX + 8, centerY - 3, 4, 4);
-        
-        gc.setFill(Color.rgb(180, 180, 190));
-        gc.setFont(Font.font("Arial", FontWeight.NORMAL, 11));
-        gc.fillText("ENEMIES", enemiesSectionX + 20, centerY - 5);
-        
-        gc.setFill(Color.rgb(220, 80, 80));
-        gc.setFont(Font.font("Arial", FontWeight.BOLD, 18));
-        gc.fillText(String.valueOf(gameEngine.getEnemyCount()), enemiesSectionX + 20, centerY + 15);
-        
-        int scoreSectionX = 420;
-        
-        gc.setFill(Color.rgb(255, 200, 50));
-        double[] starX = {scoreSectionX + 7, scoreSectionX + 9, scoreSectionX + 14, scoreSectionX + 10, scoreSectionX + 12, scoreSectionX + 7, scoreSectionX + 2, scoreSectionX + 4, scoreSectionX, scoreSectionX + 5};
-        double[] starY = {centerY - 8, centerY - 2, centerY - 2, centerY + 2, centerY + 8, centerY + 4, centerY + 8, centerY + 2, centerY - 2, centerY - 2};
-        gc.fillPolygon(starX, starY, 10);
-        
-        gc.setFill(Color.rgb(180, 180, 190));
-        gc.setFont(Font.font("Arial", FontWeight.NORMAL, 11));
-        gc.fillText("SCORE", scoreSectionX + 20, centerY - 5);
-        
-        gc.setFill(Color.rgb(255, 215, 80));
-        gc.setFont(Font.font("Arial", FontWeight.BOLD, 18));
-        gc.fillText(String.valueOf(state.getScore()), scoreSectionX + 20, centerY + 15);
-        
-        int objectiveSectionX = 560;
-        
-        gc.setFill(Color.rgb(255, 200, 50));
-        gc.fillOval(objectiveSectionX, centerY - 6, 12, 12);
-        gc.setFill(Color.rgb(100, 70, 40));
-        gc.fillRect(objectiveSectionX + 5, centerY - 10, 2, 5);
-        
-        gc.setFill(Color.rgb(255, 200, 50));
-        gc.setFont(Font.font("Arial", FontWeight.BOLD, 11));
-        gc.fillText("PROTECT THE APPLE!", objectiveSectionX + 18, centerY + 3);
-        
-        gc.setFill(Color.rgb(120, 120, 140));
-        gc.setFont(Font.font("Arial", FontWeight.NORMAL, 10));
-        gc.fillText("[P] Pause", GameConstants.WINDOW_WIDTH - 60, centerY + 3);
+        topBar.update(frame.getPlayerHealth(), frame.getPlayerMaxHealth(), frame.getEnemyCount(), frame.getScore());
+        topBar.draw(gc, 0, 0);
     }
     
     private void renderGameOverIfNeeded() {
-        if (!gameEngine.isGameOver()) return;
+        if (!frame.isGameOver()) return;
         
         if (gameOverScreenShown) return;
         
-        if (gameEngine.playerWon()) {
+        if (frame.playerWon()) {
             if (currentState != MenuState.GAME_OVER) {
                 showWinScreen();
                 gameOverScreenShown = true;
@@ -0,0 +1,193 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.util.GameConstants;
+
+/**
+ * Hierarchical timing wheel driven by the simulation tick.
+ * Four levels of 64 slots each cover 64, 4096, 262144 and 16777216 ticks
+ * ahead. A timer goes into the lowest level whose span reaches its
+ * deadline; when the lower level wraps around, the next slot of the level
+ * above is emptied and its timers placed again, closer in. Scheduling and
+ * cancelling are O(1), and advancing a tick only touches the timers due in
+ * it plus the occasional cascade, however many timers are waiting.
+ *
+ * Timers are intrusive list nodes owned by the entity that arms them, so
+ * re-arming a cooldown every shot allocates nothing. Timers due in the
+ * same tick fire in no particular order, so an action should only change
+ * its own owner. The wheel is not part of a snapshot: entities keep their
+ * due ticks in their own state and arm again in resumeTimers.
+ *
+ * @author Iyed Acheche
+ */
+public final class TimerWheel {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+    
+    private final Timer[][] wheels = new Timer[LEVELS][SLOTS];
+    private long now;
+    private int pending = 0;
+    private int firedLastAdvance = 0;
+    
+    /**
+     * A scheduled action. Owned by one entity and reused each time it is armed.
+     */
+    public static final class Timer {
+        private final Runnable action;
+        private long deadline;
+        private Timer prev, next;
+        private int level = -1, slot;
+        private TimerWheel wheel;
+        
+        public Timer(Runnable action) {
+            this.action = action;
+        }
+        
+        public boolean isPending() { return wheel != null; }
+        public long getDeadline() { return deadline; }
+    }
+    
+    public TimerWheel(long now) {
+        this.now = now;
+    }
+    
+    /**
+     * Arms a timer to fire at the start of the given tick. A deadline that
+     * is not in the future fires on the next tick. Re-arming a pending timer
+     * moves it.
+     */
+    public void schedule(Timer timer, long tick) {
+        if (timer.wheel != null) timer.wheel.cancel(timer);
+        timer.deadline = Math.max(tick, now + 1);
+        timer.wheel = this;
+        place(timer);
+        pending++;
+    }
+    
+    /**
+     * Arms a timer to fire the given number of ticks from now.
+     */
+    public void scheduleIn(Timer timer, long ticks) {
+        schedule(timer, now + ticks);
+    }
+    
+    public void cancel(Timer timer) {
+        if (timer.wheel != this) return;
+        unlink(timer);
+        timer.wheel = null;
+        pending--;
+    }
+    
+    /**
+     * Moves the clock forward, firing every timer due up to and including
+     * the given tick.
+     */
+    public void advanceTo(long tick) {
+        firedLastAdvance = 0;
+        while (now < tick) {
+            now++;
+            cascade();
+            int slot = (int) (now & MASK);
+            Timer timer;
+            // Take timers off the head of the live slot one at a time, so an
+            // action that cancels or re-arms another timer due now unlinks
+            // it from the slot and it does not fire. Nothing armed from an
+            // action lands back in this slot, as deadlines are in the future.
+            while ((timer = wheels[0][slot]) != null) {
+                // Detached before firing, so the action may arm it again
+                unlink(timer);
+                timer.wheel = null;
+                pending--;
+                firedLastAdvance++;
+                timer.action.run();
+            }
+        }
+    }
+    
+    /**
+     * Drops every timer without firing it and sets the clock, as when a
+     * match is restored.
+     */
+    public void reset(long tick) {
+        for (Timer[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer timer = wheel[slot];
+                while (timer != null) {
+                    Timer next = timer.next;
+                    timer.prev = timer.next = null;
+                    timer.level = -1;
+                    timer.wheel = null;
+                    timer = next;
+                }
+                wheel[slot] = null;
+            }
+        }
+        pending = 0;
+        now = tick;
+    }
+    
+    /**
+     * Whenever a level wraps around, spreads the next slot of the level
+     * above over the levels below. Higher levels go first so their timers
+     * can land in the slot cascaded next.
+     */
+    private void cascade() {
+        if ((now & MASK) != 0) return;
+        int wrapped = 1;
+        while (wrapped < LEVELS - 1 && ((now >>> (BITS * wrapped)) & MASK) == 0) {
+            wrapped++;
+        }
+        for (int level = wrapped; level >= 1; level--) {
+            int slot = (int) ((now >>> (BITS * level)) & MASK);
+            Timer timer = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (timer != null) {
+                Timer next = timer.next;
+                timer.prev = timer.next = null;
+                place(timer);
+                timer = next;
+            }
+        }
+    }
+    
+    private void place(Timer timer) {
+        long delta = timer.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        // Past the top level's reach, wait in its farthest slot and be placed again later
+        long deadline = delta < SPAN ? timer.deadline : now + SPAN - 1;
+        int slot = (int) ((deadline >>> (BITS * level)) & MASK);
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = wheels[level][slot];
+        if (timer.next != null) timer.next.prev = timer;
+        wheels[level][slot] = timer;
+    }
+    
+    private void unlink(Timer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            wheels[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) timer.next.prev = timer.prev;
+        timer.prev = timer.next = null;
+        timer.level = -1;
+    }
+    
+    /**
+     * Ticks needed for at least the given simulation time to pass.
+     */
+    public static long ticksFor(long millis) {
+        return Math.max(1, (millis + GameConstants.TICK_MILLIS - 1) / GameConstants.TICK_MILLIS);
+    }
+    
+    public long getNow() { return now; }
+    public int getPendingCount() { return pending; }
+    public int getFiredLastAdvance() { return firedLastAdvance; }
+}
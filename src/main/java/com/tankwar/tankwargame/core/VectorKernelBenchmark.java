@@ -0,0 +1,140 @@
+package com.tankwar.tankwargame.core;
+
+import com.tankwar.tankwargame.entities.base.StoreKernels;
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.Arrays;
+
+/**
+ * Times the scalar and vector store kernels on 1k, 10k and 100k
+ * projectiles and checks that both leave identical arrays behind.
+ * The vector kernels need the incubator module:
+ * {@code java --add-modules jdk.incubator.vector ... VectorKernelBenchmark}
+ *
+ * Usage: VectorKernelBenchmark [rounds]
+ *
+ * @author Iyed Acheche
+ */
+public class VectorKernelBenchmark {
+    private static final int[] COUNTS = {1_000, 10_000, 100_000};
+    private static final int TANKS = 8;
+    private static final int WARMUP_ENTITIES = 20_000_000;
+    
+    private VectorKernelBenchmark() {}
+    
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        StoreKernels vector = StoreKernels.vector();
+        
+        System.out.println("=== Store kernel benchmark ===");
+        System.out.println("vector kernels: " + (vector == null ? "unavailable" : vector.getName()));
+        System.out.printf("%-8s %-16s %14s %14s %9s%n", "count", "kernels", "integrate ns", "overlap ns", "speedup");
+        for (int count : COUNTS) {
+            double[] scalar = run(StoreKernels.SCALAR, count, rounds);
+            print(count, StoreKernels.SCALAR, scalar, scalar);
+            if (vector != null) {
+                double[] simd = run(vector, count, rounds);
+                print(count, vector, simd, scalar);
+                System.out.println("         results " + (sameResults(vector, count) ? "identical" : "DIFFER"));
+            }
+        }
+    }
+    
+    private static void print(int count, StoreKernels kernels, double[] cost, double[] baseline) {
+        System.out.printf("%-8d %-16s %14.2f %14.2f %8.2fx%n", count, kernels.getName(), cost[0], cost[1],
+                (baseline[0] + baseline[1]) / (cost[0] + cost[1]));
+    }
+    
+    /**
+     * @return nanoseconds per projectile for one integrate pass, and for one
+     *         overlap pass against every tank
+     */
+    private static double[] run(StoreKernels kernels, int count, int rounds) {
+        Projectiles p = new Projectiles(count);
+        // Warm up on a fixed amount of work so small counts are compiled too
+        for (int r = 0, warmup = Math.max(rounds, WARMUP_ENTITIES / count); r < warmup; r++) {
+            p.step(kernels);
+        }
+        p = new Projectiles(count);
+        long integrateNanos = 0, overlapNanos = 0;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            p.integrate(kernels);
+            long mid = System.nanoTime();
+            p.overlap(kernels);
+            integrateNanos += mid - start;
+            overlapNanos += System.nanoTime() - mid;
+        }
+        double passes = (double) rounds * count;
+        return new double[] {integrateNanos / passes, overlapNanos / passes};
+    }
+    
+    private static boolean sameResults(StoreKernels vector, int count) {
+        Projectiles a = new Projectiles(count);
+        Projectiles b = new Projectiles(count);
+        for (int r = 0; r < 50; r++) {
+            a.step(StoreKernels.SCALAR);
+            b.step(vector);
+            if (!Arrays.equals(a.x, b.x) || !Arrays.equals(a.y, b.y)
+                    || !Arrays.equals(a.active, b.active) || !Arrays.equals(a.marks, b.marks)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Randomly placed projectiles and tanks over the play field, with the
+     * arrays laid out as an EntityStore holds them.
+     */
+    private static class Projectiles {
+        final double[] x, y, vx, vy;
+        final int[] width, height;
+        final boolean[] active, marks;
+        final double[] tankX = new double[TANKS], tankY = new double[TANKS];
+        final int count;
+        
+        Projectiles(int count) {
+            this.count = count;
+            x = new double[count];
+            y = new double[count];
+            vx = new double[count];
+            vy = new double[count];
+            width = new int[count];
+            height = new int[count];
+            active = new boolean[count];
+            marks = new boolean[count];
+            DeterministicRandom random = new DeterministicRandom(count);
+            for (int i = 0; i < count; i++) {
+                x[i] = random.nextDouble() * GameConstants.GAME_WIDTH;
+                y[i] = random.nextDouble() * GameConstants.GAME_HEIGHT;
+                vx[i] = (random.nextDouble() - 0.5) * 2 * GameConstants.MISSILE_SPEED;
+                vy[i] = (random.nextDouble() - 0.5) * 2 * GameConstants.MISSILE_SPEED;
+                width[i] = GameConstants.MISSILE_SIZE;
+                height[i] = GameConstants.MISSILE_SIZE;
+                active[i] = true;
+            }
+            for (int t = 0; t < TANKS; t++) {
+                tankX[t] = random.nextDouble() * GameConstants.GAME_WIDTH;
+                tankY[t] = random.nextDouble() * GameConstants.GAME_HEIGHT;
+            }
+        }
+        
+        void step(StoreKernels kernels) {
+            integrate(kernels);
+            overlap(kernels);
+        }
+        
+        void integrate(StoreKernels kernels) {
+            kernels.integrate(x, y, vx, vy, active, count, 0, 0, GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+        }
+        
+        void overlap(StoreKernels kernels) {
+            Arrays.fill(marks, false);
+            for (int t = 0; t < TANKS; t++) {
+                kernels.markOverlaps(x, y, width, height, count, tankX[t], tankY[t],
+                        GameConstants.TANK_SIZE, GameConstants.TANK_SIZE, marks);
+            }
+        }
+    }
+}
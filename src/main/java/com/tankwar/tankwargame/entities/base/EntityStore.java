@@ -0,0 +1,409 @@
+package com.tankwar.tankwargame.entities.base;
+
+import com.tankwar.tankwargame.util.SweptAabb;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Structure-of-arrays storage for many entities of one kind.
+ * Positions, velocities, sizes, owner ids, collision filters and active
+ * flags sit in parallel primitive arrays, so hot loops walk memory linearly
+ * instead of chasing one object per entity. Each entity keeps its GameObject as a view for
+ * rendering and events.
+ *
+ * An owning store binds its views: their position and active flag live in
+ * the store until they are compacted out. A mirror store only copies the
+ * views' current bounds, for collision passes over objects that keep their
+ * own state.
+ *
+ * Removal swaps the last entity into the freed slot, so it is O(1) and the
+ * arrays stay dense; the order changes but is still deterministic.
+ *
+ * A store whose entities stay put between changes can also be bucketed
+ * into grid cells, so overlap queries only test entities in nearby cells.
+ *
+ * @author Iyed Acheche
+ */
+public class EntityStore<T extends GameObject> {
+    private final boolean owning;
+    private final ToIntFunction<? super T> ownerOf;
+    private double[] x, y, vx, vy;
+    private int[] width, height, owner;
+    private int[] layer, mask, team;
+    private boolean[] active;
+    private GameObject[] views;
+    private int size = 0;
+    private final List<T> list = new ViewList();
+    private StoreKernels kernels = StoreKernels.active();
+    
+    // Optional cell index: slots per cell in ascending order, packed by cell
+    private boolean indexed = false;
+    private double cellSize;
+    private int cols, rows;
+    private int[] cellStart = new int[0];
+    private int[] cellSlots = new int[0];
+    
+    public EntityStore(int initialCapacity, boolean owning) {
+        this(initialCapacity, owning, view -> -1);
+    }
+    
+    /**
+     * @param ownerOf owner id for entities appended through {@link #asList()}
+     */
+    public EntityStore(int initialCapacity, boolean owning, ToIntFunction<? super T> ownerOf) {
+        int capacity = Math.max(1, initialCapacity);
+        this.owning = owning;
+        this.ownerOf = ownerOf;
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.vx = new double[capacity];
+        this.vy = new double[capacity];
+        this.width = new int[capacity];
+        this.height = new int[capacity];
+        this.owner = new int[capacity];
+        this.layer = new int[capacity];
+        this.mask = new int[capacity];
+        this.team = new int[capacity];
+        this.active = new boolean[capacity];
+        this.views = new GameObject[capacity];
+    }
+    
+    /**
+     * Appends an entity, taking its current position, size, collision
+     * filter and active flag from the view.
+     * @return the entity's slot, valid until the next removal
+     */
+    public int add(T view, double velocityX, double velocityY, int ownerId) {
+        if (size == views.length) grow();
+        indexed = false;
+        int slot = size++;
+        x[slot] = view.getX();
+        y[slot] = view.getY();
+        vx[slot] = velocityX;
+        vy[slot] = velocityY;
+        width[slot] = view.getWidth();
+        height[slot] = view.getHeight();
+        owner[slot] = ownerId;
+        layer[slot] = view.getLayer();
+        mask[slot] = view.getCollisionMask();
+        team[slot] = view.getTeam();
+        active[slot] = view.isActive();
+        views[slot] = view;
+        if (owning) view.bindStore(this, slot);
+        return slot;
+    }
+    
+    /**
+     * Appends a stationary entity, for mirror stores.
+     */
+    public int add(T view, int ownerId) {
+        return add(view, 0, 0, ownerId);
+    }
+    
+    private void grow() {
+        int capacity = views.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+        layer = Arrays.copyOf(layer, capacity);
+        mask = Arrays.copyOf(mask, capacity);
+        team = Arrays.copyOf(team, capacity);
+        active = Arrays.copyOf(active, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+    
+    /**
+     * Moves every entity by its velocity and deactivates those that left
+     * the given bounds.
+     */
+    public void integrate(double minX, double minY, double maxX, double maxY) {
+        kernels.integrate(x, y, vx, vy, active, size, minX, minY, maxX, maxY);
+    }
+    
+    /**
+     * Sets {@code marks[i]} for every entity overlapping the rectangle and
+     * leaves the others untouched, so several rectangles can be OR-ed into
+     * one mask. {@code marks} must hold at least {@link #capacity()} entries.
+     */
+    public void markOverlaps(double ox, double oy, int ow, int oh, boolean[] marks) {
+        kernels.markOverlaps(x, y, width, height, size, ox, oy, ow, oh, marks);
+    }
+    
+    /**
+     * Removes every inactive entity by swap-remove.
+     * @return the number removed
+     */
+    public int compact() {
+        return compact(null);
+    }
+    
+    /**
+     * Removes every inactive entity by swap-remove, passing each removed view
+     * to the callback first.
+     * @return the number removed
+     */
+    public int compact(Consumer<? super T> onRemove) {
+        int removed = 0;
+        int i = 0;
+        while (i < size) {
+            if (active[i]) {
+                i++;
+            } else {
+                if (onRemove != null) onRemove.accept(getView(i));
+                removeAt(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Removes one entity; the last entity moves into its slot.
+     */
+    public void removeAt(int slot) {
+        GameObject view = views[slot];
+        indexed = false;
+        if (owning) view.unbindStore(x[slot], y[slot], active[slot]);
+        int last = --size;
+        if (slot != last) {
+            x[slot] = x[last];
+            y[slot] = y[last];
+            vx[slot] = vx[last];
+            vy[slot] = vy[last];
+            width[slot] = width[last];
+            height[slot] = height[last];
+            owner[slot] = owner[last];
+            layer[slot] = layer[last];
+            mask[slot] = mask[last];
+            team[slot] = team[last];
+            active[slot] = active[last];
+            views[slot] = views[last];
+            if (owning) views[slot].bindStore(this, slot);
+        }
+        views[last] = null;
+    }
+    
+    public void clear() {
+        if (owning) {
+            for (int i = 0; i < size; i++) {
+                views[i].unbindStore(x[i], y[i], active[i]);
+            }
+        }
+        Arrays.fill(views, 0, size, null);
+        size = 0;
+        indexed = false;
+    }
+    
+    /**
+     * Buckets every entity into the grid cells its bounds touch. Overlap
+     * queries use the index until the store next changes; moving entities
+     * in place does not invalidate it, so only index stationary entities.
+     */
+    public void buildCellIndex(double cellSize, double worldWidth, double worldHeight) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(worldWidth / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(worldHeight / cellSize));
+        int cells = cols * rows;
+        if (cellStart.length != cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0);
+        }
+        
+        // Count entries per cell, then turn the counts into start offsets
+        int entries = 0;
+        for (int i = 0; i < size; i++) {
+            int c0 = column(x[i]), c1 = column(x[i] + width[i]);
+            int r0 = row(y[i]), r1 = row(y[i] + height[i]);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * cols + c + 1]++;
+                    entries++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (cellSlots.length < entries) {
+            cellSlots = new int[Math.max(entries, cellSlots.length * 2)];
+        }
+        
+        // Fill in slot order so each cell's slots ascend
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        for (int i = 0; i < size; i++) {
+            int c0 = column(x[i]), c1 = column(x[i] + width[i]);
+            int r0 = row(y[i]), r1 = row(y[i] + height[i]);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellSlots[fill[r * cols + c]++] = i;
+                }
+            }
+        }
+        indexed = true;
+    }
+    
+    private int column(double px) {
+        return Math.min(cols - 1, Math.max(0, (int) Math.floor(px / cellSize)));
+    }
+    
+    private int row(double py) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(py / cellSize)));
+    }
+    
+    /**
+     * Returns the index of the first entity whose bounds overlap the given
+     * rectangle, or -1. Uses the same strict test as GameObject.intersects.
+     */
+    public int firstOverlap(double ox, double oy, int ow, int oh) {
+        if (indexed) return firstOverlapIndexed(ox, oy, ow, oh);
+        for (int i = 0; i < size; i++) {
+            if (ox < x[i] + width[i] && ox + ow > x[i] && oy < y[i] + height[i] && oy + oh > y[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private int firstOverlapIndexed(double ox, double oy, int ow, int oh) {
+        int best = Integer.MAX_VALUE;
+        int c0 = column(ox), c1 = column(ox + ow);
+        int r0 = row(oy), r1 = row(oy + oh);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                    int i = cellSlots[k];
+                    if (i >= best) break;
+                    if (ox < x[i] + width[i] && ox + ow > x[i] && oy < y[i] + height[i] && oy + oh > y[i]) {
+                        best = i;
+                        break;
+                    }
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+    
+    /**
+     * Returns the index of the first entity at or after {@code from} whose
+     * bounds overlap the given rectangle, or -1.
+     */
+    public int nextOverlap(int from, double ox, double oy, int ow, int oh) {
+        for (int i = from; i < size; i++) {
+            if (ox < x[i] + width[i] && ox + ow > x[i] && oy < y[i] + height[i] && oy + oh > y[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the entity a box moving from (px, py) by (dx, dy) touches
+     * first, or -1. The time of impact goes into {@code time[0]}; among
+     * entities touched at the same time the lowest slot wins.
+     */
+    public int firstImpact(double px, double py, int pw, int ph, double dx, double dy, double[] time) {
+        int best = -1;
+        double bestTime = SweptAabb.NO_IMPACT;
+        if (indexed) {
+            double left = Math.min(px, px + dx), top = Math.min(py, py + dy);
+            int c0 = column(left), c1 = column(Math.max(px, px + dx) + pw);
+            int r0 = row(top), r1 = row(Math.max(py, py + dy) + ph);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * cols + c;
+                    for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                        int i = cellSlots[k];
+                        double t = timeOfImpact(i, px, py, pw, ph, dx, dy);
+                        if (t < bestTime || (t == bestTime && i < best)) {
+                            best = i;
+                            bestTime = t;
+                        }
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                double t = timeOfImpact(i, px, py, pw, ph, dx, dy);
+                if (t < bestTime) {
+                    best = i;
+                    bestTime = t;
+                }
+            }
+        }
+        time[0] = bestTime;
+        return best;
+    }
+    
+    /**
+     * Time at which a box moving from (px, py) by (dx, dy) first overlaps
+     * the entity in the given slot, or SweptAabb.NO_IMPACT.
+     */
+    public double timeOfImpact(int slot, double px, double py, int pw, int ph, double dx, double dy) {
+        return SweptAabb.timeOfImpact(px, py, pw, ph, dx, dy, x[slot], y[slot], width[slot], height[slot]);
+    }
+    
+    /**
+     * A list over the views in slot order. Appending adds the entity with
+     * the velocity its view reports; other changes go through the store.
+     */
+    public List<T> asList() {
+        return list;
+    }
+    
+    public double getX(int slot) { return x[slot]; }
+    public double getY(int slot) { return y[slot]; }
+    public double getVelocityX(int slot) { return vx[slot]; }
+    public double getVelocityY(int slot) { return vy[slot]; }
+    public int getWidth(int slot) { return width[slot]; }
+    public int getHeight(int slot) { return height[slot]; }
+    public int getOwner(int slot) { return owner[slot]; }
+    public int getLayer(int slot) { return layer[slot]; }
+    public int getMask(int slot) { return mask[slot]; }
+    public int getTeam(int slot) { return team[slot]; }
+    public void setTeam(int slot, int value) { team[slot] = value; }
+    public boolean isActive(int slot) { return active[slot]; }
+    public void setActive(int slot, boolean value) { active[slot] = value; }
+    public void setPosition(int slot, double px, double py) { x[slot] = px; y[slot] = py; }
+    public int size() { return size; }
+    public int capacity() { return views.length; }
+    public StoreKernels getKernels() { return kernels; }
+    public void setKernels(StoreKernels kernels) { this.kernels = kernels; }
+    
+    @SuppressWarnings("unchecked")
+    public T getView(int slot) {
+        return (T) views[slot];
+    }
+    
+    private final class ViewList extends AbstractList<T> {
+        @Override
+        public T get(int index) {
+            if (index >= size) throw new IndexOutOfBoundsException(index);
+            return getView(index);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public void add(int index, T view) {
+            if (index != size) throw new UnsupportedOperationException("Entities can only be appended");
+            EntityStore.this.add(view, view.getVelocityX(), view.getVelocityY(), ownerOf.applyAsInt(view));
+        }
+        
+        @Override
+        public void clear() {
+            EntityStore.this.clear();
+        }
+    }
+}
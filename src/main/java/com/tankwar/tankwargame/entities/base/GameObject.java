@@ -1,7 +1,15 @@
 package com.tankwar.tankwargame.entities.base;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
+import com.tankwar.tankwargame.assets.AtlasRegion;
+import com.tankwar.tankwargame.core.MatchContext;
+import com.tankwar.tankwargame.render.RenderCommands;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.util.CollisionLayers;
+import com.tankwar.tankwargame.util.EntityHandle;
+import com.tankwar.tankwargame.util.Teams;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Abstract base class for all game objects.
@@ -11,8 +19,19 @@ import javafx.scene.image.Image;
 public abstract class GameObject {
     protected double x, y;
     protected int width, height;
-    protected Image image;
+    protected AtlasRegion sprite;
     protected boolean active = true;
+    protected int handle = EntityHandle.NONE;
+    // Collision filtering: the layer this object is on, the layers it collides with, and its side
+    protected int layer = CollisionLayers.NONE;
+    protected int collisionMask = CollisionLayers.NONE;
+    protected int team = Teams.NEUTRAL;
+    // Draw layer; commands on one layer may be reordered among themselves
+    protected int drawLayer = RenderLayers.FLOOR;
+    
+    // Set while an owning EntityStore holds this object's position and active flag
+    private EntityStore<?> store;
+    private int storeSlot = -1;
     
     public GameObject(double x, double y, int width, int height) {
         this.x = x;
@@ -23,26 +42,157 @@ public abstract class GameObject {
     
     public abstract void update();
     
-    public void render(GraphicsContext gc) {
-        if (active && image != null) {
-            gc.drawImage(image, x, y, width, height);
+    /**
+     * Gives this object a handle in the entity registry of the match bound
+     * to this thread. Called by GameObjectFactory once the object is fully
+     * built, for entities other objects refer to. Objects built outside a
+     * match, such as client replicas, stay unregistered.
+     */
+    public final void register() {
+        MatchContext context = MatchContext.bound();
+        if (context != null) {
+            handle = context.getEntities().register(this);
+            onRegistered();
         }
     }
     
+    /**
+     * Called right after this object is given its handle, for state that
+     * depends on the handle or the match.
+     */
+    protected void onRegistered() {
+    }
+    
+    /**
+     * Records the draw commands for how this object looks this tick.
+     */
+    public void capture(RenderCommands commands) {
+        if (isActive() && sprite != null) {
+            double px = getX(), py = getY();
+            commands.image(drawLayer, commands.anchor(handle, px, py), sprite, px, py, width, height);
+        }
+    }
+    
+    void bindStore(EntityStore<?> store, int slot) {
+        this.store = store;
+        this.storeSlot = slot;
+    }
+    
+    /**
+     * Takes the final state back from the store when the entity leaves it,
+     * so the object stays valid for events and rendering.
+     */
+    void unbindStore(double x, double y, boolean active) {
+        this.x = x;
+        this.y = y;
+        this.active = active;
+        this.store = null;
+        this.storeSlot = -1;
+    }
+    
+    /**
+     * Whether an EntityStore currently holds this object's state.
+     */
+    protected boolean isStored() {
+        return store != null;
+    }
+    
+    /**
+     * Writes the mutable state needed to resume this object elsewhere.
+     * Subclasses extend it with their own fields (Memento).
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(team);
+        out.writeDouble(getX());
+        out.writeDouble(getY());
+        out.writeBoolean(isActive());
+    }
+    
+    /**
+     * Restores state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        setTeam(in.readInt());
+        double px = in.readDouble();
+        double py = in.readDouble();
+        setPosition(px, py);
+        setActive(in.readBoolean());
+    }
+    
     public boolean intersects(GameObject other) {
-        return x < other.x + other.width &&
-               x + width > other.x &&
-               y < other.y + other.height &&
-               y + height > other.y;
+        double ax = getX(), ay = getY(), bx = other.getX(), by = other.getY();
+        return ax < bx + other.width &&
+               ax + width > bx &&
+               ay < by + other.height &&
+               ay + height > by;
     }
     
-    public double getX() { return x; }
-    public double getY() { return y; }
+    /**
+     * Whether this object's mask takes in the other's layer and the two are
+     * not on the same team. Cheap enough to run before any geometry test.
+     */
+    public boolean collidesWith(GameObject other) {
+        return CollisionLayers.accepts(collisionMask, team, other.layer, other.team);
+    }
+    
+    /**
+     * Applies damage. Objects that cannot be damaged ignore it.
+     */
+    public void takeDamage(int damage) {
+    }
+    
+    /**
+     * Arms again the timers of restored state. Called once the match clock
+     * has been restored; objects without timers ignore it.
+     */
+    public void resumeTimers() {
+    }
+    
+    /**
+     * Per-tick velocity, for objects kept in an EntityStore.
+     */
+    public double getVelocityX() { return 0; }
+    public double getVelocityY() { return 0; }
+    
+    /**
+     * Stable reference to this entity, or EntityHandle.NONE if it is not registered.
+     */
+    public int getHandle() { return handle; }
+    
+    public double getX() { return store == null ? x : store.getX(storeSlot); }
+    public double getY() { return store == null ? y : store.getY(storeSlot); }
     public int getWidth() { return width; }
     public int getHeight() { return height; }
-    public boolean isActive() { return active; }
-    public void setActive(boolean active) { this.active = active; }
-    public void setPosition(double x, double y) { this.x = x; this.y = y; }
+    public int getLayer() { return layer; }
+    public int getCollisionMask() { return collisionMask; }
+    public int getTeam() { return team; }
+    public boolean isActive() { return store == null ? active : store.isActive(storeSlot); }
+    
+    public void setActive(boolean active) {
+        if (store == null) {
+            this.active = active;
+        } else {
+            store.setActive(storeSlot, active);
+        }
+    }
+    
+    public void setTeam(int team) {
+        this.team = team;
+        if (store != null) {
+            store.setTeam(storeSlot, team);
+        }
+    }
+    
+    public void setPosition(double x, double y) {
+        if (store == null) {
+            this.x = x;
+            this.y = y;
+        } else {
+            store.setPosition(storeSlot, x, y);
+        }
+    }
 }
 
 
@@ -0,0 +1,109 @@
+package com.tankwar.tankwargame.entities.base;
+
+/**
+ * Bulk operations over the primitive arrays of an EntityStore.
+ * The scalar kernels run everywhere. Vector kernels use the incubating
+ * Vector API to process several entities per instruction; they are only
+ * used when the JVM is started with
+ * {@code -Dtankwar.vector=true --add-modules jdk.incubator.vector}
+ * and fall back to scalar if the module is missing. Both produce exactly
+ * the same results.
+ *
+ * Design Patterns: Strategy
+ *
+ * @author Iyed Acheche
+ */
+public abstract class StoreKernels {
+    public static final String PROPERTY = "tankwar.vector";
+    
+    public static final StoreKernels SCALAR = new StoreKernels() {
+        @Override
+        public void integrate(double[] x, double[] y, double[] vx, double[] vy, boolean[] active, int count,
+                              double minX, double minY, double maxX, double maxY) {
+            integrateRange(x, y, vx, vy, active, 0, count, minX, minY, maxX, maxY);
+        }
+        
+        @Override
+        public void markOverlaps(double[] x, double[] y, int[] width, int[] height, int count,
+                                 double ox, double oy, int ow, int oh, boolean[] marks) {
+            markOverlapsRange(x, y, width, height, 0, count, ox, oy, ow, oh, marks);
+        }
+        
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+    };
+    
+    private static volatile StoreKernels vectorKernels;
+    private static volatile boolean vectorProbed;
+    private static final StoreKernels ACTIVE = Boolean.getBoolean(PROPERTY) && vector() != null ? vector() : SCALAR;
+    
+    // Only the scalar kernels and VectorStoreKernels extend this
+    StoreKernels() {}
+    
+    /**
+     * Moves each entity by its velocity and clears the active flag of those
+     * that left the bounds.
+     */
+    public abstract void integrate(double[] x, double[] y, double[] vx, double[] vy, boolean[] active, int count,
+                                   double minX, double minY, double maxX, double maxY);
+    
+    /**
+     * Sets {@code marks[i]} for every entity whose bounds overlap the box,
+     * leaving the other marks as they were. Uses the strict test of
+     * GameObject.intersects.
+     */
+    public abstract void markOverlaps(double[] x, double[] y, int[] width, int[] height, int count,
+                                      double ox, double oy, int ow, int oh, boolean[] marks);
+    
+    public abstract String getName();
+    
+    /**
+     * Returns the kernels selected by the runtime flag.
+     */
+    public static StoreKernels active() {
+        return ACTIVE;
+    }
+    
+    /**
+     * Returns the vector kernels, or null if the Vector API is unavailable.
+     */
+    public static StoreKernels vector() {
+        if (!vectorProbed) {
+            synchronized (StoreKernels.class) {
+                if (!vectorProbed) {
+                    try {
+                        vectorKernels = new VectorStoreKernels();
+                    } catch (LinkageError e) {
+                        System.err.println("Vector API unavailable, using scalar kernels: " + e);
+                    }
+                    vectorProbed = true;
+                }
+            }
+        }
+        return vectorKernels;
+    }
+    
+    static void integrateRange(double[] x, double[] y, double[] vx, double[] vy, boolean[] active, int from, int to,
+                               double minX, double minY, double maxX, double maxY) {
+        for (int i = from; i < to; i++) {
+            double nx = x[i] + vx[i];
+            double ny = y[i] + vy[i];
+            x[i] = nx;
+            y[i] = ny;
+            if (nx < minX || ny < minY || nx > maxX || ny > maxY) {
+                active[i] = false;
+            }
+        }
+    }
+    
+    static void markOverlapsRange(double[] x, double[] y, int[] width, int[] height, int from, int to,
+                                  double ox, double oy, int ow, int oh, boolean[] marks) {
+        for (int i = from; i < to; i++) {
+            if (x[i] < ox + ow && x[i] + width[i] > ox && y[i] < oy + oh && y[i] + height[i] > oy) {
+                marks[i] = true;
+            }
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package com.tankwar.tankwargame.entities.effects;
 
+import com.tankwar.tankwargame.animation.Animations;
+import com.tankwar.tankwargame.core.MatchContext;
+import com.tankwar.tankwargame.core.TimerWheel;
 import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.render.RenderCommands;
+import com.tankwar.tankwargame.render.RenderLayers;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Explosion effect with different sizes for various impact types.
  * SMALL - missile impact
  * MEDIUM - wall destruction
  * LARGE - tank destruction
+ *
+ * Each size is an animation clip over the frames 0.gif to 9.gif; an
+ * explosion only remembers the tick it started at and is drawn from the
+ * texture atlas.
  * @author Iyed Acheche
  */
 public class Explosion extends GameObject {
-    private int frameCount = 0;
-    private final int maxFrames = GameConstants.EXPLOSION_FRAME_COUNT;
-    private long lastFrameTime = 0;
-    private final long frameDelay;
+    private long startTick;
+    private final TimerWheel.Timer expiry = new TimerWheel.Timer(() -> active = false);
     private final int explosionSize;
+    private final Size size;
     
     public enum Size {
         SMALL(GameConstants.EXPLOSION_SIZE_SMALL, 60),
@@ -26,14 +35,35 @@ public class Explosion extends GameObject {
         
         private final int pixelSize;
         private final long frameDelay;
+        private final int clip;
         
         Size(int pixelSize, long frameDelay) {
             this.pixelSize = pixelSize;
             this.frameDelay = frameDelay;
+            this.clip = defineClip((int) TimerWheel.ticksFor(frameDelay));
         }
         
         public int getPixelSize() { return pixelSize; }
         public long getFrameDelay() { return frameDelay; }
+        public int getClip() { return clip; }
+    }
+    
+    private static int defineClip(int frameTicks) {
+        String[] frames = new String[GameConstants.EXPLOSION_FRAME_COUNT];
+        int[] ticks = new int[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = i + ".gif";
+            ticks[i] = frameTicks;
+        }
+        return Animations.define(frames, ticks, false);
+    }
+    
+    /**
+     * Resolves the explosion frames in the atlas ahead of the first match.
+     */
+    public static void preloadAnimations() {
+        Size.values();
+        Animations.preload();
     }
     
     public Explosion(double x, double y) {
@@ -42,41 +72,53 @@ public class Explosion extends GameObject {
     
     public Explosion(double x, double y, Size size) {
         super(x, y, size.getPixelSize(), size.getPixelSize());
+        this.drawLayer = RenderLayers.EFFECTS;
+        this.size = size;
         this.explosionSize = size.getPixelSize();
-        this.frameDelay = size.getFrameDelay();
         this.x = x - explosionSize / 2.0;
         this.y = y - explosionSize / 2.0;
-        loadImage();
+        TimerWheel timers = MatchContext.current().getTimers();
+        this.startTick = timers.getNow();
+        timers.schedule(expiry, endTick());
     }
     
-    private void loadImage() {
-        try {
-            image = new Image(getClass().getResourceAsStream("/com/tankwar/tankwargame/images/" + frameCount + ".gif"));
-        } catch (Exception e) {
-            System.err.println("Could not load explosion image: " + frameCount + ".gif");
+    private long endTick() {
+        return startTick + Animations.clip(size.getClip()).getTotalTicks();
+    }
+    
+    @Override
+    public void capture(RenderCommands commands) {
+        if (active) {
+            long elapsed = MatchContext.current().getTick() - startTick;
+            commands.image(drawLayer, RenderCommands.NO_ANCHOR, Animations.frame(size.getClip(), elapsed),
+                    x, y, explosionSize, explosionSize);
         }
     }
     
     @Override
-    public void render(GraphicsContext gc) {
-        if (image != null && active) {
-            gc.drawImage(image, x, y, explosionSize, explosionSize);
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeLong(startTick);
+    }
+    
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        startTick = in.readLong();
+    }
+    
+    @Override
+    public void resumeTimers() {
+        if (active) {
+            MatchContext.current().getTimers().schedule(expiry, endTick());
         }
     }
     
+    public Size getSize() { return size; }
+    public long getStartTick() { return startTick; }
+    
     @Override
     public void update() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFrameTime > frameDelay) {
-            frameCount++;
-            if (frameCount >= maxFrames) {
-                active = false;
-            } else {
-                loadImage();
-            }
-            lastFrameTime = currentTime;
-        }
+        // The expiry timer ends the explosion after its last frame
     }
 }
-
-
@@ -1,8 +1,14 @@
 package com.tankwar.tankwargame.entities.environment;
 
+import com.tankwar.tankwargame.assets.TextureAtlas;
 import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.factory.GameObjectFactory;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.util.CollisionLayers;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.image.Image;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Destructible wall that can be destroyed by missile hits.
@@ -19,6 +25,8 @@ public class DestructibleWall extends GameObject {
     
     public DestructibleWall(double x, double y, int health) {
         super(x, y, GameConstants.TILE_SIZE, GameConstants.TILE_SIZE);
+        this.layer = CollisionLayers.DESTRUCTIBLE_WALL;
+        this.drawLayer = RenderLayers.WALLS;
         this.maxHealth = health;
         this.health = health;
         loadWallImage();
@@ -29,11 +37,7 @@ public class DestructibleWall extends GameObject {
     }
     
     private void loadWallImage() {
-        try {
-            image = new Image(getClass().getResourceAsStream("/com/tankwar/tankwargame/images/destructible_wall.gif"));
-        } catch (Exception e) {
-            System.err.println("Could not load destructible wall image: destructible_wall.gif");
-        }
+        sprite = TextureAtlas.get().region("destructible_wall.gif");
     }
     
     @Override
@@ -45,6 +49,7 @@ public class DestructibleWall extends GameObject {
         }
     }
     
+    @Override
     public void takeDamage(int damage) {
         health -= damage;
         if (health <= 0) {
@@ -58,6 +63,20 @@ public class DestructibleWall extends GameObject {
         // Wall destruction handled
     }
     
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(health);
+        out.writeBoolean(damaged);
+    }
+    
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        health = in.readInt();
+        damaged = in.readBoolean();
+    }
+    
     public void repair() {
         health = maxHealth;
         damaged = false;
@@ -71,11 +90,11 @@ public class DestructibleWall extends GameObject {
     public boolean isDestroyed() { return health <= 0; }
     
     public static DestructibleWall createWeakWall(double x, double y) {
-        return new DestructibleWall(x, y, GameConstants.WEAK_WALL_HEALTH);
+        return GameObjectFactory.getInstance().createDestructibleWall(x, y, GameConstants.WEAK_WALL_HEALTH);
     }
     
     public static DestructibleWall createStrongWall(double x, double y) {
-        return new DestructibleWall(x, y, GameConstants.STRONG_WALL_HEALTH);
+        return GameObjectFactory.getInstance().createDestructibleWall(x, y, GameConstants.STRONG_WALL_HEALTH);
     }
 }
 
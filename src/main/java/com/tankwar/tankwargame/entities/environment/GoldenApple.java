@@ -1,9 +1,16 @@
 package com.tankwar.tankwargame.entities.environment;
 
+import com.tankwar.tankwargame.assets.TextureAtlas;
+import com.tankwar.tankwargame.core.MatchContext;
+import com.tankwar.tankwargame.core.TimerWheel;
 import com.tankwar.tankwargame.entities.base.GameObject;
-import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.util.CollisionLayers;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.image.Image;
+import com.tankwar.tankwargame.util.Teams;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Golden Apple - the objective that must be protected from enemy tanks.
@@ -15,39 +22,60 @@ import javafx.scene.image.Image;
  */
 public class GoldenApple extends GameObject {
     private boolean underThreat = false;
-    private long lastThreatTime = 0;
+    private long threatEndTick = 0;
     private final long threatCooldown = 1000;
+    private final TimerWheel.Timer threatExpiry = new TimerWheel.Timer(() -> underThreat = false);
     
     public GoldenApple(double x, double y) {
         super(x, y, GameConstants.GOLDEN_APPLE_SIZE, GameConstants.GOLDEN_APPLE_SIZE);
+        this.layer = CollisionLayers.OBJECTIVE;
+        this.drawLayer = RenderLayers.OBJECTIVE;
+        this.collisionMask = CollisionLayers.TANK;
         loadAppleImage();
     }
     
     private void loadAppleImage() {
-        try {
-            image = new Image(getClass().getResourceAsStream("/com/tankwar/tankwargame/images/golden_apple.jpeg"));
-        } catch (Exception e) {
-            System.err.println("Could not load golden apple image: " + e.getMessage());
-        }
+        sprite = TextureAtlas.get().region("golden_apple.jpeg");
     }
     
     @Override
     public void update() {
-        if (underThreat && System.currentTimeMillis() - lastThreatTime > threatCooldown) {
-            underThreat = false;
-        }
+        // The threat expiry timer clears underThreat
     }
     
     public void setUnderThreat(boolean threat) {
         if (threat && !underThreat) {
             underThreat = true;
-            lastThreatTime = System.currentTimeMillis();
+            TimerWheel timers = MatchContext.current().getTimers();
+            threatEndTick = timers.getNow() + TimerWheel.ticksFor(threatCooldown);
+            timers.schedule(threatExpiry, threatEndTick);
             onThreatDetected();
         }
     }
     
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(underThreat);
+        out.writeLong(threatEndTick);
+    }
+    
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        underThreat = in.readBoolean();
+        threatEndTick = in.readLong();
+    }
+    
+    @Override
+    public void resumeTimers() {
+        if (underThreat) {
+            MatchContext.current().getTimers().schedule(threatExpiry, threatEndTick);
+        }
+    }
+    
     public boolean isContactedBy(GameObject other) {
-        if (other instanceof Tank && !((Tank) other).isPlayer()) {
+        if (collidesWith(other) && other.getTeam() == Teams.ENEMIES) {
             onDestroy();
             return true;
         }
@@ -62,19 +90,6 @@ public class GoldenApple extends GameObject {
         active = false;
     }
     
-    public boolean isInDangerZone(Tank enemyTank) {
-        if (enemyTank.isPlayer() || !enemyTank.isActive()) {
-            return false;
-        }
-        
-        double distance = Math.sqrt(
-            Math.pow(x - enemyTank.getX(), 2) + 
-            Math.pow(y - enemyTank.getY(), 2)
-        );
-        
-        return distance < GameConstants.APPLE_DANGER_RADIUS;
-    }
-    
     public boolean isUnderThreat() { return underThreat; }
     public boolean isDestroyed() { return !active; }
     
@@ -1,8 +1,9 @@
 package com.tankwar.tankwargame.entities.environment;
 
 import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.render.RenderCommands;
+import com.tankwar.tankwargame.render.RenderLayers;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
 /**
@@ -11,9 +12,12 @@ import javafx.scene.paint.Color;
  * @author Iyed Acheche
  */
 public class GoldenTile extends GameObject {
+    private static final int FILL_COLOR = RenderCommands.argb(Color.GOLD);
+    private static final int BORDER_COLOR = RenderCommands.argb(Color.ORANGE);
     
     public GoldenTile(double x, double y) {
         super(x, y, GameConstants.TILE_SIZE, GameConstants.TILE_SIZE);
+        this.drawLayer = RenderLayers.FLOOR;
     }
     
     @Override
@@ -22,13 +26,9 @@ public class GoldenTile extends GameObject {
     }
     
     @Override
-    public void render(GraphicsContext gc) {
-        gc.setFill(Color.GOLD);
-        gc.fillRect(x, y, width, height);
-        
-        gc.setStroke(Color.ORANGE);
-        gc.setLineWidth(2);
-        gc.strokeRect(x, y, width, height);
+    public void capture(RenderCommands commands) {
+        commands.fillRect(drawLayer, RenderCommands.NO_ANCHOR, FILL_COLOR, x, y, width, height);
+        commands.strokeRect(RenderLayers.FLOOR_BORDERS, RenderCommands.NO_ANCHOR, BORDER_COLOR, 2, x, y, width, height);
     }
 }
 
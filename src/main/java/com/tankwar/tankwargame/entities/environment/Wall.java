@@ -1,8 +1,10 @@
 package com.tankwar.tankwargame.entities.environment;
 
+import com.tankwar.tankwargame.assets.TextureAtlas;
 import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.util.CollisionLayers;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.image.Image;
 
 /**
  * Indestructible wall obstacle class.
@@ -13,15 +15,13 @@ public class Wall extends GameObject {
     
     public Wall(double x, double y) {
         super(x, y, GameConstants.TILE_SIZE, GameConstants.TILE_SIZE);
+        this.layer = CollisionLayers.WALL;
+        this.drawLayer = RenderLayers.WALLS;
         loadImage();
     }
     
     private void loadImage() {
-        try {
-            image = new Image(getClass().getResourceAsStream("/com/tankwar/tankwargame/images/und_wall.gif"));
-        } catch (Exception e) {
-            System.err.println("Could not load indestructible wall image: und_wall.gif");
-        }
+        sprite = TextureAtlas.get().region("und_wall.gif");
     }
     
     @Override
@@ -2,8 +2,10 @@ package com.tankwar.tankwargame.entities.pickups;
 
 import com.tankwar.tankwargame.entities.base.GameObject;
 import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.render.RenderCommands;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.util.CollisionLayers;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
 /**
@@ -12,10 +14,16 @@ import javafx.scene.paint.Color;
  * @author Iyed Acheche
  */
 public class MedPack extends GameObject {
+    private static final int BOX_COLOR = RenderCommands.argb(Color.RED);
+    private static final int CROSS_COLOR = RenderCommands.argb(Color.WHITE);
+    
     private int healAmount = GameConstants.MEDPACK_HEAL_AMOUNT;
     
     public MedPack(double x, double y) {
         super(x, y, GameConstants.MEDPACK_SIZE, GameConstants.MEDPACK_SIZE);
+        this.layer = CollisionLayers.PICKUP;
+        this.collisionMask = CollisionLayers.TANK;
+        this.drawLayer = RenderLayers.PICKUPS;
     }
     
     @Override
@@ -24,12 +32,11 @@ public class MedPack extends GameObject {
     }
     
     @Override
-    public void render(GraphicsContext gc) {
-        gc.setFill(Color.RED);
-        gc.fillRect(x, y, width, height);
-        gc.setFill(Color.WHITE);
-        gc.fillRect(x + 5, y + 12, 20, 6);
-        gc.fillRect(x + 12, y + 5, 6, 20);
+    public void capture(RenderCommands commands) {
+        // The cross is on the layer above so every box is filled before any cross
+        commands.fillRect(drawLayer, RenderCommands.NO_ANCHOR, BOX_COLOR, x, y, width, height);
+        commands.fillRect(RenderLayers.PICKUP_MARKS, RenderCommands.NO_ANCHOR, CROSS_COLOR, x + 5, y + 12, 20, 6);
+        commands.fillRect(RenderLayers.PICKUP_MARKS, RenderCommands.NO_ANCHOR, CROSS_COLOR, x + 12, y + 5, 6, 20);
     }
     
     /**
@@ -1,11 +1,18 @@
 package com.tankwar.tankwargame.entities.projectiles;
 
+import com.tankwar.tankwargame.assets.TextureAtlas;
+import com.tankwar.tankwargame.core.MatchContext;
 import com.tankwar.tankwargame.entities.base.GameObject;
-import com.tankwar.tankwargame.entities.environment.DestructibleWall;
 import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.util.CollisionLayers;
 import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.EntityHandle;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.image.Image;
+import com.tankwar.tankwargame.util.SweptAabb;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Missile projectile class.
@@ -15,75 +22,143 @@ import javafx.scene.image.Image;
 public class Missile extends GameObject {
     private Direction direction;
     private double speed = GameConstants.MISSILE_SPEED;
-    private Tank owner;
+    private int ownerHandle;
+    private boolean ownerIsPlayer;
     private int damage;
     
     public Missile(double x, double y, Direction direction, Tank owner) {
+        this(x, y, direction, owner.getHandle(), owner.isPlayer(), owner.getTeam());
+    }
+    
+    /**
+     * The owner is kept as a handle, so a missile outlives its tank and
+     * survives snapshots. The missile joins the owner's team, so it passes
+     * through allies, and remembers whether a player fired it, for damage
+     * and scoring.
+     */
+    public Missile(double x, double y, Direction direction, int ownerHandle, boolean ownerIsPlayer, int team) {
         super(x, y, GameConstants.MISSILE_SIZE, GameConstants.MISSILE_SIZE);
+        this.layer = CollisionLayers.MISSILE;
+        this.drawLayer = RenderLayers.MISSILES;
+        this.collisionMask = CollisionLayers.MISSILE_MASK;
+        this.team = team;
         this.direction = direction;
-        this.owner = owner;
-        this.damage = owner.isPlayer() ? GameConstants.MISSILE_DAMAGE : GameConstants.ENEMY_MISSILE_DAMAGE;
+        this.ownerHandle = ownerHandle;
+        this.ownerIsPlayer = ownerIsPlayer;
+        this.damage = ownerIsPlayer ? GameConstants.MISSILE_DAMAGE : GameConstants.ENEMY_MISSILE_DAMAGE;
         loadImage();
     }
     
     private void loadImage() {
-        try {
-            image = new Image(getClass().getResourceAsStream("/com/tankwar/tankwargame/images/" + direction.getMissileImage()));
-        } catch (Exception e) {
-            System.err.println("Could not load missile image: " + direction.getMissileImage());
-        }
+        sprite = TextureAtlas.get().region(direction.getMissileImage());
     }
     
+    /**
+     * Moves the missile. While it is kept in an EntityStore the store moves
+     * it together with the other missiles instead. A missile that leaves
+     * the field is retired by the engine after its hits are checked, so it
+     * still collides with the border on the way out.
+     */
     @Override
     public void update() {
+        if (isStored()) return;
         x += direction.getDx() * speed;
         y += direction.getDy() * speed;
-        
-        if (x < 0 || y < 0 || x > GameConstants.GAME_WIDTH || y > GameConstants.GAME_HEIGHT) {
-            active = false;
-        }
     }
     
-    public boolean hitTarget(GameObject target) {
-        if (target == owner || !target.isActive()) {
+    public boolean isOutsideField() {
+        return getX() < 0 || getY() < 0 || getX() > GameConstants.GAME_WIDTH || getY() > GameConstants.GAME_HEIGHT;
+    }
+    
+    /**
+     * Whether the target can be hit at all: on a layer the missile collides
+     * with, not on its team, not the firing tank, and still active.
+     */
+    public boolean canHit(GameObject target) {
+        if (!collidesWith(target)) {
             return false;
         }
-        
-        // Prevent friendly fire
-        if (target instanceof Tank && owner instanceof Tank) {
-            Tank targetTank = (Tank) target;
-            Tank ownerTank = (Tank) owner;
-            
-            if (!targetTank.isPlayer() && !ownerTank.isPlayer()) {
-                return false;
-            }
-        }
-        
-        if (intersects(target)) {
-            if (target instanceof Tank) { 
-                ((Tank) target).takeDamage(damage);
-            } else if (target instanceof DestructibleWall) {
-                ((DestructibleWall) target).takeDamage(damage);
-            }
-            
-            active = false;
-            return true;
-        }
-        return false;
+        boolean ownTank = ownerHandle != EntityHandle.NONE && target.getHandle() == ownerHandle;
+        return !ownTank && target.isActive();
+    }
+    
+    /**
+     * Sweeps the missile over its last move, so a fast missile cannot pass
+     * through a wall or tank between ticks.
+     * @return the fraction of the move at which it first touches the target,
+     *         or SweptAabb.NO_IMPACT
+     */
+    public double timeOfImpact(GameObject target) {
+        double dx = getVelocityX(), dy = getVelocityY();
+        return SweptAabb.timeOfImpact(getX() - dx, getY() - dy, width, height, dx, dy,
+                target.getX(), target.getY(), target.getWidth(), target.getHeight());
+    }
+    
+    /**
+     * Moves the missile back to the point where it touched the target,
+     * damages the target and removes the missile.
+     * @param time the time of impact, as returned by timeOfImpact
+     */
+    public void impact(GameObject target, double time) {
+        rewindTo(time);
+        target.takeDamage(damage);
+        setActive(false);
+    }
+    
+    /**
+     * Stops this missile and another one at the point in their last move
+     * where they met.
+     */
+    public void intercept(Missile other, double time) {
+        rewindTo(time);
+        other.rewindTo(time);
+        setActive(false);
+        other.setActive(false);
+    }
+    
+    private void rewindTo(double time) {
+        double rewind = 1 - time;
+        setPosition(getX() - getVelocityX() * rewind, getY() - getVelocityY() * rewind);
     }
     
-    public boolean hitWall(GameObject wall) {
-        if (intersects(wall)) {
-            if (wall instanceof DestructibleWall) {
-                ((DestructibleWall) wall).takeDamage(damage);
-            }
-            active = false;
-            return true;
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeByte(direction.ordinal());
+        out.writeInt(damage);
+        out.writeInt(ownerHandle);
+        out.writeBoolean(ownerIsPlayer);
+    }
+    
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        Direction restored = Direction.values()[in.readByte()];
+        damage = in.readInt();
+        ownerHandle = in.readInt();
+        ownerIsPlayer = in.readBoolean();
+        if (restored != direction) {
+            direction = restored;
+            loadImage();
         }
-        return false;
     }
     
-    public Tank getOwner() { return owner; }
+    @Override
+    public double getVelocityX() { return direction.getDx() * speed; }
+    
+    @Override
+    public double getVelocityY() { return direction.getDy() * speed; }
+    
+    /**
+     * Returns the tank that fired this missile, or null once it is gone.
+     */
+    public Tank getOwner() {
+        return MatchContext.current().getEntities().get(ownerHandle, Tank.class);
+    }
+    
+    public int getOwnerHandle() { return ownerHandle; }
+    public boolean isOwnerPlayer() { return ownerIsPlayer; }
+    public Direction getDirection() { return direction; }
     public int getDamage() { return damage; }
 }
 
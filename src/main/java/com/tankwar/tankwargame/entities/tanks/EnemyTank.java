@@ -4,6 +4,9 @@ import com.tankwar.tankwargame.ai.EnemyAI;
 import com.tankwar.tankwargame.entities.base.GameObject;
 import com.tankwar.tankwargame.util.Direction;
 import com.tankwar.tankwargame.util.GameConstants;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -17,7 +20,15 @@ public class EnemyTank extends Tank {
     public EnemyTank(double x, double y, Direction direction) {
         super(x, y, direction, false);
         this.speed = GameConstants.ENEMY_TANK_SPEED;
-        this.aiController = new EnemyAI();
+    }
+    
+    /**
+     * The AI follows walls one way or the other depending on the handle,
+     * so it is only built once the tank has one.
+     */
+    @Override
+    protected void onRegistered() {
+        this.aiController = new EnemyAI(getHandle());
     }
     
     /**
@@ -33,6 +44,18 @@ public class EnemyTank extends Tank {
         }
     }
     
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        aiController.writeState(out);
+    }
+    
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        aiController.readState(in);
+    }
+    
     /**
      * Returns true if the AI wants to shoot this frame.
      */
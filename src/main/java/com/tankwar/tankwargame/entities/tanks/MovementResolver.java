@@ -0,0 +1,136 @@
+package com.tankwar.tankwargame.entities.tanks;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves one tank against the solids around it.
+ * At the start of the tank's turn the obstacle list is scanned once and
+ * everything within reach of the tank is kept as its contact set. Move
+ * checks and the move itself then only look at those few contacts, however
+ * many candidate directions the controller tries.
+ *
+ * A combined move is resolved one axis at a time, vertical first: each axis
+ * moves as far as it can up to the first contact, so a tank pushed
+ * diagonally into a wall slides along it instead of stopping. Boxes are
+ * shrunk by a small buffer, as in Perception.canMove, so tanks can brush
+ * past corners. A contact the tank already overlaps only blocks moves
+ * toward its center, so overlapping tanks can separate.
+ *
+ * The contact set is reused between ticks without allocating, so replaying
+ * inputs during client reconciliation stays allocation-free.
+ *
+ * @author Iyed Acheche
+ */
+public final class MovementResolver {
+    private static final int BUFFER = 2;
+    
+    private final List<GameObject> contacts = new ArrayList<>();
+    private GameObject mover;
+    
+    public MovementResolver() {}
+    
+    /**
+     * Keeps the active solids whose bounds come within {@code reach} of the
+     * mover's bounds and that the mover's mask collides with.
+     */
+    public void gather(GameObject mover, List<? extends GameObject> obstacles, double reach) {
+        this.mover = mover;
+        contacts.clear();
+        double minX = mover.getX() - reach, maxX = mover.getX() + mover.getWidth() + reach;
+        double minY = mover.getY() - reach, maxY = mover.getY() + mover.getHeight() + reach;
+        int mask = mover.getCollisionMask();
+        for (GameObject obstacle : obstacles) {
+            if (obstacle == mover || !obstacle.isActive() || (mask & obstacle.getLayer()) == 0) continue;
+            double ox = obstacle.getX(), oy = obstacle.getY();
+            if (ox < maxX && ox + obstacle.getWidth() > minX && oy < maxY && oy + obstacle.getHeight() > minY) {
+                contacts.add(obstacle);
+            }
+        }
+    }
+    
+    /**
+     * Whether a whole step in the given direction is free: inside the field
+     * and clear of every contact.
+     */
+    public boolean canMove(Direction dir, double speed) {
+        double newX = mover.getX() + dir.getDx() * speed;
+        double newY = mover.getY() + dir.getDy() * speed;
+        int width = mover.getWidth(), height = mover.getHeight();
+        if (newX < 0 || newY < 0 || newX + width > GameConstants.GAME_WIDTH || newY + height > GameConstants.GAME_HEIGHT) {
+            return false;
+        }
+        
+        for (int i = 0; i < contacts.size(); i++) {
+            GameObject obs = contacts.get(i);
+            if (newX + BUFFER < obs.getX() + obs.getWidth() - BUFFER &&
+                newX + width - BUFFER > obs.getX() + BUFFER &&
+                newY + BUFFER < obs.getY() + obs.getHeight() - BUFFER &&
+                newY + height - BUFFER > obs.getY() + BUFFER) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Moves by (dx, dy), vertical axis first, each axis stopping at the
+     * field edge or the first contact in its way.
+     */
+    public void slide(double dx, double dy) {
+        double y = mover.getY() + sweep(false, dy);
+        mover.setPosition(mover.getX(), y);
+        double x = mover.getX() + sweep(true, dx);
+        mover.setPosition(x, y);
+    }
+    
+    /**
+     * How far the mover can travel along one axis, toward delta.
+     */
+    private double sweep(boolean horizontal, double delta) {
+        if (delta == 0) return 0;
+        double pos = horizontal ? mover.getX() : mover.getY();
+        double across = horizontal ? mover.getY() : mover.getX();
+        int size = horizontal ? mover.getWidth() : mover.getHeight();
+        int acrossSize = horizontal ? mover.getHeight() : mover.getWidth();
+        double field = horizontal ? GameConstants.GAME_WIDTH : GameConstants.GAME_HEIGHT;
+        
+        double allowed = delta > 0 ? Math.min(delta, Math.max(0, field - size - pos)) : Math.max(delta, Math.min(0, -pos));
+        double low = pos + BUFFER, high = pos + size - BUFFER;
+        for (int i = 0; i < contacts.size() && allowed != 0; i++) {
+            GameObject obs = contacts.get(i);
+            double obsAcross = horizontal ? obs.getY() : obs.getX();
+            int obsAcrossSize = horizontal ? obs.getHeight() : obs.getWidth();
+            if (!(across + BUFFER < obsAcross + obsAcrossSize - BUFFER && across + acrossSize - BUFFER > obsAcross + BUFFER)) {
+                continue;  // Not in the way on this axis
+            }
+            
+            double obsPos = horizontal ? obs.getX() : obs.getY();
+            int obsSize = horizontal ? obs.getWidth() : obs.getHeight();
+            double obsLow = obsPos + BUFFER, obsHigh = obsPos + obsSize - BUFFER;
+            boolean overlapping = obsLow < high && obsHigh > low;
+            if (delta > 0) {
+                if (obsLow >= high) {
+                    allowed = Math.min(allowed, obsLow - high);
+                } else if (overlapping && obsPos + obsSize / 2.0 > pos + size / 2.0) {
+                    allowed = 0;
+                }
+            } else {
+                if (obsHigh <= low) {
+                    allowed = Math.max(allowed, obsHigh - low);
+                } else if (overlapping && obsPos + obsSize / 2.0 < pos + size / 2.0) {
+                    allowed = 0;
+                }
+            }
+        }
+        return allowed;
+    }
+    
+    /**
+     * Number of solids gathered at the start of the turn.
+     */
+    public int getContactCount() { return contacts.size(); }
+}
@@ -28,6 +28,14 @@ public class PlayerTank extends Tank {
     public void updateWithBehavior(Set<KeyCode> pressedKeys, List<GameObject> obstacles, List<Missile> missiles) {
         behavior.update(this, pressedKeys, obstacles, missiles);
     }
+    
+    /**
+     * Applies one tick of encoded input, as received from a remote peer or
+     * the lockstep input stream.
+     */
+    public void applyInput(int input, List<GameObject> obstacles, List<Missile> missiles) {
+        PlayerBehavior.applyInput(this, input, obstacles, missiles);
+    }
 }
 
 
@@ -1,10 +1,19 @@
 package com.tankwar.tankwargame.entities.tanks;
 
+import com.tankwar.tankwargame.assets.TextureAtlas;
+import com.tankwar.tankwargame.core.MatchContext;
+import com.tankwar.tankwargame.core.TimerWheel;
 import com.tankwar.tankwargame.entities.base.GameObject;
 import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.factory.GameObjectFactory;
+import com.tankwar.tankwargame.render.RenderLayers;
+import com.tankwar.tankwargame.util.CollisionLayers;
 import com.tankwar.tankwargame.util.Direction;
 import com.tankwar.tankwargame.util.GameConstants;
-import javafx.scene.image.Image;
+import com.tankwar.tankwargame.util.Teams;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -20,15 +29,22 @@ public class Tank extends GameObject {
     protected Direction direction;
     protected int health;
     protected int maxHealth;
-    protected long lastShotTime = 0;
     protected long shotCooldown;
+    private boolean loaded = true;
+    private long reloadTick = 0;  // Tick the reload timer fires at
+    private final TimerWheel.Timer reload = new TimerWheel.Timer(() -> loaded = true);
     protected double speed = GameConstants.TANK_SPEED;
     protected boolean isPlayer;
+    private final MovementResolver movement = new MovementResolver();
     
     public Tank(double x, double y, Direction direction, boolean isPlayer) {
         super(x, y, GameConstants.TANK_SIZE, GameConstants.TANK_SIZE);
         this.direction = direction;
         this.isPlayer = isPlayer;
+        this.layer = CollisionLayers.TANK;
+        this.drawLayer = RenderLayers.TANKS;
+        this.collisionMask = CollisionLayers.TANK_MASK;
+        this.team = isPlayer ? Teams.player(0) : Teams.ENEMIES;
         this.maxHealth = isPlayer ? GameConstants.PLAYER_MAX_HEALTH : GameConstants.ENEMY_MAX_HEALTH;
         this.health = maxHealth;
         this.shotCooldown = isPlayer ? GameConstants.SHOT_COOLDOWN : GameConstants.ENEMY_SHOT_COOLDOWN;
@@ -36,11 +52,7 @@ public class Tank extends GameObject {
     }
     
     private void loadImage() {
-        try {
-            image = new Image(getClass().getResourceAsStream("/com/tankwar/tankwargame/images/" + direction.getTankImage()));
-        } catch (Exception e) {
-            System.err.println("Could not load tank image: " + direction.getTankImage());
-        }
+        sprite = TextureAtlas.get().region(direction.getTankImage());
     }
     
     @Override
@@ -48,55 +60,71 @@ public class Tank extends GameObject {
         // Base tank doesn't need update logic
     }
     
-    public void move(Direction newDirection, List<GameObject> obstacles) {
-        if (newDirection != direction) {
-            direction = newDirection;
-            loadImage();
-        }
-        
-        double newX = x + direction.getDx() * speed;
-        double newY = y + direction.getDy() * speed;
-        
-        if (canMoveTo(newX, newY, obstacles)) {
-            x = newX;
-            y = newY;
-        }
+    /**
+     * Collects the solids this tank can reach this tick. Called once at the
+     * start of the tank's turn; steer and the resolver's move checks then
+     * reuse them instead of scanning the obstacles again.
+     */
+    public MovementResolver gatherContacts(List<? extends GameObject> obstacles) {
+        movement.gather(this, obstacles, speed * 2);
+        return movement;
     }
     
-    private boolean canMoveTo(double newX, double newY, List<GameObject> obstacles) {
-        if (newX < 0 || newY < 0 || newX + width > GameConstants.GAME_WIDTH || newY + height > GameConstants.GAME_HEIGHT) {
-            return false;
-        }
-        
-        final int COLLISION_BUFFER = 2;
-        
-        for (GameObject obstacle : obstacles) {
-            if (obstacle != this && obstacle.isActive()) {
-                if (newX + COLLISION_BUFFER < obstacle.getX() + obstacle.getWidth() - COLLISION_BUFFER &&
-                    newX + width - COLLISION_BUFFER > obstacle.getX() + COLLISION_BUFFER &&
-                    newY + COLLISION_BUFFER < obstacle.getY() + obstacle.getHeight() - COLLISION_BUFFER &&
-                    newY + height - COLLISION_BUFFER > obstacle.getY() + COLLISION_BUFFER) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    /**
+     * Faces the given direction and moves by the combined step of the held
+     * directions, each -1, 0 or 1, using the contacts gathered this turn.
+     */
+    public void steer(Direction facing, int stepX, int stepY) {
+        setDirection(facing);
+        movement.slide(stepX * speed, stepY * speed);
     }
     
+    /**
+     * Fires a missile if the gun is loaded. The reload timer loads it again
+     * once the cooldown has passed, so nothing is checked while waiting.
+     */
     public Missile fire() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastShotTime < shotCooldown) {
+        if (!loaded) {
             return null;
         }
         
-        lastShotTime = currentTime;
+        loaded = false;
+        TimerWheel timers = MatchContext.current().getTimers();
+        reloadTick = timers.getNow() + TimerWheel.ticksFor(shotCooldown);
+        timers.schedule(reload, reloadTick);
         
         double missileX = x + width / 2 - GameConstants.MISSILE_SIZE / 2;
         double missileY = y + height / 2 - GameConstants.MISSILE_SIZE / 2;
         
-        return new Missile(missileX, missileY, direction, this);
+        return GameObjectFactory.getInstance().createMissile(missileX, missileY, direction, this);
+    }
+    
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeByte(direction.ordinal());
+        out.writeInt(health);
+        out.writeBoolean(loaded);
+        out.writeLong(reloadTick);
     }
     
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        setDirection(Direction.values()[in.readByte()]);
+        health = in.readInt();
+        loaded = in.readBoolean();
+        reloadTick = in.readLong();
+    }
+    
+    @Override
+    public void resumeTimers() {
+        if (!loaded) {
+            MatchContext.current().getTimers().schedule(reload, reloadTick);
+        }
+    }
+    
+    @Override
     public void takeDamage(int damage) {
         health -= damage;
         if (health <= 0) {
@@ -112,10 +140,15 @@ public class Tank extends GameObject {
     public Direction getDirection() { return direction; }
     public int getHealth() { return health; }
     public int getMaxHealth() { return maxHealth; }
+    public boolean isLoaded() { return loaded; }
+    public double getSpeed() { return speed; }
+    public MovementResolver getMovement() { return movement; }
     public boolean isPlayer() { return isPlayer; }
     public void setDirection(Direction direction) { 
-        this.direction = direction;
-        loadImage();
+        if (this.direction != direction) {
+            this.direction = direction;
+            loadImage();
+        }
     }
 }
 
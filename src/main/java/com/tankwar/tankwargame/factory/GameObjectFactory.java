@@ -1,7 +1,11 @@
 package com.tankwar.tankwargame.factory;
 
+import com.tankwar.tankwargame.entities.base.GameObject;
 import com.tankwar.tankwargame.entities.effects.Explosion;
+import com.tankwar.tankwargame.entities.environment.DestructibleWall;
+import com.tankwar.tankwargame.entities.environment.GoldenApple;
 import com.tankwar.tankwargame.entities.pickups.MedPack;
+import com.tankwar.tankwargame.entities.projectiles.Missile;
 import com.tankwar.tankwargame.entities.tanks.*;
 import com.tankwar.tankwargame.util.Direction;
 
@@ -21,19 +25,45 @@ public class GameObjectFactory {
         return instance;
     }
     
+    /**
+     * Gives a newly built object its handle in the match bound to this
+     * thread. Entities never register from their own constructors, so the
+     * registry only ever sees finished objects.
+     */
+    public <T extends GameObject> T register(T object) {
+        object.register();
+        return object;
+    }
+    
     public Tank createTank(double x, double y, Direction direction, TankType type) {
         switch (type) {
             case PLAYER:
-                return new PlayerTank(x, y, direction);
+                return register(new PlayerTank(x, y, direction));
             case ENEMY:
-                return new EnemyTank(x, y, direction);
+                return register(new EnemyTank(x, y, direction));
             default:
                 throw new IllegalArgumentException("Unknown tank type: " + type);
         }
     }
     
+    public Missile createMissile(double x, double y, Direction direction, Tank owner) {
+        return register(new Missile(x, y, direction, owner));
+    }
+    
     public MedPack createMedPack(double x, double y) {
-        return new MedPack(x, y);
+        return register(new MedPack(x, y));
+    }
+    
+    public DestructibleWall createDestructibleWall(double x, double y) {
+        return register(new DestructibleWall(x, y));
+    }
+    
+    public DestructibleWall createDestructibleWall(double x, double y, int health) {
+        return register(new DestructibleWall(x, y, health));
+    }
+    
+    public GoldenApple createGoldenApple(double x, double y) {
+        return register(new GoldenApple(x, y));
     }
     
     public Explosion createSmallExplosion(double x, double y) {
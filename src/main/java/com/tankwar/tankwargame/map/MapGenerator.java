@@ -2,6 +2,7 @@ package com.tankwar.tankwargame.map;
 
 import com.tankwar.tankwargame.entities.base.GameObject;
 import com.tankwar.tankwargame.entities.environment.*;
+import com.tankwar.tankwargame.factory.GameObjectFactory;
 import java.util.List;
 
 /**
@@ -19,6 +20,7 @@ public class MapGenerator {
     private final int tileSize;
     private final int rows;
     private final int cols;
+    private final GameObjectFactory factory = GameObjectFactory.getInstance();
     
     public MapGenerator(int gameWidth, int gameHeight, int tileSize) {
         this.gameWidth = gameWidth;
@@ -102,26 +104,26 @@ public class MapGenerator {
     }
     
     private void createCornerDestructibles(List<DestructibleWall> destructibleWalls, int centerCol, int centerRow) {
-        destructibleWalls.add(new DestructibleWall(2 * tileSize, 2 * tileSize));
-        destructibleWalls.add(new DestructibleWall(3 * tileSize, 2 * tileSize));
-        
-        destructibleWalls.add(new DestructibleWall((cols - 3) * tileSize, 2 * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 4) * tileSize, 2 * tileSize));
-        
-        destructibleWalls.add(new DestructibleWall(2 * tileSize, (rows - 3) * tileSize));
-        destructibleWalls.add(new DestructibleWall(3 * tileSize, (rows - 3) * tileSize));
-        destructibleWalls.add(new DestructibleWall(2 * tileSize, (rows - 4) * tileSize));
-        destructibleWalls.add(new DestructibleWall(2 * tileSize, (rows - 5) * tileSize));
-        
-        destructibleWalls.add(new DestructibleWall((cols - 3) * tileSize, (rows - 3) * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 4) * tileSize, (rows - 3) * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 3) * tileSize, (rows - 4) * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 3) * tileSize, (rows - 5) * tileSize));
-        
-        destructibleWalls.add(new DestructibleWall((centerCol - 3) * tileSize, centerRow * tileSize));
-        destructibleWalls.add(new DestructibleWall((centerCol + 3) * tileSize, centerRow * tileSize));
-        destructibleWalls.add(new DestructibleWall(centerCol * tileSize, (centerRow - 3) * tileSize));
-        destructibleWalls.add(new DestructibleWall(centerCol * tileSize, (centerRow + 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(2 * tileSize, 2 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(3 * tileSize, 2 * tileSize));
+        
+        destructibleWalls.add(factory.createDestructibleWall((cols - 3) * tileSize, 2 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 4) * tileSize, 2 * tileSize));
+        
+        destructibleWalls.add(factory.createDestructibleWall(2 * tileSize, (rows - 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(3 * tileSize, (rows - 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(2 * tileSize, (rows - 4) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(2 * tileSize, (rows - 5) * tileSize));
+        
+        destructibleWalls.add(factory.createDestructibleWall((cols - 3) * tileSize, (rows - 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 4) * tileSize, (rows - 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 3) * tileSize, (rows - 4) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 3) * tileSize, (rows - 5) * tileSize));
+        
+        destructibleWalls.add(factory.createDestructibleWall((centerCol - 3) * tileSize, centerRow * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((centerCol + 3) * tileSize, centerRow * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(centerCol * tileSize, (centerRow - 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(centerCol * tileSize, (centerRow + 3) * tileSize));
     }
     
     private void createAppleDefenseRing(List<DestructibleWall> destructibleWalls) {
@@ -141,7 +143,7 @@ public class MapGenerator {
             int x = appleX + offset[0] * tileSize;
             int y = appleY + offset[1] * tileSize;
             if (isValidPosition(x, y)) {
-                destructibleWalls.add(new DestructibleWall(x, y));
+                destructibleWalls.add(factory.createDestructibleWall(x, y));
             }
         }
     }
@@ -150,29 +152,29 @@ public class MapGenerator {
         int centerCol = cols / 2;
         int centerRow = rows / 2;
         
-        destructibleWalls.add(new DestructibleWall(6 * tileSize, 5 * tileSize));
-        destructibleWalls.add(new DestructibleWall(6 * tileSize, centerRow * tileSize));
-        destructibleWalls.add(new DestructibleWall(6 * tileSize, (rows - 6) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(6 * tileSize, 5 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(6 * tileSize, centerRow * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(6 * tileSize, (rows - 6) * tileSize));
         
-        destructibleWalls.add(new DestructibleWall((cols - 7) * tileSize, 5 * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 7) * tileSize, centerRow * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 7) * tileSize, (rows - 6) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 7) * tileSize, 5 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 7) * tileSize, centerRow * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 7) * tileSize, (rows - 6) * tileSize));
         
-        destructibleWalls.add(new DestructibleWall(8 * tileSize, 2 * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 9) * tileSize, 2 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(8 * tileSize, 2 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 9) * tileSize, 2 * tileSize));
         
-        destructibleWalls.add(new DestructibleWall(8 * tileSize, (rows - 3) * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 9) * tileSize, (rows - 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(8 * tileSize, (rows - 3) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 9) * tileSize, (rows - 3) * tileSize));
         
-        destructibleWalls.add(new DestructibleWall((centerCol - 4) * tileSize, (centerRow - 2) * tileSize));
-        destructibleWalls.add(new DestructibleWall((centerCol + 4) * tileSize, (centerRow - 2) * tileSize));
-        destructibleWalls.add(new DestructibleWall((centerCol - 4) * tileSize, (centerRow + 2) * tileSize));
-        destructibleWalls.add(new DestructibleWall((centerCol + 4) * tileSize, (centerRow + 2) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((centerCol - 4) * tileSize, (centerRow - 2) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((centerCol + 4) * tileSize, (centerRow - 2) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((centerCol - 4) * tileSize, (centerRow + 2) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((centerCol + 4) * tileSize, (centerRow + 2) * tileSize));
         
-        destructibleWalls.add(new DestructibleWall(9 * tileSize, 6 * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 10) * tileSize, 6 * tileSize));
-        destructibleWalls.add(new DestructibleWall(9 * tileSize, (rows - 7) * tileSize));
-        destructibleWalls.add(new DestructibleWall((cols - 10) * tileSize, (rows - 7) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(9 * tileSize, 6 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 10) * tileSize, 6 * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall(9 * tileSize, (rows - 7) * tileSize));
+        destructibleWalls.add(factory.createDestructibleWall((cols - 10) * tileSize, (rows - 7) * tileSize));
     }
     
     private void createGoldenSpawnArea(List<GoldenTile> goldenTiles) {
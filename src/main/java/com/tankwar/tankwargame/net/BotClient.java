@@ -0,0 +1,178 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.ai.BotBehavior;
+import com.tankwar.tankwargame.ai.Perception;
+import com.tankwar.tankwargame.ai.PlayerInput;
+import com.tankwar.tankwargame.entities.base.GameObject;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+
+/**
+ * A synthetic player connected to a game server over TCP.
+ * Decodes the snapshots it receives into a ReplicaWorld, lets a BotBehavior
+ * choose an input and sends it whenever it changes, just like a real client.
+ * Many bots share one selector thread; every method here runs on that thread.
+ * @author Iyed Acheche
+ */
+public class BotClient {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    
+    private final int botId;
+    private final List<? extends GameObject> staticWalls;
+    private final int decisionInterval;
+    private final LatencyHistogram latency;
+    private final BotBehavior behavior;
+    private final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocate(64);
+    private SocketChannel channel;
+    private ReplicaWorld world;
+    private int roomId = -1;
+    private int lastInput = PlayerInput.NONE;
+    private int framesSinceDecision = 0;
+    private long framesReceived = 0;
+    private long bytesReceived = 0;
+    private long matchesPlayed = 0;
+    
+    /**
+     * @param decisionInterval act on every n-th snapshot, a bot's reaction time
+     * @param latency receives the encode-to-receive time of every snapshot
+     */
+    public BotClient(int botId, List<? extends GameObject> staticWalls, int decisionInterval, LatencyHistogram latency) {
+        this.botId = botId;
+        this.staticWalls = staticWalls;
+        this.decisionInterval = Math.max(1, decisionInterval);
+        this.latency = latency;
+        this.behavior = new BotBehavior(botId);
+    }
+    
+    /**
+     * Opens a non-blocking connection and registers it with the selector.
+     * A bot may reconnect after its last connection ended; nothing read
+     * on the old one carries over.
+     */
+    public void connect(InetSocketAddress server, Selector selector) throws IOException {
+        in.clear();
+        world = null;
+        roomId = -1;
+        lastInput = PlayerInput.NONE;
+        framesSinceDecision = 0;
+        
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        if (channel.connect(server)) {
+            channel.register(selector, SelectionKey.OP_READ, this);
+            sendJoin();
+        } else {
+            channel.register(selector, SelectionKey.OP_CONNECT, this);
+        }
+    }
+    
+    /**
+     * Handles a ready key for this bot.
+     * @return false if the connection ended
+     */
+    public boolean onReady(SelectionKey key) {
+        try {
+            if (key.isConnectable()) {
+                if (!channel.finishConnect()) return true;
+                key.interestOps(SelectionKey.OP_READ);
+                sendJoin();
+            }
+            if (key.isReadable()) {
+                int read = channel.read(in);
+                if (read < 0) {
+                    close();
+                    return false;
+                }
+                bytesReceived += read;
+                in.flip();
+                if (!processMessages()) {
+                    close();
+                    return false;
+                }
+                in.compact();
+            }
+            return true;
+        } catch (IOException e) {
+            close();
+            return false;
+        }
+    }
+    
+    /**
+     * Dispatches every complete message in the read buffer.
+     * @return false if a length prefix or a snapshot is corrupt and the
+     *         stream cannot be followed
+     */
+    private boolean processMessages() throws IOException {
+        while (in.remaining() >= ServerProtocol.SERVER_HEADER_SIZE) {
+            int start = in.position();
+            byte type = in.get(start);
+            int length = in.getInt(start + 1);
+            if (length < 0 || length > in.capacity() - ServerProtocol.SERVER_HEADER_SIZE) return false;
+            if (in.remaining() < ServerProtocol.SERVER_HEADER_SIZE + length) break;
+            
+            int payload = start + ServerProtocol.SERVER_HEADER_SIZE;
+            if (type == ServerProtocol.WELCOME) {
+                roomId = in.getInt(payload);
+                world = new ReplicaWorld(staticWalls, in.get(payload + 4));
+                lastInput = PlayerInput.NONE;
+                matchesPlayed++;
+            } else if (type == ServerProtocol.SNAPSHOT) {
+                latency.record(System.nanoTime() - in.getLong(payload));
+                framesReceived++;
+                if (world != null && ++framesSinceDecision >= decisionInterval) {
+                    framesSinceDecision = 0;
+                    in.position(payload + ServerProtocol.SNAPSHOT_PREFIX_SIZE);
+                    if (!world.apply(in)) return false;
+                    act();
+                }
+            }
+            in.position(payload + length);
+        }
+        return true;
+    }
+    
+    private void act() throws IOException {
+        ReplicaWorld.Entity self = world.getSelf();
+        int input = self == null ? PlayerInput.NONE
+                : behavior.decide(self, self.getDirection(), world.getEnemies(), world.getObstacles(),
+                        Perception::blocksSight);
+        if (input != lastInput) {
+            lastInput = input;
+            send(ServerProtocol.INPUT, input);
+        }
+    }
+    
+    private void sendJoin() throws IOException {
+        send(ServerProtocol.JOIN, 0);
+    }
+    
+    private void send(byte type, int value) throws IOException {
+        out.clear();
+        out.put(type).put((byte) value);
+        out.flip();
+        // Client messages are tiny; a full socket buffer here means the server is gone
+        channel.write(out);
+    }
+    
+    public void close() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+    }
+    
+    public int getBotId() { return botId; }
+    public int getRoomId() { return roomId; }
+    public long getFramesReceived() { return framesReceived; }
+    public long getBytesReceived() { return bytesReceived; }
+    public long getMatchesPlayed() { return matchesPlayed; }
+}
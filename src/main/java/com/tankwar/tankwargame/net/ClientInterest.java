@@ -0,0 +1,95 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import java.util.*;
+
+/**
+ * Per-client area of interest.
+ * Tracks which entities the client currently sees and which entered or left
+ * its view during the last update, so the server only sends spawns, updates
+ * and despawns for that set.
+ * @author Iyed Acheche
+ */
+public class ClientInterest {
+    private final int clientId;
+    private Tank focus;
+    private final Map<GameObject, Integer> visible = new IdentityHashMap<>();
+    private final List<GameObject> entered = new ArrayList<>();
+    private final List<GameObject> exited = new ArrayList<>();
+    private double lastCenterX, lastCenterY;
+    
+    ClientInterest(int clientId, Tank focus) {
+        this.clientId = clientId;
+        this.focus = focus;
+    }
+    
+    /**
+     * Recomputes the visible set from the candidates near the camera.
+     * Entities join once inside the inner rectangle and only leave once they
+     * are outside the outer one, so nothing flickers at the edge.
+     */
+    void update(List<GameObject> candidates, int tick, double halfWidth, double halfHeight, double margin) {
+        entered.clear();
+        exited.clear();
+        
+        double cx = lastCenterX, cy = lastCenterY;
+        
+        for (GameObject obj : candidates) {
+            double ox = obj.getX() + obj.getWidth() / 2.0;
+            double oy = obj.getY() + obj.getHeight() / 2.0;
+            double dx = Math.abs(ox - cx);
+            double dy = Math.abs(oy - cy);
+            
+            if (visible.containsKey(obj)) {
+                if (dx <= halfWidth + margin && dy <= halfHeight + margin) {
+                    visible.put(obj, tick);
+                }
+            } else if (dx <= halfWidth && dy <= halfHeight) {
+                visible.put(obj, tick);
+                entered.add(obj);
+            }
+        }
+        
+        // Anything not refreshed this tick left the outer rectangle or despawned
+        Iterator<Map.Entry<GameObject, Integer>> it = visible.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<GameObject, Integer> entry = it.next();
+            if (entry.getValue() != tick) {
+                exited.add(entry.getKey());
+                it.remove();
+            }
+        }
+    }
+    
+    /**
+     * Empties the visible set, reporting everything in it as exited.
+     */
+    void clear() {
+        entered.clear();
+        exited.clear();
+        exited.addAll(visible.keySet());
+        visible.clear();
+    }
+    
+    /**
+     * Latches the camera center from the focus tank.
+     * Returns false if the client has no live tank to follow.
+     */
+    boolean refreshCenter() {
+        if (focus == null) return false;
+        lastCenterX = focus.getX() + focus.getWidth() / 2.0;
+        lastCenterY = focus.getY() + focus.getHeight() / 2.0;
+        return true;
+    }
+    
+    public boolean isVisible(GameObject obj) { return visible.containsKey(obj); }
+    public Set<GameObject> getVisible() { return Collections.unmodifiableSet(visible.keySet()); }
+    public List<GameObject> getEntered() { return Collections.unmodifiableList(entered); }
+    public List<GameObject> getExited() { return Collections.unmodifiableList(exited); }
+    public int getClientId() { return clientId; }
+    public Tank getFocus() { return focus; }
+    public void setFocus(Tank focus) { this.focus = focus; }
+    public double getCenterX() { return lastCenterX; }
+    public double getCenterY() { return lastCenterY; }
+}
@@ -0,0 +1,98 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.ai.PlayerBehavior;
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.List;
+
+/**
+ * Client-side prediction for the local player tank.
+ * Inputs are applied to the local tank immediately and kept in a ring buffer
+ * until the server acknowledges them. When an authoritative state arrives
+ * the tank is snapped to it and the still-pending inputs are replayed on top.
+ *
+ * The reconcile path works on primitive arrays only and does not allocate.
+ *
+ * @author Iyed Acheche
+ */
+public class ClientPredictor {
+    private final Tank tank;
+    private final int[] sequences;
+    private final int[] inputs;
+    private final int mask;
+    private int head = 0;       // Next slot to write
+    private int tail = 0;       // Oldest unacknowledged slot
+    private int nextSequence = 1;
+    private int lastAcknowledged = 0;
+    private int corrections = 0;
+    private double lastErrorX, lastErrorY;
+    
+    public ClientPredictor(Tank tank) {
+        this(tank, GameConstants.PREDICTION_BUFFER_SIZE);
+    }
+    
+    public ClientPredictor(Tank tank, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.tank = tank;
+        this.sequences = new int[capacity];
+        this.inputs = new int[capacity];
+        this.mask = capacity - 1;
+    }
+    
+    /**
+     * Records an input and applies its movement locally at once.
+     * @return the sequence number to send to the server with this input
+     */
+    public int predict(int input, List<GameObject> obstacles) {
+        if (head - tail == sequences.length) {
+            // Buffer full: the oldest input is dropped, the next correction will cover it
+            tail++;
+        }
+        int sequence = nextSequence++;
+        sequences[head & mask] = sequence;
+        inputs[head & mask] = input;
+        head++;
+        
+        PlayerBehavior.applyMovement(tank, input, obstacles);
+        return sequence;
+    }
+    
+    /**
+     * Applies an authoritative server state and replays unacknowledged inputs.
+     * @param acknowledged last input sequence the server has processed
+     */
+    public void reconcile(int acknowledged, double serverX, double serverY, Direction serverDirection,
+                          List<GameObject> obstacles) {
+        if (acknowledged < lastAcknowledged) return;  // Out-of-order snapshot
+        lastAcknowledged = acknowledged;
+        
+        while (tail != head && sequences[tail & mask] <= acknowledged) {
+            tail++;
+        }
+        
+        double predictedX = tank.getX();
+        double predictedY = tank.getY();
+        
+        tank.setPosition(serverX, serverY);
+        tank.setDirection(serverDirection);
+        for (int i = tail; i != head; i++) {
+            PlayerBehavior.applyMovement(tank, inputs[i & mask], obstacles);
+        }
+        
+        lastErrorX = tank.getX() - predictedX;
+        lastErrorY = tank.getY() - predictedY;
+        if (lastErrorX != 0 || lastErrorY != 0) {
+            corrections++;
+        }
+    }
+    
+    public int getPendingCount() { return head - tail; }
+    public int getLastAcknowledged() { return lastAcknowledged; }
+    public int getCorrectionCount() { return corrections; }
+    public double getLastErrorX() { return lastErrorX; }
+    public double getLastErrorY() { return lastErrorY; }
+}
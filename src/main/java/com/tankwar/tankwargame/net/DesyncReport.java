@@ -0,0 +1,32 @@
+package com.tankwar.tankwargame.net;
+
+import java.util.*;
+
+/**
+ * Describes the first tick at which two lockstep peers diverged.
+ * @author Iyed Acheche
+ */
+public class DesyncReport {
+    private final int tick;
+    private final int localPeer;
+    private final int remotePeer;
+    private final List<StateHasher.Subsystem> subsystems;
+    
+    public DesyncReport(int tick, int localPeer, int remotePeer, List<StateHasher.Subsystem> subsystems) {
+        this.tick = tick;
+        this.localPeer = localPeer;
+        this.remotePeer = remotePeer;
+        this.subsystems = Collections.unmodifiableList(new ArrayList<>(subsystems));
+    }
+    
+    public int getTick() { return tick; }
+    public int getLocalPeer() { return localPeer; }
+    public int getRemotePeer() { return remotePeer; }
+    public List<StateHasher.Subsystem> getSubsystems() { return subsystems; }
+    
+    @Override
+    public String toString() {
+        return "Desync at tick " + tick + " between peer " + localPeer + " and peer " + remotePeer
+                + " in " + subsystems;
+    }
+}
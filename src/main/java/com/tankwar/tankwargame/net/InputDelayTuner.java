@@ -0,0 +1,43 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.util.GameConstants;
+
+/**
+ * Recommends a lockstep input delay from measured round-trip times.
+ * Uses smoothed RTT and RTT variance (as in TCP retransmit timers) so one
+ * late packet does not swing the delay back and forth.
+ * @author Iyed Acheche
+ */
+public class InputDelayTuner {
+    private double smoothedRtt = -1;
+    private double rttVariance = 0;
+    private int samples = 0;
+    
+    public InputDelayTuner() {}
+    
+    public void addSample(double rttMillis) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = rttMillis;
+            rttVariance = rttMillis / 2;
+        } else {
+            rttVariance = 0.75 * rttVariance + 0.25 * Math.abs(smoothedRtt - rttMillis);
+            smoothedRtt = 0.875 * smoothedRtt + 0.125 * rttMillis;
+        }
+        samples++;
+    }
+    
+    /**
+     * Ticks of delay needed for a peer's input to arrive before it is due:
+     * one-way latency plus a jitter allowance, rounded up, plus one tick of slack.
+     */
+    public int getRecommendedDelay() {
+        if (samples == 0) return GameConstants.LOCKSTEP_INPUT_DELAY;
+        double oneWay = smoothedRtt / 2 + 2 * rttVariance;
+        int delay = (int) Math.ceil(oneWay / GameConstants.TICK_MILLIS) + 1;
+        return Math.max(1, Math.min(GameConstants.LOCKSTEP_MAX_INPUT_DELAY, delay));
+    }
+    
+    public double getSmoothedRtt() { return smoothedRtt; }
+    public double getRttVariance() { return rttVariance; }
+    public int getSampleCount() { return samples; }
+}
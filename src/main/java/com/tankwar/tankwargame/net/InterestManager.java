@@ -0,0 +1,87 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.util.GameConstants;
+import com.tankwar.tankwargame.util.SpatialGrid;
+import java.util.*;
+
+/**
+ * Server-side area-of-interest filtering.
+ * Every tick the replicated entities are bucketed into a spatial grid and each
+ * client queries only the cells around its camera rectangle. Per-client cost
+ * therefore depends on how crowded its surroundings are, not on world size.
+ *
+ * Design Patterns: Facade (over SpatialGrid and ClientInterest)
+ *
+ * @author Iyed Acheche
+ */
+public class InterestManager {
+    private final SpatialGrid<GameObject> grid;
+    private final double halfWidth, halfHeight, margin;
+    private final Map<Integer, ClientInterest> clients = new LinkedHashMap<>();
+    private final List<GameObject> candidates = new ArrayList<>();
+    private int tick = 0;
+    
+    public InterestManager(int worldWidth, int worldHeight) {
+        this(worldWidth, worldHeight, GameConstants.INTEREST_CELL_SIZE,
+             GameConstants.INTEREST_VIEW_WIDTH, GameConstants.INTEREST_VIEW_HEIGHT,
+             GameConstants.INTEREST_HYSTERESIS);
+    }
+    
+    public InterestManager(int worldWidth, int worldHeight, double cellSize,
+                           double viewWidth, double viewHeight, double hysteresis) {
+        this.grid = new SpatialGrid<>(worldWidth, worldHeight, cellSize);
+        this.halfWidth = viewWidth / 2.0;
+        this.halfHeight = viewHeight / 2.0;
+        this.margin = hysteresis;
+    }
+    
+    public ClientInterest addClient(int clientId, Tank focus) {
+        ClientInterest interest = new ClientInterest(clientId, focus);
+        clients.put(clientId, interest);
+        return interest;
+    }
+    
+    public void removeClient(int clientId) {
+        clients.remove(clientId);
+    }
+    
+    public ClientInterest getClient(int clientId) {
+        return clients.get(clientId);
+    }
+    
+    /**
+     * Rebuilds the index from this tick's replicated entities and refreshes
+     * every client's visible set.
+     */
+    public void update(List<? extends GameObject> entities) {
+        tick++;
+        grid.clear();
+        for (GameObject obj : entities) {
+            if (obj.isActive()) {
+                grid.insert(obj, obj.getX() + obj.getWidth() / 2.0, obj.getY() + obj.getHeight() / 2.0);
+            }
+        }
+        
+        // Entities are indexed by center, so pad the query by the largest half-extent
+        double pad = margin + GameConstants.EXPLOSION_SIZE_LARGE / 2.0;
+        
+        for (ClientInterest client : clients.values()) {
+            if (!client.refreshCenter()) {
+                // Nothing to center on, so the client sees nothing rather than a stale spot
+                client.clear();
+                continue;
+            }
+            candidates.clear();
+            grid.query(client.getCenterX() - halfWidth - pad, client.getCenterY() - halfHeight - pad,
+                       client.getCenterX() + halfWidth + pad, client.getCenterY() + halfHeight + pad,
+                       candidates);
+            client.update(candidates, tick, halfWidth, halfHeight, margin);
+        }
+    }
+    
+    public Collection<ClientInterest> getClients() {
+        return Collections.unmodifiableCollection(clients.values());
+    }
+}
@@ -0,0 +1,106 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+
+/**
+ * Snapshot history for one remote tank.
+ * Remote tanks are drawn slightly in the past and their positions are
+ * interpolated between the two snapshots around the render time, which hides
+ * network jitter. Samples live in primitive ring arrays.
+ * @author Iyed Acheche
+ */
+public class InterpolationBuffer {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    
+    private final long[] times;
+    private final double[] xs;
+    private final double[] ys;
+    private final byte[] directions;
+    private int count = 0;
+    private int newest = -1;
+    
+    private double sampleX, sampleY;
+    private Direction sampleDirection;
+    
+    public InterpolationBuffer() {
+        this(GameConstants.INTERPOLATION_BUFFER_SIZE);
+    }
+    
+    public InterpolationBuffer(int capacity) {
+        this.times = new long[capacity];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.directions = new byte[capacity];
+    }
+    
+    /**
+     * Adds a snapshot. Samples must arrive in time order; stale ones are ignored.
+     */
+    public void push(long timeMillis, double x, double y, Direction direction) {
+        if (count > 0 && timeMillis <= times[newest]) return;
+        newest = (newest + 1) % times.length;
+        times[newest] = timeMillis;
+        xs[newest] = x;
+        ys[newest] = y;
+        directions[newest] = (byte) direction.ordinal();
+        count = Math.min(count + 1, times.length);
+    }
+    
+    /**
+     * Computes the interpolated state at the given time.
+     * Before the oldest or after the newest sample the state is clamped.
+     * @return false if no snapshot has been received yet
+     */
+    public boolean sample(long renderTimeMillis) {
+        if (count == 0) return false;
+        
+        int oldest = (newest - count + 1 + times.length) % times.length;
+        if (renderTimeMillis <= times[oldest]) {
+            set(oldest, oldest, 0);
+            return true;
+        }
+        
+        // Walk back from the newest sample to find the pair around the render time
+        int later = newest;
+        for (int i = 1; i < count; i++) {
+            int earlier = (later - 1 + times.length) % times.length;
+            if (times[earlier] <= renderTimeMillis) {
+                long span = times[later] - times[earlier];
+                double t = span > 0 ? (double) (renderTimeMillis - times[earlier]) / span : 1.0;
+                set(earlier, later, Math.min(1.0, t));
+                return true;
+            }
+            later = earlier;
+        }
+        set(newest, newest, 0);
+        return true;
+    }
+    
+    /**
+     * Moves a remote tank to its interpolated position for the given frame time.
+     */
+    public void apply(Tank tank, long nowMillis) {
+        if (sample(nowMillis - GameConstants.INTERPOLATION_DELAY_MS)) {
+            tank.setPosition(sampleX, sampleY);
+            tank.setDirection(sampleDirection);
+        }
+    }
+    
+    private void set(int from, int to, double t) {
+        sampleX = xs[from] + (xs[to] - xs[from]) * t;
+        sampleY = ys[from] + (ys[to] - ys[from]) * t;
+        sampleDirection = DIRECTIONS[directions[t < 0.5 ? from : to]];
+    }
+    
+    public void clear() {
+        count = 0;
+        newest = -1;
+    }
+    
+    public double getSampleX() { return sampleX; }
+    public double getSampleY() { return sampleY; }
+    public Direction getSampleDirection() { return sampleDirection; }
+    public int size() { return count; }
+}
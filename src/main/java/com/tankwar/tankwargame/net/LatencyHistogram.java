@@ -0,0 +1,58 @@
+package com.tankwar.tankwargame.net;
+
+/**
+ * Fixed-bucket latency histogram with quarter-millisecond resolution up to
+ * one second. Recording is allocation-free; slower samples land in the last bucket.
+ * @author Iyed Acheche
+ */
+public class LatencyHistogram {
+    private static final long BUCKET_MICROS = 250;
+    private static final int BUCKETS = 4000;
+    
+    private final long[] counts = new long[BUCKETS + 1];
+    private long total = 0;
+    private long maxMicros = 0;
+    private long sumMicros = 0;
+    
+    public LatencyHistogram() {}
+    
+    public synchronized void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = (int) Math.min(BUCKETS, micros / BUCKET_MICROS);
+        counts[bucket]++;
+        total++;
+        sumMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+    
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket holding that percentile, in milliseconds
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i == BUCKETS ? maxMicros / 1000.0 : (i + 1) * BUCKET_MICROS / 1000.0;
+            }
+        }
+        return maxMicros / 1000.0;
+    }
+    
+    public synchronized double getMeanMillis() {
+        return total == 0 ? 0 : sumMicros / 1000.0 / total;
+    }
+    
+    public synchronized double getMaxMillis() { return maxMicros / 1000.0; }
+    public synchronized long getCount() { return total; }
+    
+    public synchronized void reset() {
+        java.util.Arrays.fill(counts, 0);
+        total = 0;
+        maxMicros = 0;
+        sumMicros = 0;
+    }
+}
@@ -0,0 +1,125 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.ai.PlayerInput;
+import com.tankwar.tankwargame.entities.tanks.EnemyTank;
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+
+/**
+ * Runs N lockstep peers in one JVM over a loopback transport.
+ * Each peer drives its tank with scripted pseudo-random input. At the end
+ * the harness reports stalls, bandwidth and whether all peers stayed in sync.
+ * Passing a desync tick perturbs one peer on purpose to show the detector
+ * finds the first diverging tick and subsystem.
+ *
+ * Usage: LockstepHarness [peers] [ticks] [latencySteps] [jitterSteps] [desyncTick]
+ *
+ * @author Iyed Acheche
+ */
+public class LockstepHarness {
+    
+    private LockstepHarness() {}
+    
+    public static void main(String[] args) {
+        int peerCount = args.length > 0 ? Integer.parseInt(args[0]) : GameConstants.MAX_PLAYERS;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 1800;
+        int latency = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int jitter = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int desyncTick = args.length > 4 ? Integer.parseInt(args[4]) : -1;
+        
+        System.exit(run(peerCount, ticks, latency, jitter, desyncTick, 42L) ? 0 : 1);
+    }
+    
+    /**
+     * Runs the harness and prints a report.
+     * @return true if the outcome matches the expectation: in sync when no
+     *         desync was injected, and detected at the right tick when one was
+     */
+    public static boolean run(int peerCount, int ticks, int latency, int jitter, int desyncTick, long seed) {
+        LoopbackTransport transport = new LoopbackTransport(peerCount, latency, jitter, seed);
+        List<LockstepPeer> peers = new ArrayList<>();
+        List<DeterministicRandom> scripts = new ArrayList<>();
+        int[] scriptedInputs = new int[peerCount];
+        boolean injected = false;
+        
+        for (int i = 0; i < peerCount; i++) {
+            LockstepPeer peer = new LockstepPeer(i, peerCount, seed, transport,
+                    () -> transport.getStep() * GameConstants.TICK_MILLIS);
+            peer.setAutoTune(true);
+            peers.add(peer);
+            scripts.add(new DeterministicRandom(seed * 31 + i));
+        }
+        
+        long start = System.nanoTime();
+        long maxSteps = (long) ticks * 20;
+        while (transport.getStep() < maxSteps && !allReached(peers, ticks)) {
+            for (int i = 0; i < peerCount; i++) {
+                LockstepPeer peer = peers.get(i);
+                if (peer.getTick() >= ticks) continue;
+                
+                if (transport.getStep() % 20 == 0) {
+                    scriptedInputs[i] = randomInput(scripts.get(i));
+                }
+                peer.submitLocalInput(scriptedInputs[i]);
+                
+                if (i == 1 && peer.getTick() == desyncTick && !injected) {
+                    injected = true;
+                    // Simulate a non-deterministic bug on one peer
+                    EnemyTank enemy = peer.getEngine().getEnemyTanks().get(0);
+                    enemy.setPosition(enemy.getX() + 1, enemy.getY());
+                }
+                peer.tryAdvance();
+            }
+            transport.step();
+        }
+        long elapsed = System.nanoTime() - start;
+        
+        // Let trailing hash messages arrive
+        for (int i = 0; i < latency + jitter + 1; i++) {
+            transport.step();
+            for (LockstepPeer peer : peers) {
+                peer.tryAdvance();
+            }
+        }
+        
+        System.out.println("=== Lockstep loopback report ===");
+        System.out.printf("peers=%d ticks=%d latency=%d jitter=%d steps=%d time=%.1fms%n",
+                peerCount, ticks, latency, jitter, transport.getStep(), elapsed / 1e6);
+        
+        DesyncReport first = null;
+        for (LockstepPeer peer : peers) {
+            System.out.printf("peer %d: tick=%d stalls=%d delay=%d rtt=%.1fms sent=%.1f B/tick%n",
+                    peer.getPeerId(), peer.getTick(), peer.getStalls(), peer.getInputDelay(),
+                    peer.getTuner().getSmoothedRtt(),
+                    (double) transport.getBytesSent(peer.getPeerId()) / Math.max(1, peer.getTick()));
+            DesyncReport report = peer.getDesync();
+            if (report != null && (first == null || report.getTick() < first.getTick())) {
+                first = report;
+            }
+        }
+        
+        if (first == null) {
+            System.out.println("Result: all peers in sync");
+            return desyncTick < 0;
+        }
+        System.out.println("Result: " + first);
+        return first.getTick() == desyncTick;
+    }
+    
+    private static boolean allReached(List<LockstepPeer> peers, int ticks) {
+        for (LockstepPeer peer : peers) {
+            if (peer.getTick() < ticks) return false;
+        }
+        return true;
+    }
+    
+    private static int randomInput(DeterministicRandom random) {
+        int[] moves = {PlayerInput.UP, PlayerInput.DOWN, PlayerInput.LEFT, PlayerInput.RIGHT, PlayerInput.NONE};
+        int input = moves[random.nextInt(moves.length)];
+        if (random.nextInt(3) == 0) {
+            input |= PlayerInput.FIRE;
+        }
+        return input;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tankwar.tankwargame.net;
+
+/**
+ * Message exchanged between lockstep peers.
+ * Inputs carry one tick's bitmask, hashes carry one tick's subsystem hashes,
+ * and pings measure round-trip time for input delay tuning.
+ * @author Iyed Acheche
+ */
+public final class LockstepMessage {
+    
+    public enum Type {
+        INPUT,
+        HASH,
+        PING,
+        PONG
+    }
+    
+    private final Type type;
+    private final int peer;
+    private final int tick;
+    private final int input;
+    private final long time;
+    private final long[] hashes;
+    
+    private LockstepMessage(Type type, int peer, int tick, int input, long time, long[] hashes) {
+        this.type = type;
+        this.peer = peer;
+        this.tick = tick;
+        this.input = input;
+        this.time = time;
+        this.hashes = hashes;
+    }
+    
+    public static LockstepMessage input(int peer, int tick, int input) {
+        return new LockstepMessage(Type.INPUT, peer, tick, input, 0, null);
+    }
+    
+    public static LockstepMessage hash(int peer, int tick, long[] hashes) {
+        return new LockstepMessage(Type.HASH, peer, tick, 0, 0, hashes.clone());
+    }
+    
+    public static LockstepMessage ping(int peer, long time) {
+        return new LockstepMessage(Type.PING, peer, 0, 0, time, null);
+    }
+    
+    public static LockstepMessage pong(int peer, int target, long time) {
+        return new LockstepMessage(Type.PONG, peer, target, 0, time, null);
+    }
+    
+    /**
+     * Size of the message on the wire: type, peer and tick header plus payload.
+     * Input masks fit in one byte.
+     */
+    public int getWireSize() {
+        switch (type) {
+            case INPUT: return 6 + 1;
+            case HASH: return 6 + hashes.length * 8;
+            default: return 6 + 8;
+        }
+    }
+    
+    public Type getType() { return type; }
+    public int getPeer() { return peer; }
+    public int getTick() { return tick; }
+    public int getInput() { return input; }
+    public long getTime() { return time; }
+    public long[] getHashes() { return hashes; }
+}
@@ -0,0 +1,223 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.ai.PlayerInput;
+import com.tankwar.tankwargame.core.GameEngine;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * One participant in a deterministic lockstep match.
+ * Peers exchange only per-tick input bitmasks and every peer runs the same
+ * seeded GameEngine, so bandwidth does not depend on the entity count.
+ * A tick is simulated only once every peer's input for it has arrived;
+ * local input is scheduled a few ticks ahead (the input delay) to hide latency.
+ *
+ * After each tick the peer broadcasts its subsystem hashes and compares them
+ * with the other peers' hashes to catch a desync on the tick it happens.
+ *
+ * @author Iyed Acheche
+ */
+public class LockstepPeer {
+    private static final int PING_INTERVAL = 30;
+    private static final int RETUNE_INTERVAL = 60;
+    
+    private final int peerId;
+    private final int peerCount;
+    private final GameEngine engine;
+    private final LockstepTransport transport;
+    private final LongSupplier clock;
+    private final InputDelayTuner tuner = new InputDelayTuner();
+    private final int mask;
+    
+    // Input window, indexed by tick & mask
+    private final int[][] inputs;
+    private final int[][] inputTicks;
+    private final int[] frameInputs;
+    
+    // Hash history, indexed by tick & mask
+    private final long[][] localHashes;
+    private final int[] localHashTicks;
+    private final long[][][] remoteHashes;
+    private final int[][] remoteHashTicks;
+    
+    private int tick = 0;
+    private int nextInputTick;
+    private int inputDelay;
+    private int lastInput = PlayerInput.NONE;
+    private int lastPingTick = -1;
+    private boolean autoTune = false;
+    private long stalls = 0;
+    private DesyncReport desync;
+    
+    public LockstepPeer(int peerId, int peerCount, long seed, LockstepTransport transport, LongSupplier clock) {
+        this(peerId, new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT,
+                GameConstants.TILE_SIZE, seed, peerCount), transport, clock);
+    }
+    
+    public LockstepPeer(int peerId, GameEngine engine, LockstepTransport transport, LongSupplier clock) {
+        int history = GameConstants.LOCKSTEP_HISTORY;
+        this.peerId = peerId;
+        this.peerCount = engine.getPlayerCount();
+        this.engine = engine;
+        this.transport = transport;
+        this.clock = clock;
+        this.mask = history - 1;
+        this.inputs = new int[history][peerCount];
+        this.inputTicks = new int[history][peerCount];
+        this.frameInputs = new int[peerCount];
+        this.localHashes = new long[history][StateHasher.SUBSYSTEM_COUNT];
+        this.localHashTicks = new int[history];
+        this.remoteHashes = new long[history][peerCount][];
+        this.remoteHashTicks = new int[history][peerCount];
+        
+        for (int[] row : inputTicks) Arrays.fill(row, -1);
+        for (int[] row : remoteHashTicks) Arrays.fill(row, -1);
+        Arrays.fill(localHashTicks, -1);
+        
+        this.inputDelay = GameConstants.LOCKSTEP_INPUT_DELAY;
+        // The first ticks fall inside the delay window; every peer treats them as idle
+        for (int t = 0; t < inputDelay; t++) {
+            for (int p = 0; p < peerCount; p++) {
+                storeInput(t, p, PlayerInput.NONE);
+            }
+        }
+        this.nextInputTick = inputDelay;
+    }
+    
+    /**
+     * Samples this frame's local input and sends it to the other peers.
+     * While the peer is stalled waiting for remote input, new samples are
+     * dropped rather than queued further ahead.
+     */
+    public void submitLocalInput(int input) {
+        if (nextInputTick > tick + inputDelay) return;
+        scheduleLocalInput(input);
+    }
+    
+    private void scheduleLocalInput(int input) {
+        int t = nextInputTick++;
+        storeInput(t, peerId, input);
+        transport.broadcast(peerId, LockstepMessage.input(peerId, t, input));
+        lastInput = input;
+    }
+    
+    /**
+     * Changes the input delay. When it grows, the gap is filled by repeating
+     * the last input; when it shrinks, local sampling pauses until the
+     * simulation catches up. Either way each tick gets exactly one input.
+     */
+    public void setInputDelay(int delay) {
+        delay = Math.max(1, Math.min(GameConstants.LOCKSTEP_MAX_INPUT_DELAY, delay));
+        while (nextInputTick < tick + delay) {
+            scheduleLocalInput(lastInput);
+        }
+        inputDelay = delay;
+    }
+    
+    /**
+     * Processes incoming messages and simulates the next tick if every
+     * peer's input for it is available.
+     * @return true if a tick was simulated
+     */
+    public boolean tryAdvance() {
+        receive();
+        
+        if (tick % PING_INTERVAL == 0 && tick != lastPingTick && peerCount > 1) {
+            lastPingTick = tick;
+            transport.broadcast(peerId, LockstepMessage.ping(peerId, clock.getAsLong()));
+        }
+        
+        int slot = tick & mask;
+        for (int p = 0; p < peerCount; p++) {
+            if (inputTicks[slot][p] != tick) {
+                stalls++;
+                return false;
+            }
+            frameInputs[p] = inputs[slot][p];
+        }
+        
+        engine.update(frameInputs);
+        
+        long[] hashes = localHashes[slot];
+        StateHasher.hash(engine, hashes);
+        localHashTicks[slot] = tick;
+        transport.broadcast(peerId, LockstepMessage.hash(peerId, tick, hashes));
+        for (int p = 0; p < peerCount; p++) {
+            if (p != peerId && remoteHashTicks[slot][p] == tick) {
+                compareHashes(tick, p, remoteHashes[slot][p]);
+            }
+        }
+        
+        tick++;
+        
+        if (autoTune && tick % RETUNE_INTERVAL == 0) {
+            int recommended = tuner.getRecommendedDelay();
+            if (recommended != inputDelay) {
+                setInputDelay(recommended);
+            }
+        }
+        return true;
+    }
+    
+    private void receive() {
+        LockstepMessage message;
+        while ((message = transport.poll(peerId)) != null) {
+            switch (message.getType()) {
+                case INPUT:
+                    storeInput(message.getTick(), message.getPeer(), message.getInput());
+                    break;
+                case HASH:
+                    receiveHash(message.getTick(), message.getPeer(), message.getHashes());
+                    break;
+                case PING:
+                    transport.send(peerId, message.getPeer(), LockstepMessage.pong(peerId, message.getPeer(), message.getTime()));
+                    break;
+                case PONG:
+                    tuner.addSample(clock.getAsLong() - message.getTime());
+                    break;
+            }
+        }
+    }
+    
+    private void storeInput(int t, int peer, int input) {
+        int slot = t & mask;
+        inputs[slot][peer] = input;
+        inputTicks[slot][peer] = t;
+    }
+    
+    private void receiveHash(int t, int peer, long[] hashes) {
+        int slot = t & mask;
+        if (localHashTicks[slot] == t) {
+            compareHashes(t, peer, hashes);
+        } else {
+            remoteHashes[slot][peer] = hashes;
+            remoteHashTicks[slot][peer] = t;
+        }
+    }
+    
+    private void compareHashes(int t, int peer, long[] remote) {
+        if (desync != null && desync.getTick() <= t) return;
+        
+        long[] local = localHashes[t & mask];
+        List<StateHasher.Subsystem> diverged = new ArrayList<>();
+        for (StateHasher.Subsystem subsystem : StateHasher.Subsystem.values()) {
+            if (local[subsystem.ordinal()] != remote[subsystem.ordinal()]) {
+                diverged.add(subsystem);
+            }
+        }
+        if (!diverged.isEmpty()) {
+            desync = new DesyncReport(t, peerId, peer, diverged);
+        }
+    }
+    
+    public int getPeerId() { return peerId; }
+    public int getTick() { return tick; }
+    public int getInputDelay() { return inputDelay; }
+    public long getStalls() { return stalls; }
+    public boolean isDesynced() { return desync != null; }
+    public DesyncReport getDesync() { return desync; }
+    public GameEngine getEngine() { return engine; }
+    public InputDelayTuner getTuner() { return tuner; }
+    public void setAutoTune(boolean autoTune) { this.autoTune = autoTune; }
+}
@@ -0,0 +1,22 @@
+package com.tankwar.tankwargame.net;
+
+/**
+ * Delivers lockstep messages between peers.
+ * @author Iyed Acheche
+ */
+public interface LockstepTransport {
+    /**
+     * Sends a message to every other peer.
+     */
+    void broadcast(int fromPeer, LockstepMessage message);
+    
+    /**
+     * Sends a message to one peer.
+     */
+    void send(int fromPeer, int toPeer, LockstepMessage message);
+    
+    /**
+     * Returns the next message delivered to the peer, or null if none is due.
+     */
+    LockstepMessage poll(int peer);
+}
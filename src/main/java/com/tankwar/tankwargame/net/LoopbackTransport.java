@@ -0,0 +1,86 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import java.util.*;
+
+/**
+ * In-memory transport connecting peers that run in one JVM.
+ * Messages are delayed by a configurable latency plus jitter, measured in
+ * harness steps, and delivered in send order per link like a TCP stream.
+ * @author Iyed Acheche
+ */
+public class LoopbackTransport implements LockstepTransport {
+    private final int peerCount;
+    private final int latencySteps;
+    private final int jitterSteps;
+    private final DeterministicRandom random;
+    private final List<Deque<Envelope>> inboxes = new ArrayList<>();
+    private final long[][] lastDelivery;
+    private final long[] bytesSent;
+    private long step = 0;
+    
+    public LoopbackTransport(int peerCount, int latencySteps, int jitterSteps, long seed) {
+        this.peerCount = peerCount;
+        this.latencySteps = latencySteps;
+        this.jitterSteps = jitterSteps;
+        this.random = new DeterministicRandom(seed);
+        this.lastDelivery = new long[peerCount][peerCount];
+        this.bytesSent = new long[peerCount];
+        for (int i = 0; i < peerCount; i++) {
+            inboxes.add(new ArrayDeque<>());
+        }
+    }
+    
+    @Override
+    public void broadcast(int fromPeer, LockstepMessage message) {
+        for (int to = 0; to < peerCount; to++) {
+            if (to != fromPeer) {
+                send(fromPeer, to, message);
+            }
+        }
+    }
+    
+    @Override
+    public void send(int fromPeer, int toPeer, LockstepMessage message) {
+        long due = step + latencySteps + (jitterSteps > 0 ? random.nextInt(jitterSteps + 1) : 0);
+        // Keep per-link ordering even when jitter would reorder
+        due = Math.max(due, lastDelivery[fromPeer][toPeer]);
+        lastDelivery[fromPeer][toPeer] = due;
+        inboxes.get(toPeer).addLast(new Envelope(due, message));
+        bytesSent[fromPeer] += message.getWireSize();
+    }
+    
+    @Override
+    public LockstepMessage poll(int peer) {
+        Deque<Envelope> inbox = inboxes.get(peer);
+        Iterator<Envelope> it = inbox.iterator();
+        while (it.hasNext()) {
+            Envelope envelope = it.next();
+            if (envelope.due <= step) {
+                it.remove();
+                return envelope.message;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Advances transport time by one harness step.
+     */
+    public void step() {
+        step++;
+    }
+    
+    public long getBytesSent(int peer) { return bytesSent[peer]; }
+    public long getStep() { return step; }
+    
+    private static final class Envelope {
+        final long due;
+        final LockstepMessage message;
+        
+        Envelope(long due, LockstepMessage message) {
+            this.due = due;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.entities.environment.DestructibleWall;
+import com.tankwar.tankwargame.entities.environment.GoldenTile;
+import com.tankwar.tankwargame.map.MapGenerator;
+import com.tankwar.tankwargame.util.CollisionLayers;
+import com.tankwar.tankwargame.util.Direction;
+import com.tankwar.tankwargame.util.GameConstants;
+import com.tankwar.tankwargame.util.Teams;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * A client's copy of the world, rebuilt from snapshot frames.
+ * Static walls come from the map generator and can be shared by many
+ * replicas; everything else is decoded into pooled entities, so applying
+ * a frame does not allocate once the pool has grown.
+ * @author Iyed Acheche
+ */
+public class ReplicaWorld {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    
+    /**
+     * One decoded entity. Only carries what the snapshot carries.
+     */
+    public static class Entity extends GameObject {
+        private byte type;
+        private Direction direction = Direction.UP;
+        private int slot;
+        private int health;
+        
+        Entity() {
+            super(0, 0, 0, 0);
+        }
+        
+        void set(byte type, int directionBits, int handle, double x, double y, int health) {
+            this.type = type;
+            this.handle = handle;
+            this.direction = DIRECTIONS[directionBits & 0x0F];
+            this.slot = (directionBits >> 4) & 0x0F;
+            this.x = x;
+            this.y = y;
+            this.health = health;
+            this.active = true;
+            int size = sizeOf(type);
+            this.width = size;
+            this.height = size;
+            this.layer = layerOf(type);
+            this.collisionMask = layer == CollisionLayers.TANK ? CollisionLayers.TANK_MASK : CollisionLayers.NONE;
+            this.team = type == SnapshotEncoder.TYPE_PLAYER_TANK ? Teams.player(slot)
+                    : type == SnapshotEncoder.TYPE_ENEMY_TANK ? Teams.ENEMIES : Teams.NEUTRAL;
+        }
+        
+        @Override
+        public void update() {
+            // Replicas only change when a snapshot is applied
+        }
+        
+        public byte getType() { return type; }
+        public Direction getDirection() { return direction; }
+        public int getSlot() { return slot; }
+        public int getHealth() { return health; }
+    }
+    
+    private final List<? extends GameObject> staticWalls;
+    private final int playerSlot;
+    private final List<Entity> pool = new ArrayList<>();
+    private final List<GameObject> obstacles = new ArrayList<>();
+    private final List<Entity> enemies = new ArrayList<>();
+    private Entity self;
+    private long tick = -1;
+    private int score;
+    
+    public ReplicaWorld(List<? extends GameObject> staticWalls, int playerSlot) {
+        this.staticWalls = staticWalls;
+        this.playerSlot = playerSlot;
+    }
+    
+    /**
+     * Builds the indestructible walls of the standard map.
+     */
+    public static List<GameObject> buildStaticWalls() {
+        List<GameObject> walls = new ArrayList<>();
+        new MapGenerator(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT, GameConstants.TILE_SIZE)
+                .generateMap(walls, new ArrayList<DestructibleWall>(), new ArrayList<GoldenTile>());
+        return walls;
+    }
+    
+    /**
+     * Replaces the replicated state with the contents of a frame.
+     * Reads from the buffer's position without consuming it.
+     * @return false if the frame is corrupt: its entities run past the end
+     *         of the buffer or one has a direction that does not exist. The
+     *         replicated state is then undefined.
+     */
+    public boolean apply(ByteBuffer frame) {
+        int base = frame.position();
+        if (frame.remaining() < SnapshotEncoder.HEADER_SIZE) return false;
+        int count = SnapshotEncoder.readEntityCount(frame);
+        if (count < 0 || SnapshotEncoder.HEADER_SIZE + count * SnapshotEncoder.ENTITY_SIZE > frame.remaining()) {
+            return false;
+        }
+        tick = frame.getLong(base);
+        score = frame.getInt(base + 8);
+        
+        obstacles.clear();
+        obstacles.addAll(staticWalls);
+        enemies.clear();
+        self = null;
+        
+        int offset = base + SnapshotEncoder.HEADER_SIZE;
+        for (int i = 0; i < count; i++, offset += SnapshotEncoder.ENTITY_SIZE) {
+            int directionBits = frame.get(offset + 1) & 0xFF;
+            if ((directionBits & 0x0F) >= DIRECTIONS.length) return false;
+            Entity entity = obtain(i);
+            entity.set(frame.get(offset), directionBits, frame.getInt(offset + 2),
+                    frame.getFloat(offset + 6), frame.getFloat(offset + 10), frame.getShort(offset + 14));
+            
+            switch (entity.getType()) {
+                case SnapshotEncoder.TYPE_PLAYER_TANK:
+                    if (entity.getSlot() == playerSlot) self = entity;
+                    obstacles.add(entity);
+                    break;
+                case SnapshotEncoder.TYPE_ENEMY_TANK:
+                    enemies.add(entity);
+                    obstacles.add(entity);
+                    break;
+                case SnapshotEncoder.TYPE_DESTRUCTIBLE_WALL:
+                case SnapshotEncoder.TYPE_GOLDEN_APPLE:
+                    obstacles.add(entity);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+    
+    private Entity obtain(int index) {
+        while (pool.size() <= index) {
+            pool.add(new Entity());
+        }
+        return pool.get(index);
+    }
+    
+    private static int sizeOf(byte type) {
+        switch (type) {
+            case SnapshotEncoder.TYPE_PLAYER_TANK:
+            case SnapshotEncoder.TYPE_ENEMY_TANK:
+                return GameConstants.TANK_SIZE;
+            case SnapshotEncoder.TYPE_MISSILE:
+                return GameConstants.MISSILE_SIZE;
+            case SnapshotEncoder.TYPE_MEDPACK:
+                return GameConstants.MEDPACK_SIZE;
+            case SnapshotEncoder.TYPE_GOLDEN_APPLE:
+                return GameConstants.GOLDEN_APPLE_SIZE;
+            default:
+                return GameConstants.TILE_SIZE;
+        }
+    }
+    
+    /**
+     * Puts replicas on the same layers as the entities they mirror, so the
+     * shared perception code filters them the same way.
+     */
+    private static int layerOf(byte type) {
+        switch (type) {
+            case SnapshotEncoder.TYPE_PLAYER_TANK:
+            case SnapshotEncoder.TYPE_ENEMY_TANK:
+                return CollisionLayers.TANK;
+            case SnapshotEncoder.TYPE_MISSILE:
+                return CollisionLayers.MISSILE;
+            case SnapshotEncoder.TYPE_MEDPACK:
+                return CollisionLayers.PICKUP;
+            case SnapshotEncoder.TYPE_DESTRUCTIBLE_WALL:
+                return CollisionLayers.DESTRUCTIBLE_WALL;
+            case SnapshotEncoder.TYPE_GOLDEN_APPLE:
+                return CollisionLayers.OBJECTIVE;
+            default:
+                return CollisionLayers.NONE;
+        }
+    }
+    
+    /**
+     * The local player's tank, or null if it is dead or not yet seen.
+     */
+    public Entity getSelf() { return self; }
+    public List<Entity> getEnemies() { return enemies; }
+    public List<GameObject> getObstacles() { return obstacles; }
+    public long getTick() { return tick; }
+    public int getScore() { return score; }
+}
@@ -0,0 +1,25 @@
+package com.tankwar.tankwargame.net;
+
+/**
+ * Wire format between a game server and its clients.
+ *
+ * Client to server, two bytes per message: type, value.
+ * Server to client: type (byte), payload length (int), payload.
+ *
+ * @author Iyed Acheche
+ */
+public final class ServerProtocol {
+    // Client to server
+    public static final byte JOIN = 1;          // value unused
+    public static final byte INPUT = 2;         // value is a PlayerInput bitmask
+    public static final int CLIENT_MESSAGE_SIZE = 2;
+    
+    // Server to client
+    public static final byte WELCOME = 3;       // payload: room id (int), player slot (byte)
+    public static final byte SNAPSHOT = 4;      // payload: encode time (long nanos), snapshot frame
+    public static final int SERVER_HEADER_SIZE = 1 + 4;
+    public static final int WELCOME_SIZE = 4 + 1;
+    public static final int SNAPSHOT_PREFIX_SIZE = 8;
+    
+    private ServerProtocol() {}
+}
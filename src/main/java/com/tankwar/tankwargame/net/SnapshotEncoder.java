@@ -0,0 +1,156 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.core.GameEngine;
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.entities.effects.Explosion;
+import com.tankwar.tankwargame.entities.environment.DestructibleWall;
+import com.tankwar.tankwargame.entities.environment.GoldenApple;
+import com.tankwar.tankwargame.entities.pickups.MedPack;
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Encodes world snapshots into a compact binary format.
+ *
+ * Layout: tick (long), score (int), flags (byte), entity count (short), then
+ * per entity: type (byte), direction (byte), handle (int), x (float), y (float),
+ * health (short). For player tanks the high nibble of the direction byte holds
+ * the player slot. The handle identifies the entity across snapshots; it is
+ * EntityHandle.NONE for effects that nothing refers to.
+ *
+ * Entities are written into a reusable scratch buffer and copied once into
+ * an exactly sized frame, so each snapshot costs one allocation no matter
+ * how many receivers it goes to.
+ *
+ * @author Iyed Acheche
+ */
+public class SnapshotEncoder {
+    public static final int HEADER_SIZE = 8 + 4 + 1 + 2;
+    public static final int ENTITY_SIZE = 1 + 1 + 4 + 4 + 4 + 2;
+    public static final byte FLAG_KEYFRAME = 1;
+    
+    public static final byte TYPE_PLAYER_TANK = 1;
+    public static final byte TYPE_ENEMY_TANK = 2;
+    public static final byte TYPE_MISSILE = 3;
+    public static final byte TYPE_EXPLOSION = 4;
+    public static final byte TYPE_MEDPACK = 5;
+    public static final byte TYPE_DESTRUCTIBLE_WALL = 6;
+    public static final byte TYPE_GOLDEN_APPLE = 7;
+    
+    private final List<GameObject> scratchEntities = new ArrayList<>();
+    private List<? extends Tank> playerSlots = Collections.emptyList();
+    private ByteBuffer scratch = ByteBuffer.allocate(HEADER_SIZE + 256 * ENTITY_SIZE);
+    
+    public SnapshotEncoder() {}
+    
+    /**
+     * Encodes every replicated entity of the engine.
+     */
+    public SnapshotFrame encode(GameEngine engine, boolean keyframe) {
+        scratchEntities.clear();
+        engine.collectReplicatedObjects(scratchEntities);
+        return encode(engine, keyframe, scratchEntities);
+    }
+    
+    /**
+     * Encodes some of the engine's entities, for example one player's area
+     * of interest, with the engine's tick, score and player slots.
+     */
+    public SnapshotFrame encode(GameEngine engine, boolean keyframe, Collection<? extends GameObject> entities) {
+        playerSlots = engine.getPlayerTanks();
+        try {
+            return encode(engine.getContext().getTick(), engine.getScore(), keyframe, entities);
+        } finally {
+            playerSlots = Collections.emptyList();
+        }
+    }
+    
+    /**
+     * Encodes an explicit entity set, for example one client's area of interest.
+     */
+    public SnapshotFrame encode(long tick, int score, boolean keyframe, Collection<? extends GameObject> entities) {
+        int count = Math.min(entities.size(), Short.MAX_VALUE);
+        ensureCapacity(HEADER_SIZE + count * ENTITY_SIZE);
+        
+        scratch.clear();
+        scratch.putLong(tick);
+        scratch.putInt(score);
+        scratch.put(keyframe ? FLAG_KEYFRAME : 0);
+        scratch.putShort((short) count);
+        
+        int written = 0;
+        for (GameObject obj : entities) {
+            if (written++ == count) break;
+            writeEntity(obj);
+        }
+        scratch.flip();
+        
+        ByteBuffer frame = ByteBuffer.allocate(scratch.remaining());
+        frame.put(scratch);
+        frame.flip();
+        return new SnapshotFrame(tick, keyframe, System.nanoTime(), frame);
+    }
+    
+    private void writeEntity(GameObject obj) {
+        byte type = 0;
+        int direction = 0;
+        int health = 0;
+        
+        if (obj instanceof Tank) {
+            Tank tank = (Tank) obj;
+            type = tank.isPlayer() ? TYPE_PLAYER_TANK : TYPE_ENEMY_TANK;
+            direction = tank.getDirection().ordinal();
+            if (tank.isPlayer()) {
+                direction |= Math.max(0, playerSlots.indexOf(tank)) << 4;
+            }
+            health = tank.getHealth();
+        } else if (obj instanceof Missile) {
+            type = TYPE_MISSILE;
+        } else if (obj instanceof Explosion) {
+            type = TYPE_EXPLOSION;
+        } else if (obj instanceof MedPack) {
+            type = TYPE_MEDPACK;
+        } else if (obj instanceof DestructibleWall) {
+            type = TYPE_DESTRUCTIBLE_WALL;
+            health = ((DestructibleWall) obj).getHealth();
+        } else if (obj instanceof GoldenApple) {
+            type = TYPE_GOLDEN_APPLE;
+        }
+        
+        scratch.put(type);
+        scratch.put((byte) direction);
+        scratch.putInt(obj.getHandle());
+        scratch.putFloat((float) obj.getX());
+        scratch.putFloat((float) obj.getY());
+        scratch.putShort((short) health);
+    }
+    
+    private void ensureCapacity(int bytes) {
+        if (scratch.capacity() < bytes) {
+            scratch = ByteBuffer.allocate(Math.max(bytes, scratch.capacity() * 2));
+        }
+    }
+    
+    /**
+     * Reads the tick from an encoded frame without consuming the buffer.
+     */
+    public static long readTick(ByteBuffer frame) {
+        return frame.getLong(frame.position());
+    }
+    
+    /**
+     * Reads the score from an encoded frame without consuming the buffer.
+     */
+    public static int readScore(ByteBuffer frame) {
+        return frame.getInt(frame.position() + 8);
+    }
+    
+    /**
+     * Reads the entity count from an encoded frame without consuming the buffer.
+     */
+    public static int readEntityCount(ByteBuffer frame) {
+        return frame.getShort(frame.position() + 13);
+    }
+}
@@ -0,0 +1,35 @@
+package com.tankwar.tankwargame.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One encoded world snapshot.
+ * The buffer is read-only and shared by every receiver; each receiver gets
+ * its own view with {@link #view()}, so fan-out never copies the bytes.
+ * @author Iyed Acheche
+ */
+public final class SnapshotFrame {
+    private final long tick;
+    private final boolean keyframe;
+    private final long encodedAtNanos;
+    private final ByteBuffer data;
+    
+    SnapshotFrame(long tick, boolean keyframe, long encodedAtNanos, ByteBuffer data) {
+        this.tick = tick;
+        this.keyframe = keyframe;
+        this.encodedAtNanos = encodedAtNanos;
+        this.data = data.asReadOnlyBuffer();
+    }
+    
+    /**
+     * Returns an independent read-only view over the shared bytes.
+     */
+    public ByteBuffer view() {
+        return data.duplicate();
+    }
+    
+    public long getTick() { return tick; }
+    public boolean isKeyframe() { return keyframe; }
+    public long getEncodedAtNanos() { return encodedAtNanos; }
+    public int size() { return data.remaining(); }
+}
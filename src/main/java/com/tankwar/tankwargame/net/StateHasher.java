@@ -0,0 +1,114 @@
+package com.tankwar.tankwargame.net;
+
+import com.tankwar.tankwargame.core.GameEngine;
+import com.tankwar.tankwargame.entities.environment.DestructibleWall;
+import com.tankwar.tankwargame.entities.environment.GoldenApple;
+import com.tankwar.tankwargame.entities.pickups.MedPack;
+import com.tankwar.tankwargame.entities.projectiles.Missile;
+import com.tankwar.tankwargame.entities.tanks.Tank;
+
+/**
+ * Computes per-subsystem hashes of the simulation state.
+ * Peers compare these every tick; hashing subsystems separately tells us
+ * where a divergence started, not just that one happened.
+ * @author Iyed Acheche
+ */
+public final class StateHasher {
+    
+    public enum Subsystem {
+        TANKS,
+        MISSILES,
+        WALLS,
+        PICKUPS,
+        RANDOM
+    }
+    
+    public static final int SUBSYSTEM_COUNT = Subsystem.values().length;
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private StateHasher() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+    
+    /**
+     * Folds all subsystem hashes into one value, for comparing whole states.
+     */
+    public static long hash(GameEngine engine) {
+        long[] parts = new long[SUBSYSTEM_COUNT];
+        hash(engine, parts);
+        long h = FNV_OFFSET;
+        for (long part : parts) {
+            h = mix(h, part);
+        }
+        return h;
+    }
+    
+    /**
+     * Writes one hash per {@link Subsystem} into {@code out}.
+     */
+    public static void hash(GameEngine engine, long[] out) {
+        long h = FNV_OFFSET;
+        for (Tank tank : engine.getPlayerTanks()) {
+            h = mixTank(h, tank);
+        }
+        for (Tank tank : engine.getEnemyTanks()) {
+            h = mixTank(h, tank);
+        }
+        out[Subsystem.TANKS.ordinal()] = h;
+        
+        h = FNV_OFFSET;
+        for (Missile missile : engine.getMissiles()) {
+            h = mix(h, missile.getX());
+            h = mix(h, missile.getY());
+            h = mix(h, missile.isActive() ? 1 : 0);
+        }
+        out[Subsystem.MISSILES.ordinal()] = h;
+        
+        h = FNV_OFFSET;
+        for (DestructibleWall wall : engine.getDestructibleWalls()) {
+            h = mix(h, wall.getHealth());
+            h = mix(h, wall.isActive() ? 1 : 0);
+        }
+        out[Subsystem.WALLS.ordinal()] = h;
+        
+        h = FNV_OFFSET;
+        for (MedPack medPack : engine.getMedPacks()) {
+            h = mix(h, medPack.getX());
+            h = mix(h, medPack.getY());
+            h = mix(h, medPack.isActive() ? 1 : 0);
+        }
+        GoldenApple apple = engine.getGoldenApple();
+        if (apple != null) {
+            h = mix(h, apple.isActive() ? 1 : 0);
+            h = mix(h, apple.isUnderThreat() ? 1 : 0);
+        }
+        out[Subsystem.PICKUPS.ordinal()] = h;
+        
+        h = FNV_OFFSET;
+        h = mix(h, engine.getContext().getTick());
+        h = mix(h, engine.getContext().getRandom().getState());
+        out[Subsystem.RANDOM.ordinal()] = h;
+    }
+    
+    private static long mixTank(long h, Tank tank) {
+        h = mix(h, tank.getX());
+        h = mix(h, tank.getY());
+        h = mix(h, tank.getDirection().ordinal());
+        h = mix(h, tank.getHealth());
+        return mix(h, tank.isActive() ? 1 : 0);
+    }
+    
+    private static long mix(long h, double value) {
+        return mix(h, Double.doubleToLongBits(value));
+    }
+    
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (value >>> (i * 8)) & 0xFF;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,88 @@
+package com.tankwar.tankwargame.render;
+
+import com.tankwar.tankwargame.assets.AtlasRegion;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import java.util.Arrays;
+
+/**
+ * Draws commands through a JavaFX GraphicsContext. Fill, stroke and line
+ * width are only set when they differ from the command before, which the
+ * sorted command order keeps rare.
+ *
+ * @author Iyed Acheche
+ */
+public final class CanvasTarget implements DrawTarget {
+    private final GraphicsContext gc;
+    private boolean fillSet, strokeSet;
+    private int fill, stroke;
+    private double lineWidth;
+    private int stateChanges = 0;
+    
+    // Colours already built, so none is allocated per frame
+    private int[] paletteKeys = new int[0];
+    private Color[] paletteColors = new Color[0];
+    
+    public CanvasTarget(GraphicsContext gc) {
+        this.gc = gc;
+    }
+    
+    @Override
+    public void begin() {
+        // Other code may have changed the context since the last frame
+        fillSet = false;
+        strokeSet = false;
+        stateChanges = 0;
+    }
+    
+    @Override
+    public void fillRect(int argb, double x, double y, double width, double height) {
+        if (!fillSet || fill != argb) {
+            fill = argb;
+            fillSet = true;
+            gc.setFill(color(argb));
+            stateChanges++;
+        }
+        gc.fillRect(x, y, width, height);
+    }
+    
+    @Override
+    public void strokeRect(int argb, double lineWidth, double x, double y, double width, double height) {
+        if (!strokeSet || stroke != argb) {
+            stroke = argb;
+            gc.setStroke(color(argb));
+            stateChanges++;
+        }
+        if (!strokeSet || this.lineWidth != lineWidth) {
+            this.lineWidth = lineWidth;
+            gc.setLineWidth(lineWidth);
+            stateChanges++;
+        }
+        strokeSet = true;
+        gc.strokeRect(x, y, width, height);
+    }
+    
+    @Override
+    public void drawImage(AtlasRegion region, double x, double y, double width, double height) {
+        region.draw(gc, x, y, width, height);
+    }
+    
+    private Color color(int argb) {
+        for (int i = 0; i < paletteKeys.length; i++) {
+            if (paletteKeys[i] == argb) return paletteColors[i];
+        }
+        Color color = Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
+        paletteKeys = Arrays.copyOf(paletteKeys, paletteKeys.length + 1);
+        paletteColors = Arrays.copyOf(paletteColors, paletteColors.length + 1);
+        paletteKeys[paletteKeys.length - 1] = argb;
+        paletteColors[paletteColors.length - 1] = color;
+        return color;
+    }
+    
+    public GraphicsContext getGraphicsContext() { return gc; }
+    
+    /**
+     * Fill, stroke and line width changes made since the last begin.
+     */
+    public int getStateChanges() { return stateChanges; }
+}
@@ -0,0 +1,21 @@
+package com.tankwar.tankwargame.render;
+
+import com.tankwar.tankwargame.assets.AtlasRegion;
+
+/**
+ * Something a frame of draw commands can be submitted to. Colours are
+ * ARGB ints, as recorded in the command buffer.
+ *
+ * Design Patterns: Strategy
+ *
+ * @author Iyed Acheche
+ */
+public interface DrawTarget {
+    /**
+     * Called before the first command of a frame.
+     */
+    void begin();
+    void fillRect(int argb, double x, double y, double width, double height);
+    void strokeRect(int argb, double lineWidth, double x, double y, double width, double height);
+    void drawImage(AtlasRegion region, double x, double y, double width, double height);
+}
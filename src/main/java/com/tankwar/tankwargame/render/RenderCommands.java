@@ -0,0 +1,251 @@
+package com.tankwar.tankwargame.render;
+
+import com.tankwar.tankwargame.assets.AtlasRegion;
+import com.tankwar.tankwargame.util.EntityHandle;
+import javafx.scene.paint.Color;
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of draw commands for one frame.
+ * Entities record commands here instead of drawing directly.
+ * A command is an opcode, a layer, a state key (the fill or stroke colour,
+ * or the atlas region) and a box, kept in parallel primitive arrays that
+ * grow once and are then reused. Before submitting, the commands are
+ * sorted by layer, then opcode, then state, so a DrawTarget such as the
+ * canvas sets a colour once per run of shapes sharing it instead of once
+ * per shape.
+ *
+ * Moving entities record an anchor: where they are this tick and, matched
+ * by entity handle in the previous buffer, where they were the tick
+ * before. Every command tied to an anchor moves with it when the frame is
+ * drawn between the two ticks.
+ *
+ * Recorded commands can be read back, so what a frame draws can be
+ * checked without drawing it.
+ *
+ * @author Iyed Acheche
+ */
+public final class RenderCommands {
+    public static final byte IMAGE = 0;
+    public static final byte FILL_RECT = 1;
+    public static final byte STROKE_RECT = 2;
+    public static final int NO_ANCHOR = -1;
+    
+    // Sort key: layer (8 bits), opcode (3), state (32), command index (20)
+    private static final int INDEX_BITS = 20;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    public static final int MAX_COMMANDS = 1 << INDEX_BITS;
+    
+    private int count = 0;
+    private byte[] ops = new byte[0];
+    private byte[] layers = new byte[0];
+    private int[] states = new int[0];
+    private int[] anchors = new int[0];
+    private double[] xs = new double[0], ys = new double[0];
+    private double[] widths = new double[0], heights = new double[0];
+    private double[] lineWidths = new double[0];
+    private AtlasRegion[] regions = new AtlasRegion[0];
+    private long[] sortKeys = new long[0];
+    private boolean sorted = false;
+    
+    private int anchorCount = 0;
+    private int[] anchorHandles = new int[0];
+    private double[] anchorXs = new double[0], anchorYs = new double[0];
+    private double[] anchorPreviousXs = new double[0], anchorPreviousYs = new double[0];
+    // Anchor of each handle's slot index, looked up by the buffer recorded after this one
+    private int[] anchorOfSlot = new int[0];
+    private RenderCommands previous;  // Only set while recording
+    
+    public RenderCommands() {}
+    
+    /**
+     * Empties the buffer to record a new frame. Anchors are matched against
+     * the given buffer, if any, for interpolation.
+     */
+    public void clear(RenderCommands previous) {
+        count = 0;
+        anchorCount = 0;
+        sorted = false;
+        this.previous = previous != this ? previous : null;
+    }
+    
+    /**
+     * Records where an entity is this tick and returns the anchor its
+     * commands pass in, or NO_ANCHOR for unregistered objects.
+     */
+    public int anchor(int handle, double x, double y) {
+        if (handle == EntityHandle.NONE) return NO_ANCHOR;
+        if (anchorCount == anchorHandles.length) {
+            growAnchors(Math.max(64, anchorCount * 2));
+        }
+        int anchor = anchorCount++;
+        anchorHandles[anchor] = handle;
+        anchorXs[anchor] = x;
+        anchorYs[anchor] = y;
+        
+        int before = previous != null ? previous.anchorOf(handle) : NO_ANCHOR;
+        anchorPreviousXs[anchor] = before != NO_ANCHOR ? previous.anchorXs[before] : x;
+        anchorPreviousYs[anchor] = before != NO_ANCHOR ? previous.anchorYs[before] : y;
+        
+        int slot = EntityHandle.index(handle);
+        if (slot >= anchorOfSlot.length) {
+            anchorOfSlot = Arrays.copyOf(anchorOfSlot, Math.max(slot + 1, anchorOfSlot.length * 2));
+        }
+        anchorOfSlot[slot] = anchor;
+        return anchor;
+    }
+    
+    /**
+     * The anchor recorded for the given handle, or NO_ANCHOR. Slot entries
+     * left over from earlier frames are told apart by the handle itself.
+     */
+    private int anchorOf(int handle) {
+        int slot = EntityHandle.index(handle);
+        if (slot >= anchorOfSlot.length) return NO_ANCHOR;
+        int anchor = anchorOfSlot[slot];
+        return anchor < anchorCount && anchorHandles[anchor] == handle ? anchor : NO_ANCHOR;
+    }
+    
+    public void image(int layer, int anchor, AtlasRegion region, double x, double y, double width, double height) {
+        if (region == null) return;
+        int command = add(IMAGE, layer, region.getId(), anchor, x, y, width, height);
+        regions[command] = region;
+    }
+    
+    public void fillRect(int layer, int anchor, int argb, double x, double y, double width, double height) {
+        add(FILL_RECT, layer, argb, anchor, x, y, width, height);
+    }
+    
+    public void strokeRect(int layer, int anchor, int argb, double lineWidth,
+                           double x, double y, double width, double height) {
+        int command = add(STROKE_RECT, layer, argb, anchor, x, y, width, height);
+        lineWidths[command] = lineWidth;
+    }
+    
+    private int add(byte op, int layer, int state, int anchor, double x, double y, double width, double height) {
+        if (count == ops.length) {
+            if (count == MAX_COMMANDS) {
+                throw new IllegalStateException("Too many draw commands in one frame");
+            }
+            grow(Math.min(MAX_COMMANDS, Math.max(256, count * 2)));
+        }
+        int command = count++;
+        ops[command] = op;
+        layers[command] = (byte) layer;
+        states[command] = state;
+        anchors[command] = anchor;
+        xs[command] = x;
+        ys[command] = y;
+        widths[command] = width;
+        heights[command] = height;
+        regions[command] = null;
+        sorted = false;
+        return command;
+    }
+    
+    /**
+     * Ends recording: sorts the commands into submission order.
+     */
+    public void finish() {
+        previous = null;
+        sort();
+    }
+    
+    private void sort() {
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = (long) layers[i] << 55
+                    | (long) ops[i] << 52
+                    | (states[i] & 0xFFFFFFFFL) << INDEX_BITS
+                    | i;
+        }
+        // The index in the low bits keeps recording order among equal states
+        Arrays.sort(sortKeys, 0, count);
+        sorted = true;
+    }
+    
+    /**
+     * Sends every command to the target in sorted order, tied ones placed
+     * the given fraction of the way from their anchor's previous position
+     * to its current one.
+     */
+    public void submit(DrawTarget target, double alpha) {
+        if (!sorted) sort();
+        target.begin();
+        for (int position = 0; position < count; position++) {
+            int i = (int) (sortKeys[position] & INDEX_MASK);
+            double x = xs[i], y = ys[i];
+            int anchor = anchors[i];
+            if (anchor != NO_ANCHOR) {
+                x += (anchorPreviousXs[anchor] - anchorXs[anchor]) * (1 - alpha);
+                y += (anchorPreviousYs[anchor] - anchorYs[anchor]) * (1 - alpha);
+            }
+            switch (ops[i]) {
+                case IMAGE:
+                    target.drawImage(regions[i], x, y, widths[i], heights[i]);
+                    break;
+                case FILL_RECT:
+                    target.fillRect(states[i], x, y, widths[i], heights[i]);
+                    break;
+                case STROKE_RECT:
+                    target.strokeRect(states[i], lineWidths[i], x, y, widths[i], heights[i]);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Packs a colour into the ARGB int commands carry. Meant for constants.
+     */
+    public static int argb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+    
+    private void grow(int capacity) {
+        ops = Arrays.copyOf(ops, capacity);
+        layers = Arrays.copyOf(layers, capacity);
+        states = Arrays.copyOf(states, capacity);
+        anchors = Arrays.copyOf(anchors, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        widths = Arrays.copyOf(widths, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        lineWidths = Arrays.copyOf(lineWidths, capacity);
+        regions = Arrays.copyOf(regions, capacity);
+        sortKeys = Arrays.copyOf(sortKeys, capacity);
+    }
+    
+    private void growAnchors(int capacity) {
+        anchorHandles = Arrays.copyOf(anchorHandles, capacity);
+        anchorXs = Arrays.copyOf(anchorXs, capacity);
+        anchorYs = Arrays.copyOf(anchorYs, capacity);
+        anchorPreviousXs = Arrays.copyOf(anchorPreviousXs, capacity);
+        anchorPreviousYs = Arrays.copyOf(anchorPreviousYs, capacity);
+    }
+    
+    public int getCount() { return count; }
+    
+    /**
+     * The command drawn at the given position, once sorted.
+     */
+    public int commandAt(int position) {
+        if (!sorted) sort();
+        return (int) (sortKeys[position] & INDEX_MASK);
+    }
+    
+    public byte getOp(int command) { return ops[command]; }
+    public int getLayer(int command) { return layers[command]; }
+    public int getState(int command) { return states[command]; }
+    public int getAnchor(int command) { return anchors[command]; }
+    public double getX(int command) { return xs[command]; }
+    public double getY(int command) { return ys[command]; }
+    public double getWidth(int command) { return widths[command]; }
+    public double getHeight(int command) { return heights[command]; }
+    public double getLineWidth(int command) { return lineWidths[command]; }
+    public AtlasRegion getRegion(int command) { return regions[command]; }
+    public int getAnchorCount() { return anchorCount; }
+}
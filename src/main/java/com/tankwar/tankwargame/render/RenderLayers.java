@@ -0,0 +1,25 @@
+package com.tankwar.tankwargame.render;
+
+/**
+ * Draw layers, from back to front. Commands on a lower layer are always
+ * drawn before commands on a higher one; within a layer the command
+ * buffer is free to reorder them to save state changes, so anything that
+ * must cover something else goes on a later layer.
+ *
+ * @author Iyed Acheche
+ */
+public final class RenderLayers {
+    public static final int FLOOR = 0;
+    public static final int FLOOR_BORDERS = 1;
+    public static final int WALLS = 2;
+    public static final int OBJECTIVE = 3;
+    public static final int PICKUPS = 4;
+    public static final int PICKUP_MARKS = 5;
+    public static final int TANKS = 6;
+    public static final int MISSILES = 7;
+    public static final int EFFECTS = 8;
+    
+    public static final int COUNT = 9;
+    
+    private RenderLayers() {}
+}
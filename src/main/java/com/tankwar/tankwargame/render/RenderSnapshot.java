@@ -0,0 +1,73 @@
+package com.tankwar.tankwargame.render;
+
+/**
+ * Everything the render thread needs to draw one simulation tick: the
+ * frame's draw commands and the values the HUD and game over screens show.
+ * The simulation thread fills a snapshot, hands it over through a
+ * TripleBuffer and does not touch it again until it comes back, so the
+ * renderer reads it without locks.
+ *
+ * @author Iyed Acheche
+ */
+public final class RenderSnapshot {
+    private final RenderCommands commands = new RenderCommands();
+    private int match = 0;
+    private long publishNanos;
+    private int playerHealth, playerMaxHealth, enemyCount, score;
+    private boolean gameOver, playerWon, playerCollectedApple, appleDestroyed;
+    
+    public RenderSnapshot() {}
+    
+    /**
+     * Starts filling this snapshot. Moving entities are matched against the
+     * previous snapshot only if it belongs to the same match.
+     */
+    public void begin(int match, RenderSnapshot previous) {
+        this.match = match;
+        commands.clear(previous != null && previous.match == match ? previous.commands : null);
+    }
+    
+    /**
+     * Sets the values shown by the HUD and the game over screens.
+     */
+    public void setStatus(int playerHealth, int playerMaxHealth, int enemyCount, int score,
+                          boolean gameOver, boolean playerWon, boolean playerCollectedApple, boolean appleDestroyed) {
+        this.playerHealth = playerHealth;
+        this.playerMaxHealth = playerMaxHealth;
+        this.enemyCount = enemyCount;
+        this.score = score;
+        this.gameOver = gameOver;
+        this.playerWon = playerWon;
+        this.playerCollectedApple = playerCollectedApple;
+        this.appleDestroyed = appleDestroyed;
+    }
+    
+    /**
+     * Ends filling; the commands are sorted and the snapshot is ready to
+     * publish.
+     */
+    public void finish(long publishNanos) {
+        this.publishNanos = publishNanos;
+        commands.finish();
+    }
+    
+    /**
+     * Draws the frame, moving entities placed the given fraction of the way
+     * from the previous snapshot's positions to this one's.
+     */
+    public void draw(DrawTarget target, double alpha) {
+        commands.submit(target, alpha);
+    }
+    
+    public RenderCommands getCommands() { return commands; }
+    public int getMatch() { return match; }
+    public long getPublishNanos() { return publishNanos; }
+    public int getPlayerHealth() { return playerHealth; }
+    public int getPlayerMaxHealth() { return playerMaxHealth; }
+    public int getEnemyCount() { return enemyCount; }
+    public int getScore() { return score; }
+    public boolean isGameOver() { return gameOver; }
+    public boolean playerWon() { return playerWon; }
+    public boolean playerCollectedApple() { return playerCollectedApple; }
+    public boolean appleDestroyed() { return appleDestroyed; }
+}
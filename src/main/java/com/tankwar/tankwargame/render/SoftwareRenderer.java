@@ -0,0 +1,160 @@
+package com.tankwar.tankwargame.render;
+
+import com.tankwar.tankwargame.assets.AtlasRegion;
+import com.tankwar.tankwargame.assets.TextureAtlas;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Draws commands straight into an int[] framebuffer of premultiplied ARGB
+ * pixels, bypassing the GraphicsContext command queue and the Prism
+ * software pipeline. Sprites are copied from the atlas's own int pixels
+ * with nearest-neighbour scaling in 16.16 fixed point; opaque pixels are
+ * copied, transparent ones skipped and the rest blended source-over.
+ * Boxes are snapped to whole pixels.
+ *
+ * A finished frame is handed to JavaFX with a single PixelWriter call by
+ * {@link #present()}.
+ *
+ * @author Iyed Acheche
+ */
+public final class SoftwareRenderer implements DrawTarget {
+    private final int width, height;
+    private final int[] pixels;
+    private final TextureAtlas atlas;
+    private WritableImage image;
+    
+    public SoftwareRenderer(int width, int height) {
+        this(width, height, TextureAtlas.get());
+    }
+    
+    public SoftwareRenderer(int width, int height, TextureAtlas atlas) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        this.atlas = atlas;
+    }
+    
+    /**
+     * Fills the whole framebuffer with one colour.
+     */
+    public void clear(int argb) {
+        Arrays.fill(pixels, premultiply(argb));
+    }
+    
+    @Override
+    public void begin() {
+    }
+    
+    @Override
+    public void fillRect(int argb, double x, double y, double w, double h) {
+        int x0 = clampX(x), x1 = clampX(x + w);
+        int y0 = clampY(y), y1 = clampY(y + h);
+        if (x0 >= x1 || y0 >= y1) return;
+        int alpha = argb >>> 24;
+        if (alpha == 0) return;
+        int color = premultiply(argb);
+        if (alpha == 255) {
+            for (int row = y0 * width; row < y1 * width; row += width) {
+                Arrays.fill(pixels, row + x0, row + x1, color);
+            }
+            return;
+        }
+        int inverse = 256 - alpha;
+        for (int row = y0 * width; row < y1 * width; row += width) {
+            for (int i = row + x0; i < row + x1; i++) {
+                pixels[i] = color + scale(pixels[i], inverse);
+            }
+        }
+    }
+    
+    /**
+     * Strokes the outline as four bars centred on the box edges, like a
+     * canvas stroke.
+     */
+    @Override
+    public void strokeRect(int argb, double lineWidth, double x, double y, double w, double h) {
+        double half = lineWidth / 2;
+        fillRect(argb, x - half, y - half, w + lineWidth, lineWidth);
+        fillRect(argb, x - half, y + h - half, w + lineWidth, lineWidth);
+        fillRect(argb, x - half, y + half, lineWidth, h - lineWidth);
+        fillRect(argb, x + w - half, y + half, lineWidth, h - lineWidth);
+    }
+    
+    @Override
+    public void drawImage(AtlasRegion region, double x, double y, double w, double h) {
+        int dx0 = (int) Math.round(x), dy0 = (int) Math.round(y);
+        int dw = (int) Math.round(x + w) - dx0, dh = (int) Math.round(y + h) - dy0;
+        if (dw <= 0 || dh <= 0) return;
+        int x0 = Math.max(0, dx0), x1 = Math.min(width, dx0 + dw);
+        int y0 = Math.max(0, dy0), y1 = Math.min(height, dy0 + dh);
+        if (x0 >= x1 || y0 >= y1) return;
+        
+        int[] source = atlas.getArgbPixels();
+        int stride = atlas.getWidth();
+        int stepX = (region.getWidth() << 16) / dw;
+        int stepY = (region.getHeight() << 16) / dh;
+        // Sample pixel centres
+        int startX = (x0 - dx0) * stepX + (stepX >> 1);
+        int fy = (y0 - dy0) * stepY + (stepY >> 1);
+        int sourceLeft = region.getY() * stride + region.getX();
+        
+        for (int row = y0 * width; row < y1 * width; row += width, fy += stepY) {
+            int sourceRow = sourceLeft + (fy >> 16) * stride;
+            int fx = startX;
+            for (int i = row + x0, end = row + x1; i < end; i++, fx += stepX) {
+                int s = source[sourceRow + (fx >> 16)];
+                int alpha = s >>> 24;
+                if (alpha == 255) {
+                    pixels[i] = s;
+                } else if (alpha != 0) {
+                    pixels[i] = s + scale(pixels[i], 256 - alpha);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copies the framebuffer into the frame image with one PixelWriter call
+     * and returns the image.
+     */
+    public WritableImage present() {
+        if (image == null) {
+            image = new WritableImage(width, height);
+        }
+        image.getPixelWriter().setPixels(0, 0, width, height,
+                PixelFormat.getIntArgbPreInstance(), IntBuffer.wrap(pixels), width);
+        return image;
+    }
+    
+    private int clampX(double x) {
+        return Math.max(0, Math.min(width, (int) Math.round(x)));
+    }
+    
+    private int clampY(double y) {
+        return Math.max(0, Math.min(height, (int) Math.round(y)));
+    }
+    
+    /**
+     * Multiplies every channel of a premultiplied pixel by factor / 256,
+     * two channels per multiply. Blending scales the destination by
+     * 256 - alpha, which keeps an opaque destination opaque.
+     */
+    private static int scale(int pixel, int factor) {
+        int redBlue = ((pixel & 0x00FF00FF) * factor >>> 8) & 0x00FF00FF;
+        int alphaGreen = ((pixel >>> 8) & 0x00FF00FF) * factor & 0xFF00FF00;
+        return alphaGreen | redBlue;
+    }
+    
+    private static int premultiply(int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 255) return argb;
+        return (argb & 0xFF000000) | (scale(argb, alpha + 1) & 0x00FFFFFF);
+    }
+    
+    public int[] getPixels() { return pixels; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+}
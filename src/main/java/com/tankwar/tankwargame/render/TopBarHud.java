@@ -0,0 +1,253 @@
+package com.tankwar.tankwargame.render;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+/**
+ * The bar above the play area, kept as one finished image so drawing it
+ * costs a single blit per frame.
+ *
+ * Everything that never changes (background, edge lines, icons, labels,
+ * the objective and the pause hint) is rasterised once when the bar is
+ * built. Each value the bar shows is a widget bound to its last value:
+ * only when {@link #update} sees a new one is that widget's box repainted
+ * over the cached chrome on an offscreen canvas, read back, and copied
+ * into the bar image. Fonts, colours and the star outline are constants,
+ * and the text for a value is only built when the value changes.
+ *
+ * Must be built and used on the FX thread.
+ *
+ * @author Iyed Acheche
+ */
+public final class TopBarHud {
+    private static final Font LABEL_FONT = Font.font("Arial", FontWeight.NORMAL, 11);
+    private static final Font SMALL_BOLD_FONT = Font.font("Arial", FontWeight.BOLD, 11);
+    private static final Font VALUE_FONT = Font.font("Arial", FontWeight.BOLD, 18);
+    private static final Font HINT_FONT = Font.font("Arial", FontWeight.NORMAL, 10);
+    
+    private static final Color BACKGROUND = Color.rgb(20, 20, 30);
+    private static final Color EDGE = Color.rgb(60, 60, 80);
+    private static final Color EDGE_GLOW = Color.rgb(255, 200, 50, 0.6);
+    private static final Color LABEL = Color.rgb(180, 180, 190);
+    private static final Color HEART = Color.rgb(220, 50, 50);
+    private static final Color BAR_TRACK = Color.rgb(40, 40, 50);
+    private static final Color BAR_BORDER = Color.rgb(80, 80, 100);
+    private static final Color HEALTHY = Color.rgb(80, 200, 80);
+    private static final Color WOUNDED = Color.rgb(220, 160, 40);
+    private static final Color CRITICAL = Color.rgb(200, 60, 60);
+    private static final Color ENEMY_ICON = Color.rgb(180, 50, 50);
+    private static final Color ENEMY_COUNT = Color.rgb(220, 80, 80);
+    private static final Color GOLD = Color.rgb(255, 200, 50);
+    private static final Color SCORE = Color.rgb(255, 215, 80);
+    private static final Color APPLE_STEM = Color.rgb(100, 70, 40);
+    private static final Color HINT = Color.rgb(120, 120, 140);
+    
+    private static final int HEALTH_X = 15;
+    private static final int HEALTH_BAR_X = HEALTH_X + 22;
+    private static final int HEALTH_BAR_WIDTH = 120;
+    private static final int HEALTH_BAR_HEIGHT = 14;
+    private static final int ENEMIES_X = 280;
+    private static final int SCORE_X = 420;
+    private static final int OBJECTIVE_X = 560;
+    
+    private static final double[] STAR_X = {7, 9, 14, 10, 12, 7, 2, 4, 0, 5};
+    private static final double[] STAR_Y = {-8, -2, -2, 2, 8, 4, 8, 2, -2, -2};
+    
+    /**
+     * A box of the bar repainted on its own, and the value it shows.
+     */
+    private static final class Widget {
+        final int x, y, width, height;
+        final WritableImage pixels;
+        long value = Long.MIN_VALUE;
+        
+        Widget(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.pixels = new WritableImage(width, height);
+        }
+        
+        /**
+         * Binds the widget to a value.
+         * @return whether the value differs from the last one bound
+         */
+        boolean bind(long value) {
+            if (this.value == value) return false;
+            this.value = value;
+            return true;
+        }
+    }
+    
+    private final int width, height, centerY;
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final WritableImage chrome;
+    private final WritableImage bar;
+    private final SnapshotParameters readBack = new SnapshotParameters();
+    private final Widget health, enemies, score;
+    private int repaints = 0;
+    
+    public TopBarHud(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.centerY = height / 2;
+        this.canvas = new Canvas(width, height);
+        this.gc = canvas.getGraphicsContext2D();
+        
+        drawChrome();
+        this.chrome = canvas.snapshot(null, null);
+        this.bar = new WritableImage(width, height);
+        bar.getPixelWriter().setPixels(0, 0, width, height, chrome.getPixelReader(), 0, 0);
+        
+        // Each box stays clear of the labels above it and the sections beside it
+        this.health = new Widget(HEALTH_BAR_X - 1, centerY + 1, ENEMIES_X - HEALTH_BAR_X - 3, HEALTH_BAR_HEIGHT + 2);
+        this.enemies = new Widget(ENEMIES_X + 18, centerY - 2, SCORE_X - ENEMIES_X - 20, 22);
+        this.score = new Widget(SCORE_X + 18, centerY - 2, OBJECTIVE_X - SCORE_X - 20, 22);
+    }
+    
+    /**
+     * Binds the widgets to the given values, repainting only those whose
+     * value changed since the last call.
+     */
+    public void update(int currentHealth, int maxHealth, int enemyCount, int scoreValue) {
+        if (health.bind((long) currentHealth << 32 | (maxHealth & 0xFFFFFFFFL))) {
+            erase(health);
+            drawHealth(currentHealth, maxHealth);
+            commit(health);
+        }
+        if (enemies.bind(enemyCount)) {
+            erase(enemies);
+            drawValue(String.valueOf(enemyCount), ENEMY_COUNT, ENEMIES_X);
+            commit(enemies);
+        }
+        if (score.bind(scoreValue)) {
+            erase(score);
+            drawValue(String.valueOf(scoreValue), SCORE, SCORE_X);
+            commit(score);
+        }
+    }
+    
+    /**
+     * Draws the finished bar with its top left corner at the given point.
+     */
+    public void draw(GraphicsContext target, double x, double y) {
+        target.drawImage(bar, x, y);
+    }
+    
+    private void drawChrome() {
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, width, height);
+        
+        gc.setStroke(EDGE);
+        gc.setLineWidth(2);
+        gc.strokeLine(0, height, width, height);
+        
+        gc.setStroke(EDGE_GLOW);
+        gc.setLineWidth(1);
+        gc.strokeLine(0, height - 1, width, height - 1);
+        
+        gc.setFill(HEART);
+        gc.fillOval(HEALTH_X, centerY - 8, 16, 16);
+        
+        gc.setFill(LABEL);
+        gc.setFont(LABEL_FONT);
+        gc.fillText("HEALTH", HEALTH_X + 22, centerY - 5);
+        
+        gc.setFill(ENEMY_ICON);
+        gc.fillOval(ENEMIES_X, centerY - 7, 14, 14);
+        gc.setFill(BACKGROUND);
+        gc.fillOval(ENEMIES_X + 2, centerY - 3, 4, 4);
+        gc.fillOval(ENEMIES_X + 8, centerY - 3, 4, 4);
+        
+        gc.setFill(LABEL);
+        gc.fillText("ENEMIES", ENEMIES_X + 20, centerY - 5);
+        
+        gc.save();
+        gc.translate(SCORE_X, centerY);
+        gc.setFill(GOLD);
+        gc.fillPolygon(STAR_X, STAR_Y, STAR_X.length);
+        gc.restore();
+        
+        gc.setFill(LABEL);
+        gc.fillText("SCORE", SCORE_X + 20, centerY - 5);
+        
+        gc.setFill(GOLD);
+        gc.fillOval(OBJECTIVE_X, centerY - 6, 12, 12);
+        gc.setFill(APPLE_STEM);
+        gc.fillRect(OBJECTIVE_X + 5, centerY - 10, 2, 5);
+        
+        gc.setFill(GOLD);
+        gc.setFont(SMALL_BOLD_FONT);
+        gc.fillText("PROTECT THE APPLE!", OBJECTIVE_X + 18, centerY + 3);
+        
+        gc.setFill(HINT);
+        gc.setFont(HINT_FONT);
+        gc.fillText("[P] Pause", width - 60, centerY + 3);
+    }
+    
+    private void drawHealth(int currentHealth, int maxHealth) {
+        int barY = centerY + 2;
+        double percent = maxHealth > 0 ? (double) currentHealth / maxHealth : 0;
+        
+        gc.setFill(BAR_TRACK);
+        gc.fillRoundRect(HEALTH_BAR_X, barY, HEALTH_BAR_WIDTH, HEALTH_BAR_HEIGHT, 6, 6);
+        
+        if (percent > 0.6) {
+            gc.setFill(HEALTHY);
+        } else if (percent > 0.3) {
+            gc.setFill(WOUNDED);
+        } else {
+            gc.setFill(CRITICAL);
+        }
+        if (percent > 0) {
+            gc.fillRoundRect(HEALTH_BAR_X + 2, barY + 2, (HEALTH_BAR_WIDTH - 4) * percent, HEALTH_BAR_HEIGHT - 4, 4, 4);
+        }
+        
+        gc.setStroke(BAR_BORDER);
+        gc.setLineWidth(1);
+        gc.strokeRoundRect(HEALTH_BAR_X, barY, HEALTH_BAR_WIDTH, HEALTH_BAR_HEIGHT, 6, 6);
+        
+        gc.setFill(Color.WHITE);
+        gc.setFont(SMALL_BOLD_FONT);
+        gc.fillText(currentHealth + "/" + maxHealth, HEALTH_BAR_X + HEALTH_BAR_WIDTH + 8, barY + 11);
+    }
+    
+    private void drawValue(String text, Color color, int sectionX) {
+        gc.setFill(color);
+        gc.setFont(VALUE_FONT);
+        gc.fillText(text, sectionX + 20, centerY + 15);
+    }
+    
+    /**
+     * Puts the cached chrome back under a widget's box on the canvas.
+     */
+    private void erase(Widget widget) {
+        gc.drawImage(chrome, widget.x, widget.y, widget.width, widget.height,
+                widget.x, widget.y, widget.width, widget.height);
+    }
+    
+    /**
+     * Reads the widget's box back from the canvas and copies it into the
+     * bar image.
+     */
+    private void commit(Widget widget) {
+        readBack.setViewport(new Rectangle2D(widget.x, widget.y, widget.width, widget.height));
+        canvas.snapshot(readBack, widget.pixels);
+        bar.getPixelWriter().setPixels(widget.x, widget.y, widget.width, widget.height,
+                widget.pixels.getPixelReader(), 0, 0);
+        repaints++;
+    }
+    
+    /**
+     * How many times a widget has been repainted since the bar was built.
+     */
+    public int getRepaints() { return repaints; }
+}
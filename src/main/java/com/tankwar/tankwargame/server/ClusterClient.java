@@ -0,0 +1,88 @@
+package com.tankwar.tankwargame.server;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes player inputs to whichever node hosts their room.
+ * Routes come from the directory; a node that has handed a room off
+ * answers MOVED with the new host, and the input is resent there.
+ * @author Iyed Acheche
+ */
+public class ClusterClient implements AutoCloseable {
+    private static final int MAX_ATTEMPTS = 4;
+    
+    private final RoomDirectory directory;
+    private final Map<Integer, ControlConnection> connections = new ConcurrentHashMap<>();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong redirected = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    
+    public ClusterClient(RoomDirectory directory) {
+        this.directory = directory;
+    }
+    
+    /**
+     * Sends one input.
+     * @return true if a node accepted it
+     */
+    public boolean sendInput(int roomId, int player, int input) {
+        NodeInfo node = directory.lookup(roomId);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && node != null; attempt++) {
+            try {
+                ControlConnection.Reply reply = connection(node).call(ClusterProtocol.INPUT, out -> {
+                    out.writeInt(roomId);
+                    out.writeByte(player);
+                    out.writeByte(input);
+                });
+                switch (reply.status) {
+                    case ClusterProtocol.OK:
+                        delivered.incrementAndGet();
+                        return true;
+                    case ClusterProtocol.MOVED:
+                        // The directory is only switched after the source redirects, so follow the reply
+                        redirected.incrementAndGet();
+                        node = directory.getNode(reply.body.readInt());
+                        continue;
+                    case ClusterProtocol.UNKNOWN_ROOM:
+                        // The match ended and its room was retired
+                        finished.incrementAndGet();
+                        return false;
+                    default:
+                        failed.incrementAndGet();
+                        return false;
+                }
+            } catch (IOException e) {
+                ControlConnection stale = connections.remove(node.getNodeId());
+                if (stale != null) stale.close();
+                node = directory.lookup(roomId);
+            }
+        }
+        failed.incrementAndGet();
+        return false;
+    }
+    
+    private ControlConnection connection(NodeInfo node) throws IOException {
+        ControlConnection connection = connections.get(node.getNodeId());
+        if (connection == null) {
+            connection = new ControlConnection(node.getAddress());
+            connections.put(node.getNodeId(), connection);
+        }
+        return connection;
+    }
+    
+    public long getDelivered() { return delivered.get(); }
+    public long getRedirected() { return redirected.get(); }
+    public long getFinished() { return finished.get(); }
+    public long getFailed() { return failed.get(); }
+    
+    @Override
+    public void close() {
+        for (ControlConnection connection : connections.values()) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.ai.PlayerInput;
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a small cluster on localhost.
+ * Starts the room directory in this process and each server node as its own
+ * JVM (or in-process with "inproc"), spreads rooms over the nodes, keeps a
+ * client streaming inputs, then drains node 0 by live-migrating all of its
+ * rooms. Reports placement, migration pauses, whether every restored room
+ * matched its frozen state, and whether any input was lost.
+ *
+ * Usage: ClusterHarness [nodes] [rooms] [proc|inproc]
+ *
+ * @author Iyed Acheche
+ */
+public class ClusterHarness {
+    private static final int BASE_NODE_PORT = 47100;
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long SETTLE_MILLIS = 1500;
+    
+    private ClusterHarness() {}
+    
+    public static void main(String[] args) throws Exception {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int roomCount = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        boolean separateProcesses = args.length < 3 || !args[2].equals("inproc");
+        
+        List<Process> processes = new ArrayList<>();
+        List<ServerNode> localNodes = new ArrayList<>();
+        try (RoomDirectory directory = new RoomDirectory(0)) {
+            directory.start();
+            InetSocketAddress directoryAddress = new InetSocketAddress("127.0.0.1", directory.getPort());
+            for (int id = 0; id < nodeCount; id++) {
+                if (separateProcesses) {
+                    processes.add(startNodeProcess(id, BASE_NODE_PORT + id, directoryAddress));
+                } else {
+                    ServerNode node = new ServerNode(id, 0, directoryAddress, 1);
+                    node.start();
+                    localNodes.add(node);
+                }
+            }
+            if (!directory.awaitNodes(nodeCount, 30_000)) {
+                System.out.println("Nodes did not register with the directory");
+                return;
+            }
+            
+            // Place rooms
+            DeterministicRandom random = new DeterministicRandom(11);
+            for (int roomId = 1; roomId <= roomCount; roomId++) {
+                directory.createRoom(roomId, random.nextLong(), GameConstants.MAX_PLAYERS);
+            }
+            System.out.println("=== Placement ===");
+            printLoad(directory, nodeCount);
+            
+            // Stream inputs while the cluster runs
+            ClusterClient client = new ClusterClient(directory);
+            InputStreamer streamer = new InputStreamer(client, roomCount);
+            Thread streamerThread = new Thread(streamer, "cluster-inputs");
+            streamerThread.setDaemon(true);
+            streamerThread.start();
+            Thread.sleep(WARMUP_MILLIS);
+            
+            System.out.println("=== Draining node 0 ===");
+            List<MigrationResult> results = directory.drainNode(0);
+            double maxPause = 0, pauseSum = 0;
+            int mismatches = 0;
+            for (MigrationResult result : results) {
+                System.out.println("  " + result);
+                maxPause = Math.max(maxPause, result.getPauseMillis());
+                pauseSum += result.getPauseMillis();
+                if (!result.isStateMatching()) mismatches++;
+            }
+            Thread.sleep(SETTLE_MILLIS);
+            streamer.stop();
+            streamerThread.join();
+            
+            System.out.println("=== Result ===");
+            printLoad(directory, nodeCount);
+            System.out.printf("migrated=%d avgPause=%.2fms maxPause=%.2fms stateMismatches=%d%n",
+                    results.size(), results.isEmpty() ? 0 : pauseSum / results.size(), maxPause, mismatches);
+            System.out.printf("inputs delivered=%d redirected=%d finishedRooms=%d lost=%d%n",
+                    client.getDelivered(), client.getRedirected(), client.getFinished(), client.getFailed());
+            client.close();
+            
+            for (int id = 0; id < nodeCount; id++) {
+                directory.shutdownNode(id);
+            }
+        } finally {
+            for (Process process : processes) {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            }
+            for (ServerNode node : localNodes) {
+                node.close();
+            }
+        }
+    }
+    
+    private static Process startNodeProcess(int nodeId, int port, InetSocketAddress directory) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path")));
+        String modulePath = System.getProperty("jdk.module.path");
+        if (modulePath != null) {
+            command.addAll(List.of("-p", modulePath, "--add-modules", "ALL-MODULE-PATH"));
+        }
+        command.addAll(List.of(ServerNode.class.getName(), String.valueOf(nodeId), String.valueOf(port),
+                directory.getHostString(), String.valueOf(directory.getPort()), "1"));
+        File log = new File(System.getProperty("java.io.tmpdir"), "tankwar-node-" + nodeId + ".log");
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+    }
+    
+    private static void printLoad(RoomDirectory directory, int nodeCount) {
+        for (int id = 0; id < nodeCount; id++) {
+            System.out.printf("  node %d: %d rooms%n", id, directory.roomCount(id));
+        }
+    }
+    
+    /**
+     * Plays every seat with random held inputs, changing a few per pass.
+     */
+    private static final class InputStreamer implements Runnable {
+        private final ClusterClient client;
+        private final int roomCount;
+        private final DeterministicRandom random = new DeterministicRandom(5);
+        private volatile boolean running = true;
+        
+        InputStreamer(ClusterClient client, int roomCount) {
+            this.client = client;
+            this.roomCount = roomCount;
+        }
+        
+        @Override
+        public void run() {
+            int[] moves = {PlayerInput.UP, PlayerInput.DOWN, PlayerInput.LEFT, PlayerInput.RIGHT, PlayerInput.NONE};
+            while (running) {
+                int roomId = 1 + random.nextInt(roomCount);
+                int player = random.nextInt(GameConstants.MAX_PLAYERS);
+                int input = moves[random.nextInt(moves.length)] | (random.nextInt(3) == 0 ? PlayerInput.FIRE : 0);
+                client.sendInput(roomId, player, input);
+            }
+        }
+        
+        void stop() {
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.tankwar.tankwargame.server;
+
+/**
+ * Control messages between the room directory, server nodes and routers.
+ * Requests are framed as length (int), operation (byte), payload; replies
+ * as length (int), status (byte), payload.
+ * @author Iyed Acheche
+ */
+final class ClusterProtocol {
+    // Operations
+    static final byte HEARTBEAT = 1;      // nodeId, host, port, hosted room count and ids, cpu, avg lag
+    static final byte CREATE_ROOM = 2;    // roomId, seed, players
+    static final byte INPUT = 3;          // roomId, player, input
+    static final byte EXPORT_ROOM = 4;    // roomId -> tick, hash, held inputs, snapshot
+    static final byte IMPORT_ROOM = 5;    // roomId, held inputs, snapshot -> tick, hash
+    static final byte COMMIT_MOVE = 6;    // roomId, target nodeId, host, port
+    static final byte ROOM_STATUS = 7;    // roomId -> tick, hash
+    static final byte SHUTDOWN = 8;
+    static final byte ABORT_MOVE = 9;     // roomId: the source thaws a room it exported and ticks it again
+    static final byte DROP_ROOM = 10;     // roomId: the target discards a room it imported for a move that failed
+    
+    // Reply status
+    static final byte OK = 0;
+    static final byte MOVED = 1;          // payload: nodeId now hosting the room
+    static final byte UNKNOWN_ROOM = 2;
+    static final byte ERROR = 3;          // payload: message
+    
+    private ClusterProtocol() {}
+}
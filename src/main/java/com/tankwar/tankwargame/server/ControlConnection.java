@@ -0,0 +1,69 @@
+package com.tankwar.tankwargame.server;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Client end of a control connection: one blocking request and reply at a time.
+ * @author Iyed Acheche
+ */
+class ControlConnection implements AutoCloseable {
+    
+    @FunctionalInterface
+    interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    /**
+     * A reply: its status and a stream over its payload.
+     */
+    static final class Reply {
+        final byte status;
+        final DataInputStream body;
+        
+        Reply(byte status, DataInputStream body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+    
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    
+    ControlConnection(InetSocketAddress address) throws IOException {
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(address, 2000);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+    
+    synchronized Reply call(byte op, Payload payload) throws IOException {
+        scratch.reset();
+        try (DataOutputStream body = new DataOutputStream(scratch)) {
+            if (payload != null) payload.write(body);
+        }
+        out.writeInt(1 + scratch.size());
+        out.writeByte(op);
+        scratch.writeTo(out);
+        out.flush();
+        
+        int length = in.readInt();
+        byte status = in.readByte();
+        byte[] reply = new byte[length - 1];
+        in.readFully(reply);
+        return new Reply(status, new DataInputStream(new ByteArrayInputStream(reply)));
+    }
+    
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.tankwar.tankwargame.server;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server end of the control protocol. Control traffic is light, so each
+ * connection gets its own thread and blocking IO.
+ * @author Iyed Acheche
+ */
+class ControlServer implements AutoCloseable {
+    
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * Handles one request and writes the reply payload.
+         * @return the reply status
+         */
+        byte handle(byte op, DataInputStream request, DataOutputStream reply) throws IOException;
+    }
+    
+    private final ServerSocket serverSocket;
+    private final Handler handler;
+    private final ExecutorService threads;
+    private volatile boolean running = true;
+    
+    ControlServer(InetSocketAddress address, Handler handler, String name) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(address);
+        this.handler = handler;
+        this.threads = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Starts accepting connections. The port is bound from construction on,
+     * so peers that connect earlier wait in the backlog.
+     */
+    void start() {
+        threads.execute(this::acceptLoop);
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                threads.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) System.err.println("Control accept failed: " + e);
+            }
+        }
+    }
+    
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+            while (running) {
+                int length = in.readInt();
+                byte op = in.readByte();
+                byte[] request = new byte[length - 1];
+                in.readFully(request);
+                
+                scratch.reset();
+                byte status;
+                try (DataOutputStream reply = new DataOutputStream(scratch)) {
+                    try {
+                        status = handler.handle(op, new DataInputStream(new ByteArrayInputStream(request)), reply);
+                    } catch (RuntimeException e) {
+                        scratch.reset();
+                        reply.writeUTF(String.valueOf(e));
+                        status = ClusterProtocol.ERROR;
+                    }
+                }
+                out.writeInt(1 + scratch.size());
+                out.writeByte(status);
+                scratch.writeTo(out);
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // Peer closed the connection
+        } catch (IOException e) {
+            if (running) System.err.println("Control connection failed: " + e);
+        }
+    }
+    
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+        threads.shutdownNow();
+    }
+}
@@ -0,0 +1,175 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.util.GameConstants;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP front end for a RoomScheduler.
+ * One selector thread accepts clients and reads their inputs. Joining
+ * clients fill rooms in order; each room streams to its players through a
+ * PlayerChannel, which sends every player only its own area of interest,
+ * without delay and under the same bounded-queue and slow-consumer rules
+ * as spectators.
+ *
+ * Usage: GameServer [port] [carrierThreads]
+ *
+ * @author Iyed Acheche
+ */
+public class GameServer implements AutoCloseable {
+    private final RoomScheduler scheduler;
+    private final int playersPerRoom;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private Thread ioThread;
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong connectionsDropped = new AtomicLong();
+    private final AtomicLong connectionsFinished = new AtomicLong();
+    private final Set<PlayerConnection> connections = Collections.synchronizedSet(new HashSet<>());
+    private volatile boolean running = true;
+    
+    // Room being filled, only touched by the IO thread
+    private Room fillingRoom;
+    private PlayerChannel fillingChannel;
+    private int nextSlot;
+    private long nextSeed = 1;
+    
+    public GameServer(RoomScheduler scheduler, int playersPerRoom, InetSocketAddress address) throws IOException {
+        if (playersPerRoom < 1 || playersPerRoom > GameConstants.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Players per room must be 1.." + GameConstants.MAX_PLAYERS + ": " + playersPerRoom);
+        }
+        this.scheduler = scheduler;
+        this.playersPerRoom = playersPerRoom;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address, 4096);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+    
+    /**
+     * Starts the IO thread. Clients can connect once the server is built,
+     * but are only accepted after this.
+     */
+    public synchronized void start() {
+        if (ioThread != null) return;
+        ioThread = new Thread(this::serve, "game-server-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int carriers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        
+        RoomScheduler scheduler = new RoomScheduler(carriers);
+        GameServer server = new GameServer(scheduler, GameConstants.MAX_PLAYERS, new InetSocketAddress(port));
+        server.start();
+        System.out.println("Game server listening on port " + server.getPort());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.print(scheduler.report(scheduler.drainStats(), 3));
+        }
+    }
+    
+    private void serve() {
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    PlayerConnection connection = (PlayerConnection) key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            connection.writePending();
+                        }
+                        if (key.isValid() && key.isReadable() && !connection.read()) {
+                            connection.close();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Game server IO error: " + e);
+            }
+        }
+    }
+    
+    private void accept() throws IOException {
+        SocketChannel client;
+        while ((client = serverChannel.accept()) != null) {
+            client.configureBlocking(false);
+            client.socket().setTcpNoDelay(true);
+            SelectionKey key = client.register(selector, SelectionKey.OP_READ);
+            PlayerConnection connection = new PlayerConnection(this, client, key);
+            key.attach(connection);
+            connections.add(connection);
+        }
+    }
+    
+    /**
+     * Places a client in the room currently being filled, opening a new room
+     * when it is full. Rooms start ticking as soon as they are created.
+     */
+    void join(PlayerConnection connection) throws IOException {
+        if (fillingRoom == null || nextSlot >= playersPerRoom || fillingRoom.isFinished() || fillingRoom.isClosed()) {
+            fillingRoom = scheduler.createRoom(nextSeed++, playersPerRoom);
+            fillingChannel = new PlayerChannel();
+            fillingRoom.addListener(fillingChannel);
+            nextSlot = 0;
+        }
+        int slot = nextSlot++;
+        connection.sendWelcome(fillingRoom, slot);
+        fillingChannel.addPlayer(connection, slot);
+    }
+    
+    void connectionClosed(PlayerConnection connection, boolean matchFinished) {
+        connections.remove(connection);
+        if (matchFinished) {
+            connectionsFinished.incrementAndGet();
+        } else {
+            connectionsDropped.incrementAndGet();
+        }
+    }
+    
+    void addBytesSent(long bytes) {
+        bytesSent.addAndGet(bytes);
+    }
+    
+    public int getPort() { return serverChannel.socket().getLocalPort(); }
+    public long getBytesSent() { return bytesSent.get(); }
+    
+    /**
+     * Connections closed before their match ended: client left or was too slow.
+     */
+    public long getConnectionsDropped() { return connectionsDropped.get(); }
+    public long getConnectionsFinished() { return connectionsFinished.get(); }
+    public int getConnectionCount() { return connections.size(); }
+    
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.close();
+        serverChannel.close();
+        List<PlayerConnection> open;
+        synchronized (connections) {
+            open = new ArrayList<>(connections);
+        }
+        for (PlayerConnection connection : open) {
+            connection.close();
+        }
+    }
+}
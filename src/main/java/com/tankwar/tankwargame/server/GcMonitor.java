@@ -0,0 +1,70 @@
+package com.tankwar.tankwargame.server;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Records garbage collections as the JVM reports them.
+ * Every GC notification carries the collection's duration: its start to
+ * its end. For a stop-the-world collector that is the pause; for
+ * concurrent collectors such as G1's concurrent cycles or ZGC it includes
+ * work done while the application kept running, so these are GC durations,
+ * not pause times.
+ * @author Iyed Acheche
+ */
+public class GcMonitor implements AutoCloseable {
+    private final NotificationListener listener = (notification, handback) -> {
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            recordCollection(info.getGcInfo().getDuration());
+        }
+    };
+    
+    private long windowCount;
+    private long windowTotalMillis;
+    private long windowMaxMillis;
+    
+    public GcMonitor() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+            }
+        }
+    }
+    
+    private synchronized void recordCollection(long millis) {
+        windowCount++;
+        windowTotalMillis += millis;
+        windowMaxMillis = Math.max(windowMaxMillis, millis);
+    }
+    
+    /**
+     * Returns {collections, total duration ms, longest duration ms} since the
+     * last call and starts a new window.
+     */
+    public synchronized long[] drain() {
+        long[] result = {windowCount, windowTotalMillis, windowMaxMillis};
+        windowCount = 0;
+        windowTotalMillis = 0;
+        windowMaxMillis = 0;
+        return result;
+    }
+    
+    @Override
+    public void close() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) bean).removeNotificationListener(listener);
+                } catch (javax.management.ListenerNotFoundException ignored) {
+                    // Never registered on this bean
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.net.BotClient;
+import com.tankwar.tankwargame.net.LatencyHistogram;
+import com.tankwar.tankwargame.net.ReplicaWorld;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the breaking point of one server process.
+ * Starts a GameServer on loopback and ramps bot clients up in stages. Each
+ * stage is measured after its ramp settles: server tick time and lag,
+ * snapshot latency from encode to client receive, bandwidth, dropped
+ * connections and GC durations. The ramp stops at the first stage that breaks
+ * and the report is written to a file as well as printed.
+ *
+ * Usage: LoadGenerator [stages] [stageSeconds] [carrierThreads] [decisionInterval] [reportFile]
+ * e.g.   LoadGenerator 250,500,1000,2000,4000 10 4 6 load-report.txt
+ *
+ * @author Iyed Acheche
+ */
+public class LoadGenerator {
+    private static final long RAMP_MILLIS = 2000;
+    private static final int CONNECTS_PER_LOOP = 50;
+    
+    // A stage is broken when any of these are exceeded
+    private static final double MAX_P99_LATENCY_MILLIS = 50.0;
+    private static final double MAX_DEGRADED_ROOM_SHARE = 0.05;
+    private static final double MAX_DROPPED_SHARE = 0.01;
+    
+    private final InetSocketAddress serverAddress;
+    private final int decisionInterval;
+    private final List<? extends GameObject> staticWalls = ReplicaWorld.buildStaticWalls();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final List<BotClient> bots = new ArrayList<>();
+    private final AtomicInteger pendingConnects = new AtomicInteger();
+    private final Selector selector;
+    private final Thread clientThread;
+    private volatile boolean running = true;
+    
+    LoadGenerator(InetSocketAddress serverAddress, int decisionInterval) throws IOException {
+        this.serverAddress = serverAddress;
+        this.decisionInterval = decisionInterval;
+        this.selector = Selector.open();
+        this.clientThread = new Thread(this::runClients, "bot-clients");
+        this.clientThread.setDaemon(true);
+        this.clientThread.start();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int[] stages = Arrays.stream((args.length > 0 ? args[0] : "250,500,1000,2000,4000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int stageSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int carriers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int decisionInterval = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        String reportFile = args.length > 4 ? args[4] : "load-report.txt";
+        
+        try (RoomScheduler scheduler = new RoomScheduler(carriers);
+             GameServer server = new GameServer(scheduler, GameConstants.MAX_PLAYERS,
+                     new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             GcMonitor gc = new GcMonitor()) {
+            server.start();
+            LoadGenerator generator = new LoadGenerator(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()), decisionInterval);
+            String report = generator.run(scheduler, server, gc, stages, stageSeconds);
+            generator.stop();
+            
+            System.out.print(report);
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(reportFile)))) {
+                out.print(report);
+            }
+            System.out.println("Report written to " + reportFile);
+        }
+    }
+    
+    String run(RoomScheduler scheduler, GameServer server, GcMonitor gc, int[] stages, int stageSeconds)
+            throws InterruptedException {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("=== Load test: %d carrier threads, %d cores, bots act every %d snapshots ===%n",
+                scheduler.getCarrierThreads(), Runtime.getRuntime().availableProcessors(), decisionInterval));
+        report.append(String.format("%6s %6s %6s %8s %8s %8s %5s %8s %8s %8s %9s %7s %5s %7s %7s %6s  %s%n",
+                "bots", "conns", "rooms", "tick ms", "lag avg", "lag max", "degr", "lat p50", "lat p99",
+                "lat max", "MB/s out", "KB/s/b", "drops", "gc n", "gc dur", "gc max", "status"));
+        
+        int launched = 0;
+        String breakingPoint = null;
+        for (int target : stages) {
+            pendingConnects.addAndGet(target - launched);
+            launched = target;
+            selector.wakeup();
+            Thread.sleep(RAMP_MILLIS);
+            
+            // Start the measurement window once the stage has settled
+            scheduler.drainStats();
+            latency.reset();
+            gc.drain();
+            long bytesBefore = server.getBytesSent();
+            long dropsBefore = server.getConnectionsDropped();
+            long start = System.nanoTime();
+            
+            Thread.sleep(stageSeconds * 1000L);
+            
+            double seconds = (System.nanoTime() - start) / 1e9;
+            List<RoomStats> stats = scheduler.drainStats();
+            long[] gcWindow = gc.drain();
+            double bytesPerSecond = (server.getBytesSent() - bytesBefore) / seconds;
+            long drops = server.getConnectionsDropped() - dropsBefore;
+            
+            double tickSum = 0, lagSum = 0, lagMax = 0;
+            int degraded = 0;
+            for (RoomStats s : stats) {
+                tickSum += s.getAverageTickMillis();
+                lagSum += s.getAverageLagMillis();
+                lagMax = Math.max(lagMax, s.getMaxLagMillis());
+                if (s.getTickRate() < GameConstants.ROOM_TICK_RATE) degraded++;
+            }
+            int rooms = Math.max(1, stats.size());
+            
+            List<String> reasons = new ArrayList<>();
+            if (latency.getPercentileMillis(99) > MAX_P99_LATENCY_MILLIS) reasons.add("snapshot p99");
+            if (degraded > stats.size() * MAX_DEGRADED_ROOM_SHARE) reasons.add("rooms degraded");
+            if (drops > target * MAX_DROPPED_SHARE) reasons.add("connections dropped");
+            String status = reasons.isEmpty() ? "ok" : "BROKEN: " + String.join(", ", reasons);
+            
+            report.append(String.format("%6d %6d %6d %8.3f %8.2f %8.2f %5d %8.2f %8.2f %8.2f %9.2f %7.2f %5d %7d %7d %6d  %s%n",
+                    target, server.getConnectionCount(), stats.size(), tickSum / rooms, lagSum / rooms, lagMax,
+                    degraded, latency.getPercentileMillis(50), latency.getPercentileMillis(99), latency.getMaxMillis(),
+                    bytesPerSecond / 1e6, bytesPerSecond / 1024 / Math.max(1, target), drops,
+                    gcWindow[0], gcWindow[1], gcWindow[2], status));
+            System.out.print(report.substring(report.lastIndexOf(System.lineSeparator(), report.length() - 2) + 1));
+            
+            if (!reasons.isEmpty()) {
+                breakingPoint = String.format("Breaking point: %d bots (%s)", target, String.join(", ", reasons));
+                break;
+            }
+        }
+        
+        Runtime runtime = Runtime.getRuntime();
+        report.append(breakingPoint != null ? breakingPoint : "No breaking point reached; add larger stages")
+                .append(System.lineSeparator());
+        report.append("gc dur/max: total and longest collection duration in ms, not stop-the-world pause time")
+                .append(System.lineSeparator());
+        report.append(String.format("Heap used: %.1f MB of %.1f MB%n",
+                (runtime.totalMemory() - runtime.freeMemory()) / 1e6, runtime.maxMemory() / 1e6));
+        report.append(scheduler.report(scheduler.drainStats(), 3));
+        return report.toString();
+    }
+    
+    /**
+     * Client IO loop. Opens pending connections a batch at a time so a stage
+     * ramps up instead of arriving as one burst, and reconnects bots whose
+     * match ended or whose connection was dropped.
+     */
+    private void runClients() {
+        List<BotClient> reconnects = new ArrayList<>();
+        while (running) {
+            try {
+                List<BotClient> retry = new ArrayList<>(reconnects);
+                reconnects.clear();
+                for (BotClient bot : retry) {
+                    if (!connect(bot)) reconnects.add(bot);
+                }
+                for (int i = 0; i < CONNECTS_PER_LOOP && pendingConnects.get() > 0; i++) {
+                    pendingConnects.decrementAndGet();
+                    BotClient bot = new BotClient(bots.size(), staticWalls, decisionInterval, latency);
+                    bots.add(bot);
+                    if (!connect(bot)) reconnects.add(bot);
+                }
+                
+                selector.select(pendingConnects.get() > 0 ? 5 : 100);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    BotClient bot = (BotClient) key.attachment();
+                    try {
+                        if (key.isValid() && !bot.onReady(key)) {
+                            reconnects.add(bot);
+                        }
+                    } catch (RuntimeException e) {
+                        // One broken bot must not stop the others
+                        System.err.println("Bot " + bot.getBotId() + " failed: " + e);
+                        bot.close();
+                        reconnects.add(bot);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Bot client error: " + e);
+            }
+        }
+    }
+    
+    /**
+     * Connects one bot.
+     * @return false if it failed and should be retried on the next loop
+     */
+    private boolean connect(BotClient bot) {
+        try {
+            bot.connect(serverAddress, selector);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Bot " + bot.getBotId() + " could not connect: " + e);
+            bot.close();
+            return false;
+        }
+    }
+    
+    void stop() throws IOException, InterruptedException {
+        running = false;
+        selector.wakeup();
+        clientThread.join(1000);
+        for (BotClient bot : bots) {
+            bot.close();
+        }
+        selector.close();
+    }
+}
@@ -0,0 +1,49 @@
+package com.tankwar.tankwargame.server;
+
+import java.util.*;
+
+/**
+ * A group of tickets the matchmaker put together, plus where it was placed.
+ * @author Iyed Acheche
+ */
+public class Match {
+    private final long matchId;
+    private final List<MatchTicket> players;
+    private final long formedAtMillis;
+    private Room room;
+    
+    Match(long matchId, List<MatchTicket> players, long formedAtMillis) {
+        this.matchId = matchId;
+        this.players = Collections.unmodifiableList(players);
+        this.formedAtMillis = formedAtMillis;
+    }
+    
+    /**
+     * Difference between the highest and lowest rating in the match.
+     */
+    public int getRatingSpread() {
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (MatchTicket ticket : players) {
+            min = Math.min(min, ticket.getRating());
+            max = Math.max(max, ticket.getRating());
+        }
+        return max - min;
+    }
+    
+    /**
+     * Longest time any player in the match waited.
+     */
+    public long getMaxWaitMillis() {
+        long max = 0;
+        for (MatchTicket ticket : players) {
+            max = Math.max(max, formedAtMillis - ticket.getEnqueuedAtMillis());
+        }
+        return max;
+    }
+    
+    public long getMatchId() { return matchId; }
+    public List<MatchTicket> getPlayers() { return players; }
+    public long getFormedAtMillis() { return formedAtMillis; }
+    public Room getRoom() { return room; }
+    void setRoom(Room room) { this.room = room; }
+}
@@ -0,0 +1,16 @@
+package com.tankwar.tankwargame.server;
+
+/**
+ * Receives each match the matchmaker forms and decides where it is played.
+ * @author Iyed Acheche
+ */
+public interface MatchPlacement {
+    void place(Match match);
+    
+    /**
+     * Places every match in a new room on a local scheduler.
+     */
+    static MatchPlacement onScheduler(RoomScheduler scheduler) {
+        return match -> match.setRoom(scheduler.createRoom(match.getMatchId(), match.getPlayers().size()));
+    }
+}
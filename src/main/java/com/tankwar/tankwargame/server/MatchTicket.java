@@ -0,0 +1,67 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.util.GameConstants;
+
+/**
+ * A player waiting in the matchmaking queue.
+ * The accepted rating difference starts narrow and widens the longer the
+ * player waits, trading match quality for queue time.
+ * @author Iyed Acheche
+ */
+public class MatchTicket {
+    private final long playerId;
+    private final int rating;
+    private final long enqueuedAtMillis;
+    private volatile boolean cancelled = false;
+    private boolean matched = false;
+    private MatchmakingService owner;  // Guarded by this
+    boolean counted = false;  // Matchmaking pass thread only: included in its bucket's live count
+    
+    public MatchTicket(long playerId, int rating, long enqueuedAtMillis) {
+        this.playerId = playerId;
+        this.rating = Math.max(0, Math.min(GameConstants.MAX_RATING, rating));
+        this.enqueuedAtMillis = enqueuedAtMillis;
+    }
+    
+    /**
+     * Rating difference this player accepts at the given time.
+     */
+    public int getWindow(long nowMillis) {
+        long waited = Math.max(0, nowMillis - enqueuedAtMillis);
+        long window = GameConstants.RATING_WINDOW_BASE + GameConstants.RATING_WINDOW_GROWTH * waited / 1000;
+        return (int) Math.min(GameConstants.RATING_WINDOW_MAX, window);
+    }
+    
+    /**
+     * Withdraws the ticket. The queue takes it out of its counts on its
+     * next pass.
+     */
+    public void cancel() {
+        MatchmakingService queue;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            queue = owner;
+        }
+        if (queue != null) {
+            queue.cancelled(this);
+        }
+    }
+    
+    /**
+     * Tells the ticket which queue to report a later cancel to.
+     */
+    synchronized void queueIn(MatchmakingService queue) {
+        owner = queue;
+    }
+    
+    void markMatched() {
+        matched = true;
+    }
+    
+    public long getPlayerId() { return playerId; }
+    public int getRating() { return rating; }
+    public long getEnqueuedAtMillis() { return enqueuedAtMillis; }
+    public boolean isCancelled() { return cancelled; }
+    public boolean isMatched() { return matched; }
+}
@@ -0,0 +1,110 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.util.DeterministicRandom;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+
+/**
+ * Local stand-in for a matchmaking node.
+ * Fills the queue with synthetic players on a simulated clock, keeps them
+ * arriving and occasionally leaving, and runs one pass per batch. Reports
+ * pass time, queue size, match quality and waiting time. With "rooms" the
+ * first matches are also placed on a real RoomScheduler.
+ *
+ * Usage: MatchmakingHarness [initialPlayers] [seconds] [arrivalsPerSecond] [rooms]
+ *
+ * @author Iyed Acheche
+ */
+public class MatchmakingHarness {
+    private static final double MEAN_RATING = 1500;
+    private static final double RATING_DEVIATION = 350;
+    private static final double CANCEL_CHANCE = 0.002;  // Per waiting player per batch
+    private static final int HOSTED_ROOM_LIMIT = 200;
+    
+    private MatchmakingHarness() {}
+    
+    public static void main(String[] args) throws Exception {
+        int initial = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int arrivals = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        boolean hostRooms = args.length > 3 && args[3].equals("rooms");
+        
+        DeterministicRandom random = new DeterministicRandom(7);
+        long[] now = {0};
+        RoomScheduler scheduler = hostRooms ? new RoomScheduler() : null;
+        MatchPlacement hosted = hostRooms ? MatchPlacement.onScheduler(scheduler) : null;
+        MatchPlacement placement = match -> {
+            if (hosted != null && match.getMatchId() <= HOSTED_ROOM_LIMIT) {
+                hosted.place(match);
+            }
+        };
+        MatchmakingService service = new MatchmakingService(GameConstants.MAX_PLAYERS, placement, () -> now[0]);
+        
+        List<MatchTicket> waiting = new ArrayList<>();
+        long playerId = 0;
+        for (int i = 0; i < initial; i++) {
+            waiting.add(service.enqueue(playerId++, randomRating(random)));
+        }
+        
+        System.out.printf("=== Matchmaking: %d queued, %d arrivals/s, %d players per match ===%n",
+                initial, arrivals, service.getPlayersPerMatch());
+        System.out.printf("%5s %8s %7s %9s %9s %8s %9s %9s%n",
+                "sec", "queued", "matches", "pass ms", "max ms", "spread", "wait avg", "wait max");
+        
+        long passNanosSum = 0, passNanosMax = 0, spreadSum = 0, waitSum = 0, waitMax = 0, windowMatches = 0;
+        int batchesPerSecond = (int) Math.max(1, 1000 / GameConstants.MATCHMAKING_BATCH_MILLIS);
+        int batches = seconds * batchesPerSecond;
+        for (int batch = 1; batch <= batches; batch++) {
+            now[0] += GameConstants.MATCHMAKING_BATCH_MILLIS;
+            for (int i = 0; i < arrivals / batchesPerSecond; i++) {
+                waiting.add(service.enqueue(playerId++, randomRating(random)));
+            }
+            
+            // Some players give up; drop finished tickets from the local list as we go
+            Iterator<MatchTicket> it = waiting.iterator();
+            while (it.hasNext()) {
+                MatchTicket ticket = it.next();
+                if (ticket.isMatched() || ticket.isCancelled()) {
+                    it.remove();
+                } else if (random.nextDouble() < CANCEL_CHANCE) {
+                    ticket.cancel();
+                    it.remove();
+                }
+            }
+            
+            List<Match> matches = service.runPass();
+            passNanosSum += service.getLastPassNanos();
+            passNanosMax = Math.max(passNanosMax, service.getLastPassNanos());
+            for (Match match : matches) {
+                spreadSum += match.getRatingSpread();
+                waitSum += match.getMaxWaitMillis();
+                waitMax = Math.max(waitMax, match.getMaxWaitMillis());
+            }
+            windowMatches += matches.size();
+            
+            if (batch % (10 * batchesPerSecond) == 0 || batch == 1 || batch == batches) {
+                long passes = batch == 1 ? 1 : Math.min(batch, 10L * batchesPerSecond);
+                System.out.printf("%5d %8d %7d %9.3f %9.3f %8.1f %8.1fs %8.1fs%n",
+                        now[0] / 1000, service.getQueuedCount(), windowMatches,
+                        passNanosSum / 1e6 / passes, passNanosMax / 1e6,
+                        windowMatches == 0 ? 0.0 : (double) spreadSum / windowMatches,
+                        windowMatches == 0 ? 0.0 : waitSum / 1000.0 / windowMatches, waitMax / 1000.0);
+                passNanosSum = passNanosMax = spreadSum = waitSum = waitMax = windowMatches = 0;
+            }
+        }
+        System.out.printf("Total matches: %d%n", service.getTotalMatches());
+        
+        if (scheduler != null) {
+            System.out.printf("Rooms hosted on the local scheduler: %d%n", scheduler.getRoomCount());
+            scheduler.close();
+        }
+    }
+    
+    private static int randomRating(DeterministicRandom random) {
+        // Box-Muller transform for a normal rating distribution
+        double u1 = Math.max(1e-12, random.nextDouble());
+        double u2 = random.nextDouble();
+        double gaussian = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        return (int) Math.round(MEAN_RATING + gaussian * RATING_DEVIATION);
+    }
+}
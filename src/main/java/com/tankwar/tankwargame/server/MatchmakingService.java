@@ -0,0 +1,267 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Forms matches from a queue of waiting players in periodic batches.
+ *
+ * Waiting tickets live in rating buckets, each a FIFO so its head is the
+ * longest-waiting player of that rating band. A pass walks the buckets, not
+ * the players: the head of a bucket anchors a match, its rating window
+ * selects the neighbouring buckets, live counts tell at once whether
+ * enough players are in range, and the group is gathered nearest bucket
+ * first. Players are only grouped when every one of them is inside every
+ * other's window, so a player who has waited long never pulls in one whose
+ * own window is still narrow. If the oldest player of a bucket cannot be matched, the newer
+ * ones behind it, with narrower windows, cannot either, so the bucket is
+ * left for the next batch. A pass therefore costs about the number of
+ * buckets times the window width plus the matches it forms, regardless of
+ * how many players are queued.
+ *
+ * Tickets may be queued or cancelled from any thread; both are taken in at
+ * the start of the next pass, and a cancelled ticket leaves the live
+ * counts then even if it is still deep in its bucket. Formed matches go to a MatchPlacement, which
+ * normally opens a room on the RoomScheduler.
+ *
+ * @author Iyed Acheche
+ */
+public class MatchmakingService implements AutoCloseable {
+    // How deep to look into a bucket for players inside the window
+    private static final int SCAN_FACTOR = 4;
+    
+    private final int playersPerMatch;
+    private final MatchPlacement placement;
+    private final LongSupplier clock;
+    private final Queue<MatchTicket> inbox = new ConcurrentLinkedQueue<>();
+    private final Queue<MatchTicket> cancellations = new ConcurrentLinkedQueue<>();
+    private final List<ArrayDeque<MatchTicket>> buckets;
+    private final int[] liveCounts;
+    private final List<MatchTicket> group = new ArrayList<>();
+    private ScheduledExecutorService batcher;
+    private int queued = 0;
+    private long nextMatchId = 1;
+    
+    // Statistics
+    private volatile long lastPassNanos;
+    private volatile int lastPassMatches;
+    private volatile long totalMatches;
+    private volatile int queuedSnapshot;
+    
+    public MatchmakingService(RoomScheduler scheduler) {
+        this(GameConstants.MAX_PLAYERS, MatchPlacement.onScheduler(scheduler), System::currentTimeMillis);
+    }
+    
+    public MatchmakingService(int playersPerMatch, MatchPlacement placement, LongSupplier clock) {
+        if (playersPerMatch < 2 || playersPerMatch > GameConstants.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Players per match must be 2.." + GameConstants.MAX_PLAYERS + ": " + playersPerMatch);
+        }
+        this.playersPerMatch = playersPerMatch;
+        this.placement = placement;
+        this.clock = clock;
+        int bucketCount = GameConstants.MAX_RATING / GameConstants.RATING_BUCKET_WIDTH + 1;
+        this.buckets = new ArrayList<>(bucketCount);
+        this.liveCounts = new int[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+    }
+    
+    /**
+     * Queues a player now.
+     */
+    public MatchTicket enqueue(long playerId, int rating) {
+        MatchTicket ticket = new MatchTicket(playerId, rating, clock.getAsLong());
+        enqueue(ticket);
+        return ticket;
+    }
+    
+    public void enqueue(MatchTicket ticket) {
+        ticket.queueIn(this);
+        inbox.add(ticket);
+    }
+    
+    /**
+     * Called by a queued ticket when it is cancelled, from any thread.
+     */
+    void cancelled(MatchTicket ticket) {
+        cancellations.add(ticket);
+    }
+    
+    /**
+     * Runs a pass every MATCHMAKING_BATCH_MILLIS on a background thread.
+     */
+    public synchronized void start() {
+        if (batcher != null) return;
+        batcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = GameConstants.MATCHMAKING_BATCH_MILLIS;
+        batcher.scheduleAtFixedRate(() -> {
+            try {
+                runPass();
+            } catch (RuntimeException e) {
+                System.err.println("Matchmaking pass failed: " + e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Takes in new tickets and forms as many matches as the windows allow.
+     * @return the matches formed, already placed
+     */
+    public synchronized List<Match> runPass() {
+        long start = System.nanoTime();
+        long now = clock.getAsLong();
+        
+        MatchTicket incoming;
+        while ((incoming = inbox.poll()) != null) {
+            if (incoming.isCancelled()) continue;
+            int b = bucketOf(incoming.getRating());
+            buckets.get(b).addLast(incoming);
+            incoming.counted = true;
+            liveCounts[b]++;
+            queued++;
+        }
+        // Cancelled tickets stay in their bucket until they reach its head, but stop counting now
+        MatchTicket cancelled;
+        while ((cancelled = cancellations.poll()) != null) {
+            uncount(cancelled);
+        }
+        
+        List<Match> formed = new ArrayList<>();
+        for (int b = 0; b < buckets.size(); b++) {
+            while (liveCounts[b] > 0) {
+                MatchTicket anchor = liveHead(b);
+                if (anchor == null) break;
+                
+                int window = anchor.getWindow(now);
+                int reach = window / GameConstants.RATING_BUCKET_WIDTH + 1;
+                int lo = Math.max(0, b - reach);
+                int hi = Math.min(buckets.size() - 1, b + reach);
+                
+                int available = 0;
+                for (int i = lo; i <= hi && available < playersPerMatch; i++) {
+                    available += liveCounts[i];
+                }
+                if (available < playersPerMatch || !gather(anchor, b, lo, hi, now)) {
+                    break;
+                }
+                formed.add(formMatch(now));
+            }
+        }
+        
+        lastPassNanos = System.nanoTime() - start;
+        lastPassMatches = formed.size();
+        totalMatches += formed.size();
+        queuedSnapshot = queued;
+        return formed;
+    }
+    
+    /**
+     * Returns the oldest live ticket of a bucket, discarding cancelled ones in front of it.
+     */
+    private MatchTicket liveHead(int b) {
+        ArrayDeque<MatchTicket> bucket = buckets.get(b);
+        while (!bucket.isEmpty()) {
+            MatchTicket head = bucket.peekFirst();
+            if (!head.isCancelled()) return head;
+            bucket.pollFirst();
+            uncount(head);
+        }
+        return null;
+    }
+    
+    /**
+     * Takes a ticket out of the live counts, once.
+     */
+    private void uncount(MatchTicket ticket) {
+        if (!ticket.counted) return;
+        ticket.counted = false;
+        liveCounts[bucketOf(ticket.getRating())]--;
+        queued--;
+    }
+    
+    /**
+     * Collects the anchor plus enough players within its window into the
+     * group, nearest buckets first. Nothing is removed unless it succeeds.
+     */
+    private boolean gather(MatchTicket anchor, int b, int lo, int hi, long now) {
+        group.clear();
+        group.add(anchor);
+        for (int d = 0; group.size() < playersPerMatch && (b - d >= lo || b + d <= hi); d++) {
+            if (b + d <= hi) collect(b + d, anchor, now);
+            if (d > 0 && b - d >= lo && group.size() < playersPerMatch) collect(b - d, anchor, now);
+        }
+        if (group.size() < playersPerMatch) {
+            group.clear();
+            return false;
+        }
+        for (MatchTicket ticket : group) {
+            buckets.get(bucketOf(ticket.getRating())).removeFirstOccurrence(ticket);
+            uncount(ticket);
+        }
+        return true;
+    }
+    
+    private void collect(int b, MatchTicket anchor, long now) {
+        int scanned = 0;
+        int scanLimit = playersPerMatch * SCAN_FACTOR;
+        for (MatchTicket ticket : buckets.get(b)) {
+            if (group.size() >= playersPerMatch || scanned++ >= scanLimit) return;
+            if (ticket == anchor || ticket.isCancelled()) continue;
+            if (fitsGroup(ticket, now)) {
+                group.add(ticket);
+            }
+        }
+    }
+    
+    /**
+     * Whether the ticket and every player already in the group are each
+     * inside the other's window.
+     */
+    private boolean fitsGroup(MatchTicket ticket, long now) {
+        int window = ticket.getWindow(now);
+        for (MatchTicket member : group) {
+            int difference = Math.abs(ticket.getRating() - member.getRating());
+            if (difference > window || difference > member.getWindow(now)) return false;
+        }
+        return true;
+    }
+    
+    private Match formMatch(long now) {
+        for (MatchTicket ticket : group) {
+            ticket.markMatched();
+        }
+        Match match = new Match(nextMatchId++, new ArrayList<>(group), now);
+        group.clear();
+        placement.place(match);
+        return match;
+    }
+    
+    private static int bucketOf(int rating) {
+        return rating / GameConstants.RATING_BUCKET_WIDTH;
+    }
+    
+    /**
+     * Players waiting after the last pass, not counting tickets still in the inbox.
+     */
+    public int getQueuedCount() { return queuedSnapshot; }
+    public int getPendingCount() { return inbox.size(); }
+    public long getLastPassNanos() { return lastPassNanos; }
+    public int getLastPassMatches() { return lastPassMatches; }
+    public long getTotalMatches() { return totalMatches; }
+    public int getPlayersPerMatch() { return playersPerMatch; }
+    
+    @Override
+    public synchronized void close() {
+        if (batcher != null) {
+            batcher.shutdownNow();
+            batcher = null;
+        }
+    }
+}
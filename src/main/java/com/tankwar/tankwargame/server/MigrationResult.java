@@ -0,0 +1,48 @@
+package com.tankwar.tankwargame.server;
+
+/**
+ * Outcome of moving one room between nodes.
+ * @author Iyed Acheche
+ */
+public class MigrationResult {
+    private final int roomId;
+    private final int sourceNode;
+    private final int targetNode;
+    private final long tick;
+    private final int snapshotBytes;
+    private final double pauseMillis;
+    private final boolean stateMatches;
+    
+    MigrationResult(int roomId, int sourceNode, int targetNode, long tick, int snapshotBytes,
+                    double pauseMillis, boolean stateMatches) {
+        this.roomId = roomId;
+        this.sourceNode = sourceNode;
+        this.targetNode = targetNode;
+        this.tick = tick;
+        this.snapshotBytes = snapshotBytes;
+        this.pauseMillis = pauseMillis;
+        this.stateMatches = stateMatches;
+    }
+    
+    public int getRoomId() { return roomId; }
+    public int getSourceNode() { return sourceNode; }
+    public int getTargetNode() { return targetNode; }
+    public long getTick() { return tick; }
+    public int getSnapshotBytes() { return snapshotBytes; }
+    
+    /**
+     * Time from freezing the room on the source until it ticks on the target.
+     */
+    public double getPauseMillis() { return pauseMillis; }
+    
+    /**
+     * Whether the restored engine hashed the same as the frozen one.
+     */
+    public boolean isStateMatching() { return stateMatches; }
+    
+    @Override
+    public String toString() {
+        return String.format("room %d: node %d -> %d at tick %d, %d bytes, paused %.2fms, state %s",
+                roomId, sourceNode, targetNode, tick, snapshotBytes, pauseMillis, stateMatches ? "identical" : "DIFFERENT");
+    }
+}
@@ -0,0 +1,56 @@
+package com.tankwar.tankwargame.server;
+
+import java.net.InetSocketAddress;
+
+/**
+ * The directory's view of one server node, refreshed by its heartbeats.
+ * @author Iyed Acheche
+ */
+public class NodeInfo {
+    private final int nodeId;
+    private volatile InetSocketAddress address;
+    private volatile int reportedRooms;
+    private volatile double cpuLoad;
+    private volatile double averageLagMillis;
+    private volatile long lastHeartbeatMillis;
+    private volatile long heartbeats;
+    private volatile boolean alive = true;
+    
+    NodeInfo(int nodeId) {
+        this.nodeId = nodeId;
+    }
+    
+    void update(InetSocketAddress address, int rooms, double cpuLoad, double averageLagMillis, long now) {
+        this.address = address;
+        this.reportedRooms = rooms;
+        this.cpuLoad = cpuLoad;
+        this.averageLagMillis = averageLagMillis;
+        this.lastHeartbeatMillis = now;
+        this.alive = true;
+        heartbeats++;
+    }
+    
+    void markDead() {
+        alive = false;
+    }
+    
+    public int getNodeId() { return nodeId; }
+    public InetSocketAddress getAddress() { return address; }
+    public int getReportedRooms() { return reportedRooms; }
+    public double getCpuLoad() { return cpuLoad; }
+    public double getAverageLagMillis() { return averageLagMillis; }
+    public long getLastHeartbeatMillis() { return lastHeartbeatMillis; }
+    
+    /**
+     * Heartbeats handled so far. Only the control thread serving this node
+     * counts them.
+     */
+    public long getHeartbeats() { return heartbeats; }
+    public boolean isAlive() { return alive; }
+    
+    @Override
+    public String toString() {
+        return String.format("node %d %s rooms=%d cpu=%.2f lag=%.2fms%s", nodeId, address, reportedRooms,
+                cpuLoad, averageLagMillis, alive ? "" : " DEAD");
+    }
+}
@@ -0,0 +1,107 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.core.GameEngine;
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.net.ClientInterest;
+import com.tankwar.tankwargame.net.InterestManager;
+import com.tankwar.tankwargame.net.SnapshotEncoder;
+import com.tankwar.tankwargame.net.SnapshotFrame;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+
+/**
+ * Streams a room to its players, each seeing only its own area of interest.
+ * Every tick the replicated entities are indexed once by an InterestManager,
+ * and each player gets a frame of just the entities around its tank, sent
+ * without delay. Players share the spectators' bounded queues, so a slow
+ * player is demoted to keyframes and then dropped the same way.
+ *
+ * Attach with {@code room.addListener(channel)}; all work runs on the
+ * room's tick thread.
+ *
+ * @author Iyed Acheche
+ */
+public class PlayerChannel implements RoomListener {
+    private final SnapshotEncoder encoder = new SnapshotEncoder();
+    private final InterestManager interest = new InterestManager(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT);
+    private final int keyframeInterval;
+    private final Map<Integer, SpectatorConnection> players = new LinkedHashMap<>();
+    private final Map<SpectatorConnection, Integer> pendingAdds = new LinkedHashMap<>();
+    private final List<GameObject> replicated = new ArrayList<>();
+    private long framesEncoded = 0;
+    private long bytesEncoded = 0;
+    private int nextPlayerId = 1;
+    
+    public PlayerChannel() {
+        this(GameConstants.SPECTATOR_KEYFRAME_INTERVAL);
+    }
+    
+    public PlayerChannel(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+    
+    /**
+     * Registers the player in the given slot. Safe to call from any thread;
+     * the player starts receiving frames from the next tick.
+     */
+    public int addPlayer(SpectatorSink sink, int slot) {
+        synchronized (pendingAdds) {
+            SpectatorConnection connection = new SpectatorConnection(nextPlayerId++, sink);
+            pendingAdds.put(connection, slot);
+            return connection.getSpectatorId();
+        }
+    }
+    
+    @Override
+    public void onTick(Room room) {
+        GameEngine engine = room.getEngine();
+        applyPendingAdds(engine);
+        
+        replicated.clear();
+        engine.collectReplicatedObjects(replicated);
+        interest.update(replicated);
+        
+        long tick = engine.getContext().getTick();
+        boolean keyframe = tick % keyframeInterval == 0;
+        Iterator<SpectatorConnection> it = players.values().iterator();
+        while (it.hasNext()) {
+            SpectatorConnection connection = it.next();
+            ClientInterest client = interest.getClient(connection.getSpectatorId());
+            SnapshotFrame frame = encoder.encode(engine, keyframe, client.getVisible());
+            framesEncoded++;
+            bytesEncoded += frame.size();
+            connection.offer(frame);
+            connection.flush();
+            if (connection.getMode() == SpectatorConnection.Mode.DROPPED) {
+                interest.removeClient(connection.getSpectatorId());
+                it.remove();
+            }
+        }
+    }
+    
+    @Override
+    public void onRoomFinished(Room room) {
+        applyPendingAdds(room.getEngine());
+        for (SpectatorConnection connection : players.values()) {
+            connection.flush();
+            connection.drop();
+            interest.removeClient(connection.getSpectatorId());
+        }
+        players.clear();
+    }
+    
+    private void applyPendingAdds(GameEngine engine) {
+        synchronized (pendingAdds) {
+            for (Map.Entry<SpectatorConnection, Integer> entry : pendingAdds.entrySet()) {
+                SpectatorConnection connection = entry.getKey();
+                players.put(connection.getSpectatorId(), connection);
+                interest.addClient(connection.getSpectatorId(), engine.getPlayerTanks().get(entry.getValue()));
+            }
+            pendingAdds.clear();
+        }
+    }
+    
+    public int getPlayerCount() { return players.size(); }
+    public long getFramesEncoded() { return framesEncoded; }
+    public long getBytesEncoded() { return bytesEncoded; }
+}
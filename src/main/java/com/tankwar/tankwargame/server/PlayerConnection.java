@@ -0,0 +1,127 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.net.ServerProtocol;
+import com.tankwar.tankwargame.net.SnapshotFrame;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Server side of one player's TCP connection.
+ * Snapshot frames are written straight from the shared frame buffer with a
+ * gathering write behind a small per-connection header. If the socket only
+ * takes part of a frame, the rest goes out before the next frame is accepted.
+ * A welcome the socket cannot take at once is finished by the IO thread
+ * when the selector reports the socket writable; no frame is sent before it.
+ * @author Iyed Acheche
+ */
+class PlayerConnection implements SpectatorSink {
+    private final GameServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer in = ByteBuffer.allocate(256);
+    private final ByteBuffer header = ByteBuffer.allocate(ServerProtocol.SERVER_HEADER_SIZE + ServerProtocol.SNAPSHOT_PREFIX_SIZE);
+    private final ByteBuffer[] parts = new ByteBuffer[2];
+    private ByteBuffer pendingWelcome;
+    private Room room;
+    private int slot = -1;
+    private volatile boolean closed = false;
+    
+    PlayerConnection(GameServer server, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+    }
+    
+    @Override
+    public synchronized boolean write(SnapshotFrame frame) {
+        if (closed || pendingWelcome != null) return false;
+        try {
+            if (parts[1] != null && parts[1].hasRemaining()) {
+                server.addBytesSent(channel.write(parts));
+                if (parts[1].hasRemaining()) return false;
+            }
+            
+            ByteBuffer data = frame.view();
+            header.clear();
+            header.put(ServerProtocol.SNAPSHOT);
+            header.putInt(ServerProtocol.SNAPSHOT_PREFIX_SIZE + data.remaining());
+            header.putLong(frame.getEncodedAtNanos());
+            header.flip();
+            parts[0] = header;
+            parts[1] = data;
+            server.addBytesSent(channel.write(parts));
+            return true;
+        } catch (IOException e) {
+            close();
+            return false;
+        }
+    }
+    
+    /**
+     * Sends the room and slot this connection was placed in. Called before the
+     * connection is added to the room's channel, so it cannot race a snapshot.
+     */
+    synchronized void sendWelcome(Room room, int slot) throws IOException {
+        this.room = room;
+        this.slot = slot;
+        ByteBuffer welcome = ByteBuffer.allocate(ServerProtocol.SERVER_HEADER_SIZE + ServerProtocol.WELCOME_SIZE);
+        welcome.put(ServerProtocol.WELCOME).putInt(ServerProtocol.WELCOME_SIZE);
+        welcome.putInt(room.getRoomId()).put((byte) slot);
+        welcome.flip();
+        server.addBytesSent(channel.write(welcome));
+        if (welcome.hasRemaining()) {
+            pendingWelcome = welcome;
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+    
+    /**
+     * Writes what is left of the welcome once the socket has room for it.
+     * Called on the IO thread.
+     */
+    synchronized void writePending() throws IOException {
+        if (pendingWelcome == null) return;
+        server.addBytesSent(channel.write(pendingWelcome));
+        if (!pendingWelcome.hasRemaining()) {
+            pendingWelcome = null;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+    
+    /**
+     * Reads whatever the client sent and dispatches complete messages.
+     * @return false if the client disconnected
+     */
+    boolean read() throws IOException {
+        if (channel.read(in) < 0) return false;
+        in.flip();
+        while (in.remaining() >= ServerProtocol.CLIENT_MESSAGE_SIZE) {
+            byte type = in.get();
+            int value = in.get() & 0xFF;
+            if (type == ServerProtocol.JOIN && room == null) {
+                server.join(this);
+            } else if (type == ServerProtocol.INPUT && room != null) {
+                room.submitInput(slot, value);
+            }
+        }
+        in.compact();
+        return true;
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        server.connectionClosed(this, room != null && room.isFinished());
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+    
+    SocketChannel getChannel() { return channel; }
+    boolean isClosed() { return closed; }
+}
@@ -0,0 +1,265 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.core.GameEngine;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * One hosted match: a GameEngine plus its pacing state.
+ * A room is never ticked by two threads at once; the scheduler only
+ * re-queues it after its tick has finished. Inputs may be submitted from any
+ * thread and are sampled at the start of each tick.
+ *
+ * When a room keeps starting its ticks late it steps down to a lower tick
+ * rate, which slows its game clock (time dilation) instead of letting it
+ * fall further and further behind. It steps back up once it has slack again.
+ *
+ * @author Iyed Acheche
+ */
+public class Room implements Delayed {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+    
+    private final int roomId;
+    private final GameEngine engine;
+    private final AtomicIntegerArray inputs;
+    private final int[] tickInputs;
+    private final List<RoomListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object tickLock = new Object();
+    
+    // Pacing, only touched by the thread running the tick
+    private long deadline;
+    private int rateLevel = 0;
+    private int laggingTicks = 0;
+    private int idleTicks = 0;
+    private volatile boolean closed = false;
+    private volatile boolean finished = false;
+    
+    // Statistics for the current reporting window
+    private long windowStart;
+    private long windowTicks;
+    private long windowLagNanos;
+    private long windowMaxLagNanos;
+    private long windowBusyNanos;
+    private long windowCpuNanos;
+    private long totalTicks;
+    private int rateChanges;
+    
+    Room(int roomId, GameEngine engine, long firstDeadline) {
+        this.roomId = roomId;
+        this.engine = engine;
+        this.inputs = new AtomicIntegerArray(engine.getPlayerCount());
+        this.tickInputs = new int[engine.getPlayerCount()];
+        this.deadline = firstDeadline;
+        this.windowStart = firstDeadline;
+    }
+    
+    /**
+     * Sets the held input of one player. It stays in effect until replaced.
+     */
+    public void submitInput(int player, int input) {
+        inputs.set(player, input);
+    }
+    
+    public void addListener(RoomListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(RoomListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Runs one tick and computes the next deadline.
+     * @return true if the room should be scheduled again
+     */
+    boolean tick() {
+        synchronized (tickLock) {
+            return tickLocked();
+        }
+    }
+    
+    private boolean tickLocked() {
+        if (closed) return false;
+        
+        long start = System.nanoTime();
+        long cpuStart = CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : 0;
+        long lag = Math.max(0, start - deadline);
+        
+        for (int i = 0; i < tickInputs.length; i++) {
+            tickInputs[i] = inputs.get(i);
+        }
+        engine.update(tickInputs);
+        for (RoomListener listener : listeners) {
+            listener.onTick(this);
+        }
+        
+        long end = System.nanoTime();
+        long busy = end - start;
+        long cpu = CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() - cpuStart : busy;
+        
+        synchronized (this) {
+            windowTicks++;
+            totalTicks++;
+            windowLagNanos += lag;
+            windowMaxLagNanos = Math.max(windowMaxLagNanos, lag);
+            windowBusyNanos += busy;
+            windowCpuNanos += cpu;
+        }
+        
+        adjustRate(lag);
+        
+        long interval = getTickIntervalNanos();
+        deadline += interval;
+        if (deadline < end) {
+            // Behind schedule: skip the missed ticks instead of bursting to catch up
+            deadline = end + interval;
+        }
+        
+        if (engine.isGameOver()) {
+            finished = true;
+            notifyFinished();
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Ends a room whose tick threw. It is closed without being marked
+     * finished, and its listeners are told it is over, so connections drop
+     * instead of waiting for frames that will never come.
+     */
+    void fail() {
+        close();
+        if (!finished) {
+            notifyFinished();
+        }
+    }
+    
+    private void notifyFinished() {
+        for (RoomListener listener : listeners) {
+            try {
+                listener.onRoomFinished(this);
+            } catch (RuntimeException e) {
+                // One listener failing must not keep the others open
+                System.err.println("Room " + roomId + " listener failed on finish: " + e);
+            }
+        }
+    }
+    
+    /**
+     * Steps the tick rate down after sustained lag above half a tick and
+     * back up after sustained lag below an eighth of one.
+     */
+    private void adjustRate(long lag) {
+        long interval = getTickIntervalNanos();
+        int[] rates = GameConstants.ROOM_DEGRADED_TICK_RATES;
+        
+        if (lag > interval / 2) {
+            laggingTicks++;
+            idleTicks = 0;
+        } else if (lag < interval / 8) {
+            idleTicks++;
+            laggingTicks = 0;
+        }
+        
+        if (laggingTicks >= GameConstants.ROOM_RATE_CHANGE_TICKS && rateLevel < rates.length - 1) {
+            rateLevel++;
+            rateChanges++;
+            laggingTicks = 0;
+        } else if (idleTicks >= GameConstants.ROOM_RATE_CHANGE_TICKS * 4 && rateLevel > 0) {
+            rateLevel--;
+            rateChanges++;
+            idleTicks = 0;
+        }
+    }
+    
+    /**
+     * Returns statistics since the last call and starts a new window.
+     */
+    public synchronized RoomStats drainStats() {
+        long now = System.nanoTime();
+        long wall = Math.max(1, now - windowStart);
+        long ticks = Math.max(1, windowTicks);
+        RoomStats stats = new RoomStats(roomId, getTickRate(), totalTicks,
+                windowLagNanos / 1e6 / ticks, windowMaxLagNanos / 1e6,
+                windowBusyNanos / 1e6 / ticks, (double) windowCpuNanos / wall, rateChanges);
+        windowStart = now;
+        windowTicks = 0;
+        windowLagNanos = 0;
+        windowMaxLagNanos = 0;
+        windowBusyNanos = 0;
+        windowCpuNanos = 0;
+        return stats;
+    }
+    
+    public int getTickRate() {
+        return GameConstants.ROOM_DEGRADED_TICK_RATES[rateLevel];
+    }
+    
+    private long getTickIntervalNanos() {
+        return TimeUnit.SECONDS.toNanos(1) / getTickRate();
+    }
+    
+    void close() {
+        closed = true;
+    }
+    
+    /**
+     * Stops the room and waits for a tick in progress to finish, so the
+     * engine can be captured consistently. Inputs are still accepted.
+     */
+    void freeze() {
+        close();
+        synchronized (tickLock) {
+            // A running tick holds the lock; once we have it, no tick is in progress
+        }
+    }
+    
+    /**
+     * Continues a frozen room in this one: takes over the inputs it holds
+     * and its listeners. Called before this room is first scheduled.
+     */
+    void takeOver(Room frozen) {
+        for (int i = 0; i < inputs.length(); i++) {
+            inputs.set(i, frozen.inputs.get(i));
+        }
+        listeners.addAll(frozen.listeners);
+    }
+    
+    /**
+     * Returns the input each player currently holds.
+     */
+    public int[] getHeldInputs() {
+        int[] held = new int[inputs.length()];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = inputs.get(i);
+        }
+        return held;
+    }
+    
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof Room) {
+            return Long.compare(deadline, ((Room) other).deadline);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+    
+    public int getRoomId() { return roomId; }
+    public GameEngine getEngine() { return engine; }
+    public boolean isClosed() { return closed; }
+    public boolean isFinished() { return finished; }
+    public long getTotalTicks() { return totalTicks; }
+}
@@ -0,0 +1,387 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.util.ConsistentHashRing;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Places rooms across server nodes and knows where each room lives.
+ *
+ * Nodes join by sending heartbeats and leave the ring when they stop.
+ * A room goes to the first node clockwise from its hash on a consistent
+ * hash ring, skipping nodes already holding more than CLUSTER_LOAD_FACTOR
+ * times the average (bounded-load consistent hashing), so placement is
+ * stable and no node runs far ahead of the others.
+ *
+ * Each heartbeat lists the rooms the node still hosts, and routes to rooms
+ * that have ended there are dropped. Rooms on a node that stops sending
+ * heartbeats are dropped with it, and routed again if it comes back.
+ *
+ * Rooms can be live-migrated: the source freezes and exports the room, the
+ * target restores and resumes it, the source forwards the inputs it still
+ * holds and redirects late senders, and only then is the route switched.
+ * If any step after the export fails, the move is called off: the source
+ * thaws the room and the target drops its copy.
+ *
+ * @author Iyed Acheche
+ */
+public class RoomDirectory implements AutoCloseable {
+    private final ControlServer control;
+    private final Map<Integer, NodeInfo> nodes = new ConcurrentHashMap<>();
+    private final ConsistentHashRing<NodeInfo> ring = new ConsistentHashRing<>(GameConstants.CLUSTER_VIRTUAL_NODES);
+    private final Map<Integer, Integer> roomToNode = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> assignedAtHeartbeat = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> roomCounts = new ConcurrentHashMap<>();
+    private final Map<Integer, ControlConnection> connections = new ConcurrentHashMap<>();
+    private Thread reaper;
+    private volatile boolean running = true;
+    
+    public RoomDirectory(int port) throws IOException {
+        this.control = new ControlServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                this::handle, "directory-control");
+    }
+    
+    /**
+     * Starts serving heartbeats and dropping nodes that stop sending them.
+     */
+    public synchronized void start() {
+        if (reaper != null) return;
+        control.start();
+        reaper = new Thread(this::reapDeadNodes, "directory-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+    
+    private byte handle(byte op, DataInputStream request, DataOutputStream reply) throws IOException {
+        if (op != ClusterProtocol.HEARTBEAT) {
+            reply.writeUTF("Directory only accepts heartbeats");
+            return ClusterProtocol.ERROR;
+        }
+        int nodeId = request.readInt();
+        InetSocketAddress address = new InetSocketAddress(request.readUTF(), request.readInt());
+        Set<Integer> rooms = new HashSet<>();
+        for (int i = request.readInt(); i > 0; i--) {
+            rooms.add(request.readInt());
+        }
+        double cpu = request.readDouble();
+        double lag = request.readDouble();
+        
+        NodeInfo node = nodes.computeIfAbsent(nodeId, NodeInfo::new);
+        boolean rejoining = !node.isAlive() || node.getAddress() == null;
+        reconcileRooms(node, rooms);
+        node.update(address, rooms.size(), cpu, lag, System.currentTimeMillis());
+        if (rejoining) {
+            roomCounts.putIfAbsent(nodeId, new AtomicInteger());
+            ring.add(node, nodeId);
+        }
+        return ClusterProtocol.OK;
+    }
+    
+    private void reapDeadNodes() {
+        while (running) {
+            long now = System.currentTimeMillis();
+            for (NodeInfo node : nodes.values()) {
+                if (node.isAlive() && now - node.getLastHeartbeatMillis() > GameConstants.CLUSTER_NODE_TIMEOUT_MILLIS) {
+                    node.markDead();
+                    ring.remove(node);
+                    int lost = forgetRooms(node.getNodeId());
+                    System.err.println("Node " + node.getNodeId() + " missed its heartbeats and left the ring with "
+                            + lost + " rooms");
+                }
+            }
+            try {
+                Thread.sleep(GameConstants.CLUSTER_HEARTBEAT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Blocks until the given number of nodes have sent a heartbeat.
+     */
+    public boolean awaitNodes(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (ring.size() < count) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(50);
+        }
+        return true;
+    }
+    
+    /**
+     * Chooses a node for a room by bounded-load consistent hashing.
+     * @param excludeNodeId a node that must not be chosen, or -1
+     */
+    public NodeInfo place(int roomId, int excludeNodeId) {
+        List<NodeInfo> order = ring.successors(roomId);
+        int live = 0, total = 0;
+        for (NodeInfo node : order) {
+            if (node.getNodeId() == excludeNodeId) continue;
+            live++;
+            total += load(node);
+        }
+        if (live == 0) return null;
+        int cap = (int) Math.ceil((total + 1.0) / live * GameConstants.CLUSTER_LOAD_FACTOR);
+        
+        NodeInfo fallback = null;
+        for (NodeInfo node : order) {
+            if (node.getNodeId() == excludeNodeId || !node.isAlive()) continue;
+            if (fallback == null) fallback = node;
+            if (load(node) < cap) return node;
+        }
+        return fallback;
+    }
+    
+    /**
+     * The rooms a node hosts as far as the directory can tell: what its last
+     * heartbeat reported, or more if rooms were placed there since.
+     */
+    private int load(NodeInfo node) {
+        return Math.max(node.getReportedRooms(), roomCount(node.getNodeId()));
+    }
+    
+    /**
+     * Places and starts a new room.
+     */
+    public NodeInfo createRoom(int roomId, long seed, int players) throws IOException {
+        NodeInfo node = place(roomId, -1);
+        if (node == null) throw new IOException("No live nodes");
+        ControlConnection.Reply reply = connection(node).call(ClusterProtocol.CREATE_ROOM, out -> {
+            out.writeInt(roomId);
+            out.writeLong(seed);
+            out.writeInt(players);
+        });
+        expectOk(reply, "create room " + roomId);
+        assign(roomId, node.getNodeId());
+        return node;
+    }
+    
+    /**
+     * Returns the node currently hosting a room, or null if unknown.
+     */
+    public NodeInfo lookup(int roomId) {
+        Integer nodeId = roomToNode.get(roomId);
+        return nodeId == null ? null : nodes.get(nodeId);
+    }
+    
+    /**
+     * Moves a running room to another node without losing its state or inputs.
+     */
+    public MigrationResult migrateRoom(int roomId, int targetNodeId) throws IOException {
+        MigrationResult result = migrate(roomId, targetNodeId);
+        if (result == null) throw new IOException("Room " + roomId + " has already ended");
+        return result;
+    }
+    
+    /**
+     * @return the result, or null if the room had already ended on its node,
+     *         in which case its route is dropped
+     */
+    private MigrationResult migrate(int roomId, int targetNodeId) throws IOException {
+        NodeInfo source = lookup(roomId);
+        NodeInfo target = nodes.get(targetNodeId);
+        if (source == null) throw new IOException("Unknown room " + roomId);
+        if (target == null || !target.isAlive()) throw new IOException("Target node unavailable: " + targetNodeId);
+        if (source == target) throw new IllegalArgumentException("Room " + roomId + " is already on node " + targetNodeId);
+        
+        long start = System.nanoTime();
+        boolean importedOnTarget = false;
+        MigrationResult result;
+        try {
+            ControlConnection.Reply exported = connection(source).call(ClusterProtocol.EXPORT_ROOM, out -> out.writeInt(roomId));
+            if (exported.status == ClusterProtocol.UNKNOWN_ROOM) {
+                unassign(roomId, source.getNodeId());
+                return null;
+            }
+            expectOk(exported, "export room " + roomId);
+            long tick = exported.body.readLong();
+            long hash = exported.body.readLong();
+            int[] inputs = ServerNode.readInputs(exported.body);
+            byte[] snapshot = new byte[exported.body.readInt()];
+            exported.body.readFully(snapshot);
+            
+            ControlConnection.Reply imported = connection(target).call(ClusterProtocol.IMPORT_ROOM, out -> {
+                out.writeInt(roomId);
+                ServerNode.writeInputs(out, inputs);
+                out.writeInt(snapshot.length);
+                out.write(snapshot);
+            });
+            expectOk(imported, "import room " + roomId);
+            importedOnTarget = true;
+            double pauseMillis = (System.nanoTime() - start) / 1e6;
+            long importedTick = imported.body.readLong();
+            long importedHash = imported.body.readLong();
+            
+            // Forward the held inputs before anyone is routed to the target, so none can overtake them
+            InetSocketAddress targetAddress = target.getAddress();
+            expectOk(connection(source).call(ClusterProtocol.COMMIT_MOVE, out -> {
+                out.writeInt(roomId);
+                out.writeInt(targetNodeId);
+                out.writeUTF(targetAddress.getHostString());
+                out.writeInt(targetAddress.getPort());
+            }), "commit move of room " + roomId);
+            
+            result = new MigrationResult(roomId, source.getNodeId(), targetNodeId, tick, snapshot.length, pauseMillis,
+                    tick == importedTick && hash == importedHash);
+        } catch (IOException | RuntimeException e) {
+            abortMove(roomId, source, importedOnTarget ? target : null, e);
+            throw e;
+        }
+        assign(roomId, targetNodeId);
+        return result;
+    }
+    
+    /**
+     * Calls off a move after a failed step: the source thaws the room it
+     * exported, if it did, and the target drops its copy, if it has one.
+     * Failures here are added to the cause rather than thrown.
+     */
+    private void abortMove(int roomId, NodeInfo source, NodeInfo target, Exception cause) {
+        try {
+            ControlConnection.Reply aborted = connection(source).call(ClusterProtocol.ABORT_MOVE, out -> out.writeInt(roomId));
+            if (aborted.status != ClusterProtocol.UNKNOWN_ROOM) {
+                expectOk(aborted, "abort move of room " + roomId);
+            }
+        } catch (IOException e) {
+            // The source may already redirect to the target, so its copy has to stay
+            cause.addSuppressed(e);
+            return;
+        }
+        if (target == null) return;
+        try {
+            expectOk(connection(target).call(ClusterProtocol.DROP_ROOM, out -> out.writeInt(roomId)),
+                    "drop room " + roomId + " from node " + target.getNodeId());
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+    
+    /**
+     * Moves every room off a node, for example before taking it down.
+     * Rooms that end before their turn are skipped.
+     */
+    public List<MigrationResult> drainNode(int nodeId) throws IOException {
+        List<MigrationResult> results = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : new ArrayList<>(roomToNode.entrySet())) {
+            if (entry.getValue() != nodeId) continue;
+            NodeInfo target = place(entry.getKey(), nodeId);
+            if (target == null) throw new IOException("No node to drain room " + entry.getKey() + " to");
+            MigrationResult result = migrate(entry.getKey(), target.getNodeId());
+            if (result != null) results.add(result);
+        }
+        return results;
+    }
+    
+    /**
+     * Asks a node process to exit.
+     */
+    public void shutdownNode(int nodeId) throws IOException {
+        NodeInfo node = nodes.get(nodeId);
+        if (node != null && node.isAlive()) {
+            connection(node).call(ClusterProtocol.SHUTDOWN, null);
+        }
+    }
+    
+    private synchronized void assign(int roomId, int nodeId) {
+        Integer previous = roomToNode.put(roomId, nodeId);
+        if (previous != null) {
+            roomCounts.get(previous).decrementAndGet();
+        }
+        roomCounts.computeIfAbsent(nodeId, id -> new AtomicInteger()).incrementAndGet();
+        // Read after the route is set, so any heartbeat counted later was sent after the node had the room
+        NodeInfo node = nodes.get(nodeId);
+        assignedAtHeartbeat.put(roomId, node == null ? 0 : node.getHeartbeats());
+    }
+    
+    private synchronized void unassign(int roomId, int nodeId) {
+        if (roomToNode.remove(roomId, nodeId)) {
+            assignedAtHeartbeat.remove(roomId);
+            roomCounts.get(nodeId).decrementAndGet();
+        }
+    }
+    
+    /**
+     * Brings the routes to a node in line with the rooms it reports. A room
+     * routed there only counts as ended if it was placed before the node's
+     * previous heartbeat was handled: this heartbeat was taken after that
+     * one was answered, so it would list the room if it were still running.
+     * A room placed more recently may simply be newer than the list. A
+     * reported room with no route at all, as after the node was taken for
+     * dead, is routed to it again.
+     */
+    private synchronized void reconcileRooms(NodeInfo node, Set<Integer> hosted) {
+        for (int roomId : hosted) {
+            if (!roomToNode.containsKey(roomId)) {
+                assign(roomId, node.getNodeId());
+            }
+        }
+        long handled = node.getHeartbeats();
+        for (Map.Entry<Integer, Integer> entry : new ArrayList<>(roomToNode.entrySet())) {
+            int roomId = entry.getKey();
+            if (entry.getValue() != node.getNodeId() || hosted.contains(roomId)) continue;
+            Long assigned = assignedAtHeartbeat.get(roomId);
+            if (assigned != null && assigned < handled) {
+                unassign(roomId, node.getNodeId());
+            }
+        }
+    }
+    
+    /**
+     * Drops every route to a node, for example once it is found dead.
+     * @return how many rooms were routed there
+     */
+    private synchronized int forgetRooms(int nodeId) {
+        int forgotten = 0;
+        for (Map.Entry<Integer, Integer> entry : new ArrayList<>(roomToNode.entrySet())) {
+            if (entry.getValue() == nodeId) {
+                unassign(entry.getKey(), nodeId);
+                forgotten++;
+            }
+        }
+        return forgotten;
+    }
+    
+    private ControlConnection connection(NodeInfo node) throws IOException {
+        ControlConnection connection = connections.get(node.getNodeId());
+        if (connection == null) {
+            connection = new ControlConnection(node.getAddress());
+            ControlConnection existing = connections.putIfAbsent(node.getNodeId(), connection);
+            if (existing != null) {
+                connection.close();
+                connection = existing;
+            }
+        }
+        return connection;
+    }
+    
+    static void expectOk(ControlConnection.Reply reply, String action) throws IOException {
+        if (reply.status == ClusterProtocol.OK) return;
+        String detail = reply.status == ClusterProtocol.ERROR ? reply.body.readUTF() : "status " + reply.status;
+        throw new IOException("Could not " + action + ": " + detail);
+    }
+    
+    public int roomCount(int nodeId) {
+        AtomicInteger count = roomCounts.get(nodeId);
+        return count == null ? 0 : count.get();
+    }
+    
+    public NodeInfo getNode(int nodeId) { return nodes.get(nodeId); }
+    public Collection<NodeInfo> getNodes() { return Collections.unmodifiableCollection(nodes.values()); }
+    public int getPort() { return control.getPort(); }
+    
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (reaper != null) reaper.interrupt();
+        control.close();
+        for (ControlConnection connection : connections.values()) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.tankwar.tankwargame.server;
+
+/**
+ * Observer for hosted rooms. Called on the carrier thread that ran the tick,
+ * so implementations must be quick and must not block.
+ * @author Iyed Acheche
+ */
+public interface RoomListener {
+    void onTick(Room room);
+    
+    default void onRoomFinished(Room room) {}
+}
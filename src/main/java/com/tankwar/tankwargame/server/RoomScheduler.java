@@ -0,0 +1,187 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.core.GameEngine;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many matches in one server process.
+ * Rooms are not given their own threads. A single pacer thread waits on a
+ * deadline-ordered queue and hands each room that is due to a small
+ * work-stealing pool of carrier threads, so thousands of rooms share as many
+ * threads as there are cores, and idle carriers steal ticks queued on busy ones.
+ *
+ * Design Patterns: Observer (RoomListener), Facade
+ *
+ * @author Iyed Acheche
+ */
+public class RoomScheduler implements AutoCloseable {
+    private final ForkJoinPool carriers;
+    private final DelayQueue<Room> dueQueue = new DelayQueue<>();
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRoomId = new AtomicInteger(1);
+    private final Thread pacer;
+    private volatile boolean running = true;
+    
+    public RoomScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public RoomScheduler(int carrierThreads) {
+        // Async mode gives FIFO local queues, which suits independent tick tasks
+        this.carriers = new ForkJoinPool(carrierThreads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.pacer = new Thread(this::pace, "room-pacer");
+        this.pacer.setDaemon(true);
+        this.pacer.start();
+    }
+    
+    /**
+     * Creates and starts a room for a new match.
+     */
+    public Room createRoom(long seed, int playerCount) {
+        GameEngine engine = new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT,
+                GameConstants.TILE_SIZE, seed, playerCount);
+        return addRoom(engine);
+    }
+    
+    /**
+     * Starts hosting an existing engine, for example one restored from a snapshot.
+     */
+    public Room addRoom(GameEngine engine) {
+        return addRoom(nextRoomId.getAndIncrement(), engine);
+    }
+    
+    public Room addRoom(int roomId, GameEngine engine) {
+        return schedule(new Room(roomId, engine, System.nanoTime()));
+    }
+    
+    /**
+     * Puts a frozen room back on the schedule, for example when its move to
+     * another node is called off. It goes on as a new Room around the same
+     * engine, held inputs and listeners, so a tick still queued for the old
+     * one can never run alongside it.
+     */
+    public Room resumeRoom(Room frozen) {
+        Room room = new Room(frozen.getRoomId(), frozen.getEngine(), System.nanoTime());
+        room.takeOver(frozen);
+        return schedule(room);
+    }
+    
+    private Room schedule(Room room) {
+        if (rooms.putIfAbsent(room.getRoomId(), room) != null) {
+            throw new IllegalArgumentException("Room already exists: " + room.getRoomId());
+        }
+        nextRoomId.accumulateAndGet(room.getRoomId() + 1, Math::max);
+        dueQueue.put(room);
+        return room;
+    }
+    
+    /**
+     * Stops ticking a room. A tick already in progress completes first.
+     */
+    public Room removeRoom(int roomId) {
+        Room room = rooms.remove(roomId);
+        if (room != null) {
+            room.close();
+            dueQueue.remove(room);
+        }
+        return room;
+    }
+    
+    public Room getRoom(int roomId) {
+        return rooms.get(roomId);
+    }
+    
+    public void submitInput(int roomId, int player, int input) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            room.submitInput(player, input);
+        }
+    }
+    
+    private void pace() {
+        while (running) {
+            try {
+                Room room = dueQueue.take();
+                carriers.execute(() -> runTick(room));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private void runTick(Room room) {
+        boolean again;
+        try {
+            again = room.tick();
+        } catch (RuntimeException e) {
+            System.err.println("Room " + room.getRoomId() + " failed and was closed: " + e);
+            room.fail();
+            again = false;
+        }
+        if (again && running && !room.isClosed()) {
+            dueQueue.put(room);
+        } else {
+            rooms.remove(room.getRoomId(), room);
+        }
+    }
+    
+    /**
+     * Collects and resets the per-room statistics windows.
+     */
+    public List<RoomStats> drainStats() {
+        List<RoomStats> stats = new ArrayList<>();
+        for (Room room : rooms.values()) {
+            stats.add(room.drainStats());
+        }
+        stats.sort(Comparator.comparingInt(RoomStats::getRoomId));
+        return stats;
+    }
+    
+    /**
+     * Formats a summary line plus the rooms with the worst lag.
+     */
+    public String report(List<RoomStats> stats, int worstRooms) {
+        StringBuilder sb = new StringBuilder();
+        double lagSum = 0, maxLag = 0, cpuSum = 0;
+        int degraded = 0;
+        for (RoomStats s : stats) {
+            lagSum += s.getAverageLagMillis();
+            maxLag = Math.max(maxLag, s.getMaxLagMillis());
+            cpuSum += s.getCpuShare();
+            if (s.getTickRate() < GameConstants.ROOM_TICK_RATE) degraded++;
+        }
+        sb.append(String.format("rooms=%d carriers=%d avgLag=%.2fms maxLag=%.2fms cpu=%.2f cores degraded=%d%n",
+                stats.size(), getCarrierThreads(), stats.isEmpty() ? 0 : lagSum / stats.size(),
+                maxLag, cpuSum, degraded));
+        
+        List<RoomStats> sorted = new ArrayList<>(stats);
+        sorted.sort(Comparator.comparingDouble(RoomStats::getAverageLagMillis).reversed());
+        for (int i = 0; i < Math.min(worstRooms, sorted.size()); i++) {
+            sb.append("  ").append(sorted.get(i)).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+    
+    public int getRoomCount() { return rooms.size(); }
+    public int getCarrierThreads() { return carriers.getParallelism(); }
+    public Collection<Room> getRooms() { return Collections.unmodifiableCollection(rooms.values()); }
+    
+    @Override
+    public void close() {
+        running = false;
+        pacer.interrupt();
+        for (Room room : rooms.values()) {
+            room.close();
+        }
+        carriers.shutdown();
+        try {
+            carriers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
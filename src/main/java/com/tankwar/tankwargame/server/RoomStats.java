@@ -0,0 +1,47 @@
+package com.tankwar.tankwargame.server;
+
+/**
+ * Immutable per-room scheduling statistics for one reporting window.
+ * @author Iyed Acheche
+ */
+public class RoomStats {
+    private final int roomId;
+    private final int tickRate;
+    private final long ticks;
+    private final double averageLagMillis;
+    private final double maxLagMillis;
+    private final double averageTickMillis;
+    private final double cpuShare;
+    private final int rateChanges;
+    
+    public RoomStats(int roomId, int tickRate, long ticks, double averageLagMillis, double maxLagMillis,
+                     double averageTickMillis, double cpuShare, int rateChanges) {
+        this.roomId = roomId;
+        this.tickRate = tickRate;
+        this.ticks = ticks;
+        this.averageLagMillis = averageLagMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.averageTickMillis = averageTickMillis;
+        this.cpuShare = cpuShare;
+        this.rateChanges = rateChanges;
+    }
+    
+    public int getRoomId() { return roomId; }
+    public int getTickRate() { return tickRate; }
+    public long getTicks() { return ticks; }
+    public double getAverageLagMillis() { return averageLagMillis; }
+    public double getMaxLagMillis() { return maxLagMillis; }
+    public double getAverageTickMillis() { return averageTickMillis; }
+    
+    /**
+     * Fraction of one core spent on this room during the window.
+     */
+    public double getCpuShare() { return cpuShare; }
+    public int getRateChanges() { return rateChanges; }
+    
+    @Override
+    public String toString() {
+        return String.format("room %d: %dHz ticks=%d lag avg=%.2fms max=%.2fms tick=%.3fms cpu=%.2f%%",
+                roomId, tickRate, ticks, averageLagMillis, maxLagMillis, averageTickMillis, cpuShare * 100);
+    }
+}
@@ -0,0 +1,313 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.core.EngineSnapshot;
+import com.tankwar.tankwargame.core.GameEngine;
+import com.tankwar.tankwargame.net.StateHasher;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One server process in a cluster: a RoomScheduler plus a control endpoint.
+ * Reports its load to the room directory with periodic heartbeats and hosts
+ * the rooms the directory places on it.
+ *
+ * Live migration, source side: EXPORT_ROOM freezes the room after its
+ * current tick and returns its snapshot. The frozen room keeps accepting
+ * inputs. COMMIT_MOVE forwards the inputs it holds to the new node and from
+ * then on answers MOVED, so senders retry there. Inputs are held until
+ * replaced, so forwarding the latest one per player loses nothing.
+ * ABORT_MOVE, sent when a later step of the move fails, thaws the room and
+ * puts it back on this node's scheduler; on the target, DROP_ROOM discards
+ * the copy it imported.
+ *
+ * Usage: ServerNode nodeId port directoryHost directoryPort [carrierThreads]
+ *
+ * @author Iyed Acheche
+ */
+public class ServerNode implements AutoCloseable {
+    private final int nodeId;
+    private final RoomScheduler scheduler;
+    private final ControlServer control;
+    private final InetSocketAddress directory;
+    private final Map<Integer, Room> frozen = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> movedTo = new ConcurrentHashMap<>();
+    private final Map<Integer, ControlConnection> peers = new ConcurrentHashMap<>();
+    private Thread heartbeat;
+    private volatile boolean running = true;
+    private volatile double cpuLoad, averageLag;
+    
+    public ServerNode(int nodeId, int port, InetSocketAddress directory, int carrierThreads) throws IOException {
+        this.nodeId = nodeId;
+        this.scheduler = new RoomScheduler(carrierThreads);
+        this.directory = directory;
+        this.control = new ControlServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                this::handle, "node-" + nodeId + "-control");
+    }
+    
+    /**
+     * Starts answering control requests and reporting to the directory,
+     * which places rooms here from the first heartbeat on.
+     */
+    public synchronized void start() {
+        if (heartbeat != null) return;
+        control.start();
+        heartbeat = new Thread(this::sendHeartbeats, "node-" + nodeId + "-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int nodeId = Integer.parseInt(args[0]);
+        int port = Integer.parseInt(args[1]);
+        InetSocketAddress directory = new InetSocketAddress(args[2], Integer.parseInt(args[3]));
+        int carriers = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        
+        ServerNode node = new ServerNode(nodeId, port, directory, carriers);
+        node.start();
+        System.out.println("Node " + nodeId + " listening on port " + node.getPort());
+        while (node.running) {
+            Thread.sleep(200);
+        }
+        node.close();
+    }
+    
+    private byte handle(byte op, DataInputStream request, DataOutputStream reply) throws IOException {
+        switch (op) {
+            case ClusterProtocol.CREATE_ROOM: {
+                int roomId = request.readInt();
+                long seed = request.readLong();
+                int players = request.readInt();
+                scheduler.addRoom(roomId, new GameEngine(GameConstants.GAME_WIDTH, GameConstants.GAME_HEIGHT,
+                        GameConstants.TILE_SIZE, seed, players));
+                return ClusterProtocol.OK;
+            }
+            case ClusterProtocol.INPUT:
+                return submitInput(request.readInt(), request.readByte(), request.readByte() & 0xFF, reply);
+            case ClusterProtocol.EXPORT_ROOM:
+                return exportRoom(request.readInt(), reply);
+            case ClusterProtocol.IMPORT_ROOM:
+                return importRoom(request, reply);
+            case ClusterProtocol.COMMIT_MOVE: {
+                int roomId = request.readInt();
+                int target = request.readInt();
+                InetSocketAddress address = new InetSocketAddress(request.readUTF(), request.readInt());
+                return commitMove(roomId, target, address);
+            }
+            case ClusterProtocol.ABORT_MOVE:
+                return abortMove(request.readInt(), reply);
+            case ClusterProtocol.DROP_ROOM:
+                return scheduler.removeRoom(request.readInt()) != null ? ClusterProtocol.OK : ClusterProtocol.UNKNOWN_ROOM;
+            case ClusterProtocol.ROOM_STATUS: {
+                Room room = scheduler.getRoom(request.readInt());
+                if (room == null) return ClusterProtocol.UNKNOWN_ROOM;
+                reply.writeLong(room.getEngine().getContext().getTick());
+                reply.writeLong(room.getTotalTicks());
+                return ClusterProtocol.OK;
+            }
+            case ClusterProtocol.SHUTDOWN:
+                running = false;
+                return ClusterProtocol.OK;
+            default:
+                reply.writeUTF("Unknown operation " + op);
+                return ClusterProtocol.ERROR;
+        }
+    }
+    
+    private byte submitInput(int roomId, int player, int input, DataOutputStream reply) throws IOException {
+        while (true) {
+            Room room = scheduler.getRoom(roomId);
+            if (room == null) room = frozen.get(roomId);
+            if (room == null) return ClusterProtocol.UNKNOWN_ROOM;
+            
+            // Serialized with commitMove and abortMove: an input is forwarded, answered with MOVED or carried over
+            synchronized (room) {
+                Integer target = movedTo.get(roomId);
+                if (target != null) {
+                    reply.writeInt(target);
+                    return ClusterProtocol.MOVED;
+                }
+                if (room.isClosed() && frozen.get(roomId) != room) {
+                    // Thawed into a new room since the lookup
+                    continue;
+                }
+                room.submitInput(player, input);
+            }
+            return ClusterProtocol.OK;
+        }
+    }
+    
+    private byte exportRoom(int roomId, DataOutputStream reply) throws IOException {
+        Room room = scheduler.getRoom(roomId);
+        if (room == null) return ClusterProtocol.UNKNOWN_ROOM;
+        // Make it reachable as frozen before it leaves the scheduler, so no input misses it
+        frozen.put(roomId, room);
+        scheduler.removeRoom(roomId);
+        room.freeze();
+        
+        GameEngine engine = room.getEngine();
+        byte[] snapshot = EngineSnapshot.capture(engine);
+        reply.writeLong(engine.getContext().getTick());
+        reply.writeLong(StateHasher.hash(engine));
+        writeInputs(reply, room.getHeldInputs());
+        reply.writeInt(snapshot.length);
+        reply.write(snapshot);
+        return ClusterProtocol.OK;
+    }
+    
+    /**
+     * Calls off a move this node exported the room for, unless it was
+     * already committed: the room is ticked here again with the inputs it
+     * held while frozen.
+     */
+    private byte abortMove(int roomId, DataOutputStream reply) throws IOException {
+        Room room = frozen.get(roomId);
+        if (room == null) return ClusterProtocol.UNKNOWN_ROOM;
+        synchronized (room) {
+            if (movedTo.containsKey(roomId)) {
+                reply.writeUTF("Room " + roomId + " has already moved");
+                return ClusterProtocol.ERROR;
+            }
+            // Back on the scheduler before it stops being reachable as frozen, so no input misses it
+            scheduler.resumeRoom(room);
+            frozen.remove(roomId);
+        }
+        return ClusterProtocol.OK;
+    }
+    
+    private byte importRoom(DataInputStream request, DataOutputStream reply) throws IOException {
+        int roomId = request.readInt();
+        int[] inputs = readInputs(request);
+        byte[] snapshot = new byte[request.readInt()];
+        request.readFully(snapshot);
+        
+        GameEngine engine = EngineSnapshot.restore(snapshot);
+        reply.writeLong(engine.getContext().getTick());
+        reply.writeLong(StateHasher.hash(engine));
+        
+        movedTo.remove(roomId);
+        frozen.remove(roomId);
+        Room room = scheduler.addRoom(roomId, engine);
+        for (int i = 0; i < inputs.length; i++) {
+            room.submitInput(i, inputs[i]);
+        }
+        return ClusterProtocol.OK;
+    }
+    
+    private byte commitMove(int roomId, int target, InetSocketAddress address) throws IOException {
+        Room room = frozen.get(roomId);
+        if (room == null) return ClusterProtocol.UNKNOWN_ROOM;
+        
+        ControlConnection peer = peers.get(target);
+        if (peer == null) {
+            peer = new ControlConnection(address);
+            peers.put(target, peer);
+        }
+        synchronized (room) {
+            int[] held = room.getHeldInputs();
+            for (int player = 0; player < held.length; player++) {
+                int p = player;
+                peer.call(ClusterProtocol.INPUT, out -> {
+                    out.writeInt(roomId);
+                    out.writeByte(p);
+                    out.writeByte(held[p]);
+                });
+            }
+            movedTo.put(roomId, target);
+        }
+        return ClusterProtocol.OK;
+    }
+    
+    static void writeInputs(DataOutputStream out, int[] inputs) throws IOException {
+        out.writeInt(inputs.length);
+        for (int input : inputs) {
+            out.writeByte(input);
+        }
+    }
+    
+    static int[] readInputs(DataInputStream in) throws IOException {
+        int[] inputs = new int[in.readInt()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = in.readByte() & 0xFF;
+        }
+        return inputs;
+    }
+    
+    private void sendHeartbeats() {
+        ControlConnection connection = null;
+        while (running) {
+            try {
+                if (connection == null) {
+                    connection = new ControlConnection(directory);
+                }
+                List<RoomStats> stats = scheduler.drainStats();
+                double cpu = 0, lag = 0;
+                for (RoomStats s : stats) {
+                    cpu += s.getCpuShare();
+                    lag += s.getAverageLagMillis();
+                }
+                cpuLoad = cpu;
+                averageLag = stats.isEmpty() ? 0 : lag / stats.size();
+                
+                List<Integer> rooms = hostedRooms();
+                connection.call(ClusterProtocol.HEARTBEAT, out -> {
+                    out.writeInt(nodeId);
+                    out.writeUTF(InetAddress.getLoopbackAddress().getHostAddress());
+                    out.writeInt(getPort());
+                    out.writeInt(rooms.size());
+                    for (int roomId : rooms) {
+                        out.writeInt(roomId);
+                    }
+                    out.writeDouble(cpuLoad);
+                    out.writeDouble(averageLag);
+                });
+            } catch (IOException e) {
+                // Directory unreachable; reconnect on the next beat
+                if (connection != null) connection.close();
+                connection = null;
+            }
+            try {
+                Thread.sleep(GameConstants.CLUSTER_HEARTBEAT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * The rooms this node is responsible for: those it ticks, plus those
+     * frozen for a move that has not been committed yet and may still come
+     * back. Finished rooms are gone from the scheduler, so the directory
+     * learns about them from the next heartbeat.
+     */
+    private List<Integer> hostedRooms() {
+        List<Integer> rooms = new ArrayList<>();
+        for (Room room : scheduler.getRooms()) {
+            rooms.add(room.getRoomId());
+        }
+        for (Integer roomId : frozen.keySet()) {
+            if (!movedTo.containsKey(roomId) && scheduler.getRoom(roomId) == null) {
+                rooms.add(roomId);
+            }
+        }
+        return rooms;
+    }
+    
+    public int getNodeId() { return nodeId; }
+    public int getPort() { return control.getPort(); }
+    public RoomScheduler getScheduler() { return scheduler; }
+    
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (heartbeat != null) heartbeat.interrupt();
+        control.close();
+        for (ControlConnection peer : peers.values()) {
+            peer.close();
+        }
+        scheduler.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.net.SnapshotEncoder;
+import com.tankwar.tankwargame.net.SnapshotFrame;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+
+/**
+ * Broadcasts a room to its spectators.
+ * Each tick the world is encoded once into an immutable frame, held back
+ * for a short delay so spectators cannot feed live positions to players,
+ * and then handed to every spectator as a view over the same bytes.
+ * Encoding cost is per tick, not per viewer.
+ *
+ * Attach with {@code room.addListener(channel)}; all work runs on the
+ * room's tick thread.
+ *
+ * @author Iyed Acheche
+ */
+public class SpectatorChannel implements RoomListener {
+    private final SnapshotEncoder encoder = new SnapshotEncoder();
+    private final SnapshotFrame[] delayRing;
+    private final int keyframeInterval;
+    private final Map<Integer, SpectatorConnection> spectators = new LinkedHashMap<>();
+    private final List<SpectatorConnection> pendingAdds = new ArrayList<>();
+    private final List<Integer> pendingRemovals = new ArrayList<>();
+    private long framesEncoded = 0;
+    private long bytesEncoded = 0;
+    private long lastTick = -1;
+    private int nextSpectatorId = 1;
+    
+    public SpectatorChannel() {
+        this(GameConstants.SPECTATOR_DELAY_TICKS, GameConstants.SPECTATOR_KEYFRAME_INTERVAL);
+    }
+    
+    /**
+     * @param delayTicks how far behind live frames are released; 0 sends each
+     *        frame on the tick it was encoded, which is what players need
+     */
+    public SpectatorChannel(int delayTicks, int keyframeInterval) {
+        this.delayRing = new SnapshotFrame[delayTicks + 1];
+        this.keyframeInterval = keyframeInterval;
+    }
+    
+    /**
+     * Registers a spectator. Safe to call from any thread; the spectator
+     * starts receiving frames from the next tick.
+     */
+    public int addSpectator(SpectatorSink sink) {
+        synchronized (pendingAdds) {
+            SpectatorConnection connection = new SpectatorConnection(nextSpectatorId++, sink);
+            pendingAdds.add(connection);
+            return connection.getSpectatorId();
+        }
+    }
+    
+    public void removeSpectator(int spectatorId) {
+        synchronized (pendingAdds) {
+            pendingRemovals.add(spectatorId);
+        }
+    }
+    
+    @Override
+    public void onTick(Room room) {
+        applyMembershipChanges();
+        
+        long tick = room.getEngine().getContext().getTick();
+        SnapshotFrame frame = encoder.encode(room.getEngine(), tick % keyframeInterval == 0);
+        framesEncoded++;
+        bytesEncoded += frame.size();
+        lastTick = tick;
+        
+        // Store the new frame and release the one from delayTicks ago
+        delayRing[(int) (tick % delayRing.length)] = frame;
+        SnapshotFrame released = delayRing[(int) ((tick + 1) % delayRing.length)];
+        
+        Iterator<SpectatorConnection> it = spectators.values().iterator();
+        while (it.hasNext()) {
+            SpectatorConnection connection = it.next();
+            if (released != null) {
+                connection.offer(released);
+            }
+            connection.flush();
+            if (connection.getMode() == SpectatorConnection.Mode.DROPPED) {
+                it.remove();
+            }
+        }
+    }
+    
+    @Override
+    public void onRoomFinished(Room room) {
+        applyMembershipChanges();
+        
+        // Release the frames still held back, the end of the match among them, before closing
+        for (long tick = lastTick - delayRing.length + 2; tick <= lastTick; tick++) {
+            SnapshotFrame held = tick >= 0 ? delayRing[(int) (tick % delayRing.length)] : null;
+            if (held == null) continue;
+            for (SpectatorConnection connection : spectators.values()) {
+                connection.offer(held);
+            }
+        }
+        for (SpectatorConnection connection : spectators.values()) {
+            connection.flush();
+            connection.drop();
+        }
+        spectators.clear();
+    }
+    
+    private void applyMembershipChanges() {
+        synchronized (pendingAdds) {
+            for (SpectatorConnection connection : pendingAdds) {
+                spectators.put(connection.getSpectatorId(), connection);
+            }
+            pendingAdds.clear();
+            for (Integer id : pendingRemovals) {
+                SpectatorConnection connection = spectators.remove(id);
+                if (connection != null) {
+                    connection.drop();
+                }
+            }
+            pendingRemovals.clear();
+        }
+    }
+    
+    public int getSpectatorCount() { return spectators.size(); }
+    public Collection<SpectatorConnection> getSpectators() { return Collections.unmodifiableCollection(spectators.values()); }
+    public long getFramesEncoded() { return framesEncoded; }
+    public long getBytesEncoded() { return bytesEncoded; }
+}
@@ -0,0 +1,105 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.net.SnapshotFrame;
+import com.tankwar.tankwargame.util.GameConstants;
+import java.util.*;
+
+/**
+ * One spectator's bounded outgoing queue.
+ * A spectator that falls behind is first demoted to keyframes only, with its
+ * backlog discarded. If it still cannot keep up it is dropped. Memory per
+ * spectator is therefore capped no matter how slow the client is.
+ * @author Iyed Acheche
+ */
+public class SpectatorConnection {
+    private static final int KEYFRAME_BACKLOG = 2;
+    
+    
+    public enum Mode {
+        LIVE,
+        KEYFRAMES_ONLY,
+        DROPPED
+    }
+    
+    private final int spectatorId;
+    private final SpectatorSink sink;
+    private final int queueLimit;
+    private final Deque<SnapshotFrame> queue = new ArrayDeque<>();
+    private Mode mode = Mode.LIVE;
+    private long framesSent = 0;
+    private long bytesSent = 0;
+    private int demotions = 0;
+    private long sentAtDemotion = 0;
+    
+    SpectatorConnection(int spectatorId, SpectatorSink sink) {
+        this(spectatorId, sink, GameConstants.SPECTATOR_QUEUE_LIMIT);
+    }
+    
+    SpectatorConnection(int spectatorId, SpectatorSink sink, int queueLimit) {
+        this.spectatorId = spectatorId;
+        this.sink = sink;
+        this.queueLimit = queueLimit;
+    }
+    
+    /**
+     * Queues a frame for this spectator, demoting or dropping it on overflow.
+     */
+    void offer(SnapshotFrame frame) {
+        if (mode == Mode.DROPPED) return;
+        
+        if (mode == Mode.KEYFRAMES_ONLY) {
+            if (!frame.isKeyframe()) return;
+            if (queue.isEmpty() && framesSent > sentAtDemotion) {
+                // Caught up: resume the live stream from this keyframe
+                mode = Mode.LIVE;
+            } else if (queue.size() >= KEYFRAME_BACKLOG) {
+                drop();
+                return;
+            }
+            queue.addLast(frame);
+            return;
+        }
+        
+        if (queue.size() >= queueLimit) {
+            // Too far behind for deltas to be useful: discard the backlog
+            mode = Mode.KEYFRAMES_ONLY;
+            demotions++;
+            sentAtDemotion = framesSent;
+            queue.clear();
+            if (frame.isKeyframe()) {
+                queue.addLast(frame);
+            }
+            return;
+        }
+        queue.addLast(frame);
+    }
+    
+    /**
+     * Writes queued frames until the sink would block.
+     */
+    void flush() {
+        while (mode != Mode.DROPPED && !queue.isEmpty()) {
+            SnapshotFrame frame = queue.peekFirst();
+            if (!sink.write(frame)) {
+                return;
+            }
+            queue.pollFirst();
+            framesSent++;
+            bytesSent += frame.size();
+        }
+    }
+    
+    void drop() {
+        if (mode == Mode.DROPPED) return;
+        mode = Mode.DROPPED;
+        queue.clear();
+        sink.close();
+    }
+    
+    public int getSpectatorId() { return spectatorId; }
+    public Mode getMode() { return mode; }
+    public int getQueuedFrames() { return queue.size(); }
+    public long getFramesSent() { return framesSent; }
+    public long getBytesSent() { return bytesSent; }
+    public int getDemotions() { return demotions; }
+}
@@ -0,0 +1,21 @@
+package com.tankwar.tankwargame.server;
+
+import com.tankwar.tankwargame.net.SnapshotFrame;
+
+/**
+ * Outgoing side of one spectator connection, such as a socket channel.
+ * @author Iyed Acheche
+ */
+public interface SpectatorSink {
+    /**
+     * Attempts a non-blocking write of a whole frame. Implementations send
+     * the bytes of {@link SnapshotFrame#view()} and must not modify them.
+     * @return false if the connection cannot accept the frame right now
+     */
+    boolean write(SnapshotFrame frame);
+    
+    /**
+     * Called once when the server drops the spectator.
+     */
+    default void close() {}
+}
@@ -0,0 +1,19 @@
+package com.tankwar.tankwargame.triggers;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+
+/**
+ * Receives the events of one trigger zone.
+ * @author Iyed Acheche
+ */
+@FunctionalInterface
+public interface TriggerListener {
+    
+    enum Event {
+        ENTER,  // The entity is inside for the first tick
+        STAY,   // The entity was already inside last tick
+        EXIT    // The entity left, died or stopped being tracked
+    }
+    
+    void onTrigger(Event event, TriggerZone zone, GameObject entity);
+}
@@ -0,0 +1,239 @@
+package com.tankwar.tankwargame.triggers;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Trigger zones in a uniform grid, checked against moving entities.
+ * Each zone is listed in every cell its bounds touch. Each tracked entity
+ * keeps the zones listed in the cells it covers, gathered again only when
+ * it crosses into other cells or zones are added, and the zones it is
+ * inside. An entity that has not moved costs one comparison per tick; one
+ * that has is only tested against the zones near it. The cost of a tick
+ * follows movement and occupancy, not zones times entities.
+ *
+ * Events are sent in the order of the entity list, then in the order zones
+ * were added, so the outcome is deterministic. Listeners may add or remove
+ * zones while events are being sent. A removed zone sends no exit events.
+ *
+ * @author Iyed Acheche
+ */
+public class TriggerSystem {
+    private final double cellSize;
+    private final int cols, rows;
+    private final List<List<TriggerZone>> cells;
+    private final Map<GameObject, Tracker> trackers = new IdentityHashMap<>();
+    private final List<Tracker> trackerOrder = new ArrayList<>();
+    private int nextId = 0;
+    private int zoneCount = 0;
+    private int zoneVersion = 0;
+    private int mark = 0;
+    private int tick = 0;
+    private int testsLastUpdate = 0;
+    
+    /**
+     * What the system remembers about one entity.
+     */
+    private static final class Tracker {
+        final GameObject entity;
+        double x = Double.NaN, y = Double.NaN;
+        int c0 = -1, r0, c1, r1;
+        int version = -1;
+        int seenTick;
+        List<TriggerZone> nearby = new ArrayList<>();
+        List<TriggerZone> inside = new ArrayList<>();
+        List<TriggerZone> spare = new ArrayList<>();
+        
+        Tracker(GameObject entity) {
+            this.entity = entity;
+        }
+    }
+    
+    public TriggerSystem(double worldWidth, double worldHeight, double cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(worldWidth / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(worldHeight / cellSize));
+        this.cells = new ArrayList<>(cols * rows);
+        for (int i = 0; i < cols * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+    }
+    
+    /**
+     * Registers a zone. Entities already inside get an enter event on the
+     * next update.
+     */
+    public TriggerZone add(TriggerZone zone) {
+        if (zone.id >= 0) throw new IllegalStateException("Zone already added");
+        zone.id = nextId++;
+        forEachCell(zone.getX(), zone.getY(), zone.getX() + zone.getWidth(), zone.getY() + zone.getHeight(),
+                cell -> cells.get(cell).add(zone));
+        zoneCount++;
+        zoneVersion++;
+        return zone;
+    }
+    
+    /**
+     * Unregisters a zone without exit events. Entities inside forget it on
+     * their next update.
+     */
+    public void remove(TriggerZone zone) {
+        if (zone.id < 0 || zone.removed) return;
+        zone.removed = true;
+        forEachCell(zone.getX(), zone.getY(), zone.getX() + zone.getWidth(), zone.getY() + zone.getHeight(),
+                cell -> cells.get(cell).remove(zone));
+        zoneCount--;
+    }
+    
+    /**
+     * Drops every zone and tracked entity without sending events.
+     */
+    public void clear() {
+        for (List<TriggerZone> cell : cells) {
+            for (TriggerZone zone : cell) {
+                zone.removed = true;
+            }
+            cell.clear();
+        }
+        trackers.clear();
+        trackerOrder.clear();
+        zoneCount = 0;
+        zoneVersion++;
+    }
+    
+    /**
+     * Checks this tick's entities against the zones and sends the events.
+     * Entities that are inactive or missing from the list leave every zone
+     * they were in.
+     */
+    public void update(List<? extends GameObject> entities) {
+        tick++;
+        testsLastUpdate = 0;
+        for (GameObject entity : entities) {
+            if (!entity.isActive()) continue;
+            Tracker tracker = trackers.get(entity);
+            if (tracker == null) {
+                tracker = new Tracker(entity);
+                trackers.put(entity, tracker);
+                trackerOrder.add(tracker);
+            }
+            tracker.seenTick = tick;
+            refresh(tracker);
+        }
+        
+        // Entities not seen this tick have died or left the list
+        for (int i = 0; i < trackerOrder.size(); i++) {
+            Tracker tracker = trackerOrder.get(i);
+            if (tracker.seenTick == tick) continue;
+            for (TriggerZone zone : tracker.inside) {
+                if (!zone.removed) zone.fire(TriggerListener.Event.EXIT, tracker.entity);
+            }
+            tracker.inside.clear();
+            trackers.remove(tracker.entity);
+        }
+        trackerOrder.removeIf(tracker -> tracker.seenTick != tick);
+    }
+    
+    private void refresh(Tracker tracker) {
+        GameObject entity = tracker.entity;
+        double ex = entity.getX(), ey = entity.getY();
+        if (ex == tracker.x && ey == tracker.y && tracker.version == zoneVersion) {
+            // Still where it was: whatever it was inside, it still is
+            for (TriggerZone zone : tracker.inside) {
+                if (!zone.removed) zone.fire(TriggerListener.Event.STAY, entity);
+            }
+            return;
+        }
+        tracker.x = ex;
+        tracker.y = ey;
+        
+        int c0 = column(ex), c1 = column(ex + entity.getWidth());
+        int r0 = row(ey), r1 = row(ey + entity.getHeight());
+        if (c0 != tracker.c0 || r0 != tracker.r0 || c1 != tracker.c1 || r1 != tracker.r1
+                || tracker.version != zoneVersion) {
+            tracker.c0 = c0;
+            tracker.r0 = r0;
+            tracker.c1 = c1;
+            tracker.r1 = r1;
+            tracker.version = zoneVersion;
+            gatherNearby(tracker);
+        }
+        
+        // Both lists are in zone order, so one merge finds the enters, stays and exits
+        List<TriggerZone> before = tracker.inside;
+        List<TriggerZone> after = tracker.spare;
+        after.clear();
+        for (TriggerZone zone : tracker.nearby) {
+            if (zone.removed || !zone.accepts(entity)) continue;
+            testsLastUpdate++;
+            if (zone.contains(entity)) after.add(zone);
+        }
+        tracker.inside = after;
+        tracker.spare = before;
+        
+        int b = 0, a = 0;
+        while (b < before.size() || a < after.size()) {
+            TriggerZone old = b < before.size() ? before.get(b) : null;
+            TriggerZone now = a < after.size() ? after.get(a) : null;
+            if (now == null || (old != null && old.id < now.id)) {
+                if (!old.removed) old.fire(TriggerListener.Event.EXIT, entity);
+                b++;
+            } else if (old == null || now.id < old.id) {
+                if (!now.removed) now.fire(TriggerListener.Event.ENTER, entity);
+                a++;
+            } else {
+                if (!now.removed) now.fire(TriggerListener.Event.STAY, entity);
+                a++;
+                b++;
+            }
+        }
+    }
+    
+    /**
+     * Collects the zones listed in the tracker's cells, once each, in zone order.
+     */
+    private void gatherNearby(Tracker tracker) {
+        List<TriggerZone> nearby = tracker.nearby;
+        nearby.clear();
+        mark++;
+        for (int r = tracker.r0; r <= tracker.r1; r++) {
+            for (int c = tracker.c0; c <= tracker.c1; c++) {
+                for (TriggerZone zone : cells.get(r * cols + c)) {
+                    if (zone.mark != mark) {
+                        zone.mark = mark;
+                        nearby.add(zone);
+                    }
+                }
+            }
+        }
+        if (tracker.r0 != tracker.r1 || tracker.c0 != tracker.c1) {
+            nearby.sort(Comparator.comparingInt(zone -> zone.id));
+        }
+    }
+    
+    private void forEachCell(double minX, double minY, double maxX, double maxY, IntConsumer action) {
+        int c0 = column(minX), c1 = column(maxX);
+        int r0 = row(minY), r1 = row(maxY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                action.accept(r * cols + c);
+            }
+        }
+    }
+    
+    private int column(double px) {
+        return Math.min(cols - 1, Math.max(0, (int) Math.floor(px / cellSize)));
+    }
+    
+    private int row(double py) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(py / cellSize)));
+    }
+    
+    /**
+     * Containment tests run by the last update, for profiling.
+     */
+    public int getTestsLastUpdate() { return testsLastUpdate; }
+    public int getZoneCount() { return zoneCount; }
+    public int getTrackedCount() { return trackerOrder.size(); }
+}
@@ -0,0 +1,91 @@
+package com.tankwar.tankwargame.triggers;
+
+import com.tankwar.tankwargame.entities.base.GameObject;
+import com.tankwar.tankwargame.util.Teams;
+
+/**
+ * An area that reports entities entering, staying in and leaving it.
+ * A rectangle contains an entity whose bounds overlap it, using the same
+ * strict test as GameObject.intersects; a circle contains an entity whose
+ * center lies inside it.
+ *
+ * Entities are filtered like collisions: the zone's mask must take in the
+ * entity's layer, and unless the zone's team is NEUTRAL only entities of
+ * that team set it off.
+ *
+ * Design Patterns: Observer (through TriggerListener)
+ *
+ * @author Iyed Acheche
+ */
+public final class TriggerZone {
+    private final boolean circle;
+    private final double x, y, width, height;
+    private final double centerX, centerY, radiusSquared;
+    private final int mask;
+    private final int team;
+    private final TriggerListener listener;
+    
+    // Set by the TriggerSystem holding the zone
+    int id = -1;
+    boolean removed = false;
+    int mark = 0;
+    
+    private TriggerZone(boolean circle, double x, double y, double width, double height,
+                        int mask, int team, TriggerListener listener) {
+        this.circle = circle;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.centerX = x + width / 2;
+        this.centerY = y + height / 2;
+        this.radiusSquared = width * width / 4;
+        this.mask = mask;
+        this.team = team;
+        this.listener = listener;
+    }
+    
+    public static TriggerZone rectangle(double x, double y, double width, double height,
+                                        int mask, int team, TriggerListener listener) {
+        return new TriggerZone(false, x, y, width, height, mask, team, listener);
+    }
+    
+    public static TriggerZone circle(double centerX, double centerY, double radius,
+                                     int mask, int team, TriggerListener listener) {
+        return new TriggerZone(true, centerX - radius, centerY - radius, radius * 2, radius * 2, mask, team, listener);
+    }
+    
+    /**
+     * A rectangle over an object's current bounds, such as a pickup.
+     */
+    public static TriggerZone around(GameObject object, int mask, int team, TriggerListener listener) {
+        return rectangle(object.getX(), object.getY(), object.getWidth(), object.getHeight(), mask, team, listener);
+    }
+    
+    boolean accepts(GameObject entity) {
+        return (mask & entity.getLayer()) != 0 && (team == Teams.NEUTRAL || team == entity.getTeam());
+    }
+    
+    boolean contains(GameObject entity) {
+        double ex = entity.getX(), ey = entity.getY();
+        if (circle) {
+            double dx = ex + entity.getWidth() / 2.0 - centerX;
+            double dy = ey + entity.getHeight() / 2.0 - centerY;
+            return dx * dx + dy * dy < radiusSquared;
+        }
+        return ex < x + width && ex + entity.getWidth() > x && ey < y + height && ey + entity.getHeight() > y;
+    }
+    
+    void fire(TriggerListener.Event event, GameObject entity) {
+        listener.onTrigger(event, this, entity);
+    }
+    
+    public boolean isCircle() { return circle; }
+    public boolean isRemoved() { return removed; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getWidth() { return width; }
+    public double getHeight() { return height; }
+    public double getCenterX() { return centerX; }
+    public double getCenterY() { return centerY; }
+}
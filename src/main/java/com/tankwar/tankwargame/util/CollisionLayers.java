@@ -0,0 +1,37 @@
+package com.tankwar.tankwargame.util;
+
+/**
+ * Collision layers as bits. Every entity sits on one layer and carries a
+ * mask of the layers it collides with, so whether a pair can interact is a
+ * single AND instead of a chain of type checks. A pair that passes the mask
+ * is then filtered by team: entities of the same team ignore each other,
+ * and neutral entities, such as walls, collide with everyone.
+ *
+ * Masks are read one way: a missile masks in tanks, but a tank does not
+ * need to mask in missiles for the missile to hit it.
+ *
+ * @author Iyed Acheche
+ */
+public final class CollisionLayers {
+    public static final int NONE = 0;
+    public static final int WALL = 1;
+    public static final int DESTRUCTIBLE_WALL = 1 << 1;
+    public static final int TANK = 1 << 2;
+    public static final int MISSILE = 1 << 3;
+    public static final int PICKUP = 1 << 4;
+    public static final int OBJECTIVE = 1 << 5;
+    
+    public static final int SIGHT_BLOCKERS = WALL | DESTRUCTIBLE_WALL;
+    public static final int TANK_MASK = WALL | DESTRUCTIBLE_WALL | TANK | OBJECTIVE;
+    public static final int MISSILE_MASK = WALL | DESTRUCTIBLE_WALL | TANK | MISSILE;
+    
+    private CollisionLayers() {}
+    
+    /**
+     * Whether an entity with the given mask and team collides with one on
+     * the given layer and team.
+     */
+    public static boolean accepts(int mask, int team, int otherLayer, int otherTeam) {
+        return (mask & otherLayer) != 0 && Teams.areHostile(team, otherTeam);
+    }
+}
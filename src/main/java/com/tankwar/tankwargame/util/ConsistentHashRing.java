@@ -0,0 +1,80 @@
+package com.tankwar.tankwargame.util;
+
+import java.util.*;
+
+/**
+ * Consistent hash ring with virtual nodes.
+ * Each member owns several points on a 64-bit ring; a key belongs to the
+ * first member clockwise from its hash. Adding or removing a member only
+ * moves the keys next to its points.
+ * @author Iyed Acheche
+ */
+public class ConsistentHashRing<T> {
+    private final int virtualNodes;
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+    private final Map<T, long[]> points = new HashMap<>();
+    
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+    
+    public synchronized void add(T member, long memberKey) {
+        if (points.containsKey(member)) return;
+        long[] memberPoints = new long[virtualNodes];
+        for (int i = 0; i < virtualNodes; i++) {
+            long point = hash(memberKey * 0x9E3779B97F4A7C15L + i);
+            // Skip the rare collision so every member keeps its point count
+            while (ring.containsKey(point)) point++;
+            ring.put(point, member);
+            memberPoints[i] = point;
+        }
+        points.put(member, memberPoints);
+    }
+    
+    public synchronized void remove(T member) {
+        long[] memberPoints = points.remove(member);
+        if (memberPoints == null) return;
+        for (long point : memberPoints) {
+            ring.remove(point);
+        }
+    }
+    
+    /**
+     * Returns the distinct members in ring order starting at the owner of the key.
+     */
+    public synchronized List<T> successors(long key) {
+        List<T> result = new ArrayList<>(points.size());
+        if (ring.isEmpty()) return result;
+        long start = hash(key);
+        for (T member : ring.tailMap(start, true).values()) {
+            if (!result.contains(member)) result.add(member);
+            if (result.size() == points.size()) return result;
+        }
+        for (T member : ring.headMap(start, false).values()) {
+            if (!result.contains(member)) result.add(member);
+            if (result.size() == points.size()) return result;
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the owner of the key, or null if the ring is empty.
+     */
+    public T owner(long key) {
+        List<T> order = successors(key);
+        return order.isEmpty() ? null : order.get(0);
+    }
+    
+    public synchronized int size() {
+        return points.size();
+    }
+    
+    /**
+     * SplitMix64 finalizer, spreads nearby keys across the ring.
+     */
+    private static long hash(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,42 @@
+package com.tankwar.tankwargame.util;
+
+/**
+ * Small seedable random generator (SplitMix64).
+ * Unlike java.util.Random its whole state is one long that can be read,
+ * hashed and restored, which lockstep and snapshots rely on.
+ * @author Iyed Acheche
+ */
+public class DeterministicRandom {
+    private long state;
+    
+    public DeterministicRandom(long seed) {
+        this.state = seed;
+    }
+    
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Returns a value in [0, bound).
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        return (int) ((nextLong() >>> 33) % bound);
+    }
+    
+    /**
+     * Returns a value in [0, 1), a drop-in for Math.random().
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+    
+    public long getState() { return state; }
+    public void setState(long state) { this.state = state; }
+}
@@ -0,0 +1,46 @@
+package com.tankwar.tankwargame.util;
+
+/**
+ * Packs an entity reference into an int: a slot index plus the slot's
+ * generation. The generation changes every time a slot is freed, so a
+ * handle kept after its entity is gone no longer resolves, even once the
+ * slot holds another entity. Handles are plain values: they can be
+ * written to snapshots, sent over the network and kept across pooling.
+ *
+ * Zero is never a valid handle and stands for "no entity".
+ *
+ * @author Iyed Acheche
+ */
+public final class EntityHandle {
+    public static final int NONE = 0;
+    public static final int INDEX_BITS = 20;
+    public static final int MAX_INDEX = (1 << INDEX_BITS) - 1;
+    public static final int GENERATION_BITS = 32 - INDEX_BITS - 1;  // Keeps handles positive
+    public static final int MAX_GENERATION = (1 << GENERATION_BITS) - 1;
+    
+    private EntityHandle() {}
+    
+    public static int of(int index, int generation) {
+        return (generation << INDEX_BITS) | index;
+    }
+    
+    public static int index(int handle) {
+        return handle & MAX_INDEX;
+    }
+    
+    public static int generation(int handle) {
+        return handle >>> INDEX_BITS;
+    }
+    
+    /**
+     * Returns the generation that follows, wrapping past zero so that no
+     * handle is ever NONE.
+     */
+    public static int nextGeneration(int generation) {
+        return generation == MAX_GENERATION ? 1 : generation + 1;
+    }
+    
+    public static String toString(int handle) {
+        return handle == NONE ? "none" : index(handle) + "v" + generation(handle);
+    }
+}
@@ -36,6 +36,7 @@ public final class GameConstants {
     public static final double MISSILE_SPEED = 4.0;
     
     // Timing constants
+    public static final long TICK_MILLIS = 16;           // Simulation time per tick (~60 Hz)
     public static final long SHOT_COOLDOWN = 400;        // Player shot cooldown (ms)
     public static final long ENEMY_SHOT_COOLDOWN = 800;  // Enemy shot cooldown - slower firing
     public static final long EXPLOSION_FRAME_DELAY = 100;
@@ -64,6 +65,57 @@ public final class GameConstants {
     public static final int LEVEL_BONUS_SCORE = 1000;
     public static final int WIN_BONUS_SCORE = 5000;
     
+    // Network interest management (area of interest around each client's tank)
+    public static final double INTEREST_CELL_SIZE = 160.0;
+    public static final double INTEREST_VIEW_WIDTH = 800.0;
+    public static final double INTEREST_VIEW_HEIGHT = 600.0;
+    public static final double INTEREST_HYSTERESIS = 80.0;   // Extra distance before an entity is dropped
+    
+    // Client-side prediction and remote smoothing
+    public static final int PREDICTION_BUFFER_SIZE = 128;    // Unacknowledged inputs kept (power of two)
+    public static final int INTERPOLATION_BUFFER_SIZE = 32;  // Snapshots kept per remote tank
+    public static final long INTERPOLATION_DELAY_MS = 100;   // Remote tanks are drawn this far in the past
+    
+    // Lockstep
+    public static final int MAX_PLAYERS = 4;
+    public static final int LOCKSTEP_INPUT_DELAY = 3;        // Ticks between sampling input and simulating it
+    public static final int LOCKSTEP_MAX_INPUT_DELAY = 12;
+    public static final int LOCKSTEP_HISTORY = 256;          // Ticks of inputs and hashes kept (power of two)
+    
+    // Room scheduler
+    public static final int ROOM_TICK_RATE = 60;             // Target ticks per second per room
+    public static final int[] ROOM_DEGRADED_TICK_RATES = {60, 30, 20, 15, 10};
+    public static final int ROOM_RATE_CHANGE_TICKS = 30;     // Ticks of sustained lag or slack before changing rate
+    
+    // Spectators
+    public static final int SPECTATOR_DELAY_TICKS = 120;     // Spectators watch two seconds behind to prevent ghosting
+    public static final int SPECTATOR_KEYFRAME_INTERVAL = 30;
+    public static final int SPECTATOR_QUEUE_LIMIT = 32;      // Frames buffered per spectator before it is demoted
+    
+    // Matchmaking
+    public static final long MATCHMAKING_BATCH_MILLIS = 1000;  // Matches are formed once per batch
+    public static final int MAX_RATING = 4000;
+    public static final int RATING_BUCKET_WIDTH = 25;
+    public static final int RATING_WINDOW_BASE = 50;           // Accepted rating difference when first queued
+    public static final int RATING_WINDOW_GROWTH = 20;         // Added per second of waiting
+    public static final int RATING_WINDOW_MAX = 600;
+    
+    // Cluster
+    public static final long CLUSTER_HEARTBEAT_MILLIS = 500;
+    public static final long CLUSTER_NODE_TIMEOUT_MILLIS = 2000;  // Missed heartbeats before a node is considered gone
+    public static final int CLUSTER_VIRTUAL_NODES = 64;           // Ring points per node
+    public static final double CLUSTER_LOAD_FACTOR = 1.25;        // Max rooms on a node relative to the average
+    
+    // Entity storage
+    public static final boolean ENTITY_STORE_ENABLED = true;  // Keep missiles in structure-of-arrays storage
+    public static final int ENTITY_STORE_CAPACITY = 64;        // Initial slots, doubled when full
+    public static final int PARALLEL_MISSILE_THRESHOLD = 1024; // Missiles per tick before hits are searched in parallel
+    public static final int PARALLEL_MISSILE_CHUNK = 256;      // Fewest missiles handed to one worker
+    public static final boolean MISSILE_INTERCEPTION_ENABLED = true;  // Opposing missiles shoot each other down
+    
+    // Trigger volumes
+    public static final double TRIGGER_CELL_SIZE = 80.0;       // Grid cell for pickup, threat and hazard zones
+    
     // UI Constants
     public static final int TOP_BAR_HEIGHT = 45;
     public static final int WINDOW_WIDTH = GAME_WIDTH;
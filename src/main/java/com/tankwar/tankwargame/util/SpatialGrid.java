@@ -0,0 +1,84 @@
+package com.tankwar.tankwargame.util;
+
+import java.util.*;
+
+/**
+ * Uniform grid spatial index.
+ * Items are bucketed by their center point, so insertion is O(1) and a
+ * rectangle query only touches the cells it overlaps. Cell lists are kept
+ * between rebuilds to avoid per-tick allocation.
+ * @author Iyed Acheche
+ */
+public class SpatialGrid<T> {
+    private final double cellSize;
+    private final int cols, rows;
+    private final List<List<T>> cells;
+    private final int[] occupied;
+    private int occupiedCount = 0;
+    private int size = 0;
+    
+    public SpatialGrid(double worldWidth, double worldHeight, double cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(worldWidth / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(worldHeight / cellSize));
+        this.cells = new ArrayList<>(cols * rows);
+        for (int i = 0; i < cols * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+        this.occupied = new int[cols * rows];
+    }
+    
+    /**
+     * Removes all items but keeps the cell storage for reuse.
+     * Only cells that were filled are touched, so the cost follows the
+     * item count rather than the world size.
+     */
+    public void clear() {
+        for (int i = 0; i < occupiedCount; i++) {
+            cells.get(occupied[i]).clear();
+        }
+        occupiedCount = 0;
+        size = 0;
+    }
+    
+    public void insert(T item, double centerX, double centerY) {
+        int index = cellIndex(centerX, centerY);
+        List<T> cell = cells.get(index);
+        if (cell.isEmpty()) {
+            occupied[occupiedCount++] = index;
+        }
+        cell.add(item);
+        size++;
+    }
+    
+    /**
+     * Adds every item whose center lies in a cell overlapping the rectangle.
+     * Callers do the exact bounds test; this is only a broadphase.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<T> out) {
+        int c0 = clampCol(minX), c1 = clampCol(maxX);
+        int r0 = clampRow(minY), r1 = clampRow(maxY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                out.addAll(cells.get(r * cols + c));
+            }
+        }
+    }
+    
+    private int cellIndex(double x, double y) {
+        return clampRow(y) * cols + clampCol(x);
+    }
+    
+    private int clampCol(double x) {
+        return Math.min(cols - 1, Math.max(0, (int) Math.floor(x / cellSize)));
+    }
+    
+    private int clampRow(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellSize)));
+    }
+    
+    public int size() { return size; }
+    public double getCellSize() { return cellSize; }
+    public int getCols() { return cols; }
+    public int getRows() { return rows; }
+}
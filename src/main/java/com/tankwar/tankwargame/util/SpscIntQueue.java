@@ -0,0 +1,58 @@
+package com.tankwar.tankwargame.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Bounded lock-free queue of ints for exactly one producer thread and one
+ * consumer thread. Values live in a power-of-two ring; each side only
+ * writes its own counter, with an ordered store, so offer and drain never
+ * block or allocate.
+ * @author Iyed Acheche
+ */
+public final class SpscIntQueue {
+    private final int[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();  // Next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong();  // Next slot to write, written by the producer
+    
+    public SpscIntQueue(int capacity) {
+        int size = 2;
+        while (size < capacity) size <<= 1;
+        this.ring = new int[size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Adds a value. Producer thread only.
+     * @return false if the queue is full
+     */
+    public boolean offer(int value) {
+        long t = tail.get();
+        if (t - head.get() == ring.length) {
+            return false;
+        }
+        ring[(int) t & mask] = value;
+        tail.lazySet(t + 1);
+        return true;
+    }
+    
+    /**
+     * Passes every queued value to the consumer, oldest first. Consumer
+     * thread only.
+     * @return the number of values taken
+     */
+    public int drain(IntConsumer consumer) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            consumer.accept(ring[(int) i & mask]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+    
+    public int capacity() {
+        return ring.length;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tankwar.tankwargame.util;
+
+/**
+ * Team ids. A team is any int; entities on the same team do not hurt or
+ * stop each other, and NEUTRAL is nobody's ally.
+ *
+ * By default the enemy tanks form one team and every player is on a team
+ * of their own, so players can still hit each other as before. Putting
+ * players on shared teams gives team deathmatch; putting every tank on its
+ * own team gives free-for-all.
+ *
+ * @author Iyed Acheche
+ */
+public final class Teams {
+    public static final int NEUTRAL = 0;
+    public static final int ENEMIES = 1;
+    public static final int FIRST_PLAYER = 2;
+    
+    private Teams() {}
+    
+    /**
+     * The team a player is on unless the match assigns another.
+     */
+    public static int player(int index) {
+        return FIRST_PLAYER + index;
+    }
+    
+    public static boolean areHostile(int team, int otherTeam) {
+        return team == NEUTRAL || team != otherTeam;
+    }
+}
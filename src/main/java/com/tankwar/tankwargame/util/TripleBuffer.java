@@ -0,0 +1,64 @@
+package com.tankwar.tankwargame.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free triple buffer between one producer and one consumer.
+ * The producer fills its back buffer and publishes it; the consumer takes
+ * the most recently published buffer. The third buffer sits in between, so
+ * neither side ever waits for the other and a buffer is never written while
+ * it is being read. Buffers are reused, so nothing is allocated per swap.
+ * @author Iyed Acheche
+ */
+public final class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;  // Set on the middle index when it holds an unread publish
+    
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;   // Producer only
+    private int front = 2;  // Consumer only
+    
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = factory.get();
+        }
+    }
+    
+    /**
+     * The buffer the producer may write. Valid until the next publish.
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) buffers[back];
+    }
+    
+    /**
+     * Hands the back buffer to the consumer and takes the middle one as the
+     * new back buffer. A publish the consumer never saw is overwritten.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+    
+    /**
+     * The latest published buffer, swapped in if a newer one is waiting.
+     * Valid until the next call.
+     */
+    @SuppressWarnings("unchecked")
+    public T front() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) buffers[front];
+    }
+    
+    /**
+     * The buffer last returned by front(), without checking for a newer one.
+     */
+    @SuppressWarnings("unchecked")
+    public T current() {
+        return (T) buffers[front];
+    }
+}
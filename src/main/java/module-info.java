@@ -1,6 +1,10 @@
 module com.tankwar.tankwargame {
     requires javafx.controls;
     requires javafx.graphics;
+    requires java.management;
+    requires jdk.management;
+    // Optional: only resolved when started with --add-modules jdk.incubator.vector
+    requires static jdk.incubator.vector;
     
     // Export all packages
     exports com.tankwar.tankwargame.core;
@@ -11,8 +15,14 @@ module com.tankwar.tankwargame {
     exports com.tankwar.tankwargame.entities.environment;
     exports com.tankwar.tankwargame.entities.pickups;
     exports com.tankwar.tankwargame.entities.effects;
+    exports com.tankwar.tankwargame.animation;
+    exports com.tankwar.tankwargame.assets;
+    exports com.tankwar.tankwargame.render;
     exports com.tankwar.tankwargame.ai;
     exports com.tankwar.tankwargame.events;
     exports com.tankwar.tankwargame.factory;
     exports com.tankwar.tankwargame.map;
+    exports com.tankwar.tankwargame.net;
+    exports com.tankwar.tankwargame.server;
+    exports com.tankwar.tankwargame.triggers;
 }